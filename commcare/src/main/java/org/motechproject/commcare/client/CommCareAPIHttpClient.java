@@ -1,17 +1,14 @@
 package org.motechproject.commcare.client;
 
-import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.HttpStatus;
-import org.apache.commons.httpclient.UsernamePasswordCredentials;
-import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.PutMethod;
 import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringUtils;
 import org.apache.http.client.utils.URIBuilder;
 import org.motechproject.commcare.config.AccountConfig;
 import org.motechproject.commcare.exception.CommcareAuthenticationException;
@@ -31,10 +28,13 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.zip.GZIPInputStream;
 import java.net.URISyntaxException;
 
 /**
  * A Commcare REST API client. Responsible for sending requests to the Commcare server and fetching data from it.
+ * Requests are executed using the pooled client of their account, taken from {@link CommcareHttpClients}, so requests
+ * for different accounts can run in parallel.
  */
 @Component
 public class CommCareAPIHttpClient {
@@ -42,12 +42,13 @@ public class CommCareAPIHttpClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(CommCareAPIHttpClient.class);
 
     private static final String API_VERSION = "0.5";
+    private static final String GZIP = "gzip";
 
-    private HttpClient commonsHttpClient;
+    private CommcareHttpClients httpClients;
 
     @Autowired
-    public CommCareAPIHttpClient(final HttpClient commonsHttpClient) {
-        this.commonsHttpClient = commonsHttpClient;
+    public CommCareAPIHttpClient(final CommcareHttpClients httpClients) {
+        this.httpClients = httpClients;
     }
 
     /**
@@ -150,6 +151,21 @@ public class CommCareAPIHttpClient {
         return this.getRequest(accountConfig, commcareFormListUrl(accountConfig, formListRequest), null);
     }
 
+    /**
+     * Executes a HTTP get request to the form list API endpoint, passing the response body to the given reader as it
+     * is received.
+     *
+     * @param accountConfig the account configuration to use
+     * @param formListRequest the request that will be used for creating the HTTP request
+     * @param reader the reader for the response body (JSON expected)
+     * @param <T> the type of the value read from the response
+     * @return the value returned by the reader, null if the request failed
+     */
+    public <T> T formListRequest(AccountConfig accountConfig, FormListRequest formListRequest,
+                                 ResponseBodyReader<T> reader) {
+        return this.getRequest(accountConfig, commcareFormListUrl(accountConfig, formListRequest), null, reader);
+    }
+
     /**
       * Executes a HTTP get request to the reports list API endpoint.
       *
@@ -285,9 +301,7 @@ public class CommCareAPIHttpClient {
     public boolean verifyConnection(AccountConfig accountConfig) {
         HttpMethod getMethod = new GetMethod(commcareCasesUrl(accountConfig.getBaseUrl(), accountConfig.getDomain()));
 
-        authenticate(accountConfig);
-
-        int status = executeMethod(getMethod);
+        int status = executeMethod(accountConfig, getMethod);
 
         if (status == HttpStatus.SC_OK) {
             LOGGER.info("Connection to Commcare verified");
@@ -313,16 +327,14 @@ public class CommCareAPIHttpClient {
 
         postMethod.setRequestEntity(stringEntity);
 
-        authenticate(accountConfig);
-
-        return executeMethod(postMethod);
+        return executeMethod(accountConfig, postMethod);
     }
 
-    private int executeMethod(HttpMethod httpMethod) {
+    private int executeMethod(AccountConfig accountConfig, HttpMethod httpMethod) {
         int status = 0;
 
         try {
-            status = commonsHttpClient.executeMethod(httpMethod);
+            status = httpClients.getClient(accountConfig).executeMethod(httpMethod);
         } catch (HttpException e) {
             LOGGER.warn("HttpException while sending request to CommCareHQ: " + e.getMessage());
         } catch (IOException e) {
@@ -349,15 +361,13 @@ public class CommCareAPIHttpClient {
 
         putMethod.setRequestEntity(stringEntity);
 
-        authenticate(accountConfig);
-
-        return executeMethod(putMethod);
+        return executeMethod(accountConfig, putMethod);
     }
 
-    private HttpMethod buildRequest(AccountConfig accountConfig, String url, Request request) {
+    private HttpMethod buildRequest(String url, Request request) {
         HttpMethod requestMethod = new GetMethod(url);
 
-        authenticate(accountConfig);
+        requestMethod.setRequestHeader("Accept-Encoding", GZIP);
         if (request != null) {
             requestMethod.setQueryString(request.toQueryString());
         }
@@ -365,23 +375,34 @@ public class CommCareAPIHttpClient {
         return requestMethod;
     }
 
-    private String getRequest(AccountConfig accountConfig, String requestUrl, Request request) {
+    private String getRequest(AccountConfig accountConfig, final String requestUrl, Request request) {
+        return getRequest(accountConfig, requestUrl, request, new ResponseBodyReader<String>() {
+            @Override
+            public String read(InputStream body) throws IOException {
+                String responseBody = IOUtils.toString(body);
+                LOGGER.trace("{} request response body: {}", requestUrl, responseBody);
+                return responseBody;
+            }
+        });
+    }
+
+    private <T> T getRequest(AccountConfig accountConfig, String requestUrl, Request request,
+                             ResponseBodyReader<T> reader) {
 
-        HttpMethod getMethod = buildRequest(accountConfig, requestUrl, request);
+        HttpMethod getMethod = buildRequest(requestUrl, request);
 
         try {
             LOGGER.debug("Sending GET request {}", requestUrl);
-            commonsHttpClient.executeMethod(getMethod);
+            httpClients.getClient(accountConfig).executeMethod(getMethod);
 
             LOGGER.debug("{} request response status: {}", requestUrl, getMethod.getStatusCode());
             switch (getMethod.getStatusCode()) {
                 case HttpStatus.SC_UNAUTHORIZED:
                     throw new CommcareAuthenticationException();
                 default:
-                    InputStream responseBodyAsStream = getMethod.getResponseBodyAsStream();
-                    String responseBody =  IOUtils.toString(responseBodyAsStream);
-                    LOGGER.trace("{} request response body: {}", requestUrl, responseBody);
-                    return responseBody;
+                    try (InputStream responseBodyAsStream = responseBody(getMethod)) {
+                        return reader.read(responseBodyAsStream);
+                    }
             }
         } catch (HttpException e) {
             LOGGER.warn("HttpException while sending request to CommCare: " + e.getMessage());
@@ -394,26 +415,14 @@ public class CommCareAPIHttpClient {
         return null;
     }
 
-    private void authenticate(AccountConfig accountConfig) {
-
-        UsernamePasswordCredentials oldCredentials = (UsernamePasswordCredentials) commonsHttpClient.getState().getCredentials(AuthScope.ANY);
-
-        if (credentialsChanged(oldCredentials, accountConfig)) {
-            commonsHttpClient.getState().clear();
-
-            commonsHttpClient.getParams().setAuthenticationPreemptive(true);
+    private InputStream responseBody(HttpMethod httpMethod) throws IOException {
+        InputStream body = httpMethod.getResponseBodyAsStream();
+        Header contentEncoding = httpMethod.getResponseHeader("Content-Encoding");
 
-            commonsHttpClient.getState().setCredentials(
-                    AuthScope.ANY,
-                    new UsernamePasswordCredentials(accountConfig.getUsername(), accountConfig.getPassword()));
+        if (body != null && contentEncoding != null && GZIP.equalsIgnoreCase(contentEncoding.getValue().trim())) {
+            return new GZIPInputStream(body);
         }
-    }
-
-    private boolean credentialsChanged(UsernamePasswordCredentials oldCredentials, AccountConfig newCredentials) {
-
-        return oldCredentials == null
-                || !StringUtils.equals(oldCredentials.getUserName(), newCredentials.getUsername())
-                || !StringUtils.equals(oldCredentials.getPassword(), newCredentials.getPassword());
+        return body;
     }
 
     private OpenRosaResponse postRequest(AccountConfig accountConfig, String requestUrl, String body)
@@ -432,19 +441,19 @@ public class CommCareAPIHttpClient {
 
         postMethod.setRequestEntity(stringEntity);
 
-        authenticate(accountConfig);
-
         String response = "";
 
         int status = 0;
 
         try {
-            status = commonsHttpClient.executeMethod(postMethod);
+            status = httpClients.getClient(accountConfig).executeMethod(postMethod);
             response = postMethod.getResponseBodyAsString();
         } catch (HttpException e) {
             LOGGER.warn("HttpException while posting case xml to CommCareHQ: " + e.getMessage());
         } catch (IOException e) {
             LOGGER.warn("IOException while posting case xml to CommcareHQ: " + e.getMessage());
+        } finally {
+            postMethod.releaseConnection();
         }
 
         OpenRosaResponseParser responseParser = new OpenRosaResponseParser();
@@ -0,0 +1,188 @@
+package org.motechproject.commcare.client;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.UsernamePasswordCredentials;
+import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.lang.StringUtils;
+import org.motechproject.commcare.config.AccountConfig;
+import org.motechproject.config.SettingsFacade;
+import org.motechproject.modules.commons.http.CommonsHttpPooledClient;
+import org.motechproject.modules.commons.http.ConnectionSettings;
+import org.motechproject.modules.commons.http.PooledClient;
+import org.motechproject.modules.commons.http.PooledClientRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Objects;
+
+/**
+ * Keeps a separate, connection-pooled {@link HttpClient} for every CommCare account. Each client has its own HTTP state
+ * holding only the credentials of its account, scoped to the host of the account's server and sent pre-emptively.
+ * Requests for different accounts therefore never share credentials nor compete for connections, and can run in
+ * parallel. A client is rebuilt when the password of its account or the connection settings from
+ * commcare.properties change.
+ * <p>
+ * Clients are keyed by account rather than by configuration, so a client which was not asked for during the unused
+ * client timeout - for instance because its configuration was deleted or now points to another account - is retired,
+ * and rebuilt if it is needed again.
+ */
+@Component
+public class CommcareHttpClients extends PooledClientRegistry<String, CommcareHttpClients.ClientSettings, HttpClient> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommcareHttpClients.class);
+
+    static final String MAX_CONNECTIONS_PER_ROUTE = "httpMaxConnectionsPerRoute";
+    static final String MAX_TOTAL_CONNECTIONS = "httpMaxTotalConnections";
+    static final String CONNECT_TIMEOUT = "httpConnectTimeout";
+    static final String READ_TIMEOUT = "httpReadTimeout";
+    static final String IDLE_CONNECTION_TIMEOUT = "httpIdleConnectionTimeout";
+    static final String UNUSED_CLIENT_TIMEOUT = "httpUnusedClientTimeout";
+
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+    private static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 20;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    private static final int DEFAULT_READ_TIMEOUT = 120000;
+    private static final int DEFAULT_IDLE_CONNECTION_TIMEOUT = 60000;
+    private static final int DEFAULT_UNUSED_CLIENT_TIMEOUT = 600000;
+    private static final long IDLE_CHECK_INTERVAL = 5000;
+
+    private SettingsFacade settingsFacade;
+
+    public CommcareHttpClients() {
+        super("commcare");
+    }
+
+    @PostConstruct
+    public void start() {
+        start(IDLE_CHECK_INTERVAL);
+    }
+
+    @PreDestroy
+    @Override
+    public void stop() {
+        super.stop();
+    }
+
+    /**
+     * Returns the client for the given account, creating it if needed.
+     *
+     * @param accountConfig  the CommCare account information
+     * @return the client which should be used for talking to the CommCare server of the account
+     */
+    public HttpClient getClient(AccountConfig accountConfig) {
+        return getClient(keyFor(accountConfig), settingsFor(accountConfig));
+    }
+
+    /**
+     * Retires the clients which were not asked for during the unused client timeout.
+     */
+    void retireUnused() {
+        retireUnused(getInt(UNUSED_CLIENT_TIMEOUT, DEFAULT_UNUSED_CLIENT_TIMEOUT));
+    }
+
+    @Override
+    protected void check() {
+        retireUnused();
+        super.check();
+    }
+
+    @Override
+    protected PooledClient<HttpClient> createClient(String key, ClientSettings settings) {
+        AccountConfig accountConfig = settings.accountConfig;
+        CommonsHttpPooledClient client = new CommonsHttpPooledClient(settings.connectionSettings);
+        client.getClient().getState().setCredentials(authScope(accountConfig.getBaseUrl()),
+                new UsernamePasswordCredentials(accountConfig.getUsername(), accountConfig.getPassword()));
+
+        LOGGER.info("Created HTTP client for CommCare domain {} at {} as {}", accountConfig.getDomain(),
+                accountConfig.getBaseUrl(), accountConfig.getUsername());
+
+        return client;
+    }
+
+    private ClientSettings settingsFor(AccountConfig accountConfig) {
+        return new ClientSettings(accountConfig, new ConnectionSettings(
+                getInt(MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_PER_ROUTE),
+                getInt(MAX_TOTAL_CONNECTIONS, DEFAULT_MAX_TOTAL_CONNECTIONS),
+                getInt(CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT),
+                getInt(READ_TIMEOUT, DEFAULT_READ_TIMEOUT),
+                getInt(IDLE_CONNECTION_TIMEOUT, DEFAULT_IDLE_CONNECTION_TIMEOUT)));
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = settingsFacade.getProperty(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid value {} for {}, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    static String keyFor(AccountConfig accountConfig) {
+        return StringUtils.removeEnd(accountConfig.getBaseUrl(), "/") + '/' + accountConfig.getDomain() + '|' +
+                accountConfig.getUsername();
+    }
+
+    static AuthScope authScope(String baseUrl) {
+        try {
+            URI uri = new URI(baseUrl);
+            if (uri.getHost() != null) {
+                return new AuthScope(uri.getHost(), uri.getPort());
+            }
+        } catch (URISyntaxException e) {
+            LOGGER.warn("Unable to parse CommCare base URL {}, credentials will not be restricted to its host",
+                    baseUrl);
+        }
+        return AuthScope.ANY;
+    }
+
+    @Autowired
+    @Qualifier("commcareAPISettings")
+    public void setSettingsFacade(SettingsFacade settingsFacade) {
+        this.settingsFacade = settingsFacade;
+    }
+
+    /**
+     * The settings a client is created with. The account itself is the key of the client, so only its password is
+     * compared.
+     */
+    static final class ClientSettings {
+
+        private final AccountConfig accountConfig;
+        private final String password;
+        private final ConnectionSettings connectionSettings;
+
+        private ClientSettings(AccountConfig accountConfig, ConnectionSettings connectionSettings) {
+            this.accountConfig = accountConfig;
+            this.password = accountConfig.getPassword();
+            this.connectionSettings = connectionSettings;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClientSettings)) {
+                return false;
+            }
+            ClientSettings other = (ClientSettings) o;
+            return StringUtils.equals(password, other.password) && connectionSettings.equals(other.connectionSettings);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(password, connectionSettings);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.motechproject.commcare.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the body of a response from the Commcare server while it is being received, so that large responses do not
+ * have to be buffered in memory as a whole.
+ *
+ * @param <T> the type of the value read from the response
+ */
+public interface ResponseBodyReader<T> {
+
+    /**
+     * Reads the response body. The stream is closed by the caller.
+     *
+     * @param body the stream of the response body
+     * @return the value read from the body
+     * @throws IOException if reading the body fails
+     */
+    T read(InputStream body) throws IOException;
+}
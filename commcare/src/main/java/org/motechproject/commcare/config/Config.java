@@ -23,6 +23,7 @@ public class Config {
     private boolean forwardForms;
     private boolean forwardStubs;
     private boolean forwardSchema;
+    private boolean cacheCases;
 
     public String getEventStrategy() {
         return eventStrategy;
@@ -64,6 +65,21 @@ public class Config {
         this.forwardSchema = forwardSchema;
     }
 
+    /**
+     * Checks whether a local copy of the cases of this configuration should be kept. If so, the cases are synchronized
+     * incrementally from the CommCare server and updated with the forwarded cases, and case lookups are served from
+     * the local copy.
+     *
+     * @return true if cases should be kept locally, false otherwise
+     */
+    public boolean isCacheCases() {
+        return cacheCases;
+    }
+
+    public void setCacheCases(boolean cacheCases) {
+        this.cacheCases = cacheCases;
+    }
+
     public String getName() {
         return name;
     }
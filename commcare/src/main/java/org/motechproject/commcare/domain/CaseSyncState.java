@@ -0,0 +1,84 @@
+package org.motechproject.commcare.domain;
+
+import org.joda.time.DateTime;
+import org.motechproject.mds.annotations.Access;
+import org.motechproject.mds.annotations.CrudEvents;
+import org.motechproject.mds.annotations.Entity;
+import org.motechproject.mds.annotations.Field;
+import org.motechproject.mds.event.CrudEventType;
+import org.motechproject.mds.util.SecurityMode;
+
+import javax.jdo.annotations.Unique;
+
+/**
+ * The state of the local case store of a single configuration. The server modification date of the most recently
+ * modified case marks the point from which the next synchronization pulls changed cases. The store is complete once
+ * the first synchronization has finished.
+ */
+@Entity(name = "Case Sync State")
+@CrudEvents(CrudEventType.NONE)
+@Access(value = SecurityMode.PERMISSIONS, members = {"manageCommcare"})
+public class CaseSyncState {
+
+    @Field(required = true, displayName = "Configuration Name")
+    @Unique
+    private String configName;
+
+    @Field(displayName = "Last Server Date Modified")
+    private String lastServerDateModified;
+
+    @Field(displayName = "Last Sync")
+    private DateTime lastSync;
+
+    @Field(displayName = "Cases Synchronized")
+    private long casesSynchronized;
+
+    public CaseSyncState() {
+        this(null);
+    }
+
+    public CaseSyncState(String configName) {
+        this.configName = configName;
+    }
+
+    /**
+     * Checks whether the first, full synchronization of the store has finished.
+     *
+     * @return true if the store holds all cases of the configuration, false otherwise
+     */
+    public boolean isComplete() {
+        return lastSync != null;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public void setConfigName(String configName) {
+        this.configName = configName;
+    }
+
+    public String getLastServerDateModified() {
+        return lastServerDateModified;
+    }
+
+    public void setLastServerDateModified(String lastServerDateModified) {
+        this.lastServerDateModified = lastServerDateModified;
+    }
+
+    public DateTime getLastSync() {
+        return lastSync;
+    }
+
+    public void setLastSync(DateTime lastSync) {
+        this.lastSync = lastSync;
+    }
+
+    public long getCasesSynchronized() {
+        return casesSynchronized;
+    }
+
+    public void setCasesSynchronized(long casesSynchronized) {
+        this.casesSynchronized = casesSynchronized;
+    }
+}
@@ -0,0 +1,127 @@
+package org.motechproject.commcare.domain;
+
+import org.joda.time.DateTime;
+import org.motechproject.mds.annotations.Access;
+import org.motechproject.mds.annotations.CrudEvents;
+import org.motechproject.mds.annotations.Entity;
+import org.motechproject.mds.annotations.Field;
+import org.motechproject.mds.event.CrudEventType;
+import org.motechproject.mds.util.SecurityMode;
+
+import javax.jdo.annotations.Unique;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The progress of a historical form import for a single configuration. Forms are imported in ascending order of
+ * their received_on date, so the last imported form marks the point from which an interrupted import with the same
+ * date range is continued. Since several forms can share a received_on date, the IDs of all imported forms received
+ * on the last date are kept as well, so that none of them is imported again.
+ */
+@Entity(name = "Form Import Checkpoint")
+@CrudEvents(CrudEventType.NONE)
+@Access(value = SecurityMode.PERMISSIONS, members = {"manageCommcare"})
+public class FormImportCheckpoint {
+
+    @Field(required = true, displayName = "Configuration Name")
+    @Unique
+    private String configName;
+
+    @Field(displayName = "Range Start")
+    private DateTime rangeStart;
+
+    @Field(displayName = "Range End")
+    private DateTime rangeEnd;
+
+    @Field(displayName = "Last Form Id")
+    private String lastFormId;
+
+    @Field(displayName = "Last Received On")
+    private String lastReceivedOn;
+
+    @Field(displayName = "Last Received On Form Ids")
+    private List<String> lastReceivedOnFormIds = new ArrayList<>();
+
+    @Field(displayName = "Forms Imported")
+    private int formsImported;
+
+    public FormImportCheckpoint() {
+        this(null, null, null);
+    }
+
+    public FormImportCheckpoint(String configName, DateTime rangeStart, DateTime rangeEnd) {
+        this.configName = configName;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+    }
+
+    /**
+     * Checks whether this checkpoint was saved by an import of the given date range.
+     * @param start the start of the range, may be null
+     * @param end the end of the range, may be null
+     * @return true if the range is the same, false otherwise
+     */
+    public boolean isForRange(DateTime start, DateTime end) {
+        return sameInstant(rangeStart, start) && sameInstant(rangeEnd, end);
+    }
+
+    private static boolean sameInstant(DateTime first, DateTime second) {
+        return first == null ? second == null : second != null && first.isEqual(second);
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public void setConfigName(String configName) {
+        this.configName = configName;
+    }
+
+    public DateTime getRangeStart() {
+        return rangeStart;
+    }
+
+    public void setRangeStart(DateTime rangeStart) {
+        this.rangeStart = rangeStart;
+    }
+
+    public DateTime getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public void setRangeEnd(DateTime rangeEnd) {
+        this.rangeEnd = rangeEnd;
+    }
+
+    public String getLastFormId() {
+        return lastFormId;
+    }
+
+    public void setLastFormId(String lastFormId) {
+        this.lastFormId = lastFormId;
+    }
+
+    public String getLastReceivedOn() {
+        return lastReceivedOn;
+    }
+
+    public void setLastReceivedOn(String lastReceivedOn) {
+        this.lastReceivedOn = lastReceivedOn;
+    }
+
+    public List<String> getLastReceivedOnFormIds() {
+        return lastReceivedOnFormIds;
+    }
+
+    public void setLastReceivedOnFormIds(List<String> lastReceivedOnFormIds) {
+        this.lastReceivedOnFormIds = lastReceivedOnFormIds;
+    }
+
+    public int getFormsImported() {
+        return formsImported;
+    }
+
+    public void setFormsImported(int formsImported) {
+        this.formsImported = formsImported;
+    }
+}
@@ -0,0 +1,298 @@
+package org.motechproject.commcare.domain;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.motechproject.mds.annotations.Access;
+import org.motechproject.mds.annotations.CrudEvents;
+import org.motechproject.mds.annotations.Entity;
+import org.motechproject.mds.annotations.Field;
+import org.motechproject.mds.event.CrudEventType;
+import org.motechproject.mds.util.SecurityMode;
+
+import javax.jdo.annotations.Index;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The local copy of a single CommCareHQ case, kept for configurations with case caching enabled. The case properties,
+ * indices and form IDs are stored as JSON. The fields used for lookups are indexed.
+ */
+@Entity(name = "Local Commcare Case")
+@CrudEvents(CrudEventType.NONE)
+@Access(value = SecurityMode.PERMISSIONS, members = {"manageCommcare"})
+public class LocalCase {
+
+    private static final Gson GSON = new Gson();
+    private static final Type FIELD_VALUES_TYPE = new TypeToken<Map<String, String>>() { } .getType();
+    private static final Type INDICES_TYPE = new TypeToken<Map<String, Map<String, String>>>() { } .getType();
+    private static final Type XFORM_IDS_TYPE = new TypeToken<List<String>>() { } .getType();
+
+    @Field(required = true, displayName = "Configuration Name")
+    @Index
+    private String configName;
+
+    @Field(required = true, displayName = "Case Id")
+    @Index
+    private String caseId;
+
+    @Field(displayName = "Case Type")
+    @Index
+    private String caseType;
+
+    @Field(displayName = "Owner Id")
+    @Index
+    private String ownerId;
+
+    @Field(displayName = "User Id")
+    @Index
+    private String userId;
+
+    @Field(displayName = "Case Name")
+    private String caseName;
+
+    @Field(displayName = "Date Opened")
+    private String dateOpened;
+
+    @Field(displayName = "Date Closed")
+    private String dateClosed;
+
+    @Field(displayName = "Closed")
+    private boolean closed;
+
+    @Field(displayName = "Domain")
+    private String domain;
+
+    @Field(displayName = "Version")
+    private String version;
+
+    @Field(displayName = "Server Date Opened")
+    private String serverDateOpened;
+
+    @Field(displayName = "Server Date Modified")
+    private String serverDateModified;
+
+    @Field(displayName = "Field Values", type = "text")
+    private String fieldValuesJson;
+
+    @Field(displayName = "Indices", type = "text")
+    private String indicesJson;
+
+    @Field(displayName = "Form Ids", type = "text")
+    private String xformIdsJson;
+
+    public LocalCase() {
+        this(null, null);
+    }
+
+    public LocalCase(String configName, String caseId) {
+        this.configName = configName;
+        this.caseId = caseId;
+    }
+
+    /**
+     * Creates the local copy of the given case.
+     *
+     * @param configName  the name of the configuration the case belongs to
+     * @param caseInfo  the case retrieved from the CommCare server
+     * @return the local copy of the case
+     */
+    public static LocalCase fromCaseInfo(String configName, CaseInfo caseInfo) {
+        LocalCase localCase = new LocalCase(configName, caseInfo.getCaseId());
+        localCase.update(caseInfo);
+        return localCase;
+    }
+
+    /**
+     * Replaces the data of this copy with the data of the given case.
+     *
+     * @param caseInfo  the case retrieved from the CommCare server
+     */
+    public void update(CaseInfo caseInfo) {
+        caseType = caseInfo.getCaseType();
+        ownerId = caseInfo.getOwnerId();
+        userId = caseInfo.getUserId();
+        caseName = caseInfo.getCaseName();
+        dateOpened = caseInfo.getDateOpened();
+        dateClosed = caseInfo.getDateClosed();
+        closed = caseInfo.isClosed();
+        domain = caseInfo.getDomain();
+        version = caseInfo.getVersion();
+        serverDateOpened = caseInfo.getServerDateOpened();
+        serverDateModified = caseInfo.getServerDateModified();
+        setFieldValues(caseInfo.getFieldValues());
+        indicesJson = caseInfo.getIndices() == null ? null : GSON.toJson(caseInfo.getIndices(), INDICES_TYPE);
+        xformIdsJson = caseInfo.getXformIds() == null ? null : GSON.toJson(caseInfo.getXformIds(), XFORM_IDS_TYPE);
+    }
+
+    /**
+     * Builds the case represented by this copy.
+     *
+     * @return the case
+     */
+    public CaseInfo toCaseInfo() {
+        CaseInfo caseInfo = new CaseInfo();
+        caseInfo.setCaseId(caseId);
+        caseInfo.setCaseType(caseType);
+        caseInfo.setOwnerId(ownerId);
+        caseInfo.setUserId(userId);
+        caseInfo.setCaseName(caseName);
+        caseInfo.setDateOpened(dateOpened);
+        caseInfo.setDateClosed(dateClosed);
+        caseInfo.setClosed(closed);
+        caseInfo.setDomain(domain);
+        caseInfo.setVersion(version);
+        caseInfo.setServerDateOpened(serverDateOpened);
+        caseInfo.setServerDateModified(serverDateModified);
+        caseInfo.setFieldValues(getFieldValues());
+        caseInfo.setIndices(indicesJson == null ? null
+                : GSON.<Map<String, Map<String, String>>>fromJson(indicesJson, INDICES_TYPE));
+        caseInfo.setXformIds(xformIdsJson == null ? null : GSON.<List<String>>fromJson(xformIdsJson, XFORM_IDS_TYPE));
+        caseInfo.setConfigName(configName);
+        return caseInfo;
+    }
+
+    /**
+     * Returns the properties of the case, other than its type, name, owner and opening date.
+     *
+     * @return the properties of the case, never null
+     */
+    public Map<String, String> getFieldValues() {
+        Map<String, String> fieldValues = fieldValuesJson == null ? null
+                : GSON.<Map<String, String>>fromJson(fieldValuesJson, FIELD_VALUES_TYPE);
+        return fieldValues == null ? new HashMap<String, String>() : fieldValues;
+    }
+
+    public void setFieldValues(Map<String, String> fieldValues) {
+        fieldValuesJson = fieldValues == null ? null : GSON.toJson(fieldValues, FIELD_VALUES_TYPE);
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public void setConfigName(String configName) {
+        this.configName = configName;
+    }
+
+    public String getCaseId() {
+        return caseId;
+    }
+
+    public void setCaseId(String caseId) {
+        this.caseId = caseId;
+    }
+
+    public String getCaseType() {
+        return caseType;
+    }
+
+    public void setCaseType(String caseType) {
+        this.caseType = caseType;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getCaseName() {
+        return caseName;
+    }
+
+    public void setCaseName(String caseName) {
+        this.caseName = caseName;
+    }
+
+    public String getDateOpened() {
+        return dateOpened;
+    }
+
+    public void setDateOpened(String dateOpened) {
+        this.dateOpened = dateOpened;
+    }
+
+    public String getDateClosed() {
+        return dateClosed;
+    }
+
+    public void setDateClosed(String dateClosed) {
+        this.dateClosed = dateClosed;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void setClosed(boolean closed) {
+        this.closed = closed;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public void setDomain(String domain) {
+        this.domain = domain;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getServerDateOpened() {
+        return serverDateOpened;
+    }
+
+    public void setServerDateOpened(String serverDateOpened) {
+        this.serverDateOpened = serverDateOpened;
+    }
+
+    public String getServerDateModified() {
+        return serverDateModified;
+    }
+
+    public void setServerDateModified(String serverDateModified) {
+        this.serverDateModified = serverDateModified;
+    }
+
+    public String getFieldValuesJson() {
+        return fieldValuesJson;
+    }
+
+    public void setFieldValuesJson(String fieldValuesJson) {
+        this.fieldValuesJson = fieldValuesJson;
+    }
+
+    public String getIndicesJson() {
+        return indicesJson;
+    }
+
+    public void setIndicesJson(String indicesJson) {
+        this.indicesJson = indicesJson;
+    }
+
+    public String getXformIdsJson() {
+        return xformIdsJson;
+    }
+
+    public void setXformIdsJson(String xformIdsJson) {
+        this.xformIdsJson = xformIdsJson;
+    }
+}
@@ -2,6 +2,7 @@ package org.motechproject.commcare.events;
 
 import org.motechproject.commcare.config.manager.ConfigurationManager;
 import org.motechproject.commcare.events.constants.EventDataKeys;
+import org.motechproject.commcare.service.CommcareCaseStore;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.annotations.MotechListener;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +14,7 @@ import static org.motechproject.commcare.events.constants.EventSubjects.CONFIG_U
 
 /**
  * Listens to notifications about configurations and performs actions when such event is received. If configuration
- * is deleted, its applications current schemas are dropped. If configuration is created a call to CommcareHQ is made to
+ * is deleted, its applications current schemas and its local copy of cases are dropped. If configuration is created a call to CommcareHQ is made to
  * fetch the latest schemas version. Once we parse the response, tasks are notified to update triggers.
  */
 @Component
@@ -22,6 +23,9 @@ public class ConfigurationEventHandler {
     @Autowired
     private ConfigurationManager configurationManager;
 
+    @Autowired
+    private CommcareCaseStore caseStore;
+
     /**
      * Responsible for handling {@code CONFIG_CREATED} event. This event is fired when user creates a new configuration.
      * Handling this event will result in adding new configuration and downloading applications related with it.
@@ -51,7 +55,7 @@ public class ConfigurationEventHandler {
     /**
      * Responsible for handling {@code CONFIG_DELETED} event. This event is fired when user deletes an existing
      * configuration. Handling this event will result in removing the configuration itself and all related application
-     * stored in the database.
+     * and cases stored in the database.
      *
      * @param event  the event to be handled
      */
@@ -59,5 +63,6 @@ public class ConfigurationEventHandler {
     public synchronized void configDeleted(MotechEvent event) {
         String configName = (String) event.getParameters().get(EventDataKeys.CONFIG_NAME);
         configurationManager.configDeleted(configName);
+        caseStore.clear(configName);
     }
 }
@@ -1,5 +1,7 @@
 package org.motechproject.commcare.parser;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
@@ -13,6 +15,7 @@ import org.motechproject.commcare.domain.FormValueElement;
 import org.motechproject.commcare.domain.MetadataValue;
 import org.motechproject.commons.api.json.MotechJsonReader;
 
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
@@ -25,10 +28,17 @@ public final class FormAdapter {
 
     private static final MotechJsonReader READER = new MotechJsonReader();
     private static Map<Type, Object> providedAdapters = new HashMap<>();
+    private static final Gson GSON;
 
     static {
         providedAdapters.put(FormValueElement.class, new JsonFormAdapter());
         providedAdapters.put(MetadataValue.class, new MetadataValueAdapter());
+
+        GsonBuilder builder = new GsonBuilder();
+        for (Map.Entry<Type, Object> adapter : providedAdapters.entrySet()) {
+            builder.registerTypeAdapter(adapter.getKey(), adapter.getValue());
+        }
+        GSON = builder.create();
     }
 
     /**
@@ -53,6 +63,16 @@ public final class FormAdapter {
         return (CommcareFormList) READER.readFromString(json, type, providedAdapters);
     }
 
+    /**
+     * Reads a list of forms with metadata straight from the given reader, without buffering the whole response
+     * as a string first. The result is represented as a {@link CommcareFormList} object.
+     * @param reader the reader of the json
+     * @return the parsed value
+     */
+    public static CommcareFormList readListJson(Reader reader) {
+        return GSON.fromJson(reader, CommcareFormList.class);
+    }
+
     /**
      * {@link JsonDeserializer} for the {@link FormValueElement} class.
      */
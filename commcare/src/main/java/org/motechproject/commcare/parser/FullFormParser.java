@@ -1,23 +1,22 @@
 package org.motechproject.commcare.parser;
 
 import org.apache.commons.lang.StringUtils;
-import org.apache.xerces.parsers.DOMParser;
 import org.motechproject.commcare.domain.FormValueElement;
 import org.motechproject.commcare.exception.FullFormParserException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-
-import java.io.IOException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Class for converting the XML passed in as a constructor parameter to an instance of the {@link FormValueElement}
- * class.
+ * class. The XML is read with a StAX pull parser, which builds the {@link FormValueElement} tree directly, without
+ * an intermediate DOM.
  */
 public class FullFormParser {
 
@@ -27,6 +26,9 @@ public class FullFormParser {
     public static final String FORM = "form";
     public static final String DEVICE_LOG = "deviceLog";
 
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
     private String xmlDoc;
 
     /**
@@ -48,84 +50,210 @@ public class FullFormParser {
      * @throws FullFormParserException if the form does not parse correctly and is not a device report form
      */
     public FormValueElement parse() throws FullFormParserException {
-        DOMParser parser = new DOMParser();
-
-        InputSource inputSource = new InputSource();
-        inputSource.setCharacterStream(new StringReader(xmlDoc));
-        FormValueElement root;
+        try {
+            FormValueElement root = parse(new StringReader(xmlDoc));
+            if (root == null) {
+                throw new FullFormParserException("No " + FORM_DATA_ELEMENT + " or " + DEVICE_REPORT_ELEMENT +
+                        " element found in formXml: " + xmlDoc);
+            }
+            return root;
+        } catch (XMLStreamException | RuntimeException ex) {
+            throw new FullFormParserException(ex, "Exception while trying to parse formXml: " + xmlDoc);
+        }
+    }
 
+    /**
+     * Parses a "full" XML form from the given reader. The first element with the tag "data" becomes the form root.
+     * If there is no such element, the first device report becomes the root instead.
+     *
+     * @param reader  the reader of the XML document
+     * @return the parsed form or device report, null if the document contains neither
+     * @throws XMLStreamException if the document is not well-formed
+     */
+    public static FormValueElement parse(Reader reader) throws XMLStreamException {
+        XMLStreamReader xml = XML_INPUT_FACTORY.createXMLStreamReader(reader);
         try {
-            parser.parse(inputSource);
-
-            Document document = parser.getDocument();
-            Node item = document.getElementsByTagName(FORM_DATA_ELEMENT).item(0);
-            root = new FormValueElement();
-
-            if (item == null && document.getElementsByTagName(DEVICE_REPORT_ELEMENT).item(0) != null) {
-                item = document.getElementsByTagName(DEVICE_REPORT_ELEMENT).item(0);
-                root.setElementName(DEVICE_LOG);
-                root.setValue(DEVICE_REPORT_ELEMENT);
-                addAttributes(root, item.getAttributes());
-                addSubElements(root, item.getChildNodes());
-                return root;
+            FormValueElement deviceReport = null;
+
+            while (xml.hasNext()) {
+                if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+
+                String name = qualifiedName(xml.getPrefix(), xml.getLocalName());
+                if (FORM_DATA_ELEMENT.equals(name)) {
+                    return readRoot(xml, FORM, FORM_DATA_ELEMENT, null);
+                } else if (deviceReport == null && DEVICE_REPORT_ELEMENT.equals(name)) {
+                    // a data element, even one inside the report, takes precedence over the report
+                    FormValueElement[] nestedData = new FormValueElement[1];
+                    deviceReport = readRoot(xml, DEVICE_LOG, DEVICE_REPORT_ELEMENT, nestedData);
+                    if (nestedData[0] != null) {
+                        return formRoot(nestedData[0]);
+                    }
+                }
             }
 
-            root.setElementName(FORM);
-            root.setValue(FORM_DATA_ELEMENT);
-            addAttributes(root, item.getAttributes());
-            addSubElements(root, item.getChildNodes());
-        } catch (SAXException | IOException | NullPointerException ex) {
-            throw new FullFormParserException(ex, "Exception while trying to parse formXml: " + xmlDoc);
+            return deviceReport;
+        } finally {
+            xml.close();
         }
+    }
+
+    private static FormValueElement readRoot(XMLStreamReader xml, String elementName, String value,
+                                             FormValueElement[] nestedData) throws XMLStreamException {
+        FormValueElement root = new FormValueElement();
+        root.setElementName(elementName);
+        root.setValue(value);
+        addAttributes(root, xml);
+        readChildren(root, xml, false, nestedData);
+        return root;
+    }
 
+    private static FormValueElement formRoot(FormValueElement data) {
+        FormValueElement root = new FormValueElement();
+        root.setElementName(FORM);
+        root.setValue(FORM_DATA_ELEMENT);
+        root.setAttributes(data.getAttributes());
+        root.setSubElements(data.getSubElements());
         return root;
     }
 
-    private void addAttributes(FormValueElement element, NamedNodeMap attributes) {
-        for (int i = 0; i < attributes.getLength(); ++i) {
-            Node attr = attributes.item(i);
-            String key = attr.getNodeName();
+    /**
+     * Reads the content of the current element, up to and including its end tag. As with the first child node in a
+     * DOM, the value of an element is its text up to the first child element, comment or CDATA section.
+     */
+    private static void readChildren(FormValueElement element, XMLStreamReader xml, boolean readValue,
+                                     FormValueElement[] nestedData) throws XMLStreamException {
+        ElementValue value = new ElementValue();
+
+        while (true) {
+            int event = xml.next();
+
+            switch (event) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.CDATA:
+                    value.addText(event, xml);
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    value.addNode(xml.getText());
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    value.addNode(StringUtils.defaultString(xml.getPIData()));
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    value.addNode(null);
+                    readChild(element, xml, nestedData);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (readValue) {
+                        value.applyTo(element);
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void readChild(FormValueElement parent, XMLStreamReader xml, FormValueElement[] nestedData)
+            throws XMLStreamException {
+        FormValueElement child = new FormValueElement();
+        child.setElementName(xml.getLocalName());
+        addAttributes(child, xml);
+
+        if (nestedData != null && nestedData[0] == null &&
+                FORM_DATA_ELEMENT.equals(qualifiedName(xml.getPrefix(), xml.getLocalName()))) {
+            nestedData[0] = child;
+        }
+
+        readChildren(child, xml, true, nestedData);
+        parent.addFormValueElement(child.getElementName(), child);
+    }
+
+    private static void addAttributes(FormValueElement element, XMLStreamReader xml) {
+        // a DOM keeps attributes sorted by name, which decides the namespace declaration kept as the xmlns attribute
+        Map<String, String> attributes = new TreeMap<>();
+
+        for (int i = 0; i < xml.getNamespaceCount(); i++) {
+            String prefix = xml.getNamespacePrefix(i);
+            String uri = xml.getNamespaceURI(i);
+            attributes.put(StringUtils.isEmpty(prefix) ? XMLNS_ELEMENT : XMLNS_ELEMENT + ':' + prefix,
+                    uri == null ? "" : uri);
+        }
+        for (int i = 0; i < xml.getAttributeCount(); i++) {
+            attributes.put(qualifiedName(xml.getAttributePrefix(i), xml.getAttributeLocalName(i)),
+                    xml.getAttributeValue(i));
+        }
+
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            String key = attribute.getKey();
 
             if (key.startsWith(XMLNS_ELEMENT)) {
                 key = XMLNS_ELEMENT;
             }
 
             if (!element.containsAttribute(key)) {
-                element.addAttribute(key, attr.getNodeValue());
+                element.addAttribute(key, attribute.getValue());
             }
         }
     }
 
-    private void addSubElements(FormValueElement element, NodeList children) {
-        for (int i = 0; i < children.getLength(); ++i) {
-            Node child = children.item(i);
-
-            if (child.getNodeType() == Node.ELEMENT_NODE) {
-                FormValueElement childElement = new FormValueElement();
-                childElement.setElementName(child.getLocalName());
+    private static String qualifiedName(String prefix, String localName) {
+        return StringUtils.isEmpty(prefix) ? localName : prefix + ':' + localName;
+    }
 
-                String value = getTextValue((Element) child);
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        // CDATA sections are separate nodes in a DOM, so they must not be reported as plain characters
+        if (factory.isPropertySupported(REPORT_CDATA)) {
+            factory.setProperty(REPORT_CDATA, true);
+        }
+        return factory;
+    }
 
-                if (StringUtils.isNotBlank(value)) {
-                    childElement.setValue(value);
-                }
+    /**
+     * Collects the value of an element, which is the content of its first child node. Adjacent text events of the
+     * same kind belong to the same node.
+     */
+    private static final class ElementValue {
 
-                addAttributes(childElement, child.getAttributes());
-                addSubElements(childElement, child.getChildNodes());
+        private StringBuilder text;
+        private int textType = -1;
+        private boolean inFirstChild = true;
 
-                element.addFormValueElement(childElement.getElementName(), childElement);
+        private void addText(int event, XMLStreamReader xml) {
+            int type = event == XMLStreamConstants.CDATA ? event : XMLStreamConstants.CHARACTERS;
+            if (text == null && inFirstChild) {
+                text = new StringBuilder();
+                textType = type;
+            }
+            if (inFirstChild && type == textType) {
+                text.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+            } else {
+                inFirstChild = false;
             }
         }
-    }
-
-    private String getTextValue(Element ele) {
-        Node textNode = ele.getFirstChild();
-        String textVal = null;
 
-        if (textNode != null) {
-            textVal = textNode.getNodeValue();
+        /**
+         * Adds a node other than text, which ends the first child.
+         *
+         * @param nodeValue  the value of the node, null for an element
+         */
+        private void addNode(String nodeValue) {
+            if (text == null && inFirstChild && nodeValue != null) {
+                text = new StringBuilder(nodeValue);
+            }
+            inFirstChild = false;
         }
 
-        return textVal;
+        private void applyTo(FormValueElement element) {
+            if (text != null && StringUtils.isNotBlank(text.toString())) {
+                element.setValue(text.toString());
+            }
+        }
     }
 }
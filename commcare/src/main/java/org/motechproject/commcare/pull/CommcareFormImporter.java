@@ -30,7 +30,8 @@ public interface CommcareFormImporter {
      * Initiates asynchronous import for the provided criteria. Forms will be fetched from Commcare by doing HTTP
      * request to the form list API. The default fetch size per request is 100, but that can be controlled using the
      * {@link #setFetchSize(int)} method. The import will run in a separate thread. An event will be fired for each
-     * successfully imported form. If an error occurs, the import will be stopped.
+     * successfully imported form. If an error occurs, the import will be stopped. If a previous import of the same
+     * date range for the same configuration was interrupted, the import continues after its last imported form.
      * @param dateRange the date range for the import
      * @param configName the name of the configuration to use, if null is provided the default configuration
      *                   will be used
@@ -66,4 +67,12 @@ public interface CommcareFormImporter {
      * @param fetchSize the fetch size for requests
      */
     void setFetchSize(int fetchSize);
+
+    /**
+     * Sets how many pages of forms can be fetched from Commcare concurrently during an import. Forms are still
+     * published one page at a time, in the order in which they were received by Commcare. The default is 4.
+     * @param fetchConcurrency the maximum number of concurrent requests to the form list API
+     * @throws IllegalArgumentException if the given value is lower than 1
+     */
+    void setFetchConcurrency(int fetchConcurrency);
 }
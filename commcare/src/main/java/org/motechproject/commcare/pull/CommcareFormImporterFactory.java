@@ -2,6 +2,7 @@ package org.motechproject.commcare.pull;
 
 
 import org.motechproject.commcare.service.CommcareFormService;
+import org.motechproject.commcare.service.FormImportCheckpointDataService;
 import org.motechproject.event.listener.EventRelay;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +32,12 @@ public class CommcareFormImporterFactory implements HttpSessionListener {
     @Autowired
     private CommcareFormService formService;
 
+    @Autowired
+    private FormImportCheckpointDataService checkpointDataService;
+
+    @Autowired
+    private FormImportLocks importLocks;
+
     private final Map<String, CommcareFormImporter> importerMap = new HashMap<>();
 
     /**
@@ -50,7 +57,8 @@ public class CommcareFormImporterFactory implements HttpSessionListener {
 
         if (!importerMap.containsKey(sid)) {
             LOGGER.debug("No importer available for session with ID: {}. Creating a new one.", sid);
-            importerMap.put(sid, new CommcareFormImporterImpl(eventRelay, formService));
+            importerMap.put(sid, new CommcareFormImporterImpl(eventRelay, formService, checkpointDataService,
+                    importLocks));
         }
 
         return importerMap.get(sid);
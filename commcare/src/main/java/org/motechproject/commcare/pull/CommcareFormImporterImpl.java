@@ -1,50 +1,90 @@
 package org.motechproject.commcare.pull;
 
 import com.google.common.collect.Lists;
+import org.apache.commons.lang.StringUtils;
 import org.joda.time.DateTime;
 import org.motechproject.commcare.builder.FormListRequestBuilder;
 import org.motechproject.commcare.domain.CommcareForm;
 import org.motechproject.commcare.domain.CommcareFormList;
+import org.motechproject.commcare.domain.FormImportCheckpoint;
 import org.motechproject.commcare.events.FullFormEvent;
 import org.motechproject.commcare.events.FullFormFailureEvent;
 import org.motechproject.commcare.events.MalformedFormStatusMessageEvent;
 import org.motechproject.commcare.request.FormListRequest;
 import org.motechproject.commcare.service.CommcareFormService;
+import org.motechproject.commcare.service.FormImportCheckpointDataService;
 import org.motechproject.commons.api.Range;
 import org.motechproject.event.listener.EventRelay;
+import org.motechproject.modules.commons.concurrent.ExecutorUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  * The implementation of {@link CommcareFormImporter}. Uses the {@link CommcareFormService} for
- * retrieval of forms.
+ * retrieval of forms. Pages are fetched by a small pool of threads, with at most as many pages in flight as there
+ * are fetching threads, while a single import thread publishes the forms page by page, oldest first. When a
+ * {@link FormImportCheckpointDataService} is available, the last imported form is saved after every page, so that an
+ * interrupted import of the same date range continues where it stopped. When {@link FormImportLocks} are available,
+ * only one import of a configuration can run at a time, since all of them would share the same checkpoint.
  */
 public class CommcareFormImporterImpl implements CommcareFormImporter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CommcareFormImporterImpl.class);
 
     private static final int PAGE_SIZE_FOR_FETCH = 100;
+    private static final int DEFAULT_FETCH_CONCURRENCY = 4;
 
     private CommcareFormService formService;
     private EventRelay eventRelay;
+    private FormImportCheckpointDataService checkpointDataService;
+    private FormImportLocks importLocks;
 
     private int fetchSize = PAGE_SIZE_FOR_FETCH;
+    private int fetchConcurrency = DEFAULT_FETCH_CONCURRENCY;
 
     private Thread importThread;
-    private boolean importInProgress = false;
+    private volatile boolean importInProgress = false;
 
-    private int importCount;
-    private int totalCount;
+    private volatile int importCount;
+    private volatile int totalCount;
     private int pageCount;
-    private String lastImportedDate;
-    private String lastImportedFormId;
-    private boolean inError;
-    private String errorMessage;
+    private volatile String lastImportedDate;
+    private volatile String lastImportedFormId;
+    private volatile boolean inError;
+    private volatile String errorMessage;
     private String lastFormXMLNSToBeImported;
+    private Range<DateTime> fetchRange;
+    private Set<String> resumedFormIds = new HashSet<>();
+    private List<String> lastImportedDateFormIds = new ArrayList<>();
 
     public CommcareFormImporterImpl(EventRelay eventRelay, CommcareFormService formService) {
+        this(eventRelay, formService, null);
+    }
+
+    public CommcareFormImporterImpl(EventRelay eventRelay, CommcareFormService formService,
+                                    FormImportCheckpointDataService checkpointDataService) {
+        this(eventRelay, formService, checkpointDataService, null);
+    }
+
+    public CommcareFormImporterImpl(EventRelay eventRelay, CommcareFormService formService,
+                                    FormImportCheckpointDataService checkpointDataService,
+                                    FormImportLocks importLocks) {
         this.eventRelay = eventRelay;
         this.formService = formService;
+        this.checkpointDataService = checkpointDataService;
+        this.importLocks = importLocks;
     }
 
     @Override
@@ -67,59 +107,70 @@ public class CommcareFormImporterImpl implements CommcareFormImporter {
     public void startImport(final Range<DateTime> dateRange, final String configName) {
         validateNoImportInProgress();
         validateDateRange(dateRange);
+        lockConfig(configName);
 
         LOGGER.info("Initiating form import for historical forms from {} to {} [config: {}]",
                 dateRange.getMin(), dateRange.getMax(), configName);
 
-        initForImport(dateRange, configName);
+        try {
+            initForImport(dateRange, configName);
+        } catch (RuntimeException e) {
+            importInProgress = false;
+            unlockConfig(configName);
+            throw e;
+        }
 
         importThread = new Thread(new Runnable() {
             @Override
             public void run() {
-                boolean hasMore = false;
-
                 LOGGER.debug("Import thread started");
 
-                // we start from the last page, since Commcare orders by received_on descending, we want ascending
-                // we reuse the builder
-                final FormListRequestBuilder requestBuilder = formListRequestBuilder(dateRange, fetchSize, pageCount);
+                ExecutorService fetchExecutor = Executors.newFixedThreadPool(fetchConcurrency,
+                        ExecutorUtil.numberedDaemonThreadFactory("commcare-form-import-fetch"));
 
-                do {
-                    // fetch the data
-                    try {
-                        // rebuild the request
-                        FormListRequest request = requestBuilder.build();
+                // pages in flight, in the order in which they will be published
+                Deque<Future<CommcareFormList>> window = new ArrayDeque<>();
+                // we start from the last page, since Commcare orders by received_on descending, we want ascending
+                int nextPage = pageCount;
 
-                        LOGGER.debug("Retrieving forms from page {}, with page size {}",
-                                request.getPageNumber(), request.getPageSize());
+                try {
+                    while (importInProgress && (nextPage >= 1 || !window.isEmpty())) {
+                        nextPage = fillWindow(fetchExecutor, window, nextPage, configName);
 
-                        CommcareFormList formList = formService.retrieveFormList(request, configName);
+                        CommcareFormList formList = window.poll().get();
 
                         LOGGER.debug("Retrieved a list of {} forms", formList.getObjects().size());
 
+                        // keep fetching while this page is being published
+                        nextPage = fillWindow(fetchExecutor, window, nextPage, configName);
+
                         // send events for forms
                         importFormList(formList);
+                        saveCheckpoint(dateRange, configName);
 
                         LOGGER.debug("Imported {} forms", formList.getObjects().size());
+                    }
 
-                        // the first page is the last one
-                        hasMore = request.getPageNumber() > 1;
-
-                        // we decrement the page
-                        if (hasMore) {
-                            LOGGER.debug("Proceeding to the next batch of forms");
-                            requestBuilder.withPreviousPage();
-                        }
-                    } catch (RuntimeException e) {
-                        LOGGER.error("Error while importing forms", e);
-                        LOGGER.error("{} of {} forms imported. Last form xmlns to be imported was {}", importCount, totalCount, lastFormXMLNSToBeImported);
-                        handleImportError(e, configName);
+                    if (importInProgress) {
+                        deleteCheckpoint(configName);
+                    }
+                } catch (ExecutionException e) {
+                    handleImportFailure(e.getCause(), configName);
+                } catch (RuntimeException e) {
+                    handleImportFailure(e, configName);
+                } catch (InterruptedException e) {
+                    LOGGER.warn("Interrupted while waiting for forms to import");
+                    Thread.currentThread().interrupt();
+                } finally {
+                    for (Future<CommcareFormList> pending : window) {
+                        pending.cancel(true);
                     }
-                } while (importInProgress && hasMore);
+                    fetchExecutor.shutdownNow();
+                }
 
                 LOGGER.info("Form import finished. {} of {} forms imported. ", importCount, totalCount);
 
-
+                unlockConfig(configName);
                 importInProgress = false;
             }
         });
@@ -178,30 +229,95 @@ public class CommcareFormImporterImpl implements CommcareFormImporter {
         this.fetchSize = fetchSize;
     }
 
+    @Override
+    public void setFetchConcurrency(int fetchConcurrency) {
+        if (fetchConcurrency < 1) {
+            throw new IllegalArgumentException("Fetch concurrency must be at least 1, got " + fetchConcurrency);
+        }
+        this.fetchConcurrency = fetchConcurrency;
+    }
+
     private void initForImport(Range<DateTime> dateRange, String configName) {
         importInProgress = true;
         importCount = 0;
         lastImportedDate = null;
         lastImportedFormId = null;
-        totalCount =  countForImport(dateRange, configName);
         inError = false;
         errorMessage = null;
-        // calculate the page number, since we are going backwards
-        pageCount = (int) Math.ceil((double) totalCount / fetchSize);
         lastFormXMLNSToBeImported = null;
+        fetchRange = dateRange;
+        resumedFormIds = new HashSet<>();
+        lastImportedDateFormIds = new ArrayList<>();
+
+        FormImportCheckpoint checkpoint = loadCheckpoint(dateRange, configName);
+        if (checkpoint != null) {
+            // forms received at the same time as the last imported one are fetched again, those imported are skipped
+            fetchRange = new Range<>(DateTime.parse(checkpoint.getLastReceivedOn()), dateRange.getMax());
+            if (checkpoint.getLastReceivedOnFormIds() != null) {
+                lastImportedDateFormIds.addAll(checkpoint.getLastReceivedOnFormIds());
+            }
+            if (!lastImportedDateFormIds.contains(checkpoint.getLastFormId())) {
+                lastImportedDateFormIds.add(checkpoint.getLastFormId());
+            }
+            resumedFormIds.addAll(lastImportedDateFormIds);
+            importCount = checkpoint.getFormsImported();
+            lastImportedDate = checkpoint.getLastReceivedOn();
+            lastImportedFormId = checkpoint.getLastFormId();
+
+            LOGGER.info("Resuming form import for config {} after form {}, received on {}. {} forms already imported",
+                    configName, lastImportedFormId, lastImportedDate, importCount);
+        }
+
+        totalCount = importCount + countForImport(fetchRange, configName);
+        // calculate the page number, since we are going backwards
+        pageCount = (int) Math.ceil((double) (totalCount - importCount) / fetchSize);
 
         LOGGER.debug("Initialized for import");
     }
 
+    private int fillWindow(ExecutorService fetchExecutor, Deque<Future<CommcareFormList>> window, int nextPage,
+                           final String configName) {
+        int page = nextPage;
+        while (page >= 1 && window.size() < fetchConcurrency) {
+            final FormListRequest request = formListRequestBuilder(fetchRange, fetchSize, page).build();
+
+            LOGGER.debug("Retrieving forms from page {}, with page size {}",
+                    request.getPageNumber(), request.getPageSize());
+
+            window.add(fetchExecutor.submit(new Callable<CommcareFormList>() {
+                @Override
+                public CommcareFormList call() {
+                    return formService.retrieveFormList(request, configName);
+                }
+            }));
+            page--;
+        }
+        return page;
+    }
+
     private void importFormList(CommcareFormList formList) {
         // iterate backwards
         for (CommcareForm form : Lists.reverse(formList.getObjects())) {
+            if (!importInProgress) {
+                return;
+            }
+
+            if (resumedFormIds.contains(form.getId())) {
+                LOGGER.debug("Skipping form with ID: {}, it was imported before the import was resumed", form.getId());
+                totalCount--;
+                continue;
+            }
+
             FullFormEvent formEvent = new FullFormEvent(form.getForm(), form.getReceivedOn(), form.getConfigName());
 
             lastFormXMLNSToBeImported = formEvent.getAttributes().get("xmlns");
 
             eventRelay.sendEventMessage(formEvent.toMotechEvent());
 
+            if (!StringUtils.equals(lastImportedDate, form.getReceivedOn())) {
+                lastImportedDateFormIds.clear();
+            }
+            lastImportedDateFormIds.add(form.getId());
             lastImportedDate = form.getReceivedOn();
             lastImportedFormId = form.getId();
             importCount++;
@@ -210,6 +326,64 @@ public class CommcareFormImporterImpl implements CommcareFormImporter {
         }
     }
 
+    private FormImportCheckpoint loadCheckpoint(Range<DateTime> dateRange, String configName) {
+        if (checkpointDataService == null) {
+            return null;
+        }
+
+        FormImportCheckpoint checkpoint = checkpointDataService.byConfigName(configName);
+        if (checkpoint == null || checkpoint.getLastReceivedOn() == null) {
+            return null;
+        }
+
+        if (!checkpoint.isForRange(dateRange.getMin(), dateRange.getMax())) {
+            LOGGER.info("Discarding the checkpoint of the previous form import for config {}, it was for a " +
+                    "different date range", configName);
+            checkpointDataService.delete(checkpoint);
+            return null;
+        }
+
+        try {
+            DateTime.parse(checkpoint.getLastReceivedOn());
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Unable to resume form import for config {}, invalid received on date: {}", configName,
+                    checkpoint.getLastReceivedOn());
+            checkpointDataService.delete(checkpoint);
+            return null;
+        }
+
+        return checkpoint;
+    }
+
+    private void saveCheckpoint(Range<DateTime> dateRange, String configName) {
+        if (checkpointDataService == null || lastImportedFormId == null) {
+            return;
+        }
+
+        FormImportCheckpoint checkpoint = checkpointDataService.byConfigName(configName);
+        if (checkpoint == null) {
+            checkpoint = new FormImportCheckpoint(configName, dateRange.getMin(), dateRange.getMax());
+        }
+
+        checkpoint.setLastFormId(lastImportedFormId);
+        checkpoint.setLastReceivedOn(lastImportedDate);
+        checkpoint.setLastReceivedOnFormIds(new ArrayList<>(lastImportedDateFormIds));
+        checkpoint.setFormsImported(importCount);
+
+        checkpointDataService.createOrUpdate(checkpoint);
+    }
+
+    private void deleteCheckpoint(String configName) {
+        if (checkpointDataService == null) {
+            return;
+        }
+
+        FormImportCheckpoint checkpoint = checkpointDataService.byConfigName(configName);
+        if (checkpoint != null) {
+            checkpointDataService.delete(checkpoint);
+        }
+    }
+
     private void validateDateRange(Range<DateTime> dateRange) {
         if (dateRange == null) {
             throw new IllegalArgumentException("Date range cannot be null, provide an empty one for all results");
@@ -232,13 +406,32 @@ public class CommcareFormImporterImpl implements CommcareFormImporter {
         }
     }
 
+    private void lockConfig(String configName) {
+        if (importLocks != null && !importLocks.tryLock(configName)) {
+            throw new IllegalStateException("An import is already in progress for the configuration " + configName +
+                    ", it has to be stopped before starting a next one");
+        }
+    }
+
+    private void unlockConfig(String configName) {
+        if (importLocks != null) {
+            importLocks.unlock(configName);
+        }
+    }
+
     private FormListRequestBuilder formListRequestBuilder(Range<DateTime> dateRange, int pageSize, int pageNumber) {
         return new FormListRequestBuilder()
                 .withReceivedOnStart(dateRange.getMin()).withReceivedOnEnd(dateRange.getMax())
                 .withPageSize(pageSize).withPageNumber(pageNumber);
     }
 
-    private void handleImportError(RuntimeException e, String configName) {
+    private void handleImportFailure(Throwable e, String configName) {
+        LOGGER.error("Error while importing forms", e);
+        LOGGER.error("{} of {} forms imported. Last form xmlns to be imported was {}", importCount, totalCount, lastFormXMLNSToBeImported);
+        handleImportError(e, configName);
+    }
+
+    private void handleImportError(Throwable e, String configName) {
         errorMessage = e.getMessage();
         inError = true;
 
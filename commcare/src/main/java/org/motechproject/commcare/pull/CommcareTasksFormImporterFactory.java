@@ -1,6 +1,7 @@
 package org.motechproject.commcare.pull;
 
 import org.motechproject.commcare.service.CommcareFormService;
+import org.motechproject.commcare.service.FormImportCheckpointDataService;
 import org.motechproject.event.listener.EventRelay;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -17,12 +18,18 @@ public class CommcareTasksFormImporterFactory {
     @Autowired
     private CommcareFormService formService;
 
+    @Autowired
+    private FormImportCheckpointDataService checkpointDataService;
+
+    @Autowired
+    private FormImportLocks importLocks;
+
     /**
      * Retrieves an importer instance.
      * @return the importer instance for event
      */
     public CommcareFormImporterImpl getCommcareFormImporter() {
-        return new CommcareFormImporterImpl(eventRelay, formService);
+        return new CommcareFormImporterImpl(eventRelay, formService, checkpointDataService, importLocks);
     }
 
     public void setEventRelay(EventRelay eventRelay) {
@@ -33,4 +40,12 @@ public class CommcareTasksFormImporterFactory {
         this.formService = formService;
     }
 
+    public void setCheckpointDataService(FormImportCheckpointDataService checkpointDataService) {
+        this.checkpointDataService = checkpointDataService;
+    }
+
+    public void setImportLocks(FormImportLocks importLocks) {
+        this.importLocks = importLocks;
+    }
+
 }
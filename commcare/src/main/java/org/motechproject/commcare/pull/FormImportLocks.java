@@ -0,0 +1,44 @@
+package org.motechproject.commcare.pull;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps track of the configurations for which a historical form import is running. Every configuration has a single
+ * {@link org.motechproject.commcare.domain.FormImportCheckpoint}, so two imports of the same configuration would
+ * overwrite each other's progress. Importers take the lock of a configuration before they start, and fail if another
+ * importer - for instance one of a different HTTP session - already holds it. Locks are only held within this
+ * server.
+ */
+@Component
+public class FormImportLocks {
+
+    private final Set<String> locked = new HashSet<>();
+
+    /**
+     * Takes the lock of the given configuration, if it is free.
+     * @param configName the name of the configuration
+     * @return true if the lock was taken, false if an import of the configuration is already running
+     */
+    public synchronized boolean tryLock(String configName) {
+        return locked.add(configName);
+    }
+
+    /**
+     * Releases the lock of the given configuration.
+     * @param configName the name of the configuration
+     */
+    public synchronized void unlock(String configName) {
+        locked.remove(configName);
+    }
+
+    /**
+     * @param configName the name of the configuration
+     * @return true if an import of the given configuration is running
+     */
+    public synchronized boolean isLocked(String configName) {
+        return locked.contains(configName);
+    }
+}
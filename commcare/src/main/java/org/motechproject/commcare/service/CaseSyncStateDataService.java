@@ -0,0 +1,21 @@
+package org.motechproject.commcare.service;
+
+import org.motechproject.commcare.domain.CaseSyncState;
+import org.motechproject.mds.annotations.Lookup;
+import org.motechproject.mds.annotations.LookupField;
+import org.motechproject.mds.service.MotechDataService;
+
+/**
+ * Data service for the {@link CaseSyncState} class. Provides methods for managing instances of said class.
+ */
+public interface CaseSyncStateDataService extends MotechDataService<CaseSyncState> {
+
+    /**
+     * Returns the state of the local case store of the configuration with the given {@code configName}.
+     *
+     * @param configName  the name of the configuration
+     * @return the matching state, null if the cases of the configuration were never synchronized
+     */
+    @Lookup(name = "By Config Name")
+    CaseSyncState byConfigName(@LookupField(name = "configName") String configName);
+}
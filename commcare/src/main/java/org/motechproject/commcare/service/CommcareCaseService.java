@@ -9,7 +9,9 @@ import java.util.List;
 
 /**
  *  This service provides two main features: Interacting with CommCareHQ's programmatic case APIs and uploading case XML
- *  wrapped in a form instance to CommCareHQ.
+ *  wrapped in a form instance to CommCareHQ. For configurations with case caching enabled, case lookups are served
+ *  from the {@link CommcareCaseStore} once its first synchronization has finished, see it for how the results differ
+ *  from those of CommCareHQ.
  */
 public interface CommcareCaseService {
 
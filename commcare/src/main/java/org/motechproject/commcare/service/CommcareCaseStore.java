@@ -0,0 +1,115 @@
+package org.motechproject.commcare.service;
+
+import org.motechproject.commcare.domain.CaseInfo;
+import org.motechproject.commcare.events.CaseEvent;
+
+import java.util.List;
+
+/**
+ * The local copy of the cases of the configurations with case caching enabled. The copy is kept up to date by periodic,
+ * incremental pulls of the cases modified since the previous pull, and by the cases forwarded by CommCareHQ. Lookups
+ * are served from the local database, without contacting CommCareHQ.
+ * <p>
+ * The copy differs from CommCareHQ in two ways. Pages of cases are ordered by case ID, not in the order of the
+ * CommCareHQ case API. Cases deleted on CommCareHQ are not removed, since the delta pulls only return cases which
+ * still exist, so they stay in the copy until the configuration is cleared. Closed cases are kept up to date.
+ */
+public interface CommcareCaseStore {
+
+    /**
+     * Pulls the cases modified since the previous synchronization of the given configuration from CommCareHQ and
+     * updates their local copies. The first synchronization pulls all cases.
+     *
+     * @param configName  the name of the configuration
+     * @return the number of cases pulled
+     */
+    int sync(String configName);
+
+    /**
+     * Applies a case forwarded by CommCareHQ to the local copy. Cases which are not stored locally yet are only added
+     * when the event creates them, other changes are picked up by the next synchronization.
+     *
+     * @param caseEvent  the forwarded case, with the name of its configuration set
+     */
+    void apply(CaseEvent caseEvent);
+
+    /**
+     * Stores a copy of the given case, replacing the previous one, unless the previous one is more recent.
+     *
+     * @param configName  the name of the configuration
+     * @param caseInfo  the case retrieved from CommCareHQ
+     */
+    void save(String configName, CaseInfo caseInfo);
+
+    /**
+     * Checks whether the first synchronization of the given configuration has finished, which means the local copy
+     * holds all of its cases.
+     *
+     * @param configName  the name of the configuration
+     * @return true if the local copy is complete, false otherwise
+     */
+    boolean isComplete(String configName);
+
+    /**
+     * Returns the local copy of the case with the given ID.
+     *
+     * @param configName  the name of the configuration
+     * @param caseId  the ID of the case
+     * @return the case, null if it is not stored locally
+     */
+    CaseInfo getCase(String configName, String caseId);
+
+    /**
+     * Returns a page of the locally stored cases of the given type.
+     *
+     * @param configName  the name of the configuration
+     * @param caseType  the type of the cases
+     * @param pageSize  the size of the page
+     * @param pageNumber  the number of the page, starting from 1
+     * @return the cases on the page, ordered by case ID
+     */
+    List<CaseInfo> getCasesByType(String configName, String caseType, Integer pageSize, Integer pageNumber);
+
+    /**
+     * Returns a page of the locally stored cases owned by the given owner.
+     *
+     * @param configName  the name of the configuration
+     * @param ownerId  the ID of the owner
+     * @param pageSize  the size of the page
+     * @param pageNumber  the number of the page, starting from 1
+     * @return the cases on the page, ordered by case ID
+     */
+    List<CaseInfo> getCasesByOwnerId(String configName, String ownerId, Integer pageSize, Integer pageNumber);
+
+    /**
+     * Returns a page of the locally stored cases last modified by the given user.
+     *
+     * @param configName  the name of the configuration
+     * @param userId  the ID of the user
+     * @param pageSize  the size of the page
+     * @param pageNumber  the number of the page, starting from 1
+     * @return the cases on the page, ordered by case ID
+     */
+    List<CaseInfo> getCasesByUserId(String configName, String userId, Integer pageSize, Integer pageNumber);
+
+    /**
+     * Returns a page of the locally stored cases of the given type, last modified by the given user.
+     *
+     * @param configName  the name of the configuration
+     * @param userId  the ID of the user
+     * @param caseType  the type of the cases
+     * @param pageSize  the size of the page
+     * @param pageNumber  the number of the page, starting from 1
+     * @return the cases on the page, ordered by case ID
+     */
+    List<CaseInfo> getCasesByUserIdAndType(String configName, String userId, String caseType, Integer pageSize,
+                                           Integer pageNumber);
+
+    /**
+     * Removes the local copy of the cases of the given configuration, along with its synchronization state. A running
+     * synchronization of the configuration is stopped after its current page.
+     *
+     * @param configName  the name of the configuration
+     */
+    void clear(String configName);
+}
@@ -0,0 +1,21 @@
+package org.motechproject.commcare.service;
+
+import org.motechproject.commcare.domain.FormImportCheckpoint;
+import org.motechproject.mds.annotations.Lookup;
+import org.motechproject.mds.annotations.LookupField;
+import org.motechproject.mds.service.MotechDataService;
+
+/**
+ * Data service for the {@link FormImportCheckpoint} class. Provides methods for managing instances of said class.
+ */
+public interface FormImportCheckpointDataService extends MotechDataService<FormImportCheckpoint> {
+
+    /**
+     * Returns the checkpoint of the form import for the configuration with the given {@code configName}.
+     *
+     * @param configName  the name of the configuration
+     * @return the matching checkpoint, null if there is no interrupted import for the configuration
+     */
+    @Lookup(name = "By Config Name")
+    FormImportCheckpoint byConfigName(@LookupField(name = "configName") String configName);
+}
@@ -0,0 +1,91 @@
+package org.motechproject.commcare.service;
+
+import org.motechproject.commcare.domain.LocalCase;
+import org.motechproject.mds.annotations.Lookup;
+import org.motechproject.mds.annotations.LookupField;
+import org.motechproject.mds.query.QueryParams;
+import org.motechproject.mds.service.MotechDataService;
+
+import java.util.List;
+
+/**
+ * Data service for the {@link LocalCase} class. Provides methods for managing instances of said class.
+ */
+public interface LocalCaseDataService extends MotechDataService<LocalCase> {
+
+    String CONFIG_NAME = "configName";
+
+    /**
+     * Returns the local copy of the case with the given {@code caseId}.
+     *
+     * @param configName  the name of the configuration
+     * @param caseId  the ID of the case
+     * @return the matching case, null if there is no local copy of the case
+     */
+    @Lookup(name = "By Config Name And Case Id")
+    LocalCase byConfigNameAndCaseId(@LookupField(name = CONFIG_NAME) String configName,
+                                    @LookupField(name = "caseId") String caseId);
+
+    /**
+     * Returns the local copies of the cases of the given type.
+     *
+     * @param configName  the name of the configuration
+     * @param caseType  the type of the cases
+     * @param queryParams  the paging and ordering parameters
+     * @return the matching cases
+     */
+    @Lookup(name = "By Config Name And Case Type")
+    List<LocalCase> byConfigNameAndCaseType(@LookupField(name = CONFIG_NAME) String configName,
+                                            @LookupField(name = "caseType") String caseType,
+                                            QueryParams queryParams);
+
+    /**
+     * Returns the local copies of the cases owned by the given owner.
+     *
+     * @param configName  the name of the configuration
+     * @param ownerId  the ID of the owner
+     * @param queryParams  the paging and ordering parameters
+     * @return the matching cases
+     */
+    @Lookup(name = "By Config Name And Owner Id")
+    List<LocalCase> byConfigNameAndOwnerId(@LookupField(name = CONFIG_NAME) String configName,
+                                           @LookupField(name = "ownerId") String ownerId,
+                                           QueryParams queryParams);
+
+    /**
+     * Returns the local copies of the cases last modified by the given user.
+     *
+     * @param configName  the name of the configuration
+     * @param userId  the ID of the user
+     * @param queryParams  the paging and ordering parameters
+     * @return the matching cases
+     */
+    @Lookup(name = "By Config Name And User Id")
+    List<LocalCase> byConfigNameAndUserId(@LookupField(name = CONFIG_NAME) String configName,
+                                          @LookupField(name = "userId") String userId,
+                                          QueryParams queryParams);
+
+    /**
+     * Returns the local copies of the cases of the given type, last modified by the given user.
+     *
+     * @param configName  the name of the configuration
+     * @param userId  the ID of the user
+     * @param caseType  the type of the cases
+     * @param queryParams  the paging and ordering parameters
+     * @return the matching cases
+     */
+    @Lookup(name = "By Config Name, User Id And Case Type")
+    List<LocalCase> byConfigNameUserIdAndCaseType(@LookupField(name = CONFIG_NAME) String configName,
+                                                  @LookupField(name = "userId") String userId,
+                                                  @LookupField(name = "caseType") String caseType,
+                                                  QueryParams queryParams);
+
+    /**
+     * Returns the local copies of all cases of the configuration.
+     *
+     * @param configName  the name of the configuration
+     * @return the matching cases
+     */
+    @Lookup(name = "By Config Name")
+    List<LocalCase> byConfigName(@LookupField(name = CONFIG_NAME) String configName);
+}
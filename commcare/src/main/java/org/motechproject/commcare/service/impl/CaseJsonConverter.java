@@ -0,0 +1,63 @@
+package org.motechproject.commcare.service.impl;
+
+import org.motechproject.commcare.domain.CaseInfo;
+import org.motechproject.commcare.domain.CaseJson;
+
+import java.util.Map;
+
+/**
+ * Builds {@link CaseInfo} instances from the cases returned by the CommCare case API.
+ */
+final class CaseJsonConverter {
+
+    private CaseJsonConverter() {
+    }
+
+    /**
+     * Builds the case represented by the given {@code caseResponse}. The type, opening date, owner and name of the
+     * case are taken out of its properties.
+     *
+     * @param caseResponse  the case returned by the CommCare server
+     * @param configName  the name of the configuration the case belongs to
+     * @return the case, null if {@code caseResponse} is null
+     */
+    static CaseInfo toCaseInfo(CaseJson caseResponse, String configName) {
+        if (caseResponse == null) {
+            return null;
+        }
+
+        CaseInfo caseInfo = new CaseInfo();
+
+        Map<String, String> properties = caseResponse.getCaseProperties();
+
+        String caseType = properties.get("case_type");
+        String dateOpened = properties.get("date_opened");
+        String ownerId = properties.get("owner_id");
+        String caseName = properties.get("case_name");
+
+        caseInfo.setCaseType(caseType);
+        caseInfo.setDateOpened(dateOpened);
+        caseInfo.setOwnerId(ownerId);
+        caseInfo.setCaseName(caseName);
+
+        properties.remove("case_type");
+        properties.remove("date_opened");
+        properties.remove("owner_id");
+        properties.remove("case_name");
+
+        caseInfo.setFieldValues(properties);
+        caseInfo.setClosed(caseResponse.isClosed());
+        caseInfo.setDateClosed(caseResponse.getDateClosed());
+        caseInfo.setDomain(caseResponse.getDomain());
+        caseInfo.setIndices(caseResponse.getIndices());
+        caseInfo.setServerDateModified(caseResponse.getServerDateModified());
+        caseInfo.setServerDateOpened(caseResponse.getServerDateOpened());
+        caseInfo.setVersion(caseResponse.getVersion());
+        caseInfo.setXformIds(caseResponse.getXformIds());
+        caseInfo.setCaseId(caseResponse.getCaseId());
+        caseInfo.setUserId(caseResponse.getUserId());
+        caseInfo.setConfigName(configName);
+
+        return caseInfo;
+    }
+}
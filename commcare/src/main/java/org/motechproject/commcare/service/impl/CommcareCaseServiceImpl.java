@@ -15,6 +15,7 @@ import org.motechproject.commcare.gateway.CaseTaskXmlConverter;
 import org.motechproject.commcare.request.json.CaseRequest;
 import org.motechproject.commcare.response.OpenRosaResponse;
 import org.motechproject.commcare.service.CommcareCaseService;
+import org.motechproject.commcare.service.CommcareCaseStore;
 import org.motechproject.commcare.service.CommcareConfigService;
 import org.motechproject.commons.api.json.MotechJsonReader;
 import org.slf4j.Logger;
@@ -26,7 +27,6 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 @Service
 public class CommcareCaseServiceImpl implements CommcareCaseService {
@@ -41,41 +41,71 @@ public class CommcareCaseServiceImpl implements CommcareCaseService {
 
     private CommcareConfigService configService;
 
+    private CommcareCaseStore caseStore;
+
     @Autowired
     public CommcareCaseServiceImpl(CaseTaskXmlConverter converter, CommCareAPIHttpClient commcareHttpClient,
-                                   CommcareConfigService configService) {
+                                   CommcareConfigService configService, CommcareCaseStore caseStore) {
         this.converter = converter;
         this.commcareHttpClient = commcareHttpClient;
         this.configService = configService;
+        this.caseStore = caseStore;
         this.motechJsonReader = new MotechJsonReader();
     }
 
     @Override
     public CaseInfo getCaseByCaseId(String caseId, String configName) {
-        String response = commcareHttpClient.singleCaseRequest(configService.getByName(configName).getAccountConfig(), caseId);
+        Config config = configService.getByName(configName);
+
+        if (config.isCacheCases()) {
+            CaseInfo localCase = caseStore.getCase(config.getName(), caseId);
+            if (localCase != null) {
+                return localCase;
+            }
+        }
+
+        String response = commcareHttpClient.singleCaseRequest(config.getAccountConfig(), caseId);
 
         CaseJson caseResponses = parseSingleCaseFromResponse(response);
 
-        return generateCaseFromCaseResponse(caseResponses, configName);
+        CaseInfo caseInfo = generateCaseFromCaseResponse(caseResponses, configName);
+
+        if (caseInfo != null && config.isCacheCases()) {
+            caseStore.save(config.getName(), caseInfo);
+        }
+
+        return caseInfo;
     }
 
     @Override
     public List<CaseInfo> getCasesByType(String type, Integer pageSize, Integer pageNumber, String configName) {
+        Config config = configService.getByName(configName);
+
+        if (isServedLocally(config)) {
+            return caseStore.getCasesByType(config.getName(), type, pageSize, pageNumber);
+        }
+
         CaseRequest request = new CaseRequest();
         request.setType(type);
         request.setLimit(pageSize);
         request.setOffset(pageNumber > 0 ? (pageNumber - 1) * pageSize : 0);
-        List<CaseJson> caseResponses = getCaseResponse(request, configService.getByName(configName)).getCases();
+        List<CaseJson> caseResponses = getCaseResponse(request, config).getCases();
         return generateCasesFromCaseResponse(caseResponses, configName);
     }
 
     @Override
     public List<CaseInfo> getCasesByUserId(String userId, Integer pageSize, Integer pageNumber, String configName) { //ONLY TEST
+        Config config = configService.getByName(configName);
+
+        if (isServedLocally(config)) {
+            return caseStore.getCasesByUserId(config.getName(), userId, pageSize, pageNumber);
+        }
+
         CaseRequest request = new CaseRequest();
         request.setUserId(userId);
         request.setLimit(pageSize);
         request.setOffset(pageNumber > 0 ? (pageNumber - 1) * pageSize : 0);
-        List<CaseJson> caseResponses = getCaseResponse(request, configService.getByName(configName)).getCases();
+        List<CaseJson> caseResponses = getCaseResponse(request, config).getCases();
         return generateCasesFromCaseResponse(caseResponses, configName);
     }
 
@@ -133,12 +163,18 @@ public class CommcareCaseServiceImpl implements CommcareCaseService {
     @Override
     public List<CaseInfo> getCasesByUserIdAndType(String userId, String type, Integer pageSize, Integer pageNumber,
                                                   String configName) {
+        Config config = configService.getByName(configName);
+
+        if (isServedLocally(config)) {
+            return caseStore.getCasesByUserIdAndType(config.getName(), userId, type, pageSize, pageNumber);
+        }
+
         CaseRequest request = new CaseRequest();
         request.setUserId(userId);
         request.setType(type);
         request.setLimit(pageSize);
         request.setOffset(pageNumber > 0 ? (pageNumber - 1) * pageSize : 0);
-        List<CaseJson> caseResponses = getCaseResponse(request, configService.getByName(configName)).getCases();
+        List<CaseJson> caseResponses = getCaseResponse(request, config).getCases();
         return generateCasesFromCaseResponse(caseResponses, configName);
     }
 
@@ -229,6 +265,11 @@ public class CommcareCaseServiceImpl implements CommcareCaseService {
         return uploadCase(caseTask, null);
     }
 
+    // lists are served locally only once the local copy holds all cases, single cases are looked up as they come
+    private boolean isServedLocally(Config config) {
+        return config.isCacheCases() && caseStore.isComplete(config.getName());
+    }
+
     private CaseRequest prepareCaseRequest(Integer pageSize, Integer pageNumber) {
         CaseRequest request = new CaseRequest();
         request.setLimit(pageSize);
@@ -259,54 +300,14 @@ public class CommcareCaseServiceImpl implements CommcareCaseService {
         }
 
         for (CaseJson caseResponse : caseResponses) {
-            caseList.add(populateCaseInfo(caseResponse, configName));
+            caseList.add(CaseJsonConverter.toCaseInfo(caseResponse, configName));
         }
 
         return caseList;
     }
 
     private CaseInfo generateCaseFromCaseResponse(CaseJson caseResponse, String configName) {
-        return populateCaseInfo(caseResponse, configName);
-    }
-
-    private CaseInfo populateCaseInfo(CaseJson caseResponse, String configName) {
-        if (caseResponse == null) {
-            return null;
-        }
-
-        CaseInfo caseInfo = new CaseInfo();
-
-        Map<String, String> properties = caseResponse.getCaseProperties();
-
-        String caseType = properties.get("case_type");
-        String dateOpened = properties.get("date_opened");
-        String ownerId = properties.get("owner_id");
-        String caseName = properties.get("case_name");
-
-        caseInfo.setCaseType(caseType);
-        caseInfo.setDateOpened(dateOpened);
-        caseInfo.setOwnerId(ownerId);
-        caseInfo.setCaseName(caseName);
-
-        properties.remove("case_type");
-        properties.remove("date_opened");
-        properties.remove("owner_id");
-        properties.remove("case_name");
-
-        caseInfo.setFieldValues(properties);
-        caseInfo.setClosed(caseResponse.isClosed());
-        caseInfo.setDateClosed(caseResponse.getDateClosed());
-        caseInfo.setDomain(caseResponse.getDomain());
-        caseInfo.setIndices(caseResponse.getIndices());
-        caseInfo.setServerDateModified(caseResponse.getServerDateModified());
-        caseInfo.setServerDateOpened(caseResponse.getServerDateOpened());
-        caseInfo.setVersion(caseResponse.getVersion());
-        caseInfo.setXformIds(caseResponse.getXformIds());
-        caseInfo.setCaseId(caseResponse.getCaseId());
-        caseInfo.setUserId(caseResponse.getUserId());
-        caseInfo.setConfigName(configName);
-
-        return caseInfo;
+        return CaseJsonConverter.toCaseInfo(caseResponse, configName);
     }
 
     private CommcareMetadataInfo populateCaseMetadata(CommcareMetadataJson metadataJson) {
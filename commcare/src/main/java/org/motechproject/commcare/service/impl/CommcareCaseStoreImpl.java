@@ -0,0 +1,337 @@
+package org.motechproject.commcare.service.impl;
+
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.motechproject.commcare.client.CommCareAPIHttpClient;
+import org.motechproject.commcare.config.Config;
+import org.motechproject.commcare.domain.CaseInfo;
+import org.motechproject.commcare.domain.CaseJson;
+import org.motechproject.commcare.domain.CaseResponseJson;
+import org.motechproject.commcare.domain.CaseSyncState;
+import org.motechproject.commcare.domain.LocalCase;
+import org.motechproject.commcare.events.CaseEvent;
+import org.motechproject.commcare.request.json.CaseRequest;
+import org.motechproject.commcare.service.CaseSyncStateDataService;
+import org.motechproject.commcare.service.CommcareCaseStore;
+import org.motechproject.commcare.service.CommcareConfigService;
+import org.motechproject.commcare.service.LocalCaseDataService;
+import org.motechproject.commons.api.json.MotechJsonReader;
+import org.motechproject.mds.query.QueryParams;
+import org.motechproject.mds.util.Order;
+import org.motechproject.modules.commons.concurrent.ExecutorUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the local copy of the cases of the configurations with case caching enabled in MDS. Every few minutes the cases
+ * modified since the previous synchronization are pulled from CommCareHQ using the date_modified_start filter, so
+ * CommCareHQ only sees small delta queries once the first, full synchronization has finished. Synchronizations of
+ * different configurations do not wait for each other. Clearing a configuration stops its running synchronization
+ * after the current page, instead of waiting for all of it.
+ */
+@Service("commcareCaseStore")
+public class CommcareCaseStoreImpl implements CommcareCaseStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommcareCaseStoreImpl.class);
+
+    static final int SYNC_PAGE_SIZE = 100;
+    private static final long SYNC_INTERVAL_MINUTES = 5;
+    private static final int SECONDS_LENGTH = "yyyy-MM-ddTHH:mm:ss".length();
+    private static final String CREATE_ACTION = "CREATE";
+    private static final String CLOSE_ACTION = "CLOSE";
+    private static final Order CASE_ID_ORDER = new Order("caseId", Order.Direction.ASC);
+
+    private final Type caseResponseType = new TypeToken<CaseResponseJson>() { } .getType();
+    private final MotechJsonReader motechJsonReader = new MotechJsonReader();
+
+    private CommCareAPIHttpClient commcareHttpClient;
+    private CommcareConfigService configService;
+    private LocalCaseDataService localCaseDataService;
+    private CaseSyncStateDataService caseSyncStateDataService;
+
+    private final ConcurrentMap<String, Object> syncLocks = new ConcurrentHashMap<>();
+    private final Set<String> clearing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private ScheduledExecutorService syncExecutor;
+
+    @Autowired
+    public CommcareCaseStoreImpl(CommCareAPIHttpClient commcareHttpClient, CommcareConfigService configService,
+                                 LocalCaseDataService localCaseDataService,
+                                 CaseSyncStateDataService caseSyncStateDataService) {
+        this.commcareHttpClient = commcareHttpClient;
+        this.configService = configService;
+        this.localCaseDataService = localCaseDataService;
+        this.caseSyncStateDataService = caseSyncStateDataService;
+    }
+
+    @PostConstruct
+    public void start() {
+        syncExecutor = Executors.newSingleThreadScheduledExecutor(
+                ExecutorUtil.daemonThreadFactory("commcare-case-sync"));
+        syncExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                syncAll();
+            }
+        }, SYNC_INTERVAL_MINUTES, SYNC_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        syncExecutor.shutdownNow();
+    }
+
+    @Override
+    public int sync(String configName) {
+        synchronized (syncLock(configName)) {
+            return doSync(configService.getByName(configName));
+        }
+    }
+
+    private int doSync(Config config) {
+        CaseSyncState state = caseSyncStateDataService.byConfigName(config.getName());
+        if (state == null) {
+            state = new CaseSyncState(config.getName());
+        }
+
+        // cases modified while the pull is running may be skipped by the offset paging, so the next pull starts
+        // no later than this one
+        String syncStart = DateTime.now(DateTimeZone.UTC).toString();
+        String since = state.getLastServerDateModified();
+        String newest = since;
+        int pulled = 0;
+
+        LOGGER.debug("Synchronizing cases of configuration {} modified since {}", config.getName(), since);
+
+        List<CaseJson> cases;
+        do {
+            CaseRequest request = new CaseRequest();
+            request.setDateModifiedStart(since);
+            request.setLimit(SYNC_PAGE_SIZE);
+            request.setOffset(pulled);
+
+            cases = fetchCases(config, request);
+            if (clearing.contains(config.getName())) {
+                LOGGER.info("Stopped synchronizing cases of configuration {}, they are being removed",
+                        config.getName());
+                return pulled;
+            }
+
+            for (CaseJson caseJson : cases) {
+                CaseInfo caseInfo = CaseJsonConverter.toCaseInfo(caseJson, config.getName());
+                save(config.getName(), caseInfo);
+                if (isAfter(caseInfo.getServerDateModified(), newest)) {
+                    newest = caseInfo.getServerDateModified();
+                }
+            }
+            pulled += cases.size();
+        } while (cases.size() == SYNC_PAGE_SIZE);
+
+        state.setLastServerDateModified(isAfter(newest, syncStart) ? syncStart : newest);
+        state.setLastSync(DateTime.now());
+        state.setCasesSynchronized(state.getCasesSynchronized() + pulled);
+        caseSyncStateDataService.createOrUpdate(state);
+
+        LOGGER.info("Synchronized {} cases of configuration {}", pulled, config.getName());
+
+        return pulled;
+    }
+
+    @Override
+    public void apply(CaseEvent caseEvent) {
+        if (caseEvent.getCaseId() == null) {
+            return;
+        }
+
+        LocalCase localCase = localCaseDataService.byConfigNameAndCaseId(caseEvent.getConfigName(),
+                caseEvent.getCaseId());
+
+        if (localCase == null) {
+            if (!CREATE_ACTION.equals(caseEvent.getAction())) {
+                LOGGER.debug("Case {} is not stored locally, it will be pulled by the next synchronization",
+                        caseEvent.getCaseId());
+                return;
+            }
+            localCase = new LocalCase(caseEvent.getConfigName(), caseEvent.getCaseId());
+            localCase.setDateOpened(caseEvent.getDateModified());
+        } else if (caseEvent.getServerModifiedOn() != null &&
+                isAfter(localCase.getServerDateModified(), caseEvent.getServerModifiedOn())) {
+            // events can arrive out of order, an older one must not overwrite what a newer one stored
+            LOGGER.debug("Ignoring event of case {} modified on {}, the local copy was modified on {}",
+                    caseEvent.getCaseId(), caseEvent.getServerModifiedOn(), localCase.getServerDateModified());
+            return;
+        }
+
+        merge(localCase, caseEvent);
+        localCaseDataService.createOrUpdate(localCase);
+    }
+
+    private void merge(LocalCase localCase, CaseEvent caseEvent) {
+        if (caseEvent.getCaseType() != null) {
+            localCase.setCaseType(caseEvent.getCaseType());
+        }
+        if (caseEvent.getCaseName() != null) {
+            localCase.setCaseName(caseEvent.getCaseName());
+        }
+        if (caseEvent.getOwnerId() != null) {
+            localCase.setOwnerId(caseEvent.getOwnerId());
+        }
+        if (caseEvent.getUserId() != null) {
+            localCase.setUserId(caseEvent.getUserId());
+        }
+        if (caseEvent.getServerModifiedOn() != null) {
+            localCase.setServerDateModified(caseEvent.getServerModifiedOn());
+        }
+        if (caseEvent.getFieldValues() != null) {
+            Map<String, String> fieldValues = localCase.getFieldValues();
+            fieldValues.putAll(caseEvent.getFieldValues());
+            localCase.setFieldValues(fieldValues);
+        }
+        if (CLOSE_ACTION.equals(caseEvent.getAction())) {
+            localCase.setClosed(true);
+            localCase.setDateClosed(caseEvent.getDateModified());
+        }
+    }
+
+    @Override
+    public void save(String configName, CaseInfo caseInfo) {
+        LocalCase localCase = localCaseDataService.byConfigNameAndCaseId(configName, caseInfo.getCaseId());
+
+        if (localCase == null) {
+            localCaseDataService.create(LocalCase.fromCaseInfo(configName, caseInfo));
+        } else if (!isAfter(localCase.getServerDateModified(), caseInfo.getServerDateModified())) {
+            localCase.update(caseInfo);
+            localCaseDataService.update(localCase);
+        }
+    }
+
+    @Override
+    public boolean isComplete(String configName) {
+        CaseSyncState state = caseSyncStateDataService.byConfigName(configName);
+        return state != null && state.isComplete();
+    }
+
+    @Override
+    public CaseInfo getCase(String configName, String caseId) {
+        LocalCase localCase = localCaseDataService.byConfigNameAndCaseId(configName, caseId);
+        return localCase == null ? null : localCase.toCaseInfo();
+    }
+
+    @Override
+    public List<CaseInfo> getCasesByType(String configName, String caseType, Integer pageSize, Integer pageNumber) {
+        return toCaseInfos(localCaseDataService.byConfigNameAndCaseType(configName, caseType,
+                queryParams(pageSize, pageNumber)));
+    }
+
+    @Override
+    public List<CaseInfo> getCasesByOwnerId(String configName, String ownerId, Integer pageSize, Integer pageNumber) {
+        return toCaseInfos(localCaseDataService.byConfigNameAndOwnerId(configName, ownerId,
+                queryParams(pageSize, pageNumber)));
+    }
+
+    @Override
+    public List<CaseInfo> getCasesByUserId(String configName, String userId, Integer pageSize, Integer pageNumber) {
+        return toCaseInfos(localCaseDataService.byConfigNameAndUserId(configName, userId,
+                queryParams(pageSize, pageNumber)));
+    }
+
+    @Override
+    public List<CaseInfo> getCasesByUserIdAndType(String configName, String userId, String caseType, Integer pageSize,
+                                                  Integer pageNumber) {
+        return toCaseInfos(localCaseDataService.byConfigNameUserIdAndCaseType(configName, userId, caseType,
+                queryParams(pageSize, pageNumber)));
+    }
+
+    @Override
+    public void clear(String configName) {
+        // a running synchronization of the configuration stops after its current page
+        clearing.add(configName);
+        try {
+            synchronized (syncLock(configName)) {
+                for (LocalCase localCase : localCaseDataService.byConfigName(configName)) {
+                    localCaseDataService.delete(localCase);
+                }
+
+                CaseSyncState state = caseSyncStateDataService.byConfigName(configName);
+                if (state != null) {
+                    caseSyncStateDataService.delete(state);
+                }
+            }
+        } finally {
+            clearing.remove(configName);
+        }
+    }
+
+    private Object syncLock(String configName) {
+        Object lock = syncLocks.get(configName);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = syncLocks.putIfAbsent(configName, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    private void syncAll() {
+        for (Config config : configService.getConfigs().getConfigs()) {
+            if (config.isCacheCases()) {
+                try {
+                    sync(config.getName());
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to synchronize cases of configuration {}", config.getName(), e);
+                }
+            }
+        }
+    }
+
+    private List<CaseJson> fetchCases(Config config, CaseRequest request) {
+        String response = commcareHttpClient.casesRequest(config.getAccountConfig(), request);
+        if (response == null) {
+            throw new IllegalStateException(String.format("Unable to retrieve cases of configuration %s",
+                    config.getName()));
+        }
+
+        CaseResponseJson caseResponseJson = (CaseResponseJson) motechJsonReader.readFromString(response,
+                caseResponseType);
+        return caseResponseJson.getCases() == null ? Collections.<CaseJson>emptyList() : caseResponseJson.getCases();
+    }
+
+    private QueryParams queryParams(Integer pageSize, Integer pageNumber) {
+        int page = pageNumber == null || pageNumber < 1 ? 1 : pageNumber;
+        return new QueryParams(page, pageSize, CASE_ID_ORDER);
+    }
+
+    private List<CaseInfo> toCaseInfos(List<LocalCase> localCases) {
+        List<CaseInfo> caseInfos = new ArrayList<>(localCases.size());
+        for (LocalCase localCase : localCases) {
+            caseInfos.add(localCase.toCaseInfo());
+        }
+        return caseInfos;
+    }
+
+    // CommCareHQ dates are ISO-8601 in UTC, with varying fractions of a second, so they are compared up to the second
+    private static boolean isAfter(String date, String other) {
+        return date != null && (other == null || StringUtils.left(date, SECONDS_LENGTH).compareTo(
+                StringUtils.left(other, SECONDS_LENGTH)) > 0);
+    }
+}
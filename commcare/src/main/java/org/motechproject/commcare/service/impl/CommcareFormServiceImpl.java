@@ -1,6 +1,7 @@
 package org.motechproject.commcare.service.impl;
 
 import org.motechproject.commcare.client.CommCareAPIHttpClient;
+import org.motechproject.commcare.client.ResponseBodyReader;
 import org.motechproject.commcare.config.AccountConfig;
 import org.motechproject.commcare.domain.CommcareForm;
 import org.motechproject.commcare.domain.CommcareFormList;
@@ -17,11 +18,24 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
 @Service
 public class CommcareFormServiceImpl implements CommcareFormService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CommcareFormServiceImpl.class);
 
+    private static final ResponseBodyReader<CommcareFormList> FORM_LIST_READER =
+            new ResponseBodyReader<CommcareFormList>() {
+                @Override
+                public CommcareFormList read(InputStream body) throws IOException {
+                    return FormAdapter.readListJson(new InputStreamReader(body, StandardCharsets.UTF_8));
+                }
+            };
+
     private CommCareAPIHttpClient commcareHttpClient;
     private CommcareConfigService configService;
     private FormXmlConverter converter;
@@ -51,9 +65,12 @@ public class CommcareFormServiceImpl implements CommcareFormService {
     @Override
     public CommcareFormList retrieveFormList(FormListRequest request, String configName) {
         AccountConfig accountConfig = configService.getByName(configName).getAccountConfig();
-        String returnJson = commcareHttpClient.formListRequest(accountConfig, request);
-
-        CommcareFormList formList = FormAdapter.readListJson(returnJson);
+        // the list is parsed as it is received, pages of large forms are never held in memory as a string
+        CommcareFormList formList = commcareHttpClient.formListRequest(accountConfig, request, FORM_LIST_READER);
+        if (formList == null) {
+            throw new IllegalStateException(String.format("Unable to retrieve page %d of the form list",
+                    request.getPageNumber()));
+        }
         setConfigNames(formList, configName);
 
         return formList;
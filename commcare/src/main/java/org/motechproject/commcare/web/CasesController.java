@@ -8,6 +8,7 @@ import org.motechproject.commcare.events.constants.EventSubjects;
 import org.motechproject.commcare.exception.CaseParserException;
 import org.motechproject.commcare.exception.EndpointNotSupported;
 import org.motechproject.commcare.parser.CaseParser;
+import org.motechproject.commcare.service.CommcareCaseStore;
 import org.motechproject.commcare.service.CommcareConfigService;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
@@ -36,11 +37,14 @@ public class CasesController extends CommcareController {
 
     private EventRelay eventRelay;
     private CommcareConfigService configService;
+    private CommcareCaseStore caseStore;
 
     @Autowired
-    public CasesController(final EventRelay eventRelay, final CommcareConfigService configService) {
+    public CasesController(final EventRelay eventRelay, final CommcareConfigService configService,
+                           final CommcareCaseStore caseStore) {
         this.eventRelay = eventRelay;
         this.configService = configService;
+        this.caseStore = caseStore;
     }
 
     @RequestMapping
@@ -117,8 +121,22 @@ public class CasesController extends CommcareController {
             }
 
             eventRelay.sendEventMessage(motechCaseEvent);
+
+            if (config.isCacheCases()) {
+                applyToCaseStore(caseInstance, config);
+            }
         }
 
         return null;
     }
+
+    private void applyToCaseStore(CaseXml caseInstance, Config config) {
+        try {
+            caseStore.apply(CaseEvent.fromCaseXml(caseInstance, config.getName()));
+        } catch (RuntimeException e) {
+            // the case event was already published, the local copy catches up with the next synchronization
+            LOGGER.error("Unable to update the local copy of case {} of configuration {}", caseInstance.getCaseId(),
+                    config.getName(), e);
+        }
+    }
 }
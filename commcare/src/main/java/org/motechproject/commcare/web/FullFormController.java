@@ -15,15 +15,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.xml.stream.XMLStreamException;
+import java.io.Reader;
 
 /**
  * Controller that handles the incoming full form feed from CommCareHQ. The path to this endpoint has to be configured
  * on the CommCareHQ side. It is capable of handling multiple configurations by parameterizing the endpoint URL.
+ * Forms are parsed straight from the request body, without reading it into a string first.
  */
 @Controller
 @RequestMapping("/forms")
@@ -42,34 +44,36 @@ public class FullFormController extends CommcareController {
 
     @RequestMapping
     @ResponseStatus(HttpStatus.OK)
-    public void receiveFormForDefaultConfig(@RequestBody String body, HttpServletRequest request) throws EndpointNotSupported {
+    public void receiveFormForDefaultConfig(Reader body, HttpServletRequest request) throws EndpointNotSupported {
         doReceiveForm(body, request, configService.getDefault());
     }
 
     @RequestMapping(value = "/{configName}")
     @ResponseStatus(HttpStatus.OK)
-    public void receiveForm(@RequestBody String body, HttpServletRequest request) throws EndpointNotSupported {
+    public void receiveForm(Reader body, HttpServletRequest request) throws EndpointNotSupported {
         doReceiveForm(body, request, configService.getByName(getConfigName(request)));
     }
 
-    private void doReceiveForm(String body, HttpServletRequest request, Config config) throws EndpointNotSupported {
+    private void doReceiveForm(Reader body, HttpServletRequest request, Config config) throws EndpointNotSupported {
 
-        LOGGER.trace("Received request for mapping /forms: {}", body);
+        LOGGER.trace("Received request for mapping /forms [config: {}]", config.getName());
 
         if (!config.isForwardForms()) {
             throw new EndpointNotSupported(String.format("Configuration \"%s\" doesn't support endpoint for forms!", config.getName()));
         }
 
-        FullFormParser parser = new FullFormParser(body);
-
         try {
-            FormValueElement formValueElement = parser.parse();
+            FormValueElement formValueElement = FullFormParser.parse(body);
+            if (formValueElement == null) {
+                throw new FullFormParserException("No " + FullFormParser.FORM_DATA_ELEMENT + " or " +
+                        FullFormParser.DEVICE_REPORT_ELEMENT + " element found in the form");
+            }
 
             FullFormEvent fullFormEvent = new FullFormEvent(formValueElement, request.getHeader("received-on"),
                     config.getName());
 
             eventRelay.sendEventMessage(fullFormEvent.toMotechEvent());
-        } catch (FullFormParserException | RuntimeException e) {
+        } catch (FullFormParserException | XMLStreamException | RuntimeException e) {
             LOGGER.error("Error while receiving form from Commcare", e);
             handleError(e, config);
         }
@@ -255,6 +255,7 @@
             copy.forwardSchema = config.forwardSchema;
             copy.forwardStubs = config.forwardStubs;
             copy.forwardCases = config.forwardCases;
+            copy.cacheCases = config.cacheCases;
             oldName = copy.name;
 
             return {
@@ -1,6 +1,5 @@
 package org.motechproject.commcare.client;
 
-import org.apache.commons.httpclient.HttpClient;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
@@ -15,7 +14,7 @@ import static org.junit.Assert.assertThat;
 public class CommCareAPIHttpClientTest {
 
     @Mock
-    private HttpClient httpClient;
+    private CommcareHttpClients httpClients;
 
     final String baseUrl = "https://www.commcarehq.org/a";
     final String domain = "somedomain";
@@ -29,7 +28,7 @@ public class CommCareAPIHttpClientTest {
         accountConfig.setBaseUrl(baseUrl);
         accountConfig.setDomain(domain);
 
-        commCareAPIHttpClient = new CommCareAPIHttpClient(httpClient);
+        commCareAPIHttpClient = new CommCareAPIHttpClient(httpClients);
     }
 
     @Test
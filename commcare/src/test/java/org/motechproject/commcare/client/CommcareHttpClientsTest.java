@@ -0,0 +1,171 @@
+package org.motechproject.commcare.client;
+
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.UsernamePasswordCredentials;
+import org.apache.commons.httpclient.auth.AuthScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.motechproject.commcare.config.AccountConfig;
+import org.motechproject.config.SettingsFacade;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class CommcareHttpClientsTest {
+
+    @Mock
+    private SettingsFacade settingsFacade;
+
+    private CommcareHttpClients httpClients;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        httpClients = new CommcareHttpClients();
+        httpClients.setSettingsFacade(settingsFacade);
+        httpClients.start();
+    }
+
+    @After
+    public void tearDown() {
+        httpClients.stop();
+    }
+
+    @Test
+    public void shouldReuseClientOfTheSameAccount() {
+        HttpClient client = httpClients.getClient(account("https://www.commcarehq.org/a/", "domain1", "user", "pass"));
+
+        assertSame(client, httpClients.getClient(account("https://www.commcarehq.org/a", "domain1", "user", "pass")));
+        assertEquals(1, httpClients.size());
+    }
+
+    @Test
+    public void shouldKeepSeparateClientsAndCredentialsForDifferentAccounts() {
+        HttpClient first = httpClients.getClient(account("https://www.commcarehq.org/a", "domain1", "user1", "pass1"));
+        HttpClient second = httpClients.getClient(account("https://www.commcarehq.org/a", "domain2", "user2", "pass2"));
+
+        assertNotSame(first, second);
+        assertNotSame(first.getState(), second.getState());
+        assertNotSame(first.getHttpConnectionManager(), second.getHttpConnectionManager());
+        assertEquals("user1", credentials(first, "www.commcarehq.org", 443).getUserName());
+        assertEquals("user2", credentials(second, "www.commcarehq.org", 443).getUserName());
+        assertTrue(first.getParams().isAuthenticationPreemptive());
+        assertEquals(2, httpClients.size());
+    }
+
+    @Test
+    public void shouldRebuildClientWhenPasswordChanges() {
+        HttpClient client = httpClients.getClient(account("https://www.commcarehq.org/a", "domain1", "user", "old"));
+        HttpClient rebuilt = httpClients.getClient(account("https://www.commcarehq.org/a", "domain1", "user", "new"));
+
+        assertNotSame(client, rebuilt);
+        assertEquals("new", credentials(rebuilt, "www.commcarehq.org", 443).getPassword());
+        assertEquals(1, httpClients.size());
+    }
+
+    @Test
+    public void shouldShutDownReplacedClientOnceItsRequestsFinish() {
+        HttpClient client = httpClients.getClient(account("https://www.commcarehq.org/a", "domain1", "user", "old"));
+        HttpConnection inFlight = connectionOf(client);
+
+        HttpClient rebuilt = httpClients.getClient(account("https://www.commcarehq.org/a", "domain1", "user", "new"));
+        assertNotSame(client, rebuilt);
+        assertEquals(1, httpClients.getRetiredCount());
+
+        // a request is still running on the old client
+        httpClients.reapRetired();
+        assertEquals(1, httpClients.getRetiredCount());
+
+        inFlight.releaseConnection();
+        httpClients.reapRetired();
+        assertEquals(0, httpClients.getRetiredCount());
+        assertShutDown(client);
+    }
+
+    @Test
+    public void shouldUseConfiguredConnectionSettings() {
+        when(settingsFacade.getProperty(CommcareHttpClients.MAX_CONNECTIONS_PER_ROUTE)).thenReturn("3");
+        when(settingsFacade.getProperty(CommcareHttpClients.MAX_TOTAL_CONNECTIONS)).thenReturn("7");
+        when(settingsFacade.getProperty(CommcareHttpClients.READ_TIMEOUT)).thenReturn("5000");
+        AccountConfig account = account("https://www.commcarehq.org/a", "domain1", "user", "pass");
+
+        HttpClient client = httpClients.getClient(account);
+        MultiThreadedHttpConnectionManager connectionManager =
+                (MultiThreadedHttpConnectionManager) client.getHttpConnectionManager();
+        assertEquals(3, connectionManager.getParams().getDefaultMaxConnectionsPerHost());
+        assertEquals(7, connectionManager.getParams().getMaxTotalConnections());
+        assertEquals(5000, connectionManager.getParams().getSoTimeout());
+
+        // changed settings apply to a new client
+        when(settingsFacade.getProperty(CommcareHttpClients.READ_TIMEOUT)).thenReturn("8000");
+        HttpClient rebuilt = httpClients.getClient(account);
+        assertNotSame(client, rebuilt);
+        assertEquals(8000, rebuilt.getHttpConnectionManager().getParams().getSoTimeout());
+        assertEquals(1, httpClients.getRetiredCount());
+    }
+
+    @Test
+    public void shouldRetireClientsWhichAreNoLongerUsed() throws InterruptedException {
+        HttpClient client = httpClients.getClient(account("https://www.commcarehq.org/a", "domain1", "user", "pass"));
+
+        httpClients.retireUnused();
+        assertEquals(1, httpClients.size());
+
+        when(settingsFacade.getProperty(CommcareHttpClients.UNUSED_CLIENT_TIMEOUT)).thenReturn("0");
+        Thread.sleep(5);
+        httpClients.retireUnused();
+        httpClients.reapRetired();
+
+        assertEquals(0, httpClients.size());
+        assertEquals(0, httpClients.getRetiredCount());
+        assertShutDown(client);
+    }
+
+    @Test
+    public void shouldScopeCredentialsToTheHostOfTheAccount() {
+        HttpClient client = httpClients.getClient(account("https://www.commcarehq.org/a", "domain1", "user", "pass"));
+
+        assertNull(credentials(client, "attacker.example.com", 443));
+    }
+
+    private HttpConnection connectionOf(HttpClient client) {
+        HostConfiguration hostConfiguration = new HostConfiguration();
+        hostConfiguration.setHost("localhost", 80);
+        // acquiring a connection does not open it, so no server is needed
+        return client.getHttpConnectionManager().getConnection(hostConfiguration);
+    }
+
+    private void assertShutDown(HttpClient client) {
+        try {
+            connectionOf(client);
+            fail("Expected the connection manager to be shut down");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private UsernamePasswordCredentials credentials(HttpClient client, String host, int port) {
+        return (UsernamePasswordCredentials) client.getState().getCredentials(new AuthScope(host, port));
+    }
+
+    private AccountConfig account(String baseUrl, String domain, String username, String password) {
+        AccountConfig accountConfig = new AccountConfig();
+        accountConfig.setBaseUrl(baseUrl);
+        accountConfig.setDomain(domain);
+        accountConfig.setUsername(username);
+        accountConfig.setPassword(password);
+        return accountConfig;
+    }
+}
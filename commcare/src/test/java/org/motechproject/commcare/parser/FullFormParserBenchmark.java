@@ -0,0 +1,136 @@
+package org.motechproject.commcare.parser;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.xerces.parsers.DOMParser;
+import org.motechproject.commcare.domain.FormValueElement;
+import org.motechproject.commcare.exception.FullFormParserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link FullFormParser} with the DOM based parsing it used to do, for a typical
+ * registration form and for a large form with a big repeat group, as forwarded by CommCareHQ. Allocation rates are
+ * reported by the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FullFormParserBenchmark {
+
+    private static final String REPEAT_ENTRY = "<child><child_name>Child %d</child_name><dob>2015-06-%02d</dob>" +
+            "<gender>female</gender><weight unit=\"kg\">3.%d</weight><immunizations><bcg>yes</bcg><opv_0>yes</opv_0>" +
+            "<hep_b_0>no</hep_b_0></immunizations><n0:case case_id=\"c%d\" user_id=\"9393c83f1eacce4c3169a1a28ec97f07\"" +
+            " xmlns:n0=\"http://commcarehq.org/case/transaction/v2\"><n0:update><n0:weight>3.%d</n0:weight>" +
+            "</n0:update></n0:case></child>";
+
+    @Param({ "registration", "repeatGroup" })
+    private String form;
+
+    private String xml;
+
+    @Setup
+    public void setUp() throws IOException {
+        String registration;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("xml/register_household.xml")) {
+            registration = IOUtils.toString(in);
+        }
+
+        if ("registration".equals(form)) {
+            xml = registration;
+        } else {
+            // the registration form with roughly 300 KB of repeated child entries
+            StringBuilder repeats = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                repeats.append(String.format(REPEAT_ENTRY, i, i % 28 + 1, i % 10, i, i % 10));
+            }
+            xml = registration.replace("<meta", repeats + "<meta");
+        }
+    }
+
+    @Benchmark
+    public FormValueElement stax() throws FullFormParserException {
+        return new FullFormParser(xml).parse();
+    }
+
+    @Benchmark
+    public FormValueElement dom() throws Exception {
+        DOMParser parser = new DOMParser();
+        InputSource inputSource = new InputSource();
+        inputSource.setCharacterStream(new StringReader(xml));
+        parser.parse(inputSource);
+
+        Node item = parser.getDocument().getElementsByTagName(FullFormParser.FORM_DATA_ELEMENT).item(0);
+        FormValueElement root = new FormValueElement();
+        root.setElementName(FullFormParser.FORM);
+        root.setValue(FullFormParser.FORM_DATA_ELEMENT);
+        addAttributes(root, item.getAttributes());
+        addSubElements(root, item.getChildNodes());
+        return root;
+    }
+
+    private static void addAttributes(FormValueElement element, NamedNodeMap attributes) {
+        for (int i = 0; i < attributes.getLength(); ++i) {
+            Node attr = attributes.item(i);
+            String key = attr.getNodeName();
+            if (key.startsWith(FullFormParser.XMLNS_ELEMENT)) {
+                key = FullFormParser.XMLNS_ELEMENT;
+            }
+            if (!element.containsAttribute(key)) {
+                element.addAttribute(key, attr.getNodeValue());
+            }
+        }
+    }
+
+    private static void addSubElements(FormValueElement element, NodeList children) {
+        for (int i = 0; i < children.getLength(); ++i) {
+            Node child = children.item(i);
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                FormValueElement childElement = new FormValueElement();
+                childElement.setElementName(child.getLocalName());
+
+                Node textNode = ((Element) child).getFirstChild();
+                String value = textNode == null ? null : textNode.getNodeValue();
+                if (StringUtils.isNotBlank(value)) {
+                    childElement.setValue(value);
+                }
+
+                addAttributes(childElement, child.getAttributes());
+                addSubElements(childElement, child.getChildNodes());
+                element.addFormValueElement(childElement.getElementName(), childElement);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FullFormParserBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
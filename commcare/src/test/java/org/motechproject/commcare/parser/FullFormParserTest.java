@@ -0,0 +1,92 @@
+package org.motechproject.commcare.parser;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.motechproject.commcare.domain.FormValueElement;
+import org.motechproject.commcare.exception.FullFormParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FullFormParserTest {
+
+    @Test
+    public void shouldParseForm() throws IOException, FullFormParserException {
+        FormValueElement form = new FullFormParser(readXml("xml/register_household.xml")).parse();
+
+        assertEquals(FullFormParser.FORM, form.getElementName());
+        assertEquals(FullFormParser.FORM_DATA_ELEMENT, form.getValue());
+        assertEquals(4, form.getAttributes().size());
+        assertEquals("Register Household", form.getAttributes().get("name"));
+        assertEquals("http://openrosa.org/formdesigner/8C652174-BDAE-4300-AEF3-B2F30B20069D",
+                form.getAttributes().get("xmlns"));
+
+        assertEquals("Anyiko", form.getChildElement("location").getValue());
+        assertEquals("159635", form.getChildElement("mobile_phone_number").getAttributes().get("concept_id"));
+        assertNull(form.getChildElement("mobile_phone_number").getValue());
+
+        FormValueElement caseElement = form.getChildElement("case");
+        assertNull(caseElement.getValue());
+        assertEquals("e47b888d783d4983a1d5c4c5115a7cc5", caseElement.getAttributes().get("case_id"));
+        assertEquals("http://commcarehq.org/case/transaction/v2", caseElement.getAttributes().get("xmlns"));
+        assertEquals("household", caseElement.getChildElement("create").getChildElement("case_type").getValue());
+    }
+
+    @Test
+    public void shouldParseRepeatGroups() throws FullFormParserException {
+        String xml = "<data xmlns=\"http://openrosa.org/formdesigner/1\"><child><name>A</name></child>" +
+                "<child><name>B</name></child><child><name> </name></child></data>";
+
+        List<FormValueElement> children = new FullFormParser(xml).parse().getChildElements("child");
+
+        assertEquals(3, children.size());
+        assertEquals("A", children.get(0).getChildElement("name").getValue());
+        assertEquals("B", children.get(1).getChildElement("name").getValue());
+        assertNull(children.get(2).getChildElement("name").getValue());
+    }
+
+    @Test
+    public void shouldUseTextBeforeFirstChildNodeAsValue() throws FullFormParserException {
+        String xml = "<data><a>first<b>inner</b>second</a><c><![CDATA[cdata]]></c><d> <!-- comment -->text</d></data>";
+
+        FormValueElement form = new FullFormParser(xml).parse();
+
+        assertEquals("first", form.getChildElement("a").getValue());
+        assertEquals("inner", form.getChildElement("a").getChildElement("b").getValue());
+        assertEquals("cdata", form.getChildElement("c").getValue());
+        assertNull(form.getChildElement("d").getValue());
+    }
+
+    @Test
+    public void shouldParseDeviceReport() throws FullFormParserException {
+        String xml = "<device_report xmlns=\"http://code.javarosa.org/devicereport\"><device_id>123</device_id>" +
+                "</device_report>";
+
+        FormValueElement deviceLog = new FullFormParser(xml).parse();
+
+        assertEquals(FullFormParser.DEVICE_LOG, deviceLog.getElementName());
+        assertEquals(FullFormParser.DEVICE_REPORT_ELEMENT, deviceLog.getValue());
+        assertEquals("http://code.javarosa.org/devicereport", deviceLog.getAttributes().get("xmlns"));
+        assertEquals("123", deviceLog.getChildElement("device_id").getValue());
+    }
+
+    @Test(expected = FullFormParserException.class)
+    public void shouldFailForMalformedXml() throws FullFormParserException {
+        new FullFormParser("<data><unclosed></data>").parse();
+    }
+
+    @Test(expected = FullFormParserException.class)
+    public void shouldFailWithoutFormData() throws FullFormParserException {
+        new FullFormParser("<something/>").parse();
+    }
+
+    private String readXml(String path) throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(path)) {
+            return IOUtils.toString(in);
+        }
+    }
+}
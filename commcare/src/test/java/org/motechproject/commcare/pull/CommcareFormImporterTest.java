@@ -8,15 +8,19 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.motechproject.commcare.domain.CommcareForm;
 import org.motechproject.commcare.domain.CommcareFormList;
 import org.motechproject.commcare.domain.CommcareMetadataJson;
+import org.motechproject.commcare.domain.FormImportCheckpoint;
 import org.motechproject.commcare.domain.FormValueElement;
 import org.motechproject.commcare.events.constants.EventDataKeys;
 import org.motechproject.commcare.events.constants.EventSubjects;
 import org.motechproject.commcare.request.FormListRequest;
 import org.motechproject.commcare.service.CommcareFormService;
+import org.motechproject.commcare.service.FormImportCheckpointDataService;
 import org.motechproject.commcare.service.impl.CommcareFormsEventParser;
 import org.motechproject.commcare.util.CommcareParamHelper;
 import org.motechproject.commons.api.Range;
@@ -31,12 +35,17 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.times;
@@ -71,11 +80,16 @@ public class CommcareFormImporterTest {
     @Mock
     private CommcareFormService formService;
 
+    @Mock
+    private FormImportCheckpointDataService checkpointDataService;
+
     @Before
     public void setUp() {
         setUpSuccessfulImport();
         importer = new CommcareFormImporterImpl(eventRelay, formService);
         importer.setFetchSize(2);
+        // fetching one page at a time keeps the order of requests deterministic
+        importer.setFetchConcurrency(1);
     }
 
     @Test
@@ -159,6 +173,180 @@ public class CommcareFormImporterTest {
         verifyFormFailureStatusMessageEvent(eventCaptor.getAllValues().get(2), errorMsg);
     }
     
+    @Test
+    public void shouldPublishFormsInOrderWhenFetchingConcurrently() throws InterruptedException {
+        importer = new CommcareFormImporterImpl(eventRelay, formService, checkpointDataService);
+        importer.setFetchSize(2);
+        importer.setFetchConcurrency(3);
+
+        importer.startImport(new Range<>(START, END), CONFIG_NAME);
+        waitForImportEnd();
+
+        verify(formService, times(4)).retrieveFormList(any(FormListRequest.class), eq(CONFIG_NAME));
+
+        ArgumentCaptor<MotechEvent> eventCaptor = ArgumentCaptor.forClass(MotechEvent.class);
+        verify(eventRelay, times(5)).sendEventMessage(eventCaptor.capture());
+
+        for (int i = 0; i < 5; i++) {
+            verifyFormEvent(eventCaptor.getAllValues().get(i), "id" + i, REC_DATES.get(i));
+        }
+
+        ArgumentCaptor<FormImportCheckpoint> checkpointCaptor = ArgumentCaptor.forClass(FormImportCheckpoint.class);
+        verify(checkpointDataService, times(3)).createOrUpdate(checkpointCaptor.capture());
+
+        FormImportCheckpoint checkpoint = checkpointCaptor.getValue();
+        assertEquals(CONFIG_NAME, checkpoint.getConfigName());
+        assertEquals("id4", checkpoint.getLastFormId());
+        assertEquals(CommcareParamHelper.printDateTime(REC_DATES.get(4)), checkpoint.getLastReceivedOn());
+        assertEquals(5, checkpoint.getFormsImported());
+        assertTrue(checkpoint.isForRange(START, END));
+
+        assertEquals(5, importer.importStatus().getFormsImported());
+        assertFalse(importer.importStatus().isError());
+    }
+
+    @Test
+    public void shouldResumeImportFromCheckpoint() throws InterruptedException {
+        FormImportCheckpoint checkpoint = new FormImportCheckpoint(CONFIG_NAME, START, END);
+        checkpoint.setLastFormId("id1");
+        checkpoint.setLastReceivedOn(CommcareParamHelper.printDateTime(REC_DATES.get(1)));
+        checkpoint.setFormsImported(2);
+        when(checkpointDataService.byConfigName(CONFIG_NAME)).thenReturn(checkpoint);
+
+        // forms received from the checkpoint date on, including the last imported one
+        when(formService.retrieveFormList(page(2), eq(CONFIG_NAME))).thenReturn(formList(4,
+                form("id2", REC_DATES.get(2)), form("id1", REC_DATES.get(1))
+        ));
+        when(formService.retrieveFormList(page(1), eq(CONFIG_NAME))).thenReturn(formList(4,
+                form("id4", REC_DATES.get(4)), form("id3", REC_DATES.get(3))
+        ));
+
+        importer = new CommcareFormImporterImpl(eventRelay, formService, checkpointDataService);
+        importer.setFetchSize(2);
+
+        importer.startImport(new Range<>(START, END), CONFIG_NAME);
+        waitForImportEnd();
+
+        ArgumentCaptor<FormListRequest> requestCaptor = ArgumentCaptor.forClass(FormListRequest.class);
+        verify(formService, times(3)).retrieveFormList(requestCaptor.capture(), eq(CONFIG_NAME));
+
+        for (FormListRequest request : requestCaptor.getAllValues()) {
+            assertEquals(CommcareParamHelper.printDateTime(REC_DATES.get(1)),
+                    CommcareParamHelper.printDateTime(request.getReceivedOnStart()));
+            assertEquals(END, request.getReceivedOnEnd());
+        }
+
+        ArgumentCaptor<MotechEvent> eventCaptor = ArgumentCaptor.forClass(MotechEvent.class);
+        verify(eventRelay, times(3)).sendEventMessage(eventCaptor.capture());
+
+        for (int i = 0; i < 3; i++) {
+            verifyFormEvent(eventCaptor.getAllValues().get(i), "id" + (i + 2), REC_DATES.get(i + 2));
+        }
+
+        FormImportStatus status = importer.importStatus();
+        assertEquals(5, status.getFormsImported());
+        assertEquals(5, status.getTotalForms());
+        assertEquals("id4", status.getLastImportFormId());
+
+        verify(checkpointDataService).delete(checkpoint);
+    }
+
+    @Test
+    public void shouldSkipAllFormsImportedAtTheCheckpointDate() throws InterruptedException {
+        FormImportCheckpoint checkpoint = new FormImportCheckpoint(CONFIG_NAME, START, END);
+        checkpoint.setLastFormId("id1");
+        checkpoint.setLastReceivedOn(CommcareParamHelper.printDateTime(REC_DATES.get(1)));
+        checkpoint.setLastReceivedOnFormIds(asList("id0", "id1"));
+        checkpoint.setFormsImported(2);
+        when(checkpointDataService.byConfigName(CONFIG_NAME)).thenReturn(checkpoint);
+
+        // three forms share the checkpoint date, the first two of them were imported before
+        when(formService.retrieveFormList(page(1), eq(CONFIG_NAME))).thenReturn(formList(5,
+                form("id4", REC_DATES.get(3)), form("id3", REC_DATES.get(3)), form("id2", REC_DATES.get(1)),
+                form("id1", REC_DATES.get(1)), form("id0", REC_DATES.get(1))
+        ));
+
+        importer = new CommcareFormImporterImpl(eventRelay, formService, checkpointDataService);
+        importer.setFetchSize(10);
+
+        importer.startImport(new Range<>(START, END), CONFIG_NAME);
+        waitForImportEnd();
+
+        ArgumentCaptor<MotechEvent> eventCaptor = ArgumentCaptor.forClass(MotechEvent.class);
+        verify(eventRelay, times(3)).sendEventMessage(eventCaptor.capture());
+
+        verifyFormEvent(eventCaptor.getAllValues().get(0), "id2", REC_DATES.get(1));
+        verifyFormEvent(eventCaptor.getAllValues().get(1), "id3", REC_DATES.get(3));
+        verifyFormEvent(eventCaptor.getAllValues().get(2), "id4", REC_DATES.get(3));
+
+        FormImportStatus status = importer.importStatus();
+        assertEquals(5, status.getFormsImported());
+        assertEquals(5, status.getTotalForms());
+
+        // the saved checkpoint knows all forms imported at its date
+        verify(checkpointDataService).createOrUpdate(checkpoint);
+        assertEquals("id4", checkpoint.getLastFormId());
+        assertEquals(CommcareParamHelper.printDateTime(REC_DATES.get(3)), checkpoint.getLastReceivedOn());
+        assertEquals(asList("id3", "id4"), checkpoint.getLastReceivedOnFormIds());
+    }
+
+    @Test
+    public void shouldRejectConcurrentImportsOfTheSameConfig() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        when(formService.retrieveFormList(page(3), eq(CONFIG_NAME))).thenAnswer(new Answer<CommcareFormList>() {
+            @Override
+            public CommcareFormList answer(InvocationOnMock invocation) throws InterruptedException {
+                release.await(5, TimeUnit.SECONDS);
+                return formList(form("id0", REC_DATES.get(0)));
+            }
+        });
+
+        FormImportLocks importLocks = new FormImportLocks();
+        importer = new CommcareFormImporterImpl(eventRelay, formService, checkpointDataService, importLocks);
+        importer.setFetchSize(2);
+        CommcareFormImporter otherImporter = new CommcareFormImporterImpl(eventRelay, formService,
+                checkpointDataService, importLocks);
+        otherImporter.setFetchSize(2);
+
+        importer.startImport(new Range<>(START, END), CONFIG_NAME);
+        try {
+            otherImporter.startImport(new Range<>(START, END), CONFIG_NAME);
+            fail("Expected the second import to be rejected");
+        } catch (IllegalStateException e) {
+            assertFalse(otherImporter.isImportInProgress());
+        } finally {
+            release.countDown();
+        }
+
+        waitForImportEnd();
+        assertFalse(importLocks.isLocked(CONFIG_NAME));
+        assertEquals(5, importer.importStatus().getFormsImported());
+
+        // the configuration can be imported again once the first import is done
+        importer = otherImporter;
+        importer.startImport(new Range<>(START, END), CONFIG_NAME);
+        waitForImportEnd();
+        assertEquals(5, importer.importStatus().getFormsImported());
+    }
+
+    @Test
+    public void shouldDiscardCheckpointForDifferentRange() throws InterruptedException {
+        FormImportCheckpoint checkpoint = new FormImportCheckpoint(CONFIG_NAME, START, END.plusDays(1));
+        checkpoint.setLastFormId("id1");
+        checkpoint.setLastReceivedOn(CommcareParamHelper.printDateTime(REC_DATES.get(1)));
+        when(checkpointDataService.byConfigName(CONFIG_NAME)).thenReturn(checkpoint, (FormImportCheckpoint) null);
+
+        importer = new CommcareFormImporterImpl(eventRelay, formService, checkpointDataService);
+        importer.setFetchSize(2);
+
+        importer.startImport(new Range<>(START, END), CONFIG_NAME);
+        waitForImportEnd();
+
+        verify(checkpointDataService).delete(checkpoint);
+        verify(eventRelay, times(5)).sendEventMessage(any(MotechEvent.class));
+        assertEquals(5, importer.importStatus().getFormsImported());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void shouldRejectNullDateRangeWhenStartingImport() {
         importer.startImport(null, CONFIG_NAME);
@@ -202,8 +390,12 @@ public class CommcareFormImporterTest {
     }
 
     private CommcareFormList formList(CommcareForm... forms) {
+        return formList(TOTAL_COUNT, forms);
+    }
+
+    private CommcareFormList formList(int totalCount, CommcareForm... forms) {
         CommcareMetadataJson meta = new CommcareMetadataJson();
-        ReflectionTestUtils.setField(meta, "totalCount", TOTAL_COUNT);
+        ReflectionTestUtils.setField(meta, "totalCount", totalCount);
 
         CommcareFormList formList = new CommcareFormList();
         formList.setMeta(meta);
@@ -10,6 +10,7 @@ import org.motechproject.commcare.config.Config;
 import org.motechproject.commcare.domain.CaseInfo;
 import org.motechproject.commcare.gateway.CaseTaskXmlConverter;
 import org.motechproject.commcare.request.json.CaseRequest;
+import org.motechproject.commcare.service.CommcareCaseStore;
 import org.motechproject.commcare.service.CommcareConfigService;
 import org.motechproject.commcare.util.ConfigsUtils;
 import org.slf4j.Logger;
@@ -25,7 +26,12 @@ import static ch.lambdaj.Lambda.on;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -44,6 +50,9 @@ public class CommcareCaseServiceImplTest {
     @Mock
     private CommcareConfigService configService;
 
+    @Mock
+    private CommcareCaseStore caseStore;
+
     private Config config;
 
     @Before
@@ -54,7 +63,7 @@ public class CommcareCaseServiceImplTest {
 
         when(configService.getByName(null)).thenReturn(config);
 
-        caseService = new CommcareCaseServiceImpl(converter, commcareHttpClient, configService);
+        caseService = new CommcareCaseServiceImpl(converter, commcareHttpClient, configService, caseStore);
     }
 
     @Test
@@ -107,6 +116,50 @@ public class CommcareCaseServiceImplTest {
                 "2012-04-10T14:31:44.950000Z"), extract(cases, on(CaseInfo.class).getServerDateModified()));
     }
 
+    @Test
+    public void shouldServeCaseFromLocalStoreWhenCachingIsEnabled() {
+        config.setCacheCases(true);
+        CaseInfo localCase = new CaseInfo();
+        localCase.setCaseId("testCase");
+        when(caseStore.getCase(config.getName(), "testCase")).thenReturn(localCase);
+
+        assertSame(localCase, caseService.getCaseByCaseId("testCase"));
+        verify(commcareHttpClient, never()).singleCaseRequest(any(AccountConfig.class), anyString());
+    }
+
+    @Test
+    public void shouldStoreCaseRetrievedFromCommcareWhenNotStoredLocally() {
+        config.setCacheCases(true);
+        String caseId = "JQHFW1DBNQRQJ8VVKZ0M7RKJ4";
+        when(commcareHttpClient.singleCaseRequest(config.getAccountConfig(), caseId)).thenReturn(individualCase());
+
+        CaseInfo caseInstance = caseService.getCaseByCaseId(caseId);
+
+        assertEquals(caseId, caseInstance.getCaseId());
+        verify(caseStore).save(config.getName(), caseInstance);
+    }
+
+    @Test
+    public void shouldServeCasesByTypeFromLocalStoreOnceItIsComplete() {
+        config.setCacheCases(true);
+        List<CaseInfo> localCases = asList(new CaseInfo());
+        when(caseStore.isComplete(config.getName())).thenReturn(true);
+        when(caseStore.getCasesByType(config.getName(), "checkup", 20, 2)).thenReturn(localCases);
+
+        assertSame(localCases, caseService.getCasesByType("checkup", 20, 2));
+        verify(commcareHttpClient, never()).casesRequest(any(AccountConfig.class), any(CaseRequest.class));
+    }
+
+    @Test
+    public void shouldQueryCommcareForCasesByTypeUntilLocalStoreIsComplete() {
+        config.setCacheCases(true);
+        when(caseStore.isComplete(config.getName())).thenReturn(false);
+        when(commcareHttpClient.casesRequest(any(AccountConfig.class), any(CaseRequest.class))).thenReturn(casesResponse());
+
+        assertEquals(4, caseService.getCasesByType("checkup", 20, 1).size());
+        verify(caseStore, never()).getCasesByType(anyString(), anyString(), anyInt(), anyInt());
+    }
+
     private String casesResponse() {
         try {
             URL url = this.getClass().getClassLoader().getResource("json/service/cases.json");
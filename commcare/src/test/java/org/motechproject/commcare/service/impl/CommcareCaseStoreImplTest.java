@@ -0,0 +1,286 @@
+package org.motechproject.commcare.service.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.motechproject.commcare.client.CommCareAPIHttpClient;
+import org.motechproject.commcare.config.AccountConfig;
+import org.motechproject.commcare.config.Config;
+import org.motechproject.commcare.domain.CaseInfo;
+import org.motechproject.commcare.domain.CaseSyncState;
+import org.motechproject.commcare.domain.LocalCase;
+import org.motechproject.commcare.events.CaseEvent;
+import org.motechproject.commcare.request.json.CaseRequest;
+import org.motechproject.commcare.service.CaseSyncStateDataService;
+import org.motechproject.commcare.service.CommcareConfigService;
+import org.motechproject.commcare.service.LocalCaseDataService;
+import org.motechproject.commcare.util.ConfigsUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class CommcareCaseStoreImplTest {
+
+    @Mock
+    private CommCareAPIHttpClient commcareHttpClient;
+
+    @Mock
+    private CommcareConfigService configService;
+
+    @Mock
+    private LocalCaseDataService localCaseDataService;
+
+    @Mock
+    private CaseSyncStateDataService caseSyncStateDataService;
+
+    private Config config;
+    private CommcareCaseStoreImpl caseStore;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        config = ConfigsUtils.prepareConfigOne();
+        config.setCacheCases(true);
+        when(configService.getByName(config.getName())).thenReturn(config);
+
+        caseStore = new CommcareCaseStoreImpl(commcareHttpClient, configService, localCaseDataService,
+                caseSyncStateDataService);
+    }
+
+    @Test
+    public void shouldPullAllPagesOnFirstSync() {
+        CaseRequest firstPage = request(null, 0);
+        CaseRequest secondPage = request(null, CommcareCaseStoreImpl.SYNC_PAGE_SIZE);
+        when(commcareHttpClient.casesRequest(config.getAccountConfig(), firstPage))
+                .thenReturn(casesResponse(0, CommcareCaseStoreImpl.SYNC_PAGE_SIZE));
+        when(commcareHttpClient.casesRequest(config.getAccountConfig(), secondPage)).thenReturn(casesResponse(100, 3));
+
+        int pulled = caseStore.sync(config.getName());
+
+        assertEquals(CommcareCaseStoreImpl.SYNC_PAGE_SIZE + 3, pulled);
+        verify(localCaseDataService, times(CommcareCaseStoreImpl.SYNC_PAGE_SIZE + 3)).create(any(LocalCase.class));
+
+        ArgumentCaptor<CaseSyncState> captor = ArgumentCaptor.forClass(CaseSyncState.class);
+        verify(caseSyncStateDataService).createOrUpdate(captor.capture());
+        assertEquals(config.getName(), captor.getValue().getConfigName());
+        assertEquals(modifiedOn(102), captor.getValue().getLastServerDateModified());
+        assertEquals(CommcareCaseStoreImpl.SYNC_PAGE_SIZE + 3, captor.getValue().getCasesSynchronized());
+        assertTrue(captor.getValue().isComplete());
+    }
+
+    @Test
+    public void shouldPullOnlyCasesModifiedSinceLastSync() {
+        CaseSyncState state = new CaseSyncState(config.getName());
+        state.setLastServerDateModified(modifiedOn(5));
+        when(caseSyncStateDataService.byConfigName(config.getName())).thenReturn(state);
+        when(commcareHttpClient.casesRequest(config.getAccountConfig(), request(modifiedOn(5), 0)))
+                .thenReturn(casesResponse(5, 2));
+
+        assertEquals(2, caseStore.sync(config.getName()));
+        assertEquals(modifiedOn(6), state.getLastServerDateModified());
+        verify(caseSyncStateDataService).createOrUpdate(state);
+    }
+
+    @Test
+    public void shouldNotRecordSyncWhenCasesCannotBeRetrieved() {
+        try {
+            caseStore.sync(config.getName());
+        } catch (IllegalStateException e) {
+            verify(caseSyncStateDataService, never()).createOrUpdate(any(CaseSyncState.class));
+            return;
+        }
+        throw new AssertionError("Expected the sync to fail");
+    }
+
+    @Test
+    public void shouldStopSyncWhenCasesAreCleared() throws InterruptedException {
+        final Thread clearThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                caseStore.clear(config.getName());
+            }
+        });
+        when(commcareHttpClient.casesRequest(config.getAccountConfig(), request(null, 0))).thenAnswer(
+                new Answer<String>() {
+                    @Override
+                    public String answer(InvocationOnMock invocation) throws InterruptedException {
+                        // the configuration is cleared while the first page is being pulled
+                        clearThread.start();
+                        long deadline = System.currentTimeMillis() + 5000;
+                        while (clearThread.getState() != Thread.State.BLOCKED &&
+                                System.currentTimeMillis() < deadline) {
+                            Thread.sleep(10);
+                        }
+                        return casesResponse(0, CommcareCaseStoreImpl.SYNC_PAGE_SIZE);
+                    }
+                });
+
+        assertEquals(0, caseStore.sync(config.getName()));
+        clearThread.join(5000);
+
+        verify(localCaseDataService, never()).create(any(LocalCase.class));
+        verify(caseSyncStateDataService, never()).createOrUpdate(any(CaseSyncState.class));
+        verify(localCaseDataService).byConfigName(config.getName());
+    }
+
+    @Test
+    public void shouldNotReplaceMoreRecentLocalCopy() {
+        LocalCase localCase = new LocalCase(config.getName(), "case1");
+        localCase.setServerDateModified("2015-01-02T00:00:00.000000Z");
+        when(localCaseDataService.byConfigNameAndCaseId(config.getName(), "case1")).thenReturn(localCase);
+
+        CaseInfo older = caseInfo("case1", "2015-01-01T00:00:00.000Z");
+        caseStore.save(config.getName(), older);
+        verify(localCaseDataService, never()).update(any(LocalCase.class));
+
+        CaseInfo newer = caseInfo("case1", "2015-01-03T00:00:00.000Z");
+        caseStore.save(config.getName(), newer);
+        verify(localCaseDataService).update(localCase);
+        assertEquals("2015-01-03T00:00:00.000Z", localCase.getServerDateModified());
+    }
+
+    @Test
+    public void shouldMergeForwardedCaseIntoLocalCopy() {
+        LocalCase localCase = LocalCase.fromCaseInfo(config.getName(), caseInfo("case1", "2015-01-01T00:00:00Z"));
+        when(localCaseDataService.byConfigNameAndCaseId(config.getName(), "case1")).thenReturn(localCase);
+
+        CaseEvent caseEvent = new CaseEvent("case1");
+        caseEvent.setConfigName(config.getName());
+        caseEvent.setAction("CLOSE");
+        caseEvent.setOwnerId("owner2");
+        caseEvent.setDateModified("2015-01-05");
+        caseEvent.setServerModifiedOn("2015-01-05T10:00:00Z");
+        Map<String, String> fieldValues = new HashMap<>();
+        fieldValues.put("weight", "12");
+        caseEvent.setFieldValues(fieldValues);
+
+        caseStore.apply(caseEvent);
+
+        verify(localCaseDataService).createOrUpdate(localCase);
+        CaseInfo merged = localCase.toCaseInfo();
+        assertEquals("owner2", merged.getOwnerId());
+        assertEquals("checkup", merged.getCaseType());
+        assertEquals("12", merged.getFieldValues().get("weight"));
+        assertEquals("Jane", merged.getFieldValues().get("name"));
+        assertTrue(merged.isClosed());
+        assertEquals("2015-01-05", merged.getDateClosed());
+        assertEquals("2015-01-05T10:00:00Z", merged.getServerDateModified());
+    }
+
+    @Test
+    public void shouldIgnoreCaseEventOlderThanLocalCopy() {
+        LocalCase localCase = LocalCase.fromCaseInfo(config.getName(), caseInfo("case1", "2015-01-01T00:00:00Z"));
+        when(localCaseDataService.byConfigNameAndCaseId(config.getName(), "case1")).thenReturn(localCase);
+
+        CaseEvent newer = new CaseEvent("case1");
+        newer.setConfigName(config.getName());
+        newer.setAction("UPDATE");
+        newer.setOwnerId("owner3");
+        newer.setServerModifiedOn("2015-01-06T10:00:00.000000Z");
+
+        CaseEvent older = new CaseEvent("case1");
+        older.setConfigName(config.getName());
+        older.setAction("CLOSE");
+        older.setOwnerId("owner2");
+        older.setDateModified("2015-01-05");
+        older.setServerModifiedOn("2015-01-05T10:00:00Z");
+
+        // the newer event is delivered first
+        caseStore.apply(newer);
+        caseStore.apply(older);
+
+        verify(localCaseDataService, times(1)).createOrUpdate(localCase);
+        CaseInfo merged = localCase.toCaseInfo();
+        assertEquals("owner3", merged.getOwnerId());
+        assertFalse(merged.isClosed());
+        assertEquals("2015-01-06T10:00:00.000000Z", merged.getServerDateModified());
+    }
+
+    @Test
+    public void shouldAddCreatedCaseAndSkipUnknownUpdatedCase() {
+        CaseEvent created = new CaseEvent("case1");
+        created.setConfigName(config.getName());
+        created.setAction("CREATE");
+        created.setCaseType("checkup");
+
+        CaseEvent updated = new CaseEvent("case2");
+        updated.setConfigName(config.getName());
+        updated.setAction("UPDATE");
+
+        caseStore.apply(created);
+        caseStore.apply(updated);
+
+        ArgumentCaptor<LocalCase> captor = ArgumentCaptor.forClass(LocalCase.class);
+        verify(localCaseDataService).createOrUpdate(captor.capture());
+        assertEquals("case1", captor.getValue().getCaseId());
+        assertEquals("checkup", captor.getValue().getCaseType());
+        assertFalse(captor.getValue().isClosed());
+    }
+
+    @Test
+    public void shouldReturnNullForCaseNotStoredLocally() {
+        assertNull(caseStore.getCase(config.getName(), "case1"));
+    }
+
+    private CaseRequest request(String since, int offset) {
+        CaseRequest request = new CaseRequest();
+        request.setDateModifiedStart(since);
+        request.setLimit(CommcareCaseStoreImpl.SYNC_PAGE_SIZE);
+        request.setOffset(offset);
+        return request;
+    }
+
+    private CaseInfo caseInfo(String caseId, String serverDateModified) {
+        CaseInfo caseInfo = new CaseInfo();
+        caseInfo.setCaseId(caseId);
+        caseInfo.setCaseType("checkup");
+        caseInfo.setOwnerId("owner1");
+        caseInfo.setServerDateModified(serverDateModified);
+        Map<String, String> fieldValues = new HashMap<>();
+        fieldValues.put("name", "Jane");
+        caseInfo.setFieldValues(fieldValues);
+        return caseInfo;
+    }
+
+    private String casesResponse(int first, int count) {
+        List<String> cases = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            cases.add(String.format("{\"case_id\": \"case%d\", \"closed\": false, \"server_date_modified\": \"%s\", " +
+                    "\"properties\": {\"case_type\": \"checkup\", \"owner_id\": \"owner1\"}}", i, modifiedOn(i)));
+        }
+        return String.format("{\"meta\": {\"limit\": %d, \"offset\": %d, \"total_count\": %d}, \"objects\": [%s]}",
+                CommcareCaseStoreImpl.SYNC_PAGE_SIZE, first, first + count, join(cases));
+    }
+
+    private String join(List<String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private String modifiedOn(int i) {
+        return String.format("2015-01-01T%02d:%02d:00.000000Z", i / 60, i % 60);
+    }
+}
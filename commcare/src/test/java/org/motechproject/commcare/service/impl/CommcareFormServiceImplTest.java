@@ -5,12 +5,15 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.motechproject.commcare.domain.FormXml;
 import org.motechproject.commcare.exception.OpenRosaParserException;
 import org.motechproject.commcare.gateway.FormXmlConverter;
 import org.motechproject.commcare.response.OpenRosaResponse;
 import org.motechproject.commcare.testutil.CommcareFormTestLoader;
 import org.motechproject.commcare.client.CommCareAPIHttpClient;
+import org.motechproject.commcare.client.ResponseBodyReader;
 import org.motechproject.commcare.config.AccountConfig;
 import org.motechproject.commcare.config.Config;
 import org.motechproject.commcare.domain.CommcareForm;
@@ -22,6 +25,8 @@ import org.motechproject.commcare.request.FormListRequest;
 import org.motechproject.commcare.service.CommcareConfigService;
 import org.motechproject.commcare.util.ConfigsUtils;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -247,8 +252,8 @@ public class CommcareFormServiceImplTest {
     @Test
     public void shouldReturnFormList() {
         final FormListRequest formListRequest = mock(FormListRequest.class);
-        when(commcareHttpClient.formListRequest(any(AccountConfig.class), eq(formListRequest)))
-                .thenReturn(CommcareFormTestLoader.formListJson());
+        when(commcareHttpClient.formListRequest(any(AccountConfig.class), eq(formListRequest),
+                any(ResponseBodyReader.class))).thenAnswer(formListJsonAnswer());
 
         CommcareFormList formList = formService.retrieveFormList(formListRequest);
 
@@ -257,8 +262,8 @@ public class CommcareFormServiceImplTest {
 
     @Test
     public void shouldAllowNullRequestForFormList() {
-        when(commcareHttpClient.formListRequest(any(AccountConfig.class), eq((FormListRequest) null)))
-                .thenReturn(CommcareFormTestLoader.formListJson());
+        when(commcareHttpClient.formListRequest(any(AccountConfig.class), eq((FormListRequest) null),
+                any(ResponseBodyReader.class))).thenAnswer(formListJsonAnswer());
 
         CommcareFormList formList = formService.retrieveFormList(null);
 
@@ -282,6 +287,17 @@ public class CommcareFormServiceImplTest {
         verify(commcareHttpClient).submissionRequest(any(AccountConfig.class), eq(xml));
     }
 
+    private Answer<Object> formListJsonAnswer() {
+        return new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                ResponseBodyReader<?> reader = (ResponseBodyReader<?>) invocation.getArguments()[2];
+                return reader.read(new ByteArrayInputStream(
+                        CommcareFormTestLoader.formListJson().getBytes(StandardCharsets.UTF_8)));
+            }
+        };
+    }
+
     private void basicListVerification(CommcareFormList formList) {
         // parsing tested in FormAdapterTest
         assertNotNull(formList);
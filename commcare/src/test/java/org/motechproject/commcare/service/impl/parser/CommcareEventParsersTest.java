@@ -7,6 +7,7 @@ import org.mockito.Mock;
 import org.motechproject.commcare.config.Config;
 import org.motechproject.commcare.events.constants.EventSubjects;
 import org.motechproject.commcare.exception.EndpointNotSupported;
+import org.motechproject.commcare.service.CommcareCaseStore;
 import org.motechproject.commcare.service.CommcareConfigService;
 import org.motechproject.commcare.service.impl.CommcareCaseEventParser;
 import org.motechproject.commcare.service.impl.CommcareFormsEventParser;
@@ -19,6 +20,7 @@ import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
 import org.springframework.mock.web.MockHttpServletRequest;
 
+import java.io.StringReader;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
@@ -44,6 +46,9 @@ public class CommcareEventParsersTest {
     @Mock
     private CommcareConfigService configService;
 
+    @Mock
+    private CommcareCaseStore caseStore;
+
     private FullFormController formsController;
     private CasesController casesController;
     private MockHttpServletRequest request;
@@ -72,14 +77,14 @@ public class CommcareEventParsersTest {
 
         // Mock hitting forms and cases endpoint
         formsController = new FullFormController(eventRelay, configService);
-        casesController = new CasesController(eventRelay, configService);
+        casesController = new CasesController(eventRelay, configService, caseStore);
         request = new MockHttpServletRequest();
         request.addHeader("received-on", "2012-07-21T15:22:34.046462Z");
         request.setPathInfo("/forms/"+ config.getName());
 
         ArgumentCaptor<MotechEvent> captor = ArgumentCaptor.forClass(MotechEvent.class);
-        formsController.receiveForm(ResponseXML.getFormXML(), request);
-        formsController.receiveForm(ResponseXML.getFormXMLWithRepeatData(), request);
+        formsController.receiveForm(new StringReader(ResponseXML.getFormXML()), request);
+        formsController.receiveForm(new StringReader(ResponseXML.getFormXMLWithRepeatData()), request);
 
         request.setContent(ResponseXML.getCaseXML().getBytes());
         casesController.receiveCase(request, config.getName());
@@ -0,0 +1,87 @@
+package org.motechproject.commcare.web;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.motechproject.commcare.config.Config;
+import org.motechproject.commcare.events.CaseEvent;
+import org.motechproject.commcare.events.constants.EventSubjects;
+import org.motechproject.commcare.exception.EndpointNotSupported;
+import org.motechproject.commcare.service.CommcareCaseStore;
+import org.motechproject.commcare.service.CommcareConfigService;
+import org.motechproject.commcare.util.ConfigsUtils;
+import org.motechproject.commcare.util.ResponseXML;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.EventRelay;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class CasesControllerTest {
+
+    @Mock
+    private EventRelay eventRelay;
+
+    @Mock
+    private CommcareConfigService configService;
+
+    @Mock
+    private CommcareCaseStore caseStore;
+
+    private CasesController controller;
+    private MockHttpServletRequest request;
+    private Config config;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        controller = new CasesController(eventRelay, configService, caseStore);
+
+        config = ConfigsUtils.prepareConfigOne();
+        when(configService.getByName(config.getName())).thenReturn(config);
+
+        request = new MockHttpServletRequest();
+        request.setContent(ResponseXML.getCaseXML().getBytes());
+    }
+
+    @Test
+    public void shouldPublishCaseEventBeforeUpdatingLocalCopy() throws EndpointNotSupported {
+        config.setCacheCases(true);
+
+        controller.receiveCase(request, config.getName());
+
+        InOrder order = inOrder(eventRelay, caseStore);
+        order.verify(eventRelay).sendEventMessage(any(MotechEvent.class));
+        order.verify(caseStore).apply(any(CaseEvent.class));
+    }
+
+    @Test
+    public void shouldPublishCaseEventWhenLocalCopyCannotBeUpdated() throws EndpointNotSupported {
+        config.setCacheCases(true);
+        doThrow(new IllegalStateException("Database unavailable")).when(caseStore).apply(any(CaseEvent.class));
+
+        controller.receiveCase(request, config.getName());
+
+        ArgumentCaptor<MotechEvent> captor = ArgumentCaptor.forClass(MotechEvent.class);
+        verify(eventRelay).sendEventMessage(captor.capture());
+        assertEquals(EventSubjects.CASE_EVENT, captor.getValue().getSubject());
+    }
+
+    @Test
+    public void shouldNotUpdateLocalCopyWhenCachingIsDisabled() throws EndpointNotSupported {
+        controller.receiveCase(request, config.getName());
+
+        verify(eventRelay).sendEventMessage(any(MotechEvent.class));
+        verify(caseStore, never()).apply(any(CaseEvent.class));
+    }
+}
@@ -17,6 +17,7 @@ import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
 import org.springframework.mock.web.MockHttpServletRequest;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -68,7 +69,7 @@ public class FullFormControllerTest {
     public void testIncomingFormsFailure() throws EndpointNotSupported {
         ArgumentCaptor<MotechEvent> captor = ArgumentCaptor.forClass(MotechEvent.class);
 
-        controller.receiveForm("", request);
+        controller.receiveForm(new StringReader(""), request);
         verify(eventRelay, times(2)).sendEventMessage(captor.capture());
     }
 
@@ -76,7 +77,7 @@ public class FullFormControllerTest {
     public void testIncomingDeviceReport() throws EndpointNotSupported {
         ArgumentCaptor<MotechEvent> captor = ArgumentCaptor.forClass(MotechEvent.class);
 
-        controller.receiveForm(ResponseXML.getDeviceReportXML(), request);
+        controller.receiveForm(new StringReader(ResponseXML.getDeviceReportXML()), request);
 
         verify(eventRelay).sendEventMessage(captor.capture());
         MotechEvent event = captor.getValue();
@@ -106,7 +107,7 @@ public class FullFormControllerTest {
     public void testIncomingFormsSuccess() throws EndpointNotSupported {
         ArgumentCaptor<MotechEvent> captor = ArgumentCaptor.forClass(MotechEvent.class);
 
-        controller.receiveForm(ResponseXML.getFormXML(), request);
+        controller.receiveForm(new StringReader(ResponseXML.getFormXML()), request);
         verify(eventRelay).sendEventMessage(captor.capture());
 
         MotechEvent event = captor.getValue();
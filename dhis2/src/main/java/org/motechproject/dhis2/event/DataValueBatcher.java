@@ -0,0 +1,299 @@
+package org.motechproject.dhis2.event;
+
+import org.motechproject.dhis2.rest.domain.DataValueDto;
+import org.motechproject.dhis2.rest.domain.DataValueSetDto;
+import org.motechproject.dhis2.rest.domain.DhisDataValueStatusResponse;
+import org.motechproject.dhis2.rest.domain.DhisStatus;
+import org.motechproject.dhis2.rest.domain.ImportConflictDto;
+import org.motechproject.dhis2.rest.service.DhisWebService;
+import org.motechproject.dhis2.service.Settings;
+import org.motechproject.dhis2.service.SettingsService;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.EventRelay;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces single data values into data value set imports. The values are buffered per organisation unit and period
+ * and sent to DHIS2 as one import once the batch size is reached or the oldest value has waited for the batch delay,
+ * whichever comes first. The conflicts reported by DHIS2 are mapped back to the values which caused them, and the
+ * outcome of every value is published as a {@link EventSubjects#DATA_VALUE_SENT} or
+ * {@link EventSubjects#DATA_VALUE_FAILED} event, carrying the parameters of the original event.
+ * <p>
+ * Batching is disabled by default and has to be enabled by setting the data value batch size to at least 2, since
+ * values are kept in memory only, so the values buffered when the server goes down are lost. Remaining values are
+ * sent when the module is stopped.
+ */
+@Service
+public class DataValueBatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataValueBatcher.class);
+
+    private static final int DEFAULT_BATCH_SIZE = 1;
+    private static final long DEFAULT_BATCH_DELAY = 1000;
+    private static final long SHUTDOWN_TIMEOUT = 30;
+
+    private DhisWebService dhisWebService;
+    private SettingsService settingsService;
+    private EventRelay eventRelay;
+
+    private final Map<String, List<PendingDataValue>> buffers = new HashMap<>();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "dhis2-data-value-batcher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // pending delayed flushes are dropped on shutdown, stop() sends the buffers itself
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        flusher = executor;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+
+        List<List<PendingDataValue>> remaining;
+        synchronized (buffers) {
+            remaining = new ArrayList<>(buffers.values());
+            buffers.clear();
+        }
+        for (List<PendingDataValue> batch : remaining) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Checks whether data values should be batched. Batching is disabled unless the configured batch size is at
+     * least 2, the values should be sent directly then.
+     *
+     * @return true if data values should be passed to {@link #add(DataValueDto, Map)}
+     */
+    public boolean isEnabled() {
+        return getBatchSize() > 1;
+    }
+
+    /**
+     * Adds the data value to the batch of its organisation unit and period. The batch is sent in the background.
+     *
+     * @param dataValue the data value to send
+     * @param eventParameters the parameters of the event which requested sending the value, they are passed on to
+     *                        the event published with the outcome
+     */
+    public void add(DataValueDto dataValue, Map<String, Object> eventParameters) {
+        final String key = dataValue.getOrgUnit() + '|' + dataValue.getPeriod();
+        final List<PendingDataValue> full;
+
+        synchronized (buffers) {
+            List<PendingDataValue> buffer = buffers.get(key);
+            if (buffer == null) {
+                buffer = new ArrayList<>();
+                buffers.put(key, buffer);
+                scheduleFlush(key, buffer);
+            }
+            buffer.add(new PendingDataValue(dataValue, eventParameters));
+
+            full = (buffer.size() >= getBatchSize()) ? buffers.remove(key) : null;
+        }
+
+        if (full != null) {
+            submit(new Runnable() {
+                @Override
+                public void run() {
+                    send(full);
+                }
+            });
+        }
+    }
+
+    private void scheduleFlush(final String key, final List<PendingDataValue> buffer) {
+        try {
+            flusher.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush(key, buffer);
+                }
+            }, getBatchDelay(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // stopping, the buffer will be sent by stop()
+            LOGGER.debug("DHIS2 data value batcher is stopped");
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            flusher.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    private void flush(String key, List<PendingDataValue> buffer) {
+        synchronized (buffers) {
+            // the buffer could have been sent already, because it was full
+            if (buffers.get(key) != buffer) {
+                return;
+            }
+            buffers.remove(key);
+        }
+        send(buffer);
+    }
+
+    private void send(List<PendingDataValue> batch) {
+        List<DataValueDto> dataValues = new ArrayList<>(batch.size());
+        for (PendingDataValue pending : batch) {
+            dataValues.add(pending.getDataValue());
+        }
+
+        DataValueSetDto dataValueSetDto = new DataValueSetDto();
+        dataValueSetDto.setDataValues(dataValues);
+
+        DhisDataValueStatusResponse response;
+        try {
+            LOGGER.debug("Sending a batch of {} data values to DHIS2", dataValues.size());
+            response = dhisWebService.sendDataValueSet(dataValueSetDto);
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to send a batch of {} data values to DHIS2", dataValues.size(), e);
+            for (PendingDataValue pending : batch) {
+                publishFailure(pending, e.getMessage());
+            }
+            return;
+        }
+
+        publishResults(batch, response);
+    }
+
+    private void publishResults(List<PendingDataValue> batch, DhisDataValueStatusResponse response) {
+        if (response == null || response.getStatus() == DhisStatus.ERROR) {
+            String message = (response == null) ? "No response from DHIS2" : response.getDescription();
+            for (PendingDataValue pending : batch) {
+                publishFailure(pending, message);
+            }
+            return;
+        }
+
+        Set<String> identifiers = new HashSet<>();
+        for (PendingDataValue pending : batch) {
+            DataValueDto dataValue = pending.getDataValue();
+            identifiers.addAll(Arrays.asList(dataValue.getDataElement(), dataValue.getOrgUnit(), dataValue.getPeriod(),
+                    dataValue.getCategoryOptionCombo()));
+        }
+
+        for (PendingDataValue pending : batch) {
+            ImportConflictDto conflict = findConflict(pending.getDataValue(), response.getConflicts(), identifiers);
+            if (conflict == null) {
+                eventRelay.sendEventMessage(new MotechEvent(EventSubjects.DATA_VALUE_SENT,
+                        new HashMap<>(pending.getEventParameters())));
+            } else {
+                publishFailure(pending, conflict.getValue());
+            }
+        }
+    }
+
+    private void publishFailure(PendingDataValue pending, String message) {
+        Map<String, Object> params = new HashMap<>(pending.getEventParameters());
+        params.put(EventParams.MESSAGE, message);
+        eventRelay.sendEventMessage(new MotechEvent(EventSubjects.DATA_VALUE_FAILED, params));
+    }
+
+    /**
+     * DHIS2 reports a conflict by the identifier of the object it could not import, or by the rejected value itself,
+     * so a conflict applies to every value of the batch referring to that object. A conflict naming one of the
+     * identifiers used in the batch is never matched against the values, so a value which happens to equal an
+     * identifier is not reported as failed.
+     */
+    private ImportConflictDto findConflict(DataValueDto dataValue, List<ImportConflictDto> conflicts,
+                                           Set<String> identifiers) {
+        if (conflicts == null) {
+            return null;
+        }
+        for (ImportConflictDto conflict : conflicts) {
+            String object = conflict.getObject();
+            if (object == null) {
+                continue;
+            }
+            if (identifiers.contains(object) ? refersTo(dataValue, object) : object.equals(dataValue.getValue())) {
+                return conflict;
+            }
+        }
+        return null;
+    }
+
+    private boolean refersTo(DataValueDto dataValue, String identifier) {
+        return identifier.equals(dataValue.getDataElement()) || identifier.equals(dataValue.getOrgUnit())
+                || identifier.equals(dataValue.getPeriod()) || identifier.equals(dataValue.getCategoryOptionCombo());
+    }
+
+    private int getBatchSize() {
+        Settings settings = settingsService.getSettings();
+        Integer batchSize = (settings == null) ? null : settings.getDataValueBatchSize();
+        return (batchSize == null) ? DEFAULT_BATCH_SIZE : batchSize;
+    }
+
+    private long getBatchDelay() {
+        Settings settings = settingsService.getSettings();
+        Long batchDelay = (settings == null) ? null : settings.getDataValueBatchDelay();
+        return (batchDelay == null) ? DEFAULT_BATCH_DELAY : batchDelay;
+    }
+
+    @Autowired
+    public void setDhisWebService(DhisWebService dhisWebService) {
+        this.dhisWebService = dhisWebService;
+    }
+
+    @Autowired
+    public void setSettingsService(SettingsService settingsService) {
+        this.settingsService = settingsService;
+    }
+
+    @Autowired
+    public void setEventRelay(EventRelay eventRelay) {
+        this.eventRelay = eventRelay;
+    }
+
+    /**
+     * A data value waiting in a batch, together with the parameters of the event which requested sending it.
+     */
+    private static class PendingDataValue {
+
+        private final DataValueDto dataValue;
+        private final Map<String, Object> eventParameters;
+
+        PendingDataValue(DataValueDto dataValue, Map<String, Object> eventParameters) {
+            this.dataValue = dataValue;
+            this.eventParameters = eventParameters;
+        }
+
+        DataValueDto getDataValue() {
+            return dataValue;
+        }
+
+        Map<String, Object> getEventParameters() {
+            return eventParameters;
+        }
+    }
+}
@@ -51,6 +51,9 @@ public class EventHandler {
     @Autowired
     private DataSetService dataSetService;
 
+    @Autowired
+    private DataValueBatcher dataValueBatcher;
+
     public EventHandler() {
 
     }
@@ -128,7 +131,9 @@ public class EventHandler {
 
     /**
      * Parses the event and creates a {@link org.motechproject.dhis2.rest.domain.DataValueDto} which
-     * is then sent to the DHIS2 server via {@link org.motechproject.dhis2.rest.service.DhisWebService}
+     * is then sent to the DHIS2 server via {@link org.motechproject.dhis2.rest.service.DhisWebService}.
+     * Unless batching is disabled, the value is passed to the {@link DataValueBatcher}, which sends it together
+     * with other values of the same organisation unit and period.
      *
      * @param event
      */
@@ -159,6 +164,11 @@ public class EventHandler {
         dataValueDto.setCategoryOptionCombo(categoryOptionCombo);
         dataValueDto.setComment(comment);
 
+        if (dataValueBatcher.isEnabled()) {
+            dataValueBatcher.add(dataValueDto, params);
+            return;
+        }
+
         DataValueSetDto dataValueSetDto = new DataValueSetDto();
         List<DataValueDto> dataValueDtos = new ArrayList<>();
         dataValueDtos.add(dataValueDto);
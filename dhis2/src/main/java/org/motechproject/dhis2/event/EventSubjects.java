@@ -11,6 +11,8 @@ public final class EventSubjects {
     public static final String CREATE_AND_ENROLL = "create_and_enroll";
     public static final String SEND_DATA_VALUE = "send_data_value";
     public static final String SEND_DATA_VALUE_SET = "send_data_value_set";
+    public static final String DATA_VALUE_SENT = "data_value_sent";
+    public static final String DATA_VALUE_FAILED = "data_value_failed";
 
     public static final String DHIS_SETTINGS_UPDATED = "dhis_settings_updated";
 
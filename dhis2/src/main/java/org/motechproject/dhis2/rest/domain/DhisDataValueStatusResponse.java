@@ -3,6 +3,9 @@ package org.motechproject.dhis2.rest.domain;
 
 import org.codehaus.jackson.annotate.JsonIgnoreProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A class to model DHIS2 responses that result from importing data values and data value sets.
  */
@@ -14,6 +17,7 @@ public class DhisDataValueStatusResponse {
     private ImportCountDto importCountDto;
     private ImportCountDto dataValueCount;
     private boolean dataSetComplete;
+    private List<ImportConflictDto> conflicts = new ArrayList<>();
 
 
     public ImportCountDto getDataValueCount() {
@@ -55,4 +59,12 @@ public class DhisDataValueStatusResponse {
     public void setDataSetComplete(boolean dataSetComplete) {
         this.dataSetComplete = dataSetComplete;
     }
+
+    public List<ImportConflictDto> getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(List<ImportConflictDto> conflicts) {
+        this.conflicts = conflicts;
+    }
 }
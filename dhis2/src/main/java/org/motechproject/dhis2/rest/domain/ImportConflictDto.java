@@ -0,0 +1,37 @@
+package org.motechproject.dhis2.rest.domain;
+
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+
+/**
+ * A class to model a conflict reported by DHIS2 while importing data values. The object is the identifier (or the
+ * value) which caused the conflict, the value describes the conflict.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ImportConflictDto {
+    private String object;
+    private String value;
+
+    public ImportConflictDto() {
+    }
+
+    public ImportConflictDto(String object, String value) {
+        this.object = object;
+        this.value = value;
+    }
+
+    public String getObject() {
+        return object;
+    }
+
+    public void setObject(String object) {
+        this.object = object;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+}
@@ -37,6 +37,49 @@ public interface DhisWebService {
      */
     List<DataSetDto> getDataSets();
 
+    /**
+     * Gets a list of the Data Elements updated in DHIS2 after the given time.
+     * @param updatedSince the DHIS2 server time, null to get all the Data Elements
+     * @return a list of {@link DataElementDto}s
+     */
+    List<DataElementDto> getDataElementsUpdatedSince(String updatedSince);
+
+    /**
+     * Gets a list of the Data Sets updated in DHIS2 after the given time, together with their Data Elements.
+     * @param updatedSince the DHIS2 server time, null to get all the Data Sets
+     * @return a list of {@link DataSetDto}s
+     */
+    List<DataSetDto> getDataSetsUpdatedSince(String updatedSince);
+
+    /**
+     * Gets the Organisation Units updated in DHIS2 after the given time, passing them to the callback one page at a
+     * time.
+     * @param updatedSince the DHIS2 server time, null to get all the Organisation Units
+     * @param callback the callback receiving the pages of {@link OrganisationUnitDto}s
+     */
+    void getOrganisationUnitsUpdatedSince(String updatedSince, ResourcePageCallback<OrganisationUnitDto> callback);
+
+    /**
+     * Gets a list of the Tracked Entities updated in DHIS2 after the given time.
+     * @param updatedSince the DHIS2 server time, null to get all the Tracked Entities
+     * @return a list of {@link TrackedEntityDto}s
+     */
+    List<TrackedEntityDto> getTrackedEntitiesUpdatedSince(String updatedSince);
+
+    /**
+     * Gets a list of the Tracked Entity Attributes updated in DHIS2 after the given time.
+     * @param updatedSince the DHIS2 server time, null to get all the Tracked Entity Attributes
+     * @return a list of {@link TrackedEntityAttributeDto}s
+     */
+    List<TrackedEntityAttributeDto> getTrackedEntityAttributesUpdatedSince(String updatedSince);
+
+    /**
+     * Gets a list of all the Programs from DHIS2, together with their Tracked Entities, Program Stages, Program Stage
+     * Data Elements and Program Tracked Entity Attributes, so that no further requests are needed for them.
+     * @return a list of {@link ProgramDto}s
+     */
+    List<ProgramDto> getProgramsWithStages();
+
     /**
      * Gets the Data Element specified in the URL.
      * @param href
@@ -57,6 +100,12 @@ public interface DhisWebService {
      */
     List<OrganisationUnitDto> getOrganisationUnits();
 
+    /**
+     * Gets all the Organisation Units from DHIS2, passing them to the callback one page at a time.
+     * @param callback the callback receiving the pages of {@link OrganisationUnitDto}s
+     */
+    void getOrganisationUnits(ResourcePageCallback<OrganisationUnitDto> callback);
+
     /**
      * Gets the Organisation Unit specified in the URL.
      * @param href
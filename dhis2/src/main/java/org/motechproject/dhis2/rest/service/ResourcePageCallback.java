@@ -0,0 +1,22 @@
+package org.motechproject.dhis2.rest.service;
+
+import org.motechproject.dhis2.rest.domain.BaseDto;
+
+import java.util.List;
+
+/**
+ * Receives the resources fetched from DHIS2 one page at a time, so that large collections, such as the organisation
+ * unit hierarchy, can be processed without keeping all of them in memory.
+ *
+ * @param <T> the type of the resources
+ */
+public interface ResourcePageCallback<T extends BaseDto> {
+
+    /**
+     * Called for every page of resources received from DHIS2, in the order of the pages. An exception thrown by
+     * this method stops fetching the remaining pages.
+     *
+     * @param resources the resources of the page
+     */
+    void onPage(List<T> resources);
+}
@@ -21,6 +21,8 @@ import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.osgi.services.HttpClientBuilderFactory;
 import org.apache.http.util.EntityUtils;
 import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.ObjectReader;
+import org.codehaus.jackson.map.ObjectWriter;
 import org.codehaus.jackson.type.JavaType;
 import org.motechproject.admin.service.StatusMessageService;
 import org.motechproject.dhis2.event.EventSubjects;
@@ -46,6 +48,7 @@ import org.motechproject.dhis2.rest.domain.TrackedEntityDto;
 import org.motechproject.dhis2.rest.domain.TrackedEntityInstanceDto;
 import org.motechproject.dhis2.rest.service.DhisWebException;
 import org.motechproject.dhis2.rest.service.DhisWebService;
+import org.motechproject.dhis2.rest.service.ResourcePageCallback;
 import org.motechproject.dhis2.service.Settings;
 import org.motechproject.dhis2.service.SettingsService;
 import org.motechproject.event.MotechEvent;
@@ -61,9 +64,14 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -85,6 +93,7 @@ public class DhisWebServiceImpl implements DhisWebService {
     private static final String GET_FULL_INFO_SUFIX_V_22 = "fields=:identifiable";
 
     private static final String DATA_ELEMENTS = "dataElements";
+    private static final String DATA_SETS = "dataSets";
     private static final String ORG_UNITS = "organisationUnits";
     private static final String PROGRAMS = "programs";
     private static final String PROGRAM_STAGES = "programStages";
@@ -93,6 +102,13 @@ public class DhisWebServiceImpl implements DhisWebService {
     private static final String TRACKED_ENITTY_ATTRIBUTES = "trackedEntityAttributes";
     private static final String PROGRAM_TRACKED_ENITTY_ATTRIBUTES = "programTrackedEntityAttributes";
 
+    private static final String IDENTIFIABLE_FIELDS = "id,name";
+    private static final String DATA_SET_FIELDS = "id,name,dataElements[id,name]";
+    private static final String PROGRAM_FIELDS = "id,name,registration,singleEvent,programType,trackedEntity[id,name]," +
+            "programStages[id,name,programStageDataElements[id,dataElement[id,name]]]," +
+            "programTrackedEntityAttributes[id,trackedEntityAttribute[id,name]]";
+    private static final int PAGE_SIZE = 200;
+
     private static final int SO_TIMEOUT = 10000;
     private static final int MAX_CONNECTIONS = 200;
     private static final int MAX_PER_ROUTE = 20;
@@ -106,6 +122,12 @@ public class DhisWebServiceImpl implements DhisWebService {
     private PoolingHttpClientConnectionManager poolingHttpClientConnectionManager;
     private ServerVersion serverVersion = new ServerVersion(ServerVersion.UNKNOWN);
 
+    // the mapper is thread-safe once configured, the readers and the writer are immutable and reused for every call
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectWriter writer = mapper.writer();
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectReader> pageReaders = new ConcurrentHashMap<>();
+
     @Autowired
     public DhisWebServiceImpl(@Qualifier("dhisSettingsService") SettingsService settingsService,
                               StatusMessageService statusMessageService,
@@ -157,7 +179,37 @@ public class DhisWebServiceImpl implements DhisWebService {
 
     @Override
     public List<DataSetDto> getDataSets() {
-        return getResources("dataSets", DataSetDto.class, true);
+        return getResources(DATA_SETS, DataSetDto.class, true);
+    }
+
+    @Override
+    public List<DataElementDto> getDataElementsUpdatedSince(String updatedSince) {
+        return getResources(DATA_ELEMENTS, DataElementDto.class, IDENTIFIABLE_FIELDS, updatedSince);
+    }
+
+    @Override
+    public List<DataSetDto> getDataSetsUpdatedSince(String updatedSince) {
+        return getResources(DATA_SETS, DataSetDto.class, DATA_SET_FIELDS, updatedSince);
+    }
+
+    @Override
+    public void getOrganisationUnitsUpdatedSince(String updatedSince, ResourcePageCallback<OrganisationUnitDto> callback) {
+        getResources(ORG_UNITS, OrganisationUnitDto.class, IDENTIFIABLE_FIELDS, updatedSince, callback);
+    }
+
+    @Override
+    public List<TrackedEntityDto> getTrackedEntitiesUpdatedSince(String updatedSince) {
+        return getResources(TRACKED_ENTITIES, TrackedEntityDto.class, IDENTIFIABLE_FIELDS, updatedSince);
+    }
+
+    @Override
+    public List<TrackedEntityAttributeDto> getTrackedEntityAttributesUpdatedSince(String updatedSince) {
+        return getResources(TRACKED_ENITTY_ATTRIBUTES, TrackedEntityAttributeDto.class, IDENTIFIABLE_FIELDS, updatedSince);
+    }
+
+    @Override
+    public List<ProgramDto> getProgramsWithStages() {
+        return getResources(PROGRAMS, ProgramDto.class, PROGRAM_FIELDS, null);
     }
 
     @Override
@@ -175,6 +227,11 @@ public class DhisWebServiceImpl implements DhisWebService {
         return getResources(ORG_UNITS, OrganisationUnitDto.class);
     }
 
+    @Override
+    public void getOrganisationUnits(ResourcePageCallback<OrganisationUnitDto> callback) {
+        getResources(ORG_UNITS, OrganisationUnitDto.class, false, callback);
+    }
+
     @Override
     public OrganisationUnitDto getOrganisationUnitByHref(String href) {
         return getResource(href, OrganisationUnitDto.class);
@@ -313,7 +370,7 @@ public class DhisWebServiceImpl implements DhisWebService {
         CloseableHttpResponse response = getResponseForRequest(request);
 
         try (InputStream content = getContentForResponse(response)) {
-            return new ObjectMapper().readValue(content, DhisServerInfo.class);
+            return getReader(DhisServerInfo.class).readValue(content);
         } catch (IOException e) {
             String msg = String.format("Error parsing resource at uri: %s, exception: %s", url, e.toString());
             statusMessageService.warn(msg, MODULE_NAME);
@@ -340,7 +397,7 @@ public class DhisWebServiceImpl implements DhisWebService {
         LOGGER.debug(String.format("Received response for request: %s, response: %s", request.toString(), response.toString()));
 
         try (InputStream content = getContentForResponse(response)) {
-            return new ObjectMapper().readValue(content, clazz);
+            return getReader(clazz).readValue(content);
         } catch (IOException e) {
             String msg = String.format("Error parsing resource at uri: %s, exception: %s", uri, e.toString());
             statusMessageService.warn(msg, MODULE_NAME);
@@ -356,39 +413,67 @@ public class DhisWebServiceImpl implements DhisWebService {
 
     /*Gets a list of dtos*/
     private <T extends BaseDto> List<T> getResources(String resourceName, Class<T> clazz, boolean getAllFields) {
+        ResourceCollector<T> collector = new ResourceCollector<>();
+        getResources(resourceName, clazz, getAllFields, collector);
+        return collector.getResources();
+    }
+
+    /*Gets the dtos, passing them to the callback page by page, following the links to the next pages*/
+    private <T extends BaseDto> void getResources(String resourceName, Class<T> clazz, boolean getAllFields,
+                                                  ResourcePageCallback<T> callback) {
         Settings settings = settingsService.getSettings();
-        HttpUriRequest request = generateHttpRequest(settings, getURIForResource(settings.getServerURI(), resourceName,
-                getAllFields));
+        String url = getURIForResource(settings.getServerURI(), resourceName, getAllFields);
 
-        LOGGER.debug(String.format("Initiating request for resource: %s, request: %s", resourceName, request.toString()));
+        while (url != null) {
+            PagedResourceDto<T> pagedResource = getPage(settings, url, resourceName, clazz);
+            handlePage(pagedResource, callback);
 
-        CloseableHttpResponse response = getResponseForRequest(request);
+            url = (pagedResource.getPager() == null) ? null : pagedResource.getPager().getNextPage();
+            if (url != null && getServerVersion().isSameOrAfter(ServerVersion.V2_22)) {
+                url += String.format("&%s", GET_FULL_INFO_SUFIX_V_22);
+            }
+        }
+    }
 
-        LOGGER.debug(String.format("Received response for request: %s, response: %s", request.toString(), response.toString()));
+    /*Gets a list of dtos with the given fields, updated after the given time if it is set*/
+    private <T extends BaseDto> List<T> getResources(String resourceName, Class<T> clazz, String fields, String updatedSince) {
+        ResourceCollector<T> collector = new ResourceCollector<>();
+        getResources(resourceName, clazz, fields, updatedSince, collector);
+        return collector.getResources();
+    }
 
-        List<T> resources = new ArrayList<>();
+    /*Gets the dtos with the given fields, updated after the given time if it is set, passing them to the callback page by page*/
+    private <T extends BaseDto> void getResources(String resourceName, Class<T> clazz, String fields, String updatedSince,
+                                                  ResourcePageCallback<T> callback) {
+        Settings settings = settingsService.getSettings();
+        String uri = getURIForResource(settings.getServerURI(), resourceName, fields, updatedSince);
 
-        try (InputStream content = getContentForResponse(response)) {
-            ObjectMapper mapper = new ObjectMapper();
+        int page = 1;
+        PagedResourceDto<T> pagedResource;
 
-            JavaType type = mapper.getTypeFactory().constructParametricType(PagedResourceDto.class, clazz);
-            PagedResourceDto pagedResource = mapper.reader(type).readValue(content);
+        do {
+            pagedResource = getPage(settings, String.format("%s&page=%d", uri, page), resourceName, clazz);
+            handlePage(pagedResource, callback);
+            page++;
+        } while (pagedResource.getPager() != null && page <= pagedResource.getPager().getPageCount());
+    }
 
-            resources.addAll(pagedResource.getResources());
+    private <T extends BaseDto> void handlePage(PagedResourceDto<T> pagedResource, ResourcePageCallback<T> callback) {
+        if (pagedResource.getResources() != null) {
+            callback.onPage(pagedResource.getResources());
+        }
+    }
 
-            while (pagedResource.getPager().getNextPage() != null) {
-                String url = pagedResource.getPager().getNextPage();
-                if (getServerVersion().isSameOrAfter(ServerVersion.V2_22)) {
-                    url += String.format("&%s", GET_FULL_INFO_SUFIX_V_22);
-                }
-                request = generateHttpRequest(settings, url);
-                response = getResponseForRequest(request);
+    /*Gets a single page of dtos, decoding it straight from the response stream*/
+    private <T extends BaseDto> PagedResourceDto<T> getPage(Settings settings, String uri, String resourceName, Class<T> clazz) {
+        HttpUriRequest request = generateHttpRequest(settings, uri);
 
-                try (InputStream nextPageContent = getContentForResponse(response)) {
-                    pagedResource = mapper.reader(type).readValue(nextPageContent);
-                    resources.addAll(pagedResource.getResources());
-                }
-            }
+        LOGGER.debug(String.format("Initiating request for resource: %s, request: %s", resourceName, request.toString()));
+
+        CloseableHttpResponse response = getResponseForRequest(request);
+
+        try (InputStream content = getContentForResponse(response)) {
+            return getPageReader(clazz).readValue(content);
         } catch (IOException e) {
             String msg = String.format("Error parsing %s resources, exception: %s", resourceName, e.toString());
             statusMessageService.warn(msg, MODULE_NAME);
@@ -396,8 +481,27 @@ public class DhisWebServiceImpl implements DhisWebService {
         } finally {
             closeResponse(response);
         }
+    }
 
-        return resources;
+    /*Gets the cached reader for the given type*/
+    private ObjectReader getReader(Class<?> clazz) {
+        ObjectReader reader = readers.get(clazz);
+        if (reader == null) {
+            readers.putIfAbsent(clazz, mapper.reader(clazz));
+            reader = readers.get(clazz);
+        }
+        return reader;
+    }
+
+    /*Gets the cached reader for the pages of the given type*/
+    private ObjectReader getPageReader(Class<? extends BaseDto> clazz) {
+        ObjectReader reader = pageReaders.get(clazz);
+        if (reader == null) {
+            JavaType type = mapper.getTypeFactory().constructParametricType(PagedResourceDto.class, clazz);
+            pageReaders.putIfAbsent(clazz, mapper.reader(type));
+            reader = pageReaders.get(clazz);
+        }
+        return reader;
     }
 
     /*Attempts to create the an entity in the DHIS2 system. Returns the response from DHIS2*/
@@ -414,7 +518,7 @@ public class DhisWebServiceImpl implements DhisWebService {
 
         try (InputStream content = getContentForResponse(response)) {
             String contentString = IOUtils.toString(content);
-            status = new ObjectMapper().readValue(contentString, DhisStatusResponse.class);
+            status = getReader(DhisStatusResponse.class).readValue(contentString);
             if (status.getStatus() == DhisStatus.ERROR) {
                 String msg = String.format("Error in DHIS2 status response, error details: %s", contentString);
                 throw new DhisWebException(msg);
@@ -433,7 +537,7 @@ public class DhisWebServiceImpl implements DhisWebService {
     /*Converts the object to json*/
     private String parseToJson(Object object) {
         try {
-            return new ObjectMapper().writeValueAsString(object);
+            return writer.writeValueAsString(object);
         } catch (IOException e) {
             String msg = String.format("Error parsing object: %s to json, exception: %s", object.toString(), e.toString());
             statusMessageService.warn(msg, MODULE_NAME);
@@ -516,6 +620,33 @@ public class DhisWebServiceImpl implements DhisWebService {
         return sb.toString();
     }
 
+    /*Builds the URL for the given fields of a particular resource, updated after the given time if it is set*/
+    private String getURIForResource(String baseURI, String resourceName, String fields, String updatedSince) {
+        StringBuilder sb = new StringBuilder(baseURI);
+
+        sb.append("/api/");
+        sb.append(resourceName);
+        sb.append("?fields=");
+        sb.append(encodeQueryParameter(fields));
+        sb.append("&pageSize=");
+        sb.append(PAGE_SIZE);
+
+        if (StringUtils.isNotBlank(updatedSince)) {
+            sb.append("&filter=");
+            sb.append(encodeQueryParameter("lastUpdated:gt:" + updatedSince));
+        }
+
+        return sb.toString();
+    }
+
+    private String encodeQueryParameter(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new DhisWebException(String.format("Error encoding query parameter: %s", value), e);
+        }
+    }
+
     private String getURIForResource(String baseURI, String resourceName, String id) {
         StringBuilder sb = new StringBuilder(baseURI);
 
@@ -550,7 +681,7 @@ public class DhisWebServiceImpl implements DhisWebService {
         LOGGER.debug(String.format("Received response to create resource: %s, request: %s", json, response));
 
         try (InputStream content = getContentForResponse(response)) {
-            return new ObjectMapper().readValue(content, DhisDataValueStatusResponse.class);
+            return getReader(DhisDataValueStatusResponse.class).readValue(content);
         } catch (IOException e) {
             String msg = String.format("Error parsing response from uri: %s, exception: %s", uri, e.toString());
             statusMessageService.warn(msg, MODULE_NAME);
@@ -607,4 +738,18 @@ public class DhisWebServiceImpl implements DhisWebService {
             }
         }
     }
+
+    /*Collects the pages of dtos into a single list*/
+    private static final class ResourceCollector<T extends BaseDto> implements ResourcePageCallback<T> {
+        private final List<T> resources = new ArrayList<>();
+
+        @Override
+        public void onPage(List<T> page) {
+            resources.addAll(page);
+        }
+
+        private List<T> getResources() {
+            return resources;
+        }
+    }
 }
@@ -33,6 +33,13 @@ public interface DataSetService {
      */
     DataSet findByUuid(String uuid);
 
+    /**
+     * Updates the given data set in the MOTECH database.
+     *
+     * @param dataSet  the data set to update
+     */
+    void update(DataSet dataSet);
+
     /**
      * Deletes all instances of the {@link DataSet} from the MOTECH database.
      */
@@ -3,6 +3,8 @@ package org.motechproject.dhis2.service;
 import org.motechproject.dhis2.domain.OrgUnit;
 import org.motechproject.dhis2.rest.domain.OrganisationUnitDto;
 
+import java.util.List;
+
 /**
  * Manages CRUD operations for a {@link org.motechproject.dhis2.domain.OrgUnit}
  */
@@ -10,4 +12,12 @@ public interface OrgUnitService extends GenericCrudService<OrgUnit> {
     OrgUnit findById(String id);
     OrgUnit findByName(String name);
     OrgUnit createFromDetails(OrganisationUnitDto details);
+
+    /**
+     * Creates the organisation units which are not stored yet and renames the stored ones, matching them by their
+     * DHIS2 ids. All of them are saved in a single transaction, so that a page of organisation units received from
+     * DHIS2 can be saved at once.
+     * @param details the organisation units received from DHIS2
+     */
+    void createOrUpdateFromDetails(List<OrganisationUnitDto> details);
 }
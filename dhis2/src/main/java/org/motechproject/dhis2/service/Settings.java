@@ -10,6 +10,9 @@ public class Settings {
     private String serverURI;
     private String username;
     private String password;
+    private Integer dataValueBatchSize;
+    private Long dataValueBatchDelay;
+    private String lastSyncTime;
 
     public Settings() { }
 
@@ -42,4 +45,39 @@ public class Settings {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    /**
+     * @return the maximum number of data values sent to DHIS2 in a single import, null for the default of 1; batching
+     * is disabled when it is lower than 2
+     */
+    public Integer getDataValueBatchSize() {
+        return dataValueBatchSize;
+    }
+
+    public void setDataValueBatchSize(Integer dataValueBatchSize) {
+        this.dataValueBatchSize = dataValueBatchSize;
+    }
+
+    /**
+     * @return the maximum time, in milliseconds, a data value waits for its batch to fill up, null for the default
+     */
+    public Long getDataValueBatchDelay() {
+        return dataValueBatchDelay;
+    }
+
+    public void setDataValueBatchDelay(Long dataValueBatchDelay) {
+        this.dataValueBatchDelay = dataValueBatchDelay;
+    }
+
+    /**
+     * @return the DHIS2 server time of the start of the last successful incremental sync, null if there was none yet;
+     * the next incremental sync only fetches the metadata updated after it
+     */
+    public String getLastSyncTime() {
+        return lastSyncTime;
+    }
+
+    public void setLastSyncTime(String lastSyncTime) {
+        this.lastSyncTime = lastSyncTime;
+    }
 }
@@ -7,5 +7,20 @@ package org.motechproject.dhis2.service;
  */
 public interface SettingsService {
     Settings getSettings();
+
+    /**
+     * Saves the given settings. The time of the last sync is not taken from the given settings, it is kept, unless
+     * the server URI changes, in which case it is cleared, so that the next incremental sync gets the whole schema of
+     * the new server.
+     * @param settings the new settings
+     */
     void updateSettings(Settings settings);
+
+    /**
+     * Stores the time of the last successful sync, leaving the other settings as they are. The time is not stored if
+     * the settings were pointed to another server while syncing.
+     * @param serverURI the URI of the server which was synced
+     * @param lastSyncTime the server time of the start of the sync
+     */
+    void updateLastSyncTime(String serverURI, String lastSyncTime);
 }
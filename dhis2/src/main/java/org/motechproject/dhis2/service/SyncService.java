@@ -8,8 +8,20 @@ public interface SyncService {
     /**
      * Queries the DHIS2 server to get the current schema and then persists that
      * information in MDS. If the process fails, all of the records pertaining to the DHIS2 schema
-     * are deleted.
+     * are deleted. Once the schema is stored, the next incremental sync only gets the changes made after this sync
+     * started.
      * @return true if successful; false otherwise
      */
     boolean sync();
+
+    /**
+     * Queries the DHIS2 server for the schema updated since the last successful incremental sync and creates or
+     * updates that information in MDS, matching the records by their DHIS2 ids. The existing records are kept, so
+     * that the references to them stay valid, but the records removed from the DHIS2 server are not deleted either.
+     * The stages and attributes of a program are replaced with the ones it has on the server, but a stage or attribute
+     * removed from a program is kept as a record, and a stage still refers to the program it was removed from.
+     * The first incremental sync, and the first one after the server URI changes, gets the whole schema.
+     * @return true if successful; false otherwise
+     */
+    boolean syncIncrementally();
 }
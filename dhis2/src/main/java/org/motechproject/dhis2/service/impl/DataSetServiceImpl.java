@@ -52,6 +52,11 @@ public class DataSetServiceImpl implements DataSetService {
         return dataSetDataService.findByUuid(uuid);
     }
 
+    @Override
+    public void update(DataSet dataSet) {
+        dataSetDataService.update(dataSet);
+    }
+
     @Override
     public void deleteAll() {
         dataSetDataService.deleteAll();
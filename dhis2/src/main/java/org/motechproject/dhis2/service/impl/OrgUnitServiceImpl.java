@@ -1,11 +1,13 @@
 package org.motechproject.dhis2.service.impl;
 
+import org.apache.commons.lang.StringUtils;
 import org.motechproject.dhis2.domain.OrgUnit;
 import org.motechproject.dhis2.repository.OrgUnitDataService;
 import org.motechproject.dhis2.rest.domain.OrganisationUnitDto;
 import org.motechproject.dhis2.service.OrgUnitService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -40,6 +42,20 @@ public class OrgUnitServiceImpl implements OrgUnitService {
         return orgUnitDataService.create(orgUnit);
     }
 
+    @Override
+    @Transactional
+    public void createOrUpdateFromDetails(List<OrganisationUnitDto> details) {
+        for (OrganisationUnitDto dto : details) {
+            OrgUnit orgUnit = orgUnitDataService.findByUuid(dto.getId());
+            if (orgUnit == null) {
+                createFromDetails(dto);
+            } else if (!StringUtils.equals(orgUnit.getName(), dto.getName())) {
+                orgUnit.setName(dto.getName());
+                orgUnitDataService.update(orgUnit);
+            }
+        }
+    }
+
     @Override
     public void update(OrgUnit orgUnit) {
         orgUnitDataService.update(orgUnit);
@@ -3,6 +3,7 @@ package org.motechproject.dhis2.service.impl;
 import com.google.gson.Gson;
 import com.google.gson.JsonIOException;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 import org.motechproject.dhis2.event.EventSubjects;
 import org.motechproject.dhis2.service.Settings;
 import org.motechproject.dhis2.service.SettingsService;
@@ -46,14 +47,41 @@ public class SettingsServiceImpl implements SettingsService {
     }
 
     @Override
-    public void updateSettings(Settings settings) {
+    public synchronized void updateSettings(Settings settings) {
+        // the time of the last sync is only changed by the sync, the settings sent by the UI might be stale
+        if (isSameServer(this.settings.getServerURI(), settings.getServerURI())) {
+            settings.setLastSyncTime(this.settings.getLastSyncTime());
+        } else {
+            settings.setLastSyncTime(null);
+        }
+        saveSettings(settings);
+
+        eventRelay.broadcastEventMessage(new MotechEvent(EventSubjects.DHIS_SETTINGS_UPDATED));
+    }
+
+    @Override
+    public synchronized void updateLastSyncTime(String serverURI, String lastSyncTime) {
+        if (!isSameServer(settings.getServerURI(), serverURI)) {
+            LOGGER.info("The DHIS2 server was changed while syncing {}, the time of the sync is not stored", serverURI);
+            return;
+        }
+
+        Gson gson = new Gson();
+        Settings updated = gson.fromJson(gson.toJson(settings), Settings.class);
+        updated.setLastSyncTime(lastSyncTime);
+        saveSettings(updated);
+    }
+
+    private void saveSettings(Settings settings) {
         Gson gson = new Gson();
         String jsonText = gson.toJson(settings);
         ByteArrayResource resource = new ByteArrayResource(jsonText.getBytes());
         settingsFacade.saveRawConfig(SETTINGS_FILE_NAME, resource);
         loadSettings();
+    }
 
-        eventRelay.broadcastEventMessage(new MotechEvent(EventSubjects.DHIS_SETTINGS_UPDATED));
+    private boolean isSameServer(String serverURI, String otherServerURI) {
+        return StringUtils.equals(StringUtils.removeEnd(serverURI, "/"), StringUtils.removeEnd(otherServerURI, "/"));
     }
 
     private synchronized void loadSettings() {
@@ -1,6 +1,8 @@
 package org.motechproject.dhis2.service.impl;
 
+import org.apache.commons.lang.StringUtils;
 import org.motechproject.dhis2.domain.DataElement;
+import org.motechproject.dhis2.domain.DataSet;
 import org.motechproject.dhis2.domain.Program;
 import org.motechproject.dhis2.domain.Stage;
 import org.motechproject.dhis2.domain.TrackedEntity;
@@ -14,11 +16,15 @@ import org.motechproject.dhis2.rest.domain.ProgramStageDto;
 import org.motechproject.dhis2.rest.domain.ProgramTrackedEntityAttributeDto;
 import org.motechproject.dhis2.rest.domain.TrackedEntityAttributeDto;
 import org.motechproject.dhis2.rest.domain.TrackedEntityDto;
+import org.motechproject.dhis2.rest.service.DhisWebException;
 import org.motechproject.dhis2.rest.service.DhisWebService;
+import org.motechproject.dhis2.rest.service.ResourcePageCallback;
 import org.motechproject.dhis2.service.DataElementService;
 import org.motechproject.dhis2.service.DataSetService;
 import org.motechproject.dhis2.service.OrgUnitService;
 import org.motechproject.dhis2.service.ProgramService;
+import org.motechproject.dhis2.service.Settings;
+import org.motechproject.dhis2.service.SettingsService;
 import org.motechproject.dhis2.service.StageService;
 import org.motechproject.dhis2.service.SyncService;
 import org.motechproject.dhis2.service.TrackedEntityAttributeService;
@@ -26,11 +32,23 @@ import org.motechproject.dhis2.service.TrackedEntityService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -62,14 +80,28 @@ public class SyncServiceImpl implements SyncService {
     @Autowired
     private DataSetService dataSetService;
 
+    @Autowired
+    @Qualifier("dhisSettingsService")
+    private SettingsService settingsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(SyncServiceImpl.class);
 
+    private static final int FETCH_THREADS = 6;
+    private static final int UPSERT_BATCH_SIZE = 500;
+
     @Override
     @Transactional
     public boolean sync() {
         LOGGER.debug("Starting Sync");
         try {
             long startTime = System.nanoTime();
+            // the server time is taken before fetching, so that the changes made while syncing are fetched next time
+            final String serverURI = settingsService.getSettings().getServerURI();
+            final String serverDate = dhisWebService.getDhisServerInfo().getServerDate();
+
             dropExistingData();
             addDataElements();
             addDataSets();
@@ -78,6 +110,18 @@ public class SyncServiceImpl implements SyncService {
             addPrograms();
             addOrgUnits();
 
+            // the next incremental sync can start from here, but only once the new schema is committed
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        settingsService.updateLastSyncTime(serverURI, serverDate);
+                    }
+                });
+            } else {
+                settingsService.updateLastSyncTime(serverURI, serverDate);
+            }
+
             long endTime = System.nanoTime();
 
             LOGGER.debug("Sync successful.");
@@ -90,6 +134,291 @@ public class SyncServiceImpl implements SyncService {
         }
     }
 
+    @Override
+    public boolean syncIncrementally() {
+        LOGGER.debug("Starting incremental sync");
+        try {
+            long startTime = System.nanoTime();
+            // the server time is taken before fetching, so that the changes made while syncing are fetched next time
+            String serverDate = dhisWebService.getDhisServerInfo().getServerDate();
+            Settings settings = settingsService.getSettings();
+
+            fetchAndUpsert(settings.getLastSyncTime());
+
+            settingsService.updateLastSyncTime(settings.getServerURI(), serverDate);
+
+            long endTime = System.nanoTime();
+
+            LOGGER.debug("Incremental sync successful.");
+            LOGGER.debug("Time for incremental sync: " + TimeUnit.SECONDS.convert(endTime - startTime,
+                    TimeUnit.NANOSECONDS) + "seconds");
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.error("Problem with DHIS2 application Schema. Incremental sync unsuccessful.", e);
+            return false;
+        }
+    }
+
+    /*
+     * Requests the resources updated since the given time from DHIS concurrently, since they are independent of each
+     * other, and upserts them in MDS as soon as they arrive. The referenced resources are upserted first, so that data
+     * sets and programs can refer to them.
+     */
+    private void fetchAndUpsert(final String updatedSince) {
+        ExecutorService executor = Executors.newFixedThreadPool(FETCH_THREADS);
+        try {
+            Future<List<DataElementDto>> dataElements = executor.submit(new Callable<List<DataElementDto>>() {
+                @Override
+                public List<DataElementDto> call() {
+                    return dhisWebService.getDataElementsUpdatedSince(updatedSince);
+                }
+            });
+            Future<List<DataSetDto>> dataSets = executor.submit(new Callable<List<DataSetDto>>() {
+                @Override
+                public List<DataSetDto> call() {
+                    return dhisWebService.getDataSetsUpdatedSince(updatedSince);
+                }
+            });
+            Future<List<TrackedEntityAttributeDto>> attributes = executor.submit(new Callable<List<TrackedEntityAttributeDto>>() {
+                @Override
+                public List<TrackedEntityAttributeDto> call() {
+                    return dhisWebService.getTrackedEntityAttributesUpdatedSince(updatedSince);
+                }
+            });
+            Future<List<TrackedEntityDto>> trackedEntities = executor.submit(new Callable<List<TrackedEntityDto>>() {
+                @Override
+                public List<TrackedEntityDto> call() {
+                    return dhisWebService.getTrackedEntitiesUpdatedSince(updatedSince);
+                }
+            });
+            // nothing refers to the organisation units, so they are saved page by page while they arrive
+            Future<?> orgUnits = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    dhisWebService.getOrganisationUnitsUpdatedSince(updatedSince, new ResourcePageCallback<OrganisationUnitDto>() {
+                        @Override
+                        public void onPage(List<OrganisationUnitDto> orgUnitDtos) {
+                            orgUnitService.createOrUpdateFromDetails(orgUnitDtos);
+                        }
+                    });
+                }
+            });
+            // stages are not filtered by the time of the program update, since it does not change with its stages
+            Future<List<ProgramDto>> programs = executor.submit(new Callable<List<ProgramDto>>() {
+                @Override
+                public List<ProgramDto> call() {
+                    return dhisWebService.getProgramsWithStages();
+                }
+            });
+
+            upsertDataElements(await(dataElements));
+            upsertDataSets(await(dataSets));
+            upsertAttributes(await(attributes));
+            upsertTrackedEntities(await(trackedEntities));
+            upsertPrograms(await(programs));
+            await(orgUnits);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DhisWebException("Interrupted while requesting the DHIS2 schema", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new DhisWebException("Unable to request the DHIS2 schema", e.getCause());
+        }
+    }
+
+    /*
+     * Upserts the given resources in separate transactions of up to UPSERT_BATCH_SIZE resources, in order not to hold
+     * a single transaction over the whole schema.
+     */
+    private <T> void upsertInBatches(List<T> dtos, final Upsert<T> upsert) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        for (int from = 0; from < dtos.size(); from += UPSERT_BATCH_SIZE) {
+            final List<T> batch = dtos.subList(from, Math.min(from + UPSERT_BATCH_SIZE, dtos.size()));
+            transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    for (T dto : batch) {
+                        upsert.upsert(dto);
+                    }
+                }
+            });
+        }
+    }
+
+    private void upsertDataElements(List<DataElementDto> dataElementDtos) {
+        upsertInBatches(dataElementDtos, new Upsert<DataElementDto>() {
+            @Override
+            public void upsert(DataElementDto dto) {
+                upsertDataElement(dto);
+            }
+        });
+    }
+
+    private void upsertDataSets(List<DataSetDto> dataSetDtos) {
+        upsertInBatches(dataSetDtos, new Upsert<DataSetDto>() {
+            @Override
+            public void upsert(DataSetDto dto) {
+                upsertDataSet(dto);
+            }
+        });
+    }
+
+    private void upsertAttributes(List<TrackedEntityAttributeDto> trackedEntityAttributeDtos) {
+        upsertInBatches(trackedEntityAttributeDtos, new Upsert<TrackedEntityAttributeDto>() {
+            @Override
+            public void upsert(TrackedEntityAttributeDto dto) {
+                upsertAttribute(dto);
+            }
+        });
+    }
+
+    private void upsertTrackedEntities(List<TrackedEntityDto> trackedEntityDtos) {
+        upsertInBatches(trackedEntityDtos, new Upsert<TrackedEntityDto>() {
+            @Override
+            public void upsert(TrackedEntityDto dto) {
+                upsertTrackedEntity(dto);
+            }
+        });
+    }
+
+    private void upsertPrograms(List<ProgramDto> programDtos) {
+        upsertInBatches(programDtos, new Upsert<ProgramDto>() {
+            @Override
+            public void upsert(ProgramDto dto) {
+                upsertProgram(dto);
+            }
+        });
+    }
+
+    private DataElement upsertDataElement(DataElementDto dto) {
+        DataElement dataElement = dataElementService.findById(dto.getId());
+        if (dataElement == null) {
+            return dataElementService.createFromDetails(dto);
+        }
+        if (!StringUtils.equals(dataElement.getName(), dto.getName())) {
+            dataElement.setName(dto.getName());
+            dataElementService.update(dataElement);
+        }
+        return dataElement;
+    }
+
+    private void upsertDataSet(DataSetDto dto) {
+        DataSet dataSet = dataSetService.findByUuid(dto.getId());
+        if (dataSet == null) {
+            dataSetService.createFromDetails(dto);
+            return;
+        }
+
+        List<DataElement> dataElements = new ArrayList<>();
+        if (dto.getDataElements() != null) {
+            for (DataElementDto dataElementDto : dto.getDataElements()) {
+                dataElements.add(upsertDataElement(dataElementDto));
+            }
+        }
+
+        dataSet.setName(dto.getName());
+        dataSet.setDataElementList(dataElements);
+        dataSetService.update(dataSet);
+    }
+
+    private TrackedEntityAttribute upsertAttribute(TrackedEntityAttributeDto dto) {
+        TrackedEntityAttribute trackedEntityAttribute = trackedEntityAttributeService.findById(dto.getId());
+        if (trackedEntityAttribute == null) {
+            return trackedEntityAttributeService.createFromDetails(dto);
+        }
+        if (!StringUtils.equals(trackedEntityAttribute.getName(), dto.getName())) {
+            trackedEntityAttribute.setName(dto.getName());
+            trackedEntityAttributeService.update(trackedEntityAttribute);
+        }
+        return trackedEntityAttribute;
+    }
+
+    private TrackedEntity upsertTrackedEntity(TrackedEntityDto dto) {
+        TrackedEntity trackedEntity = trackedEntityService.findById(dto.getId());
+        if (trackedEntity == null) {
+            return trackedEntityService.createFromDetails(dto);
+        }
+        if (!StringUtils.equals(trackedEntity.getName(), dto.getName())) {
+            trackedEntity.setName(dto.getName());
+            trackedEntityService.update(trackedEntity);
+        }
+        return trackedEntity;
+    }
+
+    /*
+     * Upserts the program together with its sub-objects, which were requested in the same call as the program.
+     */
+    private void upsertProgram(ProgramDto dto) {
+        Program program = programService.findById(dto.getId());
+        if (program == null) {
+            program = programService.createFromDetails(dto);
+        } else {
+            program.setName(dto.getName());
+            program.setRegistration(dto.getRegistration());
+            program.setSingleEvent(dto.getSingleEvent());
+            program.setProgramType(dto.getProgramType());
+        }
+
+        if (dto.getTrackedEntity() != null) {
+            program.setTrackedEntity(upsertTrackedEntity(dto.getTrackedEntity()));
+        }
+
+        if (dto.getProgramStages() != null) {
+            List<Stage> stages = new ArrayList<>();
+            for (ProgramStageDto stageDto : dto.getProgramStages()) {
+                stages.add(upsertStage(stageDto, program.getUuid(), program.hasRegistration()));
+            }
+            program.setStages(stages);
+        }
+
+        if (dto.getProgramTrackedEntityAttributes() != null) {
+            List<TrackedEntityAttribute> attributes = new ArrayList<>();
+            for (ProgramTrackedEntityAttributeDto attributeDto : dto.getProgramTrackedEntityAttributes()) {
+                if (attributeDto.getTrackedEntityAttribute() != null) {
+                    attributes.add(upsertAttribute(attributeDto.getTrackedEntityAttribute()));
+                }
+            }
+            program.setAttributes(attributes);
+        }
+
+        programService.update(program);
+    }
+
+    private Stage upsertStage(ProgramStageDto dto, String programId, boolean hasRegistration) {
+        Stage stage = stageService.findById(dto.getId());
+        if (stage == null) {
+            stage = stageService.createFromDetails(dto, programId, hasRegistration);
+        } else {
+            stage.setName(dto.getName());
+            stage.setProgram(programId);
+            stage.setRegistration(hasRegistration);
+        }
+
+        List<DataElement> dataElements = new ArrayList<>();
+        if (dto.getProgramStageDataElements() != null) {
+            for (ProgramStageDataElementDto stageDataElementDto : dto.getProgramStageDataElements()) {
+                if (stageDataElementDto.getDataElement() != null) {
+                    dataElements.add(upsertDataElement(stageDataElementDto.getDataElement()));
+                }
+            }
+        }
+        stage.setDataElements(dataElements);
+        stageService.update(stage);
+
+        return stage;
+    }
+
     /*
      * Request data elements from DHIS and persist in MDS. The partial data element objects returned by the top-level api
      * endpoint suffice for current needs.
@@ -266,13 +595,17 @@ public class SyncServiceImpl implements SyncService {
 
     /*
      * Request organisation units from DHIS and persist in MDS. The partial organisation unit objects returned by the top-level
-     * api endpoint suffice for current needs.
+     * api endpoint suffice for current needs. They are persisted page by page, since there can be a lot of them.
      */
     private void addOrgUnits() {
-        List<OrganisationUnitDto> orgUnitDtos = dhisWebService.getOrganisationUnits();
-        for (OrganisationUnitDto orgUnitDto : orgUnitDtos) {
-            orgUnitService.createFromDetails(orgUnitDto);
-        }
+        dhisWebService.getOrganisationUnits(new ResourcePageCallback<OrganisationUnitDto>() {
+            @Override
+            public void onPage(List<OrganisationUnitDto> orgUnitDtos) {
+                for (OrganisationUnitDto orgUnitDto : orgUnitDtos) {
+                    orgUnitService.createFromDetails(orgUnitDto);
+                }
+            }
+        });
     }
 
     private void dropExistingData() {
@@ -284,4 +617,11 @@ public class SyncServiceImpl implements SyncService {
         dataElementService.deleteAll();
         stageService.deleteAll();
     }
+
+    /*
+     * Creates or updates a single resource in MDS.
+     */
+    private interface Upsert<T> {
+        void upsert(T dto);
+    }
 }
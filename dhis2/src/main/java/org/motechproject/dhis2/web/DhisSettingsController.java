@@ -12,6 +12,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
@@ -60,14 +61,16 @@ public class DhisSettingsController {
     /**
      * Attempts to sync the module to the DHIS2 server. If successful, updates
      * the task channel to reflect any changes to the DHIS2 schema
+     * @param incremental whether only the changes since the last incremental sync should be synced, instead of
+     *                    replacing the whole schema
      * @return a boolean value indicating success or failure
      */
     @RequestMapping(value = "/sync", method = RequestMethod.GET)
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
     @PreAuthorize("hasRole('syncDhis')")
-    public boolean sync() {
-        boolean success = syncService.sync();
+    public boolean sync(@RequestParam(value = "incremental", required = false, defaultValue = "false") boolean incremental) {
+        boolean success = incremental ? syncService.syncIncrementally() : syncService.sync();
 
         if (success) {
             tasksService.updateChannel();
@@ -0,0 +1,178 @@
+package org.motechproject.dhis2.event;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.motechproject.dhis2.rest.domain.DataValueDto;
+import org.motechproject.dhis2.rest.domain.DataValueSetDto;
+import org.motechproject.dhis2.rest.domain.DhisDataValueStatusResponse;
+import org.motechproject.dhis2.rest.domain.DhisStatus;
+import org.motechproject.dhis2.rest.domain.ImportConflictDto;
+import org.motechproject.dhis2.rest.service.DhisWebException;
+import org.motechproject.dhis2.rest.service.DhisWebService;
+import org.motechproject.dhis2.service.Settings;
+import org.motechproject.dhis2.service.SettingsService;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.EventRelay;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DataValueBatcherTest {
+
+    private static final String ORG_UNIT = "orgUnit";
+    private static final String PERIOD = "201601";
+
+    @Mock
+    private DhisWebService dhisWebService;
+
+    @Mock
+    private SettingsService settingsService;
+
+    @Mock
+    private EventRelay eventRelay;
+
+    private Settings settings;
+
+    private DataValueBatcher batcher;
+
+    @Before
+    public void setUp() {
+        settings = new Settings("http://localhost:8080", "admin", "district");
+        settings.setDataValueBatchSize(2);
+        settings.setDataValueBatchDelay(60000L);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        batcher = new DataValueBatcher();
+        batcher.setDhisWebService(dhisWebService);
+        batcher.setSettingsService(settingsService);
+        batcher.setEventRelay(eventRelay);
+        batcher.start();
+    }
+
+    @Test
+    public void shouldBeDisabledForBatchSizeOfOne() {
+        assertTrue(batcher.isEnabled());
+
+        settings.setDataValueBatchSize(1);
+
+        assertFalse(batcher.isEnabled());
+    }
+
+    @Test
+    public void shouldSendValuesOfSameOrgUnitAndPeriodInOneImportAndMapConflicts() throws InterruptedException {
+        DhisDataValueStatusResponse response = new DhisDataValueStatusResponse();
+        response.setStatus(DhisStatus.SUCCESS);
+        response.setConflicts(asList(new ImportConflictDto("invalidElement", "Data element not found or not accessible")));
+        when(dhisWebService.sendDataValueSet(any(DataValueSetDto.class))).thenReturn(response);
+
+        batcher.add(dataValue("validElement", ORG_UNIT, PERIOD), params("validElement"));
+        batcher.add(dataValue("otherElement", ORG_UNIT, "201602"), params("otherElement"));
+        batcher.add(dataValue("invalidElement", ORG_UNIT, PERIOD), params("invalidElement"));
+        batcher.stop();
+
+        ArgumentCaptor<DataValueSetDto> setCaptor = ArgumentCaptor.forClass(DataValueSetDto.class);
+        verify(dhisWebService, times(2)).sendDataValueSet(setCaptor.capture());
+        assertEquals(2, setCaptor.getAllValues().get(0).getDataValues().size());
+        assertEquals(1, setCaptor.getAllValues().get(1).getDataValues().size());
+
+        Map<String, MotechEvent> events = publishedEvents(3);
+        assertEquals(EventSubjects.DATA_VALUE_SENT, events.get("validElement").getSubject());
+        assertNull(events.get("validElement").getParameters().get(EventParams.MESSAGE));
+        assertEquals(EventSubjects.DATA_VALUE_SENT, events.get("otherElement").getSubject());
+        assertEquals(EventSubjects.DATA_VALUE_FAILED, events.get("invalidElement").getSubject());
+        assertEquals("Data element not found or not accessible",
+                events.get("invalidElement").getParameters().get(EventParams.MESSAGE));
+    }
+
+    @Test
+    public void shouldBeDisabledByDefault() {
+        settings.setDataValueBatchSize(null);
+
+        assertFalse(batcher.isEnabled());
+    }
+
+    @Test
+    public void shouldNotMatchIdentifierConflictsAgainstValues() throws InterruptedException {
+        settings.setDataValueBatchSize(3);
+        DhisDataValueStatusResponse response = new DhisDataValueStatusResponse();
+        response.setStatus(DhisStatus.SUCCESS);
+        response.setConflicts(asList(new ImportConflictDto("invalidElement", "Data element not found or not accessible"),
+                new ImportConflictDto("abc", "Value must be a number")));
+        when(dhisWebService.sendDataValueSet(any(DataValueSetDto.class))).thenReturn(response);
+
+        DataValueDto textValue = dataValue("textElement", ORG_UNIT, PERIOD);
+        textValue.setValue("invalidElement");
+        DataValueDto invalidValue = dataValue("numberElement", ORG_UNIT, PERIOD);
+        invalidValue.setValue("abc");
+
+        batcher.add(dataValue("invalidElement", ORG_UNIT, PERIOD), params("invalidElement"));
+        batcher.add(textValue, params("textElement"));
+        batcher.add(invalidValue, params("numberElement"));
+        batcher.stop();
+
+        Map<String, MotechEvent> events = publishedEvents(3);
+        assertEquals(EventSubjects.DATA_VALUE_FAILED, events.get("invalidElement").getSubject());
+        assertEquals(EventSubjects.DATA_VALUE_SENT, events.get("textElement").getSubject());
+        assertEquals(EventSubjects.DATA_VALUE_FAILED, events.get("numberElement").getSubject());
+        assertEquals("Value must be a number", events.get("numberElement").getParameters().get(EventParams.MESSAGE));
+    }
+
+    @Test
+    public void shouldReportAllValuesOfBatchAsFailedWhenImportFails() throws InterruptedException {
+        when(dhisWebService.sendDataValueSet(any(DataValueSetDto.class))).thenThrow(new DhisWebException("Connection refused"));
+
+        batcher.add(dataValue("first", ORG_UNIT, PERIOD), params("first"));
+        batcher.add(dataValue("second", ORG_UNIT, PERIOD), params("second"));
+        batcher.stop();
+
+        Map<String, MotechEvent> events = publishedEvents(2);
+        for (MotechEvent event : events.values()) {
+            assertEquals(EventSubjects.DATA_VALUE_FAILED, event.getSubject());
+            assertEquals("Connection refused", event.getParameters().get(EventParams.MESSAGE));
+        }
+    }
+
+    private Map<String, MotechEvent> publishedEvents(int count) {
+        ArgumentCaptor<MotechEvent> captor = ArgumentCaptor.forClass(MotechEvent.class);
+        verify(eventRelay, times(count)).sendEventMessage(captor.capture());
+
+        Map<String, MotechEvent> events = new HashMap<>();
+        List<MotechEvent> published = captor.getAllValues();
+        for (MotechEvent event : published) {
+            events.put((String) event.getParameters().get(EventParams.DATA_ELEMENT), event);
+        }
+        return events;
+    }
+
+    private DataValueDto dataValue(String dataElement, String orgUnit, String period) {
+        DataValueDto dataValue = new DataValueDto();
+        dataValue.setDataElement(dataElement);
+        dataValue.setOrgUnit(orgUnit);
+        dataValue.setPeriod(period);
+        dataValue.setValue("10");
+        return dataValue;
+    }
+
+    private Map<String, Object> params(String dataElement) {
+        Map<String, Object> params = new HashMap<>();
+        params.put(EventParams.DATA_ELEMENT, dataElement);
+        params.put(EventParams.LOCATION, ORG_UNIT);
+        return params;
+    }
+}
@@ -29,6 +29,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -62,6 +64,8 @@ public class EventHandlerTest {
     private DataElementService dataElementService;
     @Mock
     private DhisWebService dhisWebservice;
+    @Mock
+    private DataValueBatcher dataValueBatcher;
     private DhisStatusResponse response;
     @InjectMocks
     private EventHandler handler = new EventHandler();
@@ -257,6 +261,29 @@ public class EventHandlerTest {
         verify(dhisWebservice).sendDataValueSet(Matchers.refEq(dataValueSetDto));
     }
 
+    @Test
+    public void shouldPassDataValueToBatcherWhenBatchingIsEnabled() {
+        DataValueDto dataValueDto = new DataValueDto();
+        dataValueDto.setDataElement(DATA_ELEMENT_ID);
+        dataValueDto.setValue(DATA_ELEMENT_VALUE);
+        dataValueDto.setOrgUnit(ORGUNIT_ID);
+        dataValueDto.setPeriod(PERIOD);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put(EventParams.DATA_ELEMENT, DATA_ELEMENT_ID);
+        params.put(EventParams.LOCATION, ORGUNIT_ID);
+        params.put(EventParams.PERIOD, PERIOD);
+        params.put(EventParams.VALUE, DATA_ELEMENT_VALUE);
+
+        when(dataElementService.findByName(DATA_ELEMENT_ID)).thenReturn(new DataElement(DATA_ELEMENT_VALUE, DATA_ELEMENT_ID));
+        when(dataValueBatcher.isEnabled()).thenReturn(true);
+
+        handler.handleDataValue(new MotechEvent(EventSubjects.SEND_DATA_VALUE, params));
+
+        verify(dataValueBatcher).add(Matchers.refEq(dataValueDto), Matchers.eq(params));
+        verify(dhisWebservice, never()).sendDataValueSet(any(DataValueSetDto.class));
+    }
+
     @Test(expected = DataElementNotFoundException.class)
     public void shouldThrowExceptionForNonExistingDataValue() {
 
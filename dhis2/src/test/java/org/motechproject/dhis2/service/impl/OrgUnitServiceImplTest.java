@@ -0,0 +1,69 @@
+package org.motechproject.dhis2.service.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.motechproject.dhis2.domain.OrgUnit;
+import org.motechproject.dhis2.repository.OrgUnitDataService;
+import org.motechproject.dhis2.rest.domain.OrganisationUnitDto;
+import org.motechproject.dhis2.service.OrgUnitService;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class OrgUnitServiceImplTest {
+
+    @Mock
+    private OrgUnitDataService orgUnitDataService;
+
+    @InjectMocks
+    private OrgUnitService orgUnitService;
+
+    @Before
+    public void setUp() {
+        orgUnitService = new OrgUnitServiceImpl();
+        initMocks(this);
+    }
+
+    @Test
+    public void shouldCreateNewAndRenameExistingOrgUnits() {
+        OrgUnit renamed = orgUnit("renamed", "Old name");
+        OrgUnit unchanged = orgUnit("unchanged", "Unchanged");
+        when(orgUnitDataService.findByUuid("renamed")).thenReturn(renamed);
+        when(orgUnitDataService.findByUuid("unchanged")).thenReturn(unchanged);
+
+        orgUnitService.createOrUpdateFromDetails(asList(orgUnitDto("new", "New"), orgUnitDto("renamed", "New name"),
+                orgUnitDto("unchanged", "Unchanged")));
+
+        ArgumentCaptor<OrgUnit> captor = ArgumentCaptor.forClass(OrgUnit.class);
+        verify(orgUnitDataService).create(captor.capture());
+        assertEquals("new", captor.getValue().getUuid());
+        assertEquals("New", captor.getValue().getName());
+
+        assertEquals("New name", renamed.getName());
+        verify(orgUnitDataService).update(renamed);
+        verify(orgUnitDataService, never()).update(unchanged);
+        verify(orgUnitDataService, never()).delete(any(OrgUnit.class));
+    }
+
+    private OrgUnit orgUnit(String uuid, String name) {
+        OrgUnit orgUnit = new OrgUnit();
+        orgUnit.setUuid(uuid);
+        orgUnit.setName(name);
+        return orgUnit;
+    }
+
+    private OrganisationUnitDto orgUnitDto(String id, String name) {
+        OrganisationUnitDto dto = new OrganisationUnitDto();
+        dto.setId(id);
+        dto.setName(name);
+        return dto;
+    }
+}
@@ -4,15 +4,24 @@ import com.google.gson.JsonIOException;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.motechproject.config.SettingsFacade;
 import org.motechproject.dhis2.service.Settings;
 import org.motechproject.event.listener.EventRelay;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -20,6 +29,7 @@ public class SettingsServiceImplTest {
 
     private static final String SETTINGS_FILE_NAME = "dhis2-settings.json";
     private static final String SETTINGS_JSON = "json/settings/settings.json";
+    private static final String LAST_SYNC_TIME = "2016-02-01T00:00:00.000";
 
     private Settings settings;
 
@@ -56,4 +66,53 @@ public class SettingsServiceImplTest {
             throw new JsonIOException(message, e);
         }
     }
+
+    @Test
+    public void shouldKeepLastSyncTimeWhenServerDoesNotChange() {
+        storeSettingsInMemory();
+        settingsService.updateLastSyncTime("localhost:8080/dhis", LAST_SYNC_TIME);
+
+        // the settings sent by the UI do not contain the time of the last sync
+        settingsService.updateSettings(new Settings("localhost:8080/dhis/", "admin", "newPassword"));
+
+        assertThat(settingsService.getSettings().getPassword(), equalTo("newPassword"));
+        assertThat(settingsService.getSettings().getLastSyncTime(), equalTo(LAST_SYNC_TIME));
+    }
+
+    @Test
+    public void shouldClearLastSyncTimeWhenServerChanges() {
+        storeSettingsInMemory();
+        settingsService.updateLastSyncTime("localhost:8080/dhis", LAST_SYNC_TIME);
+
+        settingsService.updateSettings(new Settings("otherhost:8080/dhis", "admin", "district"));
+
+        assertNull(settingsService.getSettings().getLastSyncTime());
+    }
+
+    @Test
+    public void shouldNotStoreLastSyncTimeOfAnotherServer() {
+        storeSettingsInMemory();
+
+        settingsService.updateLastSyncTime("otherhost:8080/dhis", LAST_SYNC_TIME);
+
+        assertNull(settingsService.getSettings().getLastSyncTime());
+        assertThat(settingsService.getSettings().getServerURI(), equalTo("localhost:8080/dhis"));
+    }
+
+    private void storeSettingsInMemory() {
+        final Resource[] saved = new Resource[1];
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                saved[0] = (Resource) invocation.getArguments()[1];
+                return null;
+            }
+        }).when(settingsFacade).saveRawConfig(eq(SETTINGS_FILE_NAME), any(Resource.class));
+        when(settingsFacade.getRawConfig(SETTINGS_FILE_NAME)).thenAnswer(new Answer<InputStream>() {
+            @Override
+            public InputStream answer(InvocationOnMock invocation) {
+                return new ByteArrayInputStream(((ByteArrayResource) saved[0]).getByteArray());
+            }
+        });
+    }
 }
@@ -0,0 +1,228 @@
+package org.motechproject.dhis2.service.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.motechproject.dhis2.domain.DataElement;
+import org.motechproject.dhis2.domain.Program;
+import org.motechproject.dhis2.domain.Stage;
+import org.motechproject.dhis2.rest.domain.DataElementDto;
+import org.motechproject.dhis2.rest.domain.DhisServerInfo;
+import org.motechproject.dhis2.rest.domain.OrganisationUnitDto;
+import org.motechproject.dhis2.rest.domain.ProgramDto;
+import org.motechproject.dhis2.rest.domain.ProgramStageDataElementDto;
+import org.motechproject.dhis2.rest.domain.ProgramStageDto;
+import org.motechproject.dhis2.rest.service.DhisWebException;
+import org.motechproject.dhis2.rest.service.DhisWebService;
+import org.motechproject.dhis2.rest.service.ResourcePageCallback;
+import org.motechproject.dhis2.service.DataElementService;
+import org.motechproject.dhis2.service.DataSetService;
+import org.motechproject.dhis2.service.OrgUnitService;
+import org.motechproject.dhis2.service.ProgramService;
+import org.motechproject.dhis2.service.Settings;
+import org.motechproject.dhis2.service.SettingsService;
+import org.motechproject.dhis2.service.StageService;
+import org.motechproject.dhis2.service.TrackedEntityAttributeService;
+import org.motechproject.dhis2.service.TrackedEntityService;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class SyncServiceImplTest {
+
+    private static final String LAST_SYNC_TIME = "2016-01-01T00:00:00.000";
+    private static final String SERVER_DATE = "2016-02-01T00:00:00.000";
+
+    @Mock
+    private DhisWebService dhisWebService;
+
+    @Mock
+    private DataElementService dataElementService;
+
+    @Mock
+    private TrackedEntityAttributeService trackedEntityAttributeService;
+
+    @Mock
+    private TrackedEntityService trackedEntityService;
+
+    @Mock
+    private ProgramService programService;
+
+    @Mock
+    private StageService stageService;
+
+    @Mock
+    private OrgUnitService orgUnitService;
+
+    @Mock
+    private DataSetService dataSetService;
+
+    @Mock
+    private SettingsService settingsService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private SyncServiceImpl syncService;
+
+    private Settings settings;
+
+    @Before
+    public void setUp() {
+        syncService = new SyncServiceImpl();
+        initMocks(this);
+
+        settings = new Settings("http://localhost:8080", "admin", "district");
+        settings.setLastSyncTime(LAST_SYNC_TIME);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        DhisServerInfo serverInfo = new DhisServerInfo();
+        serverInfo.setServerDate(SERVER_DATE);
+        when(dhisWebService.getDhisServerInfo()).thenReturn(serverInfo);
+    }
+
+    @Test
+    public void shouldUpsertResourcesUpdatedSinceLastSyncAndStoreServerTime() {
+        DataElement existing = new DataElement("Old name", "existing");
+        when(dataElementService.findById("existing")).thenReturn(existing);
+        when(dhisWebService.getDataElementsUpdatedSince(LAST_SYNC_TIME))
+                .thenReturn(asList(dataElementDto("existing", "New name"), dataElementDto("new", "New element")));
+
+        assertTrue(syncService.syncIncrementally());
+
+        assertEquals("New name", existing.getName());
+        verify(dataElementService).update(existing);
+        ArgumentCaptor<DataElementDto> dtoCaptor = ArgumentCaptor.forClass(DataElementDto.class);
+        verify(dataElementService).createFromDetails(dtoCaptor.capture());
+        assertEquals("new", dtoCaptor.getValue().getId());
+        verify(dataElementService, never()).deleteAll();
+        verify(dhisWebService).getOrganisationUnitsUpdatedSince(eq(LAST_SYNC_TIME), any(ResourcePageCallback.class));
+
+        verify(settingsService).updateLastSyncTime("http://localhost:8080", SERVER_DATE);
+        verify(settingsService, never()).updateSettings(any(Settings.class));
+    }
+
+    @Test
+    public void shouldUpsertProgramsWithTheirStagesWithoutRequestingThemOneByOne() {
+        Program program = new Program();
+        program.setUuid("program");
+        Stage stage = new Stage();
+        stage.setUuid("stage");
+        DataElement dataElement = new DataElement("Element", "element");
+
+        when(programService.findById("program")).thenReturn(program);
+        when(stageService.findById("stage")).thenReturn(stage);
+        when(dataElementService.findById("element")).thenReturn(dataElement);
+        when(dhisWebService.getProgramsWithStages()).thenReturn(asList(programDto()));
+
+        assertTrue(syncService.syncIncrementally());
+
+        assertEquals("Program", program.getName());
+        assertEquals(asList(stage), program.getStages());
+        assertEquals("Stage", stage.getName());
+        assertEquals("program", stage.getProgram());
+        assertEquals(asList(dataElement), stage.getDataElements());
+        verify(stageService).update(stage);
+        verify(programService).update(program);
+        verify(programService, never()).createFromDetails(any(ProgramDto.class));
+        verify(dhisWebService, never()).getProgramById(anyString());
+        verify(dhisWebService, never()).getProgramStageById(anyString());
+        verify(dhisWebService, never()).getDataElementById(anyString());
+    }
+
+    @Test
+    public void shouldSaveOrgUnitsPageByPage() {
+        final List<OrganisationUnitDto> firstPage = asList(orgUnitDto("first"));
+        final List<OrganisationUnitDto> secondPage = asList(orgUnitDto("second"));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ResourcePageCallback<OrganisationUnitDto> callback =
+                        (ResourcePageCallback<OrganisationUnitDto>) invocation.getArguments()[1];
+                callback.onPage(firstPage);
+                callback.onPage(secondPage);
+                return null;
+            }
+        }).when(dhisWebService).getOrganisationUnitsUpdatedSince(eq(LAST_SYNC_TIME), any(ResourcePageCallback.class));
+
+        assertTrue(syncService.syncIncrementally());
+
+        verify(orgUnitService).createOrUpdateFromDetails(firstPage);
+        verify(orgUnitService).createOrUpdateFromDetails(secondPage);
+        verify(dhisWebService, never()).getOrganisationUnits();
+    }
+
+    @Test
+    public void shouldNotStoreSyncTimeWhenIncrementalSyncFails() {
+        when(dhisWebService.getTrackedEntitiesUpdatedSince(LAST_SYNC_TIME)).thenThrow(new DhisWebException("Connection refused"));
+
+        assertFalse(syncService.syncIncrementally());
+
+        verify(settingsService, never()).updateLastSyncTime(anyString(), anyString());
+    }
+
+    @Test
+    public void shouldStoreServerTimeAfterFullSync() {
+        assertTrue(syncService.sync());
+
+        verify(dataElementService).deleteAll();
+        verify(settingsService).updateLastSyncTime("http://localhost:8080", SERVER_DATE);
+    }
+
+    @Test
+    public void shouldNotStoreSyncTimeWhenFullSyncFails() {
+        when(dhisWebService.getDataSets()).thenThrow(new DhisWebException("Connection refused"));
+
+        assertFalse(syncService.sync());
+
+        verify(settingsService, never()).updateLastSyncTime(anyString(), anyString());
+    }
+
+    private ProgramDto programDto() {
+        ProgramStageDataElementDto stageDataElementDto = new ProgramStageDataElementDto();
+        stageDataElementDto.setDataElement(dataElementDto("element", "Element"));
+
+        ProgramStageDto stageDto = new ProgramStageDto();
+        stageDto.setId("stage");
+        stageDto.setName("Stage");
+        stageDto.setProgramStageDataElements(asList(stageDataElementDto));
+
+        ProgramDto dto = new ProgramDto();
+        dto.setId("program");
+        dto.setName("Program");
+        dto.setProgramStages(asList(stageDto));
+        return dto;
+    }
+
+    private OrganisationUnitDto orgUnitDto(String id) {
+        OrganisationUnitDto dto = new OrganisationUnitDto();
+        dto.setId(id);
+        dto.setName(id);
+        return dto;
+    }
+
+    private DataElementDto dataElementDto(String id, String name) {
+        DataElementDto dto = new DataElementDto();
+        dto.setId(id);
+        dto.setName(name);
+        return dto;
+    }
+}
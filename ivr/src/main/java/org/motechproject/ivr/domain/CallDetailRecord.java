@@ -334,43 +334,14 @@ public class CallDetailRecord {
             value = val;
         }
 
-        try {
-            java.lang.reflect.Field field = this.getClass().getDeclaredField(key);
-            Object object;
-            try {
-                switch (key) {
-                    case "callDirection":
-                        try {
-                            object = CallDirection.valueOf(value);
-                        } catch (IllegalArgumentException e) {
-                            // Always add unknown call directions to the provider extra data, for inspection
-                            LOGGER.warn("Unknown callDirection: {}", value);
-                            providerExtraData.put(key, value);
-                            object = CallDirection.UNKNOWN;
-                        }
-                        break;
-                    case "callStatus":
-                        Object statusValue = value;
-                        if (MapUtils.isNotEmpty(callStatusMapping)) {
-                            statusValue = callStatusMapping.get(value.toString()) == null ? value : callStatusMapping.get(value.toString());
-                        }
-                        object = statusValue;
-                        break;
-                    default:
-                        object = value;
-                        break;
-                }
-                field.set(this, object);
-            } catch (IllegalAccessException e) {
-                // This should never happen as all CallDetailRecord fields should be accessible, but if somehow there
-                // happens to be a 'final' public field with the same name as a call detail key, then this will throw
-                throw new IllegalStateException(String.format(
-                        "Unable to set call detail record field '%s' to value '%s':\n%s", key, value, e));
-            }
-        } catch (NoSuchFieldException e) {
+        SettableField field = SettableField.forKey(key);
+        if (field == null) {
             LOGGER.info("Extra data from provider: '{}': '{}'", key, value);
             providerExtraData.put(key, value);
+            return;
         }
+
+        field.set(this, value, callStatusMapping);
     }
 
     @Override //NO CHECKSTYLE CyclomaticComplexity
@@ -489,4 +460,121 @@ public class CallDetailRecord {
             }
         }
     }
+
+    /**
+     * The fields which can be set through {@link #setField(String, String, Map)}, looked up by name in a table built
+     * once, instead of through reflection on every call.
+     */
+    private enum SettableField {
+        MOTECH_TIMESTAMP("motechTimestamp") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                record.motechTimestamp = value;
+            }
+        },
+        PROVIDER_TIMESTAMP("providerTimestamp") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                record.providerTimestamp = value;
+            }
+        },
+        CONFIG_NAME("configName") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                record.configName = value;
+            }
+        },
+        FROM("from") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                record.from = value;
+            }
+        },
+        TO("to") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                record.to = value;
+            }
+        },
+        CALL_DIRECTION("callDirection") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                try {
+                    record.callDirection = CallDirection.valueOf(value);
+                } catch (IllegalArgumentException e) {
+                    // Always add unknown call directions to the provider extra data, for inspection
+                    LOGGER.warn("Unknown callDirection: {}", value);
+                    record.providerExtraData.put(getKey(), value);
+                    record.callDirection = CallDirection.UNKNOWN;
+                }
+            }
+        },
+        CALL_STATUS("callStatus") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                String mappedStatus = MapUtils.isEmpty(callStatusMapping) ? null : callStatusMapping.get(value);
+                record.callStatus = mappedStatus == null ? value : mappedStatus;
+            }
+        },
+        TEMPLATE_NAME("templateName") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                record.templateName = value;
+            }
+        },
+        MOTECH_CALL_ID("motechCallId") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                record.motechCallId = value;
+            }
+        },
+        PROVIDER_CALL_ID("providerCallId") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                record.providerCallId = value;
+            }
+        },
+        CALL_DURATION("callDuration") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                record.callDuration = value;
+            }
+        },
+        MESSAGE_PERCENT_LISTENED("messagePercentListened") {
+            @Override
+            void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping) {
+                record.messagePercentListened = value;
+            }
+        };
+
+        private static final Map<String, SettableField> BY_KEY = new HashMap<>();
+
+        static {
+            for (SettableField field : values()) {
+                BY_KEY.put(field.key, field);
+            }
+        }
+
+        private final String key;
+
+        SettableField(String key) {
+            this.key = key;
+        }
+
+        private static SettableField forKey(String key) {
+            return BY_KEY.get(key);
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * Sets this field of the given record.
+         * @param record the record to update
+         * @param value the value to set, already truncated
+         * @param callStatusMapping the map which contains mapping for call status
+         */
+        abstract void set(CallDetailRecord record, String value, Map<String, String> callStatusMapping);
+    }
 }
@@ -97,6 +97,34 @@ public class Config {
     @JsonIgnore
     private Map<String, String> callStatusMapping;
 
+    /**
+     * The maximum number of outbound calls initiated concurrently with the IVR provider. Also used as the size of the
+     * HTTP connection pool of this config. If not set, a default is used.
+     */
+    private Integer maxConcurrentCalls;
+
+    /**
+     * The maximum number of outbound calls initiated per second with the IVR provider. If not set, the rate is not
+     * limited.
+     */
+    private Double maxCallsPerSecond;
+
+    /**
+     * The maximum number of outbound calls waiting to be initiated with the IVR provider. If not set, a default is
+     * used.
+     */
+    private Integer maxQueuedCalls;
+
+    /**
+     * The timeout, in milliseconds, for connecting to the IVR provider. If not set, a default is used.
+     */
+    private Integer connectTimeout;
+
+    /**
+     * The timeout, in milliseconds, for reading the response of the IVR provider. If not set, a default is used.
+     */
+    private Integer readTimeout;
+
     public Config() {
 
     }
@@ -271,6 +299,46 @@ public class Config {
         return callStatusMapping;
     }
 
+    public Integer getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(Integer maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public Double getMaxCallsPerSecond() {
+        return maxCallsPerSecond;
+    }
+
+    public void setMaxCallsPerSecond(Double maxCallsPerSecond) {
+        this.maxCallsPerSecond = maxCallsPerSecond;
+    }
+
+    public Integer getMaxQueuedCalls() {
+        return maxQueuedCalls;
+    }
+
+    public void setMaxQueuedCalls(Integer maxQueuedCalls) {
+        this.maxQueuedCalls = maxQueuedCalls;
+    }
+
+    public Integer getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Integer connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Integer getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(Integer readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
     /**
      * When pinging Motech back to provide call status, IVR providers sometimes send fields with different names than
      * those that are used by the system. For example the originating number is sometimes provided as 'callerid' whereas
@@ -315,6 +383,21 @@ public class Config {
         if (callStatusMapping != null ? !callStatusMapping.equals(config.callStatusMapping) : config.callStatusMapping != null) {
             return false;
         }
+        if (maxConcurrentCalls != null ? !maxConcurrentCalls.equals(config.maxConcurrentCalls) : config.maxConcurrentCalls != null) {
+            return false;
+        }
+        if (maxCallsPerSecond != null ? !maxCallsPerSecond.equals(config.maxCallsPerSecond) : config.maxCallsPerSecond != null) {
+            return false;
+        }
+        if (maxQueuedCalls != null ? !maxQueuedCalls.equals(config.maxQueuedCalls) : config.maxQueuedCalls != null) {
+            return false;
+        }
+        if (connectTimeout != null ? !connectTimeout.equals(config.connectTimeout) : config.connectTimeout != null) {
+            return false;
+        }
+        if (readTimeout != null ? !readTimeout.equals(config.readTimeout) : config.readTimeout != null) {
+            return false;
+        }
         if (!StringUtils.equals(name, config.name) ||
                 !StringUtils.equals(username, config.username) ||
                 !StringUtils.equals(password, config.password) ||
@@ -344,6 +427,11 @@ public class Config {
         result = 31 * result + (servicesMapString != null ? servicesMapString.hashCode() : 0);
         result = 31 * result + (callStatusMapping != null ? callStatusMapping.hashCode() : 0);
         result = 31 * result + (callStatusMappingString != null ? callStatusMappingString.hashCode() : 0);
+        result = 31 * result + (maxConcurrentCalls != null ? maxConcurrentCalls.hashCode() : 0);
+        result = 31 * result + (maxCallsPerSecond != null ? maxCallsPerSecond.hashCode() : 0);
+        result = 31 * result + (maxQueuedCalls != null ? maxQueuedCalls.hashCode() : 0);
+        result = 31 * result + (connectTimeout != null ? connectTimeout.hashCode() : 0);
+        result = 31 * result + (readTimeout != null ? readTimeout.hashCode() : 0);
         return result;
     }
 
@@ -365,6 +453,11 @@ public class Config {
                 ", servicesMapString='" + servicesMapString + '\'' +
                 ", callStatusMapping='" + callStatusMapping + '\'' +
                 ", callStatusMappingString='" + callStatusMappingString + '\'' +
+                ", maxConcurrentCalls=" + maxConcurrentCalls +
+                ", maxCallsPerSecond=" + maxCallsPerSecond +
+                ", maxQueuedCalls=" + maxQueuedCalls +
+                ", connectTimeout=" + connectTimeout +
+                ", readTimeout=" + readTimeout +
                 '}';
     }
 }
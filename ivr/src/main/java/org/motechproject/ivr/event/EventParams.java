@@ -76,6 +76,11 @@ public final class EventParams {
      */
     public static final String CALL_DATE = "call_date";
 
+    /**
+     * Reason why a call could not be initiated.
+     */
+    public static final String ERROR_MESSAGE = "error_message";
+
     /**
      * Create a MOTECH event parameters map payload from a given {@link org.motechproject.ivr.domain.CallDetailRecord}.
      *
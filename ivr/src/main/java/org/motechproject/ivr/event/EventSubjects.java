@@ -20,6 +20,11 @@ public final class EventSubjects {
      */
     public static final String CALL_INITIATED = "ivr_call_initiated";
 
+    /**
+     * Signals that a call queued with initiateCallAsync() could not be initiated.
+     */
+    public static final String CALL_INITIATION_FAILED = "ivr_call_initiation_failed";
+
     /**
      * The event subject used for initiating a call. The IVR module listens to this subject.
      */
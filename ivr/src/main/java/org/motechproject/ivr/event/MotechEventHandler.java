@@ -19,7 +19,10 @@ import static org.motechproject.ivr.event.EventParams.CALL_DATE;
 import static org.motechproject.ivr.event.EventParams.PARAMETERS;
 
 /**
- * Listens to the ivr_initiate_call MotechEvent and calls initiateCall
+ * Listens to the ivr_initiate_call MotechEvent and queues the call with initiateCallAsync, so that bulk initiations
+ * do not hold up the event and scheduler threads. A call which cannot be queued fails the handling of the event. A
+ * call which fails once it runs is reported with an ivr_call_initiation_failed event, like a call which cannot be
+ * queued.
  */
 @Service
 public class MotechEventHandler {
@@ -39,7 +42,7 @@ public class MotechEventHandler {
         if (date == null) {
             //todo: fix "uses unchecked or unsafe operations" warning below
             Map<String, String> params = (Map<String, String>) event.getParameters().get(PARAMETERS);
-            outboundCallService.initiateCall(config, params);
+            outboundCallService.initiateCallAsync(config, params);
         } else {
 
             LOGGER.info("Rescheduling call for config {} to {}", config, date);
@@ -3,6 +3,7 @@ package org.motechproject.ivr.service;
 import org.motechproject.ivr.exception.ConfigNotFoundException;
 
 import java.util.Map;
+import java.util.concurrent.Future;
 
 /**
  * Service Interface used to initiate an outgoing (Mobile Terminated) call
@@ -23,4 +24,19 @@ public interface OutboundCallService {
      * @throws ConfigNotFoundException when there is no default configuration.
      */
     void initiateCall(Map<String, String> params);
+
+    /**
+     * Queues the initiation of an outgoing call and returns right away. Calls are initiated in the background, with
+     * the concurrency and rate limits of the given configuration. If the initiation fails, an
+     * {@link org.motechproject.ivr.event.EventSubjects#CALL_INITIATION_FAILED} event is sent, in addition to the
+     * returned future completing exceptionally. The same event is sent if the call cannot be queued, in addition to
+     * the exception thrown.
+     *
+     * @param configName the name of the configuration to use when initiating the call
+     * @param params the parameters that will be used for building the url, the ones that don't match the placeholders will be sent as params of the request
+     * @return the future MOTECH call id of the initiated call
+     * @throws org.motechproject.ivr.service.CallInitiationException if the configuration is invalid or too many calls
+     * are already waiting to be initiated
+     */
+    Future<String> initiateCallAsync(String configName, Map<String, String> params);
 }
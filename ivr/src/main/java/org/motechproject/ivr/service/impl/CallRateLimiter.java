@@ -0,0 +1,47 @@
+package org.motechproject.ivr.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out the outbound calls initiated with a single IVR provider, so that no more than the configured number of
+ * calls are started per second. Every call reserves the next free slot, the caller is told how long it has to wait
+ * for its slot to come.
+ */
+public class CallRateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long interval;
+    private long nextSlot = Long.MIN_VALUE;
+
+    /**
+     * @param callsPerSecond the maximum number of calls per second, a null or non-positive value means that the rate
+     *                       is not limited
+     */
+    public CallRateLimiter(Double callsPerSecond) {
+        if (callsPerSecond == null || callsPerSecond <= 0 || Double.isInfinite(callsPerSecond) ||
+                Double.isNaN(callsPerSecond)) {
+            interval = 0;
+        } else {
+            interval = Math.max(1L, (long) (NANOS_PER_SECOND / callsPerSecond));
+        }
+    }
+
+    /**
+     * Reserves the slot for the next call.
+     * @return the number of nanoseconds the caller has to wait before initiating its call
+     */
+    public long reserve() {
+        return reserve(System.nanoTime());
+    }
+
+    synchronized long reserve(long now) {
+        if (interval == 0) {
+            return 0;
+        }
+
+        long slot = Math.max(now, nextSlot);
+        nextSlot = slot + interval;
+        return slot - now;
+    }
+}
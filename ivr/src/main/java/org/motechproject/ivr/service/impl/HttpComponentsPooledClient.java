@@ -0,0 +1,108 @@
+package org.motechproject.ivr.service.impl;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.params.HttpClientParams;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.HttpConnectionParams;
+import org.motechproject.modules.commons.http.ConnectionSettings;
+import org.motechproject.modules.commons.http.PooledClient;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HttpComponents {@link HttpClient} with a pool of connections of its own. The connections are tracked from the
+ * moment they are leased until they are released, so a connection released twice is not counted twice.
+ */
+final class HttpComponentsPooledClient implements PooledClient<HttpClient> {
+
+    private final DefaultHttpClient httpClient;
+    private final LeaseTrackingConnectionManager connectionManager;
+    private final ConnectionSettings settings;
+
+    HttpComponentsPooledClient(ConnectionSettings settings) {
+        this.settings = settings;
+
+        connectionManager = new LeaseTrackingConnectionManager();
+        connectionManager.setMaxTotal(settings.getMaxTotalConnections());
+        connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerRoute());
+
+        httpClient = new DefaultHttpClient(connectionManager);
+        HttpClientParams.setConnectionManagerTimeout(httpClient.getParams(), settings.getConnectTimeout());
+        HttpConnectionParams.setConnectionTimeout(httpClient.getParams(), settings.getConnectTimeout());
+        HttpConnectionParams.setSoTimeout(httpClient.getParams(), settings.getReadTimeout());
+        HttpConnectionParams.setStaleCheckingEnabled(httpClient.getParams(), true);
+    }
+
+    @Override
+    public HttpClient getClient() {
+        return httpClient;
+    }
+
+    @Override
+    public int getLeasedConnections() {
+        return connectionManager.leased.size();
+    }
+
+    @Override
+    public long getMaxRequestMillis() {
+        return settings.getMaxRequestMillis();
+    }
+
+    @Override
+    public void closeIdleConnections() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(settings.getIdleConnectionTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        connectionManager.shutdown();
+    }
+
+    private static final class LeaseTrackingConnectionManager extends PoolingClientConnectionManager {
+
+        private final Set<ManagedClientConnection> leased =
+                Collections.newSetFromMap(new ConcurrentHashMap<ManagedClientConnection, Boolean>());
+
+        private LeaseTrackingConnectionManager() {
+            super(SchemeRegistryFactory.createDefault());
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            final ClientConnectionRequest request = super.requestConnection(route, state);
+            return new ClientConnectionRequest() {
+                @Override
+                public ManagedClientConnection getConnection(long timeout, TimeUnit unit)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+                    ManagedClientConnection connection = request.getConnection(timeout, unit);
+                    leased.add(connection);
+                    return connection;
+                }
+
+                @Override
+                public void abortRequest() {
+                    request.abortRequest();
+                }
+            };
+        }
+
+        @Override
+        public void releaseConnection(ManagedClientConnection connection, long keepAlive, TimeUnit unit) {
+            try {
+                super.releaseConnection(connection, keepAlive, unit);
+            } finally {
+                leased.remove(connection);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.motechproject.ivr.service.impl;
+
+import org.apache.http.client.HttpClient;
+import org.motechproject.ivr.domain.Config;
+import org.motechproject.ivr.domain.Configs;
+import org.motechproject.ivr.service.ConfigService;
+import org.motechproject.modules.commons.http.ConnectionSettings;
+import org.motechproject.modules.commons.http.PooledClient;
+import org.motechproject.modules.commons.http.PooledClientRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Keeps a separate, connection-pooled {@link HttpClient} for every IVR {@link Config}, so that outbound calls reuse
+ * warm connections to their provider instead of opening a new one for every call. The pool of a config is as large
+ * as the number of calls it may initiate concurrently, its timeouts are taken from the config. The clients of deleted
+ * configs are retired.
+ */
+@Component
+public class IvrHttpClients extends PooledClientRegistry<String, ConnectionSettings, HttpClient> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IvrHttpClients.class);
+
+    private static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    private static final int DEFAULT_READ_TIMEOUT = 60000;
+    private static final int IDLE_CONNECTION_TIMEOUT = 60000;
+    private static final long CHECK_INTERVAL = 5000;
+
+    private ConfigService configService;
+    private Configs knownConfigs;
+
+    public IvrHttpClients() {
+        super("ivr");
+    }
+
+    @PostConstruct
+    public void start() {
+        start(CHECK_INTERVAL);
+    }
+
+    @PreDestroy
+    @Override
+    public void stop() {
+        super.stop();
+    }
+
+    /**
+     * Returns the client for the given config, creating it if needed.
+     * @param config the config used for initiating the call
+     * @return the client which should be used for talking to the provider of the config
+     */
+    public synchronized HttpClient getClient(Config config) {
+        retireDeletedConfigs();
+        return getClient(config.getName(), settingsFor(config));
+    }
+
+    @Override
+    protected PooledClient<HttpClient> createClient(String configName, ConnectionSettings settings) {
+        HttpComponentsPooledClient client = new HttpComponentsPooledClient(settings);
+        LOGGER.info("Created HTTP client for config {}: {}", configName, settings);
+        return client;
+    }
+
+    private void retireDeletedConfigs() {
+        // configs are replaced with new instances when they are reloaded
+        Configs configs = configService.allConfigs();
+        if (configs == knownConfigs) {
+            return;
+        }
+        knownConfigs = configs;
+
+        for (String configName : getKeys()) {
+            if (!configService.hasConfig(configName)) {
+                LOGGER.info("Config {} was deleted, retiring its HTTP client", configName);
+                retire(configName);
+            }
+        }
+    }
+
+    private ConnectionSettings settingsFor(Config config) {
+        int maxConnections = OutboundCallDispatcher.maxConcurrentCalls(config);
+        return new ConnectionSettings(maxConnections, maxConnections,
+                valueOrDefault(config.getConnectTimeout(), DEFAULT_CONNECT_TIMEOUT),
+                valueOrDefault(config.getReadTimeout(), DEFAULT_READ_TIMEOUT), IDLE_CONNECTION_TIMEOUT);
+    }
+
+    private static int valueOrDefault(Integer value, int defaultValue) {
+        return value == null || value < 0 ? defaultValue : value;
+    }
+
+    @Autowired
+    @Qualifier("configService")
+    public void setConfigService(ConfigService configService) {
+        this.configService = configService;
+    }
+}
@@ -0,0 +1,194 @@
+package org.motechproject.ivr.service.impl;
+
+import org.motechproject.ivr.domain.Config;
+import org.motechproject.ivr.domain.Configs;
+import org.motechproject.ivr.service.CallInitiationException;
+import org.motechproject.ivr.service.ConfigService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs outbound call initiations in the background, with a separate pool of workers for every IVR {@link Config}.
+ * The number of workers of a config caps the number of calls initiated concurrently with its provider, and an
+ * optional {@link CallRateLimiter} caps the number of calls started per second. A rate limited call is scheduled for
+ * its slot when it is queued, so no worker sits idle waiting for it. Callers only wait for a call to be queued, never
+ * for the provider to answer. When the limits of a config change, its workers are replaced - calls already queued
+ * still run on the old workers. The workers of deleted configs are shut down the same way.
+ */
+@Component
+public class OutboundCallDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboundCallDispatcher.class);
+
+    private static final int DEFAULT_MAX_CONCURRENT_CALLS = 10;
+    private static final int DEFAULT_MAX_QUEUED_CALLS = 10000;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private ConfigService configService;
+
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private Configs knownConfigs;
+
+    @PreDestroy
+    public synchronized void stop() {
+        for (Lane lane : lanes.values()) {
+            lane.executor.shutdownNow();
+        }
+        lanes.clear();
+    }
+
+    /**
+     * Queues a call initiation for the given config.
+     * @param config the config used for initiating the call
+     * @param call the initiation, returning the MOTECH call id
+     * @return the future result of the initiation
+     * @throws CallInitiationException if the queue of the config is full
+     */
+    public Future<String> submit(Config config, final Callable<String> call) {
+        final Lane lane = getLane(config);
+
+        if (lane.queued.incrementAndGet() > lane.maxQueuedCalls) {
+            lane.queued.decrementAndGet();
+            throw new CallInitiationException(String.format("Too many calls waiting to be initiated for config %s",
+                    config.getName()));
+        }
+
+        try {
+            return lane.executor.schedule(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    lane.queued.decrementAndGet();
+                    return call.call();
+                }
+            }, lane.rateLimiter.reserve(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            lane.queued.decrementAndGet();
+            throw new CallInitiationException(String.format("Unable to queue a call for config %s, the dispatcher " +
+                    "is stopped", config.getName()), e);
+        }
+    }
+
+    /**
+     * @param configName the name of the config
+     * @return the number of calls of the given config waiting for a worker or for their slot
+     */
+    public synchronized int getQueuedCalls(String configName) {
+        Lane lane = lanes.get(configName);
+        return lane == null ? 0 : lane.queued.get();
+    }
+
+    /**
+     * @param config the config
+     * @return the maximum number of calls the given config may initiate concurrently
+     */
+    public static int maxConcurrentCalls(Config config) {
+        Integer maxConcurrentCalls = config.getMaxConcurrentCalls();
+        return maxConcurrentCalls == null || maxConcurrentCalls < 1 ? DEFAULT_MAX_CONCURRENT_CALLS : maxConcurrentCalls;
+    }
+
+    /**
+     * @param config the config
+     * @return the maximum number of calls of the given config which may wait to be initiated
+     */
+    public static int maxQueuedCalls(Config config) {
+        Integer maxQueuedCalls = config.getMaxQueuedCalls();
+        return maxQueuedCalls == null || maxQueuedCalls < 1 ? DEFAULT_MAX_QUEUED_CALLS : maxQueuedCalls;
+    }
+
+    private synchronized Lane getLane(Config config) {
+        retireDeletedConfigs();
+
+        int maxConcurrentCalls = maxConcurrentCalls(config);
+        int maxQueuedCalls = maxQueuedCalls(config);
+        Double maxCallsPerSecond = config.getMaxCallsPerSecond();
+        Lane lane = lanes.get(config.getName());
+
+        if (lane == null || lane.maxConcurrentCalls != maxConcurrentCalls || lane.maxQueuedCalls != maxQueuedCalls ||
+                !equal(lane.maxCallsPerSecond, maxCallsPerSecond)) {
+            if (lane != null) {
+                lane.executor.shutdown();
+            }
+            lane = new Lane(config.getName(), maxConcurrentCalls, maxQueuedCalls, maxCallsPerSecond);
+            lanes.put(config.getName(), lane);
+
+            LOGGER.info("Initiating calls for config {} with {} workers, at most {} calls per second",
+                    config.getName(), maxConcurrentCalls, maxCallsPerSecond == null ? "unlimited" : maxCallsPerSecond);
+        }
+
+        return lane;
+    }
+
+    private void retireDeletedConfigs() {
+        // configs are replaced with new instances when they are reloaded
+        Configs configs = configService.allConfigs();
+        if (configs == knownConfigs) {
+            return;
+        }
+        knownConfigs = configs;
+
+        Iterator<Map.Entry<String, Lane>> it = lanes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Lane> entry = it.next();
+            if (!configService.hasConfig(entry.getKey())) {
+                LOGGER.info("Config {} was deleted, shutting down its workers once its queued calls are done",
+                        entry.getKey());
+                entry.getValue().executor.shutdown();
+                it.remove();
+            }
+        }
+    }
+
+    private static boolean equal(Double a, Double b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Autowired
+    @Qualifier("configService")
+    public void setConfigService(ConfigService configService) {
+        this.configService = configService;
+    }
+
+    private static final class Lane {
+
+        private final int maxConcurrentCalls;
+        private final int maxQueuedCalls;
+        private final Double maxCallsPerSecond;
+        private final ScheduledThreadPoolExecutor executor;
+        private final CallRateLimiter rateLimiter;
+        private final AtomicInteger queued = new AtomicInteger();
+
+        private Lane(final String configName, int maxConcurrentCalls, int maxQueuedCalls, Double maxCallsPerSecond) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            this.maxQueuedCalls = maxQueuedCalls;
+            this.maxCallsPerSecond = maxCallsPerSecond;
+            this.rateLimiter = new CallRateLimiter(maxCallsPerSecond);
+            this.executor = new ScheduledThreadPoolExecutor(maxConcurrentCalls, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ivr-call-" + configName + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.executor.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+    }
+}
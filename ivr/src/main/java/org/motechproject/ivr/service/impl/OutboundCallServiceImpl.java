@@ -22,8 +22,8 @@ import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.auth.BasicScheme;
-import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.motechproject.admin.service.StatusMessageService;
@@ -65,6 +65,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Generates & sends an HTTP request to an IVR provider to trigger an outbound call
@@ -77,8 +79,11 @@ public class OutboundCallServiceImpl implements OutboundCallService {
     private CallDetailRecordDataService callDetailRecordDataService;
     private EventRelay eventRelay;
     private StatusMessageService statusMessageService;
+    private IvrHttpClients ivrHttpClients;
+    private OutboundCallDispatcher outboundCallDispatcher;
     private static final String FILE_PROTOCOL = "file";
     private static final String HTTP_PROTOCOL = "http";
+    private static final String HTTPS_PROTOCOL = "https";
     private static final String MODULE_NAME = "ivr";
     public static final List<Integer> ACCEPTABLE_IVR_RESPONSE_STATUSES = Arrays.asList(HttpStatus.SC_OK,
             HttpStatus.SC_ACCEPTED, HttpStatus.SC_CREATED);
@@ -86,11 +91,14 @@ public class OutboundCallServiceImpl implements OutboundCallService {
     @Autowired
     public OutboundCallServiceImpl(@Qualifier("configService") ConfigService configService,
                                    StatusMessageService statusMessageService,
-                                   CallDetailRecordDataService callDetailRecordDataService, EventRelay eventRelay) {
+                                   CallDetailRecordDataService callDetailRecordDataService, EventRelay eventRelay,
+                                   IvrHttpClients ivrHttpClients, OutboundCallDispatcher outboundCallDispatcher) {
         this.configService = configService;
         this.statusMessageService = statusMessageService;
         this.callDetailRecordDataService = callDetailRecordDataService;
         this.eventRelay = eventRelay;
+        this.ivrHttpClients = ivrHttpClients;
+        this.outboundCallDispatcher = outboundCallDispatcher;
     }
 
     private void addCallDetailRecord(String callStatus, Config config, Map<String, String> params,
@@ -126,17 +134,49 @@ public class OutboundCallServiceImpl implements OutboundCallService {
     public void initiateCall(String configName, Map<String, String> parameters) {
         LOGGER.debug("initiateCall(configName = {}, params = {})", configName, parameters);
 
-        Map<String, String> params = new HashMap<>(parameters);
+        doInitiateCall(getValidConfig(configName), parameters, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public Future<String> initiateCallAsync(final String configName, final Map<String, String> parameters) {
+        LOGGER.debug("initiateCallAsync(configName = {}, params = {})", configName, parameters);
+
+        final Config config = getValidConfig(configName);
+        final String motechCallId = UUID.randomUUID().toString();
 
+        try {
+            return outboundCallDispatcher.submit(config, new Callable<String>() {
+                @Override
+                public String call() {
+                    try {
+                        return doInitiateCall(config, parameters, motechCallId);
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Unable to initiate call {} for config {}", motechCallId, configName, e);
+                        sendInitiationFailedEvent(configName, parameters, motechCallId, e);
+                        throw e;
+                    }
+                }
+            });
+        } catch (CallInitiationException e) {
+            LOGGER.error("Unable to queue call {} for config {}", motechCallId, configName, e);
+            sendInitiationFailedEvent(configName, parameters, motechCallId, e);
+            throw e;
+        }
+    }
+
+    private Config getValidConfig(String configName) {
         if (!configService.hasConfig(configName)) {
             String msg = String.format("Invalid config: '%s'", configName);
             statusMessageService.warn(msg, MODULE_NAME);
             throw new CallInitiationException(msg);
         }
 
-        Config config = configService.getConfig(configName);
+        return configService.getConfig(configName);
+    }
+
+    private String doInitiateCall(Config config, Map<String, String> parameters, String motechCallId) {
+        Map<String, String> params = new HashMap<>(parameters);
 
-        String motechCallId = UUID.randomUUID().toString();
         Map<String, String> completeParams = new HashMap<>(params);
         completeParams.put("motechCallId", motechCallId);
 
@@ -155,11 +195,25 @@ public class OutboundCallServiceImpl implements OutboundCallService {
                 break;
             }
 
-            case HTTP_PROTOCOL: {
+            case HTTP_PROTOCOL:
+            case HTTPS_PROTOCOL: {
                 executeHttpCall(config, params, completeParams, motechCallId);
                 break;
             }
         }
+
+        return motechCallId;
+    }
+
+    private void sendInitiationFailedEvent(String configName, Map<String, String> params, String motechCallId,
+                                           Exception e) {
+        Map<String, Object> eventParams = new HashMap<>();
+        eventParams.put(EventParams.CONFIG, configName);
+        eventParams.put(EventParams.MOTECH_CALL_ID, motechCallId);
+        eventParams.put(EventParams.MOTECH_TIMESTAMP, CallDetailRecord.getCurrentTimestamp());
+        eventParams.put(EventParams.PARAMETERS, params);
+        eventParams.put(EventParams.ERROR_MESSAGE, e.getMessage());
+        eventRelay.sendEventMessage(new MotechEvent(EventSubjects.CALL_INITIATION_FAILED, eventParams));
     }
 
     private void generateCallFile(Config config, Map<String, String> params, Map<String, String> completeParams, String motechCallId) {
@@ -194,7 +248,7 @@ public class OutboundCallServiceImpl implements OutboundCallService {
         HttpUriRequest request = generateHttpRequest(config, completeParams);
         HttpResponse response;
         try {
-            response = new DefaultHttpClient().execute(request);
+            response = ivrHttpClients.getClient(config).execute(request);
         } catch (Exception e) {
             String message = String.format("Could not initiate call, could not create or write to file: %s", e.toString());
             statusMessageService.warn(message, MODULE_NAME);
@@ -203,35 +257,39 @@ public class OutboundCallServiceImpl implements OutboundCallService {
             throw new CallInitiationException(message, e);
         }
 
-        StatusLine statusLine = response.getStatusLine();
-
-        //todo: it's possible that some IVR providers return an HTTP 200 and an error code in the response body.
-        //todo: If we encounter such a provider, we'll have to beef up the response processing here
-        if (!ACCEPTABLE_IVR_RESPONSE_STATUSES.contains(statusLine.getStatusCode())) {
-            String message = String.format("Could not initiate call: %s", statusLine.toString());
-            statusMessageService.warn(message, MODULE_NAME);
-            params.put("ErrorMessage", message);
-            addCallDetailRecord(CallDetailRecord.CALL_FAILED, config, params, motechCallId);
-            throw new CallInitiationException(message);
-        }
-
         Map<String, Object> completeJsonMap = new HashMap<>();
-        if (config.isJsonResponse()) {
-            try (InputStream json = response.getEntity().getContent()) {
-                String jsonString = IOUtils.toString(json);
-
-                // Grab key-value pairs from the keys the implementer defines during configuration.
-                Map<String, String> extraParamsFromJson = getAdditionalParamsFromJson(jsonString, config.getJsonExtraParamsList());
-
-                // Parse the complete JSON map, to be sent with the Motech event.
-                completeJsonMap = getCompleteJsonMap(jsonString);
-                params.putAll(extraParamsFromJson);
-            } catch (IOException e) {
-                String message = String.format("Could not parse for JSON for entity: %s", response.getEntity());
-                LOGGER.info(message);
+        try {
+            StatusLine statusLine = response.getStatusLine();
+
+            //todo: it's possible that some IVR providers return an HTTP 200 and an error code in the response body.
+            //todo: If we encounter such a provider, we'll have to beef up the response processing here
+            if (!ACCEPTABLE_IVR_RESPONSE_STATUSES.contains(statusLine.getStatusCode())) {
+                String message = String.format("Could not initiate call: %s", statusLine.toString());
                 statusMessageService.warn(message, MODULE_NAME);
+                params.put("ErrorMessage", message);
+                addCallDetailRecord(CallDetailRecord.CALL_FAILED, config, params, motechCallId);
+                throw new CallInitiationException(message);
             }
 
+            if (config.isJsonResponse()) {
+                try (InputStream json = response.getEntity().getContent()) {
+                    String jsonString = IOUtils.toString(json);
+
+                    // Grab key-value pairs from the keys the implementer defines during configuration.
+                    Map<String, String> extraParamsFromJson = getAdditionalParamsFromJson(jsonString, config.getJsonExtraParamsList());
+
+                    // Parse the complete JSON map, to be sent with the Motech event.
+                    completeJsonMap = getCompleteJsonMap(jsonString);
+                    params.putAll(extraParamsFromJson);
+                } catch (IOException e) {
+                    String message = String.format("Could not parse for JSON for entity: %s", response.getEntity());
+                    LOGGER.info(message);
+                    statusMessageService.warn(message, MODULE_NAME);
+                }
+            }
+        } finally {
+            // the connection goes back to the pool only once the response is fully read
+            releaseConnection(response);
         }
 
         // Add a CDR to the database
@@ -243,6 +301,14 @@ public class OutboundCallServiceImpl implements OutboundCallService {
         eventRelay.sendEventMessage(event);
     }
 
+    private void releaseConnection(HttpResponse response) {
+        try {
+            EntityUtils.consume(response.getEntity());
+        } catch (IOException e) {
+            LOGGER.debug("Unable to consume the response of the IVR provider", e);
+        }
+    }
+
     private String mergeUriAndRemoveParams(String uriTemplate, Map<String, String> params) {
         String mergedURI = uriTemplate;
 
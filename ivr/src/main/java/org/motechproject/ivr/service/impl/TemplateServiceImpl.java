@@ -35,6 +35,7 @@ public class TemplateServiceImpl implements TemplateService {
     private static final String TEMPLATE_FILE_PATH = "/org.motechproject.ivr/raw/" + TEMPLATE_FILE_NAME;
     private static final Logger LOGGER = LoggerFactory.getLogger(TemplateServiceImpl.class);
     private SettingsFacade settingsFacade;
+    private VelocityTemplateCache velocityTemplateCache;
     private Map<String, Template> templates = new HashMap<>();
 
     private synchronized void loadTemplates() {
@@ -68,6 +69,7 @@ public class TemplateServiceImpl implements TemplateService {
         if (!StringUtils.isBlank(filePath) && filePath.endsWith(TEMPLATE_FILE_PATH)) {
             LOGGER.info("{} has changed, reloading templates.", TEMPLATE_FILE_NAME);
             loadTemplates();
+            velocityTemplateCache.invalidate();
         }
     }
 
@@ -96,5 +98,11 @@ public class TemplateServiceImpl implements TemplateService {
         ByteArrayResource resource = new ByteArrayResource(jsonText.getBytes());
         settingsFacade.saveRawConfig(TEMPLATE_FILE_NAME, resource);
         loadTemplates();
+        velocityTemplateCache.invalidate();
+    }
+
+    @Autowired
+    public void setVelocityTemplateCache(VelocityTemplateCache velocityTemplateCache) {
+        this.velocityTemplateCache = velocityTemplateCache;
     }
 }
@@ -0,0 +1,106 @@
+package org.motechproject.ivr.service.impl;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.app.Velocity;
+import org.apache.velocity.runtime.RuntimeServices;
+import org.apache.velocity.runtime.RuntimeSingleton;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.StringReader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the parsed Velocity form of the IVR templates, so that templates are parsed once instead of on every request
+ * from the IVR provider. Entries are keyed by template name and by the version of the template collection, which is
+ * bumped by {@link #invalidate()} every time the templates are reloaded. Parsed templates are thread-safe and can be
+ * merged concurrently.
+ */
+@Component
+public class VelocityTemplateCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VelocityTemplateCache.class);
+
+    private static final String LOG4J = "org.apache.velocity.runtime.log.Log4JLogChute";
+    private static final String LOGSYSTEM_CLASS = "runtime.log.logsystem.class";
+    private static final String LOGSYSTEM_LOGGER = "runtime.log.logsystem.log4j.logger";
+
+    private final ConcurrentMap<String, CachedTemplate> templates = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    public void setUpVelocityProperties() {
+        try {
+            Velocity.setProperty(LOGSYSTEM_CLASS, LOG4J);
+            Velocity.setProperty(LOGSYSTEM_LOGGER, LOG4J);
+            Velocity.init();
+        } catch (Exception e) {
+            throw new IllegalStateException(String.format("Error initializing template engine: %s", e.toString()), e);
+        }
+    }
+
+    /**
+     * Returns the parsed form of the given template, parsing it if it is not cached yet.
+     * @param template the IVR template
+     * @return the parsed Velocity template
+     */
+    public Template getTemplate(org.motechproject.ivr.domain.Template template) {
+        long currentVersion = version.get();
+        CachedTemplate cached = templates.get(template.getName());
+
+        // the value check covers templates updated in memory without a reload
+        if (cached == null || cached.version != currentVersion || !cached.source.equals(template.getValue())) {
+            cached = new CachedTemplate(currentVersion, template.getValue(), parse(template));
+            templates.put(template.getName(), cached);
+        }
+
+        return cached.template;
+    }
+
+    /**
+     * Drops all parsed templates, they will be parsed again on their next use.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        templates.clear();
+        LOGGER.debug("Invalidated parsed IVR templates");
+    }
+
+    private Template parse(org.motechproject.ivr.domain.Template template) {
+        LOGGER.debug("Parsing template {}", template.getName());
+
+        RuntimeServices runtimeServices = RuntimeSingleton.getRuntimeServices();
+        try {
+            SimpleNode node = runtimeServices.parse(new StringReader(template.getValue()), template.getName());
+
+            Template parsed = new Template();
+            parsed.setRuntimeServices(runtimeServices);
+            parsed.setName(template.getName());
+            parsed.setData(node);
+            parsed.initDocument();
+            return parsed;
+        } catch (ParseException e) {
+            throw new IllegalStateException(String.format("Error parsing template %s: %s", template.getName(),
+                    e.toString()), e);
+        }
+    }
+
+    private static final class CachedTemplate {
+
+        private final long version;
+        private final String source;
+        private final Template template;
+
+        private CachedTemplate(long version, String source, Template template) {
+            this.version = version;
+            this.source = source;
+            this.template = template;
+        }
+    }
+}
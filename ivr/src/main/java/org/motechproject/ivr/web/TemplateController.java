@@ -1,7 +1,6 @@
 package org.motechproject.ivr.web;
 
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
 import org.motechproject.admin.service.StatusMessageService;
 import org.motechproject.event.listener.EventRelay;
 import org.motechproject.ivr.domain.Config;
@@ -13,9 +12,11 @@ import org.motechproject.ivr.exception.TemplateNotFoundException;
 import org.motechproject.ivr.repository.CallDetailRecordDataService;
 import org.motechproject.ivr.service.ConfigService;
 import org.motechproject.ivr.service.TemplateService;
+import org.motechproject.ivr.service.impl.VelocityTemplateCache;
 import org.motechproject.mds.service.MDSLookupService;
 import org.motechproject.osgi.web.util.OSGiServiceUtils;
 import org.osgi.framework.BundleContext;
+import org.osgi.util.tracker.ServiceTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,12 +34,14 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
-import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.motechproject.ivr.util.Constants.HAS_MANAGE_IVR_ROLE;
 import static org.motechproject.ivr.web.LogAndEventHelper.sendAndLogEvent;
@@ -54,10 +57,6 @@ public class TemplateController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TemplateController.class);
 
-    private static final String LOG4J = "org.apache.velocity.runtime.log.Log4JLogChute";
-    private static final String LOGSYSTEM_CLASS = "runtime.log.logsystem.class";
-    private static final String LOGSYSTEM_LOGGER = "runtime.log.logsystem.log4j.logger";
-
     private CallDetailRecordDataService callDetailRecordDataService;
     private TemplateService templateService;
     private ConfigService configService;
@@ -65,16 +64,15 @@ public class TemplateController {
     private EventRelay eventRelay;
     private MDSLookupService mdsLookupService;
     private BundleContext bundleContext;
+    private VelocityTemplateCache velocityTemplateCache;
+    private final ConcurrentMap<String, ServiceTracker> serviceTrackers = new ConcurrentHashMap<>();
 
-    @PostConstruct
-    public void setUpVelocityProperties() {
-        try {
-            Velocity.setProperty(LOGSYSTEM_CLASS, LOG4J);
-            Velocity.setProperty(LOGSYSTEM_LOGGER, LOG4J);
-            Velocity.init();
-        } catch (Exception e) {
-            throw new IllegalStateException(String.format("Error initializing template engine: %s", e.toString()), e);
+    @PreDestroy
+    public void closeServiceTrackers() {
+        for (ServiceTracker tracker : serviceTrackers.values()) {
+            tracker.close();
         }
+        serviceTrackers.clear();
     }
 
     /**
@@ -117,7 +115,7 @@ public class TemplateController {
         StringBuilder notFoundServices = new StringBuilder();
 
         for (Map.Entry<String, String> entry : config.getServicesMap().entrySet()) {
-            Object service = OSGiServiceUtils.findService(bundleContext, entry.getValue());
+            Object service = findService(entry.getValue());
             if (service != null) {
                 context.put(entry.getKey(), service);
             } else {
@@ -129,10 +127,10 @@ public class TemplateController {
         if (!notFoundServices.toString().isEmpty()) {
             throw new IllegalStateException("Cannot load following services:\n" + notFoundServices.toString());
         }
-        // Merge the template
+        // Merge the template, parsed only once and reused until the templates are reloaded
         StringWriter writer = new StringWriter();
         try {
-            Velocity.evaluate(context, writer, String.format("%s-%s", configName, templateName), template.getValue());
+            velocityTemplateCache.getTemplate(template).merge(context, writer);
         } catch (IOException e) {
             throw new IllegalStateException(String.format("Error evaluating template: %s", e.toString()), e);
         }
@@ -143,6 +141,25 @@ public class TemplateController {
         return writer.toString();
     }
 
+    private Object findService(String className) {
+        ServiceTracker tracker = serviceTrackers.get(className);
+        if (tracker == null) {
+            ServiceTracker created = new ServiceTracker(bundleContext, className, null);
+            tracker = serviceTrackers.putIfAbsent(className, created);
+            if (tracker == null) {
+                created.open();
+                tracker = created;
+            }
+        }
+
+        Object service = tracker.getService();
+        if (service == null) {
+            // the service might still be starting up, wait for it like we used to
+            service = OSGiServiceUtils.findService(bundleContext, className);
+        }
+        return service;
+    }
+
     /**
      * Retrieves all templates.
      * @return all templates stored
@@ -225,6 +242,11 @@ public class TemplateController {
         this.callDetailRecordDataService = callDetailRecordDataService;
     }
 
+    @Autowired
+    public void setVelocityTemplateCache(VelocityTemplateCache velocityTemplateCache) {
+        this.velocityTemplateCache = velocityTemplateCache;
+    }
+
     @Autowired
     public void setBundleContext(BundleContext bundleContext) {
         this.bundleContext = bundleContext;
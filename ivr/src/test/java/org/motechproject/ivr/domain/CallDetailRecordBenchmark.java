@@ -0,0 +1,105 @@
+package org.motechproject.ivr.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of building a {@link CallDetailRecord} from a typical provider status callback, using
+ * {@link CallDetailRecord#setField(String, String, Map)} and, for comparison, the reflective field lookup it used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallDetailRecordBenchmark {
+
+    private Config config;
+    private Map<String, String> params;
+
+    @Setup
+    public void setUp() {
+        config = new Config();
+        config.setName("benchmark");
+        config.setStatusFieldMapString("CallSid:providerCallId, CallStatus:callStatus, From:from, To:to, " +
+                "Direction:callDirection, Duration:callDuration");
+        config.setCallStatusMappingString("completed:ANSWERED, busy:BUSY, no-answer:NO_ANSWER, failed:FAILED");
+
+        params = new LinkedHashMap<>();
+        params.put("CallSid", "CA1c4b8e7f2d9a4b6c8e0f1a2b3c4d5e6f");
+        params.put("CallStatus", "completed");
+        params.put("From", "+12065551212");
+        params.put("To", "+12065553434");
+        params.put("Direction", "OUTBOUND");
+        params.put("Duration", "37.5");
+        params.put("AccountSid", "AC0123456789abcdef0123456789abcdef");
+        params.put("ApiVersion", "2010-04-01");
+        params.put("CallerCountry", "US");
+        params.put("motechCallId", "7b3f0c2e-5d1a-4c8b-9e6f-2a4d8c1b3e5f");
+    }
+
+    @Benchmark
+    public CallDetailRecord setField() {
+        CallDetailRecord record = new CallDetailRecord();
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            record.setField(config.mapStatusField(entry.getKey()), entry.getValue(), config.getCallStatusMapping());
+        }
+        return record;
+    }
+
+    @Benchmark
+    public CallDetailRecord reflectiveSetField() throws IllegalAccessException {
+        CallDetailRecord record = new CallDetailRecord();
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            reflectiveSet(record, config.mapStatusField(entry.getKey()), entry.getValue(),
+                    config.getCallStatusMapping());
+        }
+        return record;
+    }
+
+    private static void reflectiveSet(CallDetailRecord record, String key, String value,
+                                      Map<String, String> callStatusMapping) throws IllegalAccessException {
+        try {
+            Field field = record.getClass().getDeclaredField(key);
+            field.setAccessible(true);
+            Object object;
+            switch (key) {
+                case "callDirection":
+                    object = CallDirection.valueOf(value);
+                    break;
+                case "callStatus":
+                    object = callStatusMapping.get(value) == null ? value : callStatusMapping.get(value);
+                    break;
+                default:
+                    object = value;
+                    break;
+            }
+            field.set(record, object);
+        } catch (NoSuchFieldException e) {
+            record.getProviderExtraData().put(key, value);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CallDetailRecordBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -71,6 +71,18 @@ public class CallDetailRecordTest {
         assertEquals("specific-value", callDetailRecord.getProviderExtraData().get("provider-specific-stuff"));
     }
 
+    @Test
+    public void shouldNotSetInternalFieldsFromProviderData() {
+        CallDetailRecord callDetailRecord = new CallDetailRecord();
+
+        callDetailRecord.setField("id", "42", null);
+        callDetailRecord.setField("providerExtraData", "foo", null);
+
+        assertEquals(0, callDetailRecord.getId());
+        assertEquals("42", callDetailRecord.getProviderExtraData().get("id"));
+        assertEquals("foo", callDetailRecord.getProviderExtraData().get("providerExtraData"));
+    }
+
     @Test
     public void shouldHandleDecimalsProperly() throws IllegalAccessException, NoSuchMethodException, InvocationTargetException {
         Map<String, String> mapping = setUpCallStatusMapping();
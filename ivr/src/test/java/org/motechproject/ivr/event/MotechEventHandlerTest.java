@@ -7,6 +7,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.motechproject.event.MotechEvent;
+import org.motechproject.ivr.service.CallInitiationException;
 import org.motechproject.ivr.service.OutboundCallService;
 import org.motechproject.scheduler.contract.RunOnceSchedulableJob;
 import org.motechproject.scheduler.service.MotechSchedulerService;
@@ -20,6 +21,7 @@ import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 import static org.motechproject.ivr.event.EventParams.CALL_DATE;
@@ -51,7 +53,6 @@ public class MotechEventHandlerTest {
     public void setUp() {
         initMocks(this);
         eventHandler = new MotechEventHandler(outboundCallService, schedulerService);
-        doNothing().when(outboundCallService).initiateCall(anyString(), anyMap());
         doNothing().when(schedulerService).scheduleRunOnceJob(any(RunOnceSchedulableJob.class));
     }
 
@@ -67,7 +68,7 @@ public class MotechEventHandlerTest {
         eventHandler.handleExternal(event);
 
         verify(schedulerService, times(1)).scheduleRunOnceJob(jobCaptor.capture());
-        verify(outboundCallService, times(0)).initiateCall(anyString(), anyMap());
+        verify(outboundCallService, times(0)).initiateCallAsync(anyString(), anyMap());
 
         assertEquals(expectedJob, jobCaptor.getValue());
     }
@@ -81,13 +82,21 @@ public class MotechEventHandlerTest {
 
         eventHandler.handleExternal(event);
 
-        verify(outboundCallService, times(1)).initiateCall(configCaptor.capture(), parametersCaptor.capture());
+        verify(outboundCallService, times(1)).initiateCallAsync(configCaptor.capture(), parametersCaptor.capture());
         verify(schedulerService, times(0)).scheduleRunOnceJob(any(RunOnceSchedulableJob.class));
 
         assertEquals(CONFIG_NAME, configCaptor.getValue());
         assertEquals(params.get(PARAMETERS), parametersCaptor.getValue());
     }
 
+    @Test(expected = CallInitiationException.class)
+    public void shouldFailIfCallCannotBeQueued() {
+        when(outboundCallService.initiateCallAsync(anyString(), anyMap()))
+                .thenThrow(new CallInitiationException("Too many calls waiting to be initiated"));
+
+        eventHandler.handleExternal(new MotechEvent(EventSubjects.INITIATE_CALL, prepareParams()));
+    }
+
     private RunOnceSchedulableJob prepareJob(Map<String, Object> params) {
         return new RunOnceSchedulableJob(prepareExpectedEvent(params), ((DateTime) params.get(CALL_DATE)));
     }
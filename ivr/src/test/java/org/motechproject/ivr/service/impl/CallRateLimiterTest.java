@@ -0,0 +1,38 @@
+package org.motechproject.ivr.service.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class CallRateLimiterTest {
+
+    private static final long NOW = 1000000000L;
+
+    @Test
+    public void shouldNotWaitWhenRateIsNotLimited() {
+        CallRateLimiter limiter = new CallRateLimiter(null);
+
+        assertEquals(0, limiter.reserve(NOW));
+        assertEquals(0, limiter.reserve(NOW));
+        assertEquals(0, new CallRateLimiter(0.0).reserve(NOW));
+    }
+
+    @Test
+    public void shouldSpaceOutCalls() {
+        CallRateLimiter limiter = new CallRateLimiter(4.0);
+        limiter.reserve(NOW);
+
+        assertEquals(250000000L, limiter.reserve(NOW));
+        assertEquals(500000000L, limiter.reserve(NOW));
+        assertEquals(250000000L, limiter.reserve(NOW + 500000000L));
+    }
+
+    @Test
+    public void shouldNotSaveUpUnusedSlots() {
+        CallRateLimiter limiter = new CallRateLimiter(4.0);
+        limiter.reserve(NOW);
+
+        assertEquals(0, limiter.reserve(NOW + 5000000000L));
+        assertEquals(250000000L, limiter.reserve(NOW + 5000000000L));
+    }
+}
@@ -0,0 +1,56 @@
+package org.motechproject.ivr.service.impl;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.motechproject.modules.commons.http.ConnectionSettings;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class HttpComponentsPooledClientTest {
+
+    private HttpComponentsPooledClient pooledClient;
+
+    @Before
+    public void setUp() {
+        pooledClient = new HttpComponentsPooledClient(new ConnectionSettings(2, 2, 1000, 1000, 60000));
+    }
+
+    @After
+    public void tearDown() {
+        pooledClient.shutdown();
+    }
+
+    @Test
+    public void shouldTrackLeasedConnectionsUntilTheyAreReleased() throws Exception {
+        ManagedClientConnection first = lease();
+        ManagedClientConnection second = lease();
+        assertEquals(2, pooledClient.getLeasedConnections());
+
+        first.releaseConnection();
+        assertEquals(1, pooledClient.getLeasedConnections());
+
+        // releasing the same connection again does not count twice
+        connectionManager().releaseConnection(first, 0, TimeUnit.MILLISECONDS);
+        assertEquals(1, pooledClient.getLeasedConnections());
+
+        second.abortConnection();
+        assertEquals(0, pooledClient.getLeasedConnections());
+    }
+
+    private ManagedClientConnection lease() throws Exception {
+        // leasing a connection does not open it, so no server is needed
+        return connectionManager().requestConnection(new HttpRoute(new HttpHost("localhost", 80)), null)
+                .getConnection(5, TimeUnit.SECONDS);
+    }
+
+    private ClientConnectionManager connectionManager() {
+        return pooledClient.getClient().getConnectionManager();
+    }
+}
@@ -0,0 +1,117 @@
+package org.motechproject.ivr.service.impl;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.motechproject.ivr.domain.Config;
+import org.motechproject.ivr.domain.Configs;
+import org.motechproject.ivr.service.ConfigService;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class IvrHttpClientsTest {
+
+    @Mock
+    private ConfigService configService;
+
+    private IvrHttpClients ivrHttpClients;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(configService.allConfigs()).thenReturn(new Configs());
+        when(configService.hasConfig(anyString())).thenReturn(true);
+
+        ivrHttpClients = new IvrHttpClients();
+        ivrHttpClients.setConfigService(configService);
+        ivrHttpClients.start();
+    }
+
+    @After
+    public void tearDown() {
+        ivrHttpClients.stop();
+    }
+
+    @Test
+    public void shouldReuseClientWhileSettingsDoNotChange() {
+        Config config = config("config");
+
+        assertSame(ivrHttpClients.getClient(config), ivrHttpClients.getClient(config));
+        assertEquals(0, ivrHttpClients.getRetiredCount());
+    }
+
+    @Test
+    public void shouldShutDownReplacedClientOnceItsCallsFinish() throws Exception {
+        Config config = config("config");
+        HttpClient oldClient = ivrHttpClients.getClient(config);
+        ManagedClientConnection inFlight = lease(oldClient);
+
+        config.setReadTimeout(2000);
+        HttpClient newClient = ivrHttpClients.getClient(config);
+        assertNotSame(oldClient, newClient);
+        assertEquals(1, ivrHttpClients.getRetiredCount());
+
+        // a call is still running on the old client
+        ivrHttpClients.reapRetired();
+        assertEquals(1, ivrHttpClients.getRetiredCount());
+
+        oldClient.getConnectionManager().releaseConnection(inFlight, 0, TimeUnit.MILLISECONDS);
+        ivrHttpClients.reapRetired();
+        assertEquals(0, ivrHttpClients.getRetiredCount());
+        assertShutDown(oldClient);
+    }
+
+    @Test
+    public void shouldRetireClientsOfDeletedConfigs() throws Exception {
+        Config kept = config("kept");
+        Config deleted = config("deleted");
+        HttpClient keptClient = ivrHttpClients.getClient(kept);
+        HttpClient deletedClient = ivrHttpClients.getClient(deleted);
+
+        // the configs are reloaded without the deleted one
+        when(configService.allConfigs()).thenReturn(new Configs());
+        when(configService.hasConfig("deleted")).thenReturn(false);
+
+        assertSame(keptClient, ivrHttpClients.getClient(kept));
+        assertEquals(1, ivrHttpClients.getRetiredCount());
+        ivrHttpClients.reapRetired();
+        assertShutDown(deletedClient);
+    }
+
+    private ManagedClientConnection lease(HttpClient client) throws Exception {
+        // leasing a connection does not open it, so no server is needed
+        return client.getConnectionManager().requestConnection(new HttpRoute(new HttpHost("localhost", 80)), null)
+                .getConnection(5, TimeUnit.SECONDS);
+    }
+
+    private void assertShutDown(HttpClient client) throws Exception {
+        try {
+            lease(client);
+            fail("Expected the connection manager to be shut down");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private Config config(String name) {
+        Config config = new Config();
+        config.setName(name);
+        config.setMaxConcurrentCalls(5);
+        config.setConnectTimeout(1000);
+        config.setReadTimeout(1000);
+        return config;
+    }
+}
@@ -0,0 +1,169 @@
+package org.motechproject.ivr.service.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.motechproject.ivr.domain.Config;
+import org.motechproject.ivr.domain.Configs;
+import org.motechproject.ivr.service.CallInitiationException;
+import org.motechproject.ivr.service.ConfigService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class OutboundCallDispatcherTest {
+
+    @Mock
+    private ConfigService configService;
+
+    private OutboundCallDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(configService.allConfigs()).thenReturn(new Configs());
+        when(configService.hasConfig(anyString())).thenReturn(true);
+
+        dispatcher = new OutboundCallDispatcher();
+        dispatcher.setConfigService(configService);
+    }
+
+    @After
+    public void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    public void shouldNotRunMoreCallsConcurrentlyThanConfigured() throws Exception {
+        Config config = config("config", 2, null);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            final String callId = "call-" + i;
+            futures.add(dispatcher.submit(config, new Callable<String>() {
+                @Override
+                public String call() throws InterruptedException {
+                    int now = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), now));
+                    }
+                    Thread.sleep(50);
+                    running.decrementAndGet();
+                    return callId;
+                }
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals("call-" + i, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void shouldSpaceOutCallsAtTheConfiguredRate() throws Exception {
+        Config config = config("config", 3, 10.0);
+        final List<Long> started = Collections.synchronizedList(new ArrayList<Long>());
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(dispatcher.submit(config, new Callable<String>() {
+                @Override
+                public String call() {
+                    started.add(System.nanoTime());
+                    return "call";
+                }
+            }));
+        }
+        for (Future<String> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        Collections.sort(started);
+        // 10 calls per second is one call every 100ms, allow for timer granularity
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(started.get(1) - started.get(0)) >= 90);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(started.get(2) - started.get(1)) >= 90);
+    }
+
+    @Test
+    public void shouldRejectCallsOverTheQueueLimit() throws Exception {
+        Config config = config("config", 1, null);
+        config.setMaxQueuedCalls(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = dispatcher.submit(config, blockingCall(running, release));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        Future<String> second = dispatcher.submit(config, blockingCall(new CountDownLatch(1), release));
+        assertEquals(1, dispatcher.getQueuedCalls("config"));
+
+        try {
+            dispatcher.submit(config, blockingCall(new CountDownLatch(1), release));
+            fail("Expected the call to be rejected");
+        } catch (CallInitiationException e) {
+            assertEquals(1, dispatcher.getQueuedCalls("config"));
+        }
+
+        release.countDown();
+        assertEquals("call", first.get(5, TimeUnit.SECONDS));
+        assertEquals("call", second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, dispatcher.getQueuedCalls("config"));
+    }
+
+    @Test
+    public void shouldRetireWorkersOfDeletedConfigsOnceTheirCallsAreDone() throws Exception {
+        Config deleted = config("deleted", 1, null);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = dispatcher.submit(deleted, blockingCall(running, release));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        Future<String> second = dispatcher.submit(deleted, blockingCall(new CountDownLatch(1), release));
+        assertEquals(1, dispatcher.getQueuedCalls("deleted"));
+
+        // the configs are reloaded without the deleted one
+        when(configService.allConfigs()).thenReturn(new Configs());
+        when(configService.hasConfig("deleted")).thenReturn(false);
+        dispatcher.submit(config("kept", 1, null), blockingCall(new CountDownLatch(1), release));
+
+        assertEquals(0, dispatcher.getQueuedCalls("deleted"));
+        release.countDown();
+        assertEquals("call", first.get(5, TimeUnit.SECONDS));
+        assertEquals("call", second.get(5, TimeUnit.SECONDS));
+    }
+
+    private Callable<String> blockingCall(final CountDownLatch running, final CountDownLatch release) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws InterruptedException {
+                running.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return "call";
+            }
+        };
+    }
+
+    private Config config(String name, int maxConcurrentCalls, Double maxCallsPerSecond) {
+        Config config = new Config();
+        config.setName(name);
+        config.setMaxConcurrentCalls(maxConcurrentCalls);
+        config.setMaxCallsPerSecond(maxCallsPerSecond);
+        return config;
+    }
+}
@@ -0,0 +1,160 @@
+package org.motechproject.ivr.service.impl;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.motechproject.admin.service.StatusMessageService;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.EventRelay;
+import org.motechproject.ivr.domain.CallDetailRecord;
+import org.motechproject.ivr.domain.Config;
+import org.motechproject.ivr.domain.HttpMethod;
+import org.motechproject.ivr.event.EventParams;
+import org.motechproject.ivr.event.EventSubjects;
+import org.motechproject.ivr.repository.CallDetailRecordDataService;
+import org.motechproject.ivr.service.CallInitiationException;
+import org.motechproject.ivr.service.ConfigService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class OutboundCallServiceImplTest {
+
+    private static final String CONFIG = "config";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private ConfigService configService;
+
+    @Mock
+    private StatusMessageService statusMessageService;
+
+    @Mock
+    private CallDetailRecordDataService callDetailRecordDataService;
+
+    @Mock
+    private EventRelay eventRelay;
+
+    @Mock
+    private IvrHttpClients ivrHttpClients;
+
+    @Mock
+    private OutboundCallDispatcher outboundCallDispatcher;
+
+    @Mock
+    private HttpClient httpClient;
+
+    @Mock
+    private Future<String> future;
+
+    private Config config;
+    private OutboundCallServiceImpl outboundCallService;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        config = new Config();
+        config.setName(CONFIG);
+        config.setOutgoingCallMethod(HttpMethod.GET);
+        when(configService.hasConfig(CONFIG)).thenReturn(true);
+        when(configService.getConfig(CONFIG)).thenReturn(config);
+        when(ivrHttpClients.getClient(config)).thenReturn(httpClient);
+        when(outboundCallDispatcher.submit(any(Config.class), any(Callable.class))).thenReturn(future);
+
+        outboundCallService = new OutboundCallServiceImpl(configService, statusMessageService,
+                callDetailRecordDataService, eventRelay, ivrHttpClients, outboundCallDispatcher);
+    }
+
+    @Test
+    public void shouldQueueCallAndInitiateItInTheBackground() throws Exception {
+        config.setOutgoingCallUriTemplate(folder.getRoot().toURI() + "call-[motechCallId].txt");
+
+        assertEquals(future, outboundCallService.initiateCallAsync(CONFIG, Collections.singletonMap("to", "123")));
+
+        // nothing happens until the dispatcher runs the call
+        verify(callDetailRecordDataService, never()).create(any(CallDetailRecord.class));
+        String motechCallId = queuedCall().call();
+
+        assertTrue(new File(folder.getRoot(), "call-" + motechCallId + ".txt").exists());
+        ArgumentCaptor<CallDetailRecord> record = ArgumentCaptor.forClass(CallDetailRecord.class);
+        verify(callDetailRecordDataService).create(record.capture());
+        assertEquals(CallDetailRecord.CALL_INITIATED, record.getValue().getCallStatus());
+        assertEquals(motechCallId, record.getValue().getMotechCallId());
+    }
+
+    @Test
+    public void shouldReportCallsWhichFailInTheBackground() throws Exception {
+        config.setOutgoingCallUriTemplate("http://localhost/call");
+        when(httpClient.execute(any(HttpUriRequest.class))).thenThrow(new IOException("Connection refused"));
+
+        outboundCallService.initiateCallAsync(CONFIG, Collections.singletonMap("to", "123"));
+        try {
+            queuedCall().call();
+            fail("Expected the call to fail");
+        } catch (CallInitiationException e) {
+            MotechEvent event = sentEvent();
+            assertEquals(EventSubjects.CALL_INITIATION_FAILED, event.getSubject());
+            assertEquals(CONFIG, event.getParameters().get(EventParams.CONFIG));
+            assertEquals(e.getMessage(), event.getParameters().get(EventParams.ERROR_MESSAGE));
+        }
+
+        ArgumentCaptor<CallDetailRecord> record = ArgumentCaptor.forClass(CallDetailRecord.class);
+        verify(callDetailRecordDataService).create(record.capture());
+        assertEquals(CallDetailRecord.CALL_FAILED, record.getValue().getCallStatus());
+    }
+
+    @Test
+    public void shouldReportCallsWhichCannotBeQueued() {
+        config.setOutgoingCallUriTemplate("http://localhost/call");
+        when(outboundCallDispatcher.submit(any(Config.class), any(Callable.class)))
+                .thenThrow(new CallInitiationException("Too many calls waiting to be initiated for config config"));
+
+        try {
+            outboundCallService.initiateCallAsync(CONFIG, Collections.singletonMap("to", "123"));
+            fail("Expected the call to be rejected");
+        } catch (CallInitiationException e) {
+            MotechEvent event = sentEvent();
+            assertEquals(EventSubjects.CALL_INITIATION_FAILED, event.getSubject());
+            assertEquals(Collections.singletonMap("to", "123"),
+                    (Map<String, String>) event.getParameters().get(EventParams.PARAMETERS));
+        }
+    }
+
+    @Test(expected = CallInitiationException.class)
+    public void shouldRejectUnknownConfigsRightAway() {
+        outboundCallService.initiateCallAsync("unknown", Collections.<String, String>emptyMap());
+    }
+
+    private Callable<String> queuedCall() {
+        ArgumentCaptor<Callable> call = ArgumentCaptor.forClass(Callable.class);
+        verify(outboundCallDispatcher).submit(any(Config.class), call.capture());
+        return call.getValue();
+    }
+
+    private MotechEvent sentEvent() {
+        ArgumentCaptor<MotechEvent> event = ArgumentCaptor.forClass(MotechEvent.class);
+        verify(eventRelay).sendEventMessage(event.capture());
+        return event.getValue();
+    }
+}
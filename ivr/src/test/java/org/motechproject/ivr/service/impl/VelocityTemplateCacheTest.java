@@ -0,0 +1,56 @@
+package org.motechproject.ivr.service.impl;
+
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.Velocity;
+import org.junit.Before;
+import org.junit.Test;
+import org.motechproject.ivr.domain.Template;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class VelocityTemplateCacheTest {
+
+    private VelocityTemplateCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        Velocity.init();
+        cache = new VelocityTemplateCache();
+    }
+
+    @Test
+    public void shouldParseTemplateOnce() throws Exception {
+        Template template = new Template("greeting", "<say>Hello $name</say>");
+
+        org.apache.velocity.Template parsed = cache.getTemplate(template);
+        assertSame(parsed, cache.getTemplate(template));
+
+        VelocityContext context = new VelocityContext();
+        context.put("name", "Bob");
+        StringWriter writer = new StringWriter();
+        parsed.merge(context, writer);
+
+        assertEquals("<say>Hello Bob</say>", writer.toString());
+    }
+
+    @Test
+    public void shouldParseAgainAfterInvalidation() {
+        Template template = new Template("greeting", "<say>Hello $name</say>");
+
+        org.apache.velocity.Template parsed = cache.getTemplate(template);
+        cache.invalidate();
+
+        assertNotSame(parsed, cache.getTemplate(template));
+    }
+
+    @Test
+    public void shouldParseAgainWhenTemplateChanges() {
+        org.apache.velocity.Template parsed = cache.getTemplate(new Template("greeting", "<say>Hello</say>"));
+
+        assertNotSame(parsed, cache.getTemplate(new Template("greeting", "<say>Goodbye</say>")));
+    }
+}
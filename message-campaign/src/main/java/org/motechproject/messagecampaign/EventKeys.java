@@ -15,6 +15,10 @@ public final class EventKeys {
     public static final String GENERATED_MESSAGE_KEY = "GenMsgKey";
     public static final String REFERENCE_DATE = "ReferanceDate";
     public static final String START_TIME = "StartTime";
+    public static final String PROCESSED_KEY = "Processed";
+    public static final String SUCCEEDED_KEY = "Succeeded";
+    public static final String SKIPPED_KEY = "Skipped";
+    public static final String FAILED_KEY = "Failed";
 
     public static final String BASE_SUBJECT = "org.motechproject.messagecampaign.";
     public static final String SEND_MESSAGE = BASE_SUBJECT + "fired-campaign-message";
@@ -23,6 +27,8 @@ public final class EventKeys {
     public static final String UNENROLLED_USER_SUBJECT = BASE_SUBJECT + "unenrolled-user";
     public static final String ENROLL_USER_SUBJECT = BASE_SUBJECT + "enroll-user";
     public static final String UNENROLL_USER_SUBJECT = BASE_SUBJECT + "unenroll-user";
+    public static final String BULK_ENROLLMENT_PROGRESS = BASE_SUBJECT + "bulk-enrollment-progress";
+    public static final String DISPATCH_DUE_MESSAGES = BASE_SUBJECT + "dispatch-due-messages";
 
     public static final String CAMPAIGN_RECORD_UPDATED = "mds.crud.messagecampaign.CampaignRecord.UPDATE";
     public static final String CAMPAIGN_MESSAGE_RECORD_UPDATED = "mds.crud.messagecampaign.CampaignMessageRecord.UPDATE";
@@ -1,12 +1,16 @@
 package org.motechproject.messagecampaign.dao;
 
+import org.joda.time.DateTime;
+import org.motechproject.commons.api.Range;
 import org.motechproject.mds.annotations.Lookup;
 import org.motechproject.mds.annotations.LookupField;
+import org.motechproject.mds.query.QueryParams;
 import org.motechproject.mds.service.MotechDataService;
 import org.motechproject.messagecampaign.domain.campaign.CampaignEnrollment;
 import org.motechproject.messagecampaign.domain.campaign.CampaignEnrollmentStatus;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Data Service interface for {@link CampaignEnrollment}s. The implementation is generated by
@@ -52,4 +56,28 @@ public interface CampaignEnrollmentDataService extends MotechDataService<Campaig
     CampaignEnrollment findByExternalIdAndCampaignName(@LookupField(name = "externalId") String externalId,
                                                        @LookupField(name = "campaignName") String campaignName);
 
+    /**
+     * Finds the {@link CampaignEnrollment}s of the given campaign name, with any of the given external IDs.
+     *
+     * @param externalIds the external IDs of the campaign enrollments
+     * @param campaignName name of the campaign
+     * @return the matching campaign enrollments
+     */
+    @Lookup
+    List<CampaignEnrollment> findByExternalIdsAndCampaignName(@LookupField(name = "externalId") Set<String> externalIds,
+                                                              @LookupField(name = "campaignName") String campaignName);
+
+    /**
+     * Finds the {@link CampaignEnrollment}s of the given enrollment status, whose next message falls into the given
+     * range. Used for dispatching the messages of enrollments in buckets.
+     *
+     * @param status the {@link CampaignEnrollmentStatus} of the campaign enrollment
+     * @param nextMessageTime the date-time range the next message should fall into
+     * @param queryParams the query params controlling the ordering and size of the lookup
+     * @return the matching campaign enrollments
+     */
+    @Lookup
+    List<CampaignEnrollment> findByStatusAndNextMessageTime(@LookupField(name = "status") CampaignEnrollmentStatus status,
+                                                            @LookupField(name = "nextMessageTime") Range<DateTime> nextMessageTime,
+                                                            QueryParams queryParams);
 }
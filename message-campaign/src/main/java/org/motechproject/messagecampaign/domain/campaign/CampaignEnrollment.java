@@ -1,6 +1,7 @@
 package org.motechproject.messagecampaign.domain.campaign;
 
 import org.codehaus.jackson.annotate.JsonIgnore;
+import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.motechproject.commons.date.model.Time;
 import org.motechproject.mds.annotations.Access;
@@ -10,6 +11,7 @@ import org.motechproject.mds.annotations.Field;
 import org.motechproject.mds.event.CrudEventType;
 import org.motechproject.mds.util.SecurityMode;
 
+import javax.jdo.annotations.Index;
 import javax.jdo.annotations.Unique;
 
 /**
@@ -58,6 +60,15 @@ public class CampaignEnrollment {
     @Field(placeholder = "hh:mm")
     private Time deliverTime;
 
+    /**
+     * The date and time of the next message of this enrollment, set only if the messages of this enrollment are
+     * dispatched in buckets, instead of by separate scheduler jobs. Indexed, since the dispatcher looks up the due
+     * enrollments by this field every time bucket.
+     */
+    @Field
+    @Index
+    private DateTime nextMessageTime;
+
     public CampaignEnrollment(String externalId, String campaignName) {
         this.externalId = externalId;
         this.campaignName = campaignName;
@@ -87,6 +98,7 @@ public class CampaignEnrollment {
         this.status = enrollment.getStatus();
         this.deliverTime = enrollment.getDeliverTime();
         this.externalId = enrollment.getExternalId();
+        this.nextMessageTime = enrollment.getNextMessageTime();
         return this;
     }
 
@@ -118,6 +130,14 @@ public class CampaignEnrollment {
         this.deliverTime = deliverTime;
     }
 
+    public DateTime getNextMessageTime() {
+        return nextMessageTime;
+    }
+
+    public void setNextMessageTime(DateTime nextMessageTime) {
+        this.nextMessageTime = nextMessageTime;
+    }
+
     public Long getId() {
         return id;
     }
@@ -42,8 +42,7 @@ public class AbsoluteCampaignSchedulerService extends CampaignSchedulerService<A
     protected void scheduleMessageJob(CampaignEnrollment enrollment, AbsoluteCampaign campaign, AbsoluteCampaignMessage campaignMessage) {
         Map<String, Object> params = jobParams(campaignMessage.getMessageKey(), enrollment);
         MotechEvent motechEvent = new MotechEvent(EventKeys.SEND_MESSAGE, params);
-        LocalDate startDate = campaignMessage.getDate();
-        RunOnceSchedulableJob runOnceSchedulableJob = new RunOnceSchedulableJob(motechEvent, newDateTime(startDate, deliverTimeFor(enrollment, campaignMessage)));
+        RunOnceSchedulableJob runOnceSchedulableJob = new RunOnceSchedulableJob(motechEvent, messageFireTime(enrollment, campaignMessage));
 
         try {
             getSchedulerService().scheduleRunOnceJob(runOnceSchedulableJob);
@@ -52,6 +51,17 @@ public class AbsoluteCampaignSchedulerService extends CampaignSchedulerService<A
         }
     }
 
+    @Override
+    protected DateTime messageFireTime(CampaignEnrollment enrollment, AbsoluteCampaignMessage message) {
+        LocalDate startDate = message.getDate();
+        return newDateTime(startDate, deliverTimeFor(enrollment, message));
+    }
+
+    @Override
+    protected boolean supportsBucketedDispatch() {
+        return true;
+    }
+
     @Override
     public void unscheduleMessageJobs(CampaignEnrollment enrollment) {
         AbsoluteCampaign campaign = (AbsoluteCampaign) getCampaignRecordService().findByName(enrollment.getCampaignName()).toCampaign();
@@ -0,0 +1,70 @@
+package org.motechproject.messagecampaign.scheduler;
+
+import org.apache.commons.lang.StringUtils;
+import org.motechproject.config.SettingsFacade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives access to the settings of the bucketed message dispatch, read from message-campaign.properties. Missing or
+ * malformed values fall back to the defaults, which keep the bucketed dispatch disabled.
+ *
+ * @see CampaignMessageDispatcher
+ */
+@Component
+public class CampaignDispatchSettings {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CampaignDispatchSettings.class);
+
+    static final String BUCKETED_DISPATCH = "messagecampaign.dispatch.bucketed";
+    static final String DISPATCH_CRON = "messagecampaign.dispatch.cron";
+    static final String PAGE_SIZE = "messagecampaign.dispatch.page_size";
+
+    static final String DEFAULT_DISPATCH_CRON = "0 0/1 * * * ?";
+    static final int DEFAULT_PAGE_SIZE = 500;
+
+    private SettingsFacade settingsFacade;
+
+    /**
+     * @return true if the messages of new enrollments should be dispatched in buckets, instead of by separate jobs
+     */
+    public boolean isBucketedDispatch() {
+        String value = settingsFacade.getProperty(BUCKETED_DISPATCH);
+        return StringUtils.isNotBlank(value) && Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * @return the cron expression of the job dispatching the due messages, which determines the size of the buckets
+     */
+    public String getDispatchCron() {
+        String value = settingsFacade.getProperty(DISPATCH_CRON);
+        return StringUtils.isBlank(value) ? DEFAULT_DISPATCH_CRON : value.trim();
+    }
+
+    /**
+     * @return the number of enrollments loaded from the database at once, while dispatching the due messages
+     */
+    public int getPageSize() {
+        String value = settingsFacade.getProperty(PAGE_SIZE);
+        if (StringUtils.isBlank(value)) {
+            return DEFAULT_PAGE_SIZE;
+        }
+
+        try {
+            int pageSize = Integer.parseInt(value.trim());
+            return pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid value {} for {}, using {}", value, PAGE_SIZE, DEFAULT_PAGE_SIZE);
+            return DEFAULT_PAGE_SIZE;
+        }
+    }
+
+    @Autowired
+    @Qualifier("messageCampaignSettings")
+    public void setSettingsFacade(SettingsFacade settingsFacade) {
+        this.settingsFacade = settingsFacade;
+    }
+}
@@ -0,0 +1,215 @@
+package org.motechproject.messagecampaign.scheduler;
+
+import org.joda.time.DateTime;
+import org.motechproject.commons.api.Range;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.EventRelay;
+import org.motechproject.event.listener.annotations.MotechListener;
+import org.motechproject.mds.query.QueryParams;
+import org.motechproject.mds.util.Order;
+import org.motechproject.messagecampaign.EventKeys;
+import org.motechproject.messagecampaign.dao.CampaignEnrollmentDataService;
+import org.motechproject.messagecampaign.dao.CampaignRecordService;
+import org.motechproject.messagecampaign.domain.campaign.Campaign;
+import org.motechproject.messagecampaign.domain.campaign.CampaignEnrollment;
+import org.motechproject.messagecampaign.domain.campaign.CampaignEnrollmentStatus;
+import org.motechproject.messagecampaign.domain.campaign.CampaignRecord;
+import org.motechproject.messagecampaign.exception.CampaignNotFoundException;
+import org.motechproject.scheduler.contract.CronSchedulableJob;
+import org.motechproject.scheduler.service.MotechSchedulerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.motechproject.commons.date.util.DateUtil.now;
+
+/**
+ * Dispatches the messages of the enrollments which are not backed by separate scheduler jobs. Such enrollments only
+ * store the time of their next message. A single cron job wakes the dispatcher up once per time bucket, a minute by
+ * default. The dispatcher then loads the enrollments with due messages in pages and moves every enrollment to its next
+ * message. Once a page is committed, the {@link EventKeys#SEND_MESSAGE} events of its messages are published, along
+ * with the {@link EventKeys#CAMPAIGN_COMPLETED} events of the enrollments which got their last message.
+ * <p>
+ * Messages are sent at most one bucket late. The job keeps running when the bucketed dispatch is disabled, so the
+ * enrollments created while it was enabled still get their messages.
+ *
+ * @see CampaignDispatchSettings
+ */
+@Component
+public class CampaignMessageDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CampaignMessageDispatcher.class);
+
+    private static final String NEXT_MESSAGE_TIME = "nextMessageTime";
+
+    private CampaignEnrollmentDataService campaignEnrollmentDataService;
+    private CampaignRecordService campaignRecordService;
+    private CampaignSchedulerFactory campaignSchedulerFactory;
+    private MotechSchedulerService schedulerService;
+    private EventRelay eventRelay;
+    private CampaignDispatchSettings dispatchSettings;
+
+    /**
+     * Schedules the job waking up the dispatcher. Invoked by Spring, after initialization of this bean finishes.
+     */
+    @PostConstruct
+    public void scheduleDispatchJob() {
+        String cronExpression = dispatchSettings.getDispatchCron();
+        schedulerService.safeScheduleJob(new CronSchedulableJob(new MotechEvent(EventKeys.DISPATCH_DUE_MESSAGES),
+                cronExpression));
+        LOGGER.info("Scheduled the campaign message dispatch job with cron {}", cronExpression);
+    }
+
+    /**
+     * Handles the {@link EventKeys#DISPATCH_DUE_MESSAGES} events, fired by the dispatch job.
+     *
+     * @param event the event to handle
+     */
+    @MotechListener(subjects = EventKeys.DISPATCH_DUE_MESSAGES)
+    public void handleDispatchEvent(MotechEvent event) {
+        dispatchDueMessages(now());
+    }
+
+    /**
+     * Publishes the events of all messages due until the given time.
+     *
+     * @param until the time until which the messages are due
+     * @return the number of published message events
+     */
+    public int dispatchDueMessages(final DateTime until) {
+        final int pageSize = dispatchSettings.getPageSize();
+        final Range<DateTime> dueRange = new Range<>(new DateTime(0), until);
+        final Map<String, Campaign> campaigns = new HashMap<>();
+        final Map<String, CampaignSchedulerService> schedulers = new HashMap<>();
+        int dispatched = 0;
+        int processed;
+
+        do {
+            final List<MotechEvent> events = new ArrayList<>();
+
+            // every processed enrollment moves past the given time, so the first page always holds the next ones
+            processed = campaignEnrollmentDataService.doInTransaction(new TransactionCallback<Integer>() {
+                @Override
+                public Integer doInTransaction(TransactionStatus status) {
+                    List<CampaignEnrollment> enrollments = campaignEnrollmentDataService.findByStatusAndNextMessageTime(
+                            CampaignEnrollmentStatus.ACTIVE, dueRange,
+                            new QueryParams(1, pageSize, new Order(NEXT_MESSAGE_TIME, Order.Direction.ASC)));
+
+                    for (CampaignEnrollment enrollment : enrollments) {
+                        events.addAll(dispatch(enrollment, until, campaigns, schedulers));
+                    }
+
+                    return enrollments.size();
+                }
+            });
+
+            // published only once the page is committed, a rolled back page is dispatched again by the next run
+            for (MotechEvent event : events) {
+                eventRelay.sendEventMessage(event);
+                if (EventKeys.SEND_MESSAGE.equals(event.getSubject())) {
+                    dispatched++;
+                }
+            }
+        } while (processed == pageSize);
+
+        if (dispatched > 0) {
+            LOGGER.debug("Dispatched {} campaign messages due until {}", dispatched, until);
+        }
+
+        return dispatched;
+    }
+
+    private List<MotechEvent> dispatch(CampaignEnrollment enrollment, DateTime until, Map<String, Campaign> campaigns,
+                                       Map<String, CampaignSchedulerService> schedulers) {
+        List<MotechEvent> events = new ArrayList<>();
+        DateTime from = enrollment.getNextMessageTime();
+
+        try {
+            Campaign campaign = getCampaign(enrollment.getCampaignName(), campaigns);
+            CampaignSchedulerService scheduler = getScheduler(enrollment.getCampaignName(), schedulers);
+
+            List<MotechEvent> messageEvents = scheduler.getDueMessageEvents(enrollment, campaign, from, until);
+            DateTime nextMessageTime = scheduler.getNextMessageTime(enrollment, campaign, until);
+
+            events.addAll(messageEvents);
+            if (nextMessageTime == null) {
+                events.add(scheduler.campaignCompletedEvent(enrollment));
+            }
+            enrollment.setNextMessageTime(nextMessageTime);
+        } catch (RuntimeException e) {
+            LOGGER.error(String.format("Unable to dispatch the messages of enrollment with ID %s for campaign %s, " +
+                    "due between %s and %s", enrollment.getExternalId(), enrollment.getCampaignName(), from, until), e);
+            events.clear();
+            enrollment.setNextMessageTime(until.plusMillis(1));
+        }
+
+        campaignEnrollmentDataService.update(enrollment);
+
+        return events;
+    }
+
+    private Campaign getCampaign(String campaignName, Map<String, Campaign> campaigns) {
+        Campaign campaign = campaigns.get(campaignName);
+
+        if (campaign == null) {
+            CampaignRecord record = campaignRecordService.findByName(campaignName);
+            if (record == null) {
+                throw new CampaignNotFoundException(String.format("Campaign (%s) not found.", campaignName));
+            }
+            campaign = record.toCampaign();
+            campaigns.put(campaignName, campaign);
+        }
+
+        return campaign;
+    }
+
+    private CampaignSchedulerService getScheduler(String campaignName, Map<String, CampaignSchedulerService> schedulers) {
+        CampaignSchedulerService scheduler = schedulers.get(campaignName);
+
+        if (scheduler == null) {
+            scheduler = campaignSchedulerFactory.getCampaignScheduler(campaignName);
+            schedulers.put(campaignName, scheduler);
+        }
+
+        return scheduler;
+    }
+
+    @Autowired
+    public void setCampaignEnrollmentDataService(CampaignEnrollmentDataService campaignEnrollmentDataService) {
+        this.campaignEnrollmentDataService = campaignEnrollmentDataService;
+    }
+
+    @Autowired
+    public void setCampaignRecordService(CampaignRecordService campaignRecordService) {
+        this.campaignRecordService = campaignRecordService;
+    }
+
+    @Autowired
+    public void setCampaignSchedulerFactory(CampaignSchedulerFactory campaignSchedulerFactory) {
+        this.campaignSchedulerFactory = campaignSchedulerFactory;
+    }
+
+    @Autowired
+    public void setSchedulerService(MotechSchedulerService schedulerService) {
+        this.schedulerService = schedulerService;
+    }
+
+    @Autowired
+    public void setEventRelay(EventRelay eventRelay) {
+        this.eventRelay = eventRelay;
+    }
+
+    @Autowired
+    public void setDispatchSettings(CampaignDispatchSettings dispatchSettings) {
+        this.dispatchSettings = dispatchSettings;
+    }
+}
@@ -5,6 +5,7 @@ import org.motechproject.commons.date.model.Time;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.messagecampaign.EventKeys;
 import org.motechproject.messagecampaign.builder.SchedulerPayloadBuilder;
+import org.motechproject.messagecampaign.dao.CampaignEnrollmentDataService;
 import org.motechproject.messagecampaign.dao.CampaignRecordService;
 import org.motechproject.messagecampaign.domain.campaign.Campaign;
 import org.motechproject.messagecampaign.domain.campaign.CampaignEnrollment;
@@ -13,11 +14,15 @@ import org.motechproject.messagecampaign.exception.CampaignEnrollmentException;
 import org.motechproject.scheduler.contract.JobId;
 import org.motechproject.scheduler.contract.RunOnceSchedulableJob;
 import org.motechproject.scheduler.service.MotechSchedulerService;
+import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.motechproject.commons.date.util.DateUtil.now;
+
 /**
  * Abstract class for handling campaign scheduling and unscheduling.
  *
@@ -28,6 +33,8 @@ public abstract class CampaignSchedulerService<M extends CampaignMessage, C exte
     private MotechSchedulerService schedulerService;
     private CampaignRecordService campaignRecordService;
     private JobIdFactory jobIdFactory;
+    private CampaignDispatchSettings dispatchSettings;
+    private CampaignEnrollmentDataService campaignEnrollmentDataService;
 
     protected CampaignSchedulerService(MotechSchedulerService schedulerService, CampaignRecordService campaignRecordService) {
         this.schedulerService = schedulerService;
@@ -38,12 +45,32 @@ public abstract class CampaignSchedulerService<M extends CampaignMessage, C exte
     /**
      * Schedules all the necessary jobs for the given {@link CampaignEnrollment}.
      * The scheduled jobs include firing message events, as well as signaling the end
-     * of the campaign.
+     * of the campaign. If bucketed dispatch is enabled and supported by the campaign type, no jobs are scheduled.
+     * Instead the time of the next message is stored in the enrollment, for the {@link CampaignMessageDispatcher}.
      *
      * @param enrollment the enrollment to schedule jobs for
      */
     public void start(CampaignEnrollment enrollment) {
-        C campaign = (C) getCampaignRecordService().findByName(enrollment.getCampaignName()).toCampaign();
+        start(enrollment, getCampaignRecordService().findByName(enrollment.getCampaignName()).toCampaign());
+    }
+
+    /**
+     * Schedules all the necessary jobs for the given {@link CampaignEnrollment}, using the already loaded
+     * {@link Campaign} definition. Allows callers starting many enrollments of one campaign to load it only once.
+     *
+     * @param enrollment the enrollment to schedule jobs for
+     * @param campaignDefinition the definition of the campaign of the enrollment
+     * @see #start(CampaignEnrollment)
+     */
+    public void start(CampaignEnrollment enrollment, Campaign campaignDefinition) {
+        C campaign = (C) campaignDefinition;
+
+        if (dispatchesInBuckets()) {
+            validateCampaignEndDate(campaign, enrollment);
+            updateNextMessageTime(enrollment, campaign);
+            return;
+        }
+
         for (M message : campaign.getMessages()) {
             scheduleMessageJob(enrollment, campaign, message);
         }
@@ -58,6 +85,12 @@ public abstract class CampaignSchedulerService<M extends CampaignMessage, C exte
      * @param enrollment the enrollment to unschedule jobs for
      */
     public void stop(CampaignEnrollment enrollment) {
+        if (enrollment.getNextMessageTime() != null) {
+            // dispatched in buckets, there are no jobs to unschedule
+            enrollment.setNextMessageTime(null);
+            return;
+        }
+
         schedulerService.safeUnscheduleRunOnceJob(EventKeys.CAMPAIGN_COMPLETED,
                 jobIdFactory.campaignCompletedJobIdFor(enrollment.getCampaignName(), enrollment.getExternalId()));
         unscheduleMessageJobs(enrollment);
@@ -72,6 +105,11 @@ public abstract class CampaignSchedulerService<M extends CampaignMessage, C exte
      * @param message the message to reschedule job for
      */
     public void rescheduleMessageJob(CampaignEnrollment enrollment, Campaign campaign, CampaignMessage message) {
+        if (enrollment.getNextMessageTime() != null) {
+            updateNextMessageTime(enrollment, (C) campaign);
+            return;
+        }
+
         unscheduleMessageJob(enrollment, message);
         scheduleMessageJob(enrollment, (C) campaign, (M) message);
         rescheduleEndOfCampaignEvent((C) campaign, enrollment);
@@ -88,9 +126,79 @@ public abstract class CampaignSchedulerService<M extends CampaignMessage, C exte
      */
     public Map<String, List<DateTime>> getCampaignTimings(DateTime startDate, DateTime endDate, CampaignEnrollment enrollment) {
         C campaign = (C) getCampaignRecordService().findByName(enrollment.getCampaignName()).toCampaign();
+
+        if (enrollment.getNextMessageTime() != null) {
+            return getDispatchTimings(startDate, endDate, enrollment, campaign);
+        }
+
         return getCampaignTimings(startDate, endDate, enrollment, campaign);
     }
 
+    /**
+     * Returns the events of the messages of the given {@link CampaignEnrollment}, which should be sent between the
+     * given times. Used by the {@link CampaignMessageDispatcher} for enrollments dispatched in buckets.
+     *
+     * @param enrollment the enrollment to return the events for
+     * @param campaign the campaign definition
+     * @param from the beginning of the time window, inclusive
+     * @param until the end of the time window, inclusive
+     * @return the events of the due messages, in the order of the messages in the campaign
+     */
+    public List<MotechEvent> getDueMessageEvents(CampaignEnrollment enrollment, C campaign, DateTime from, DateTime until) {
+        List<MotechEvent> events = new ArrayList<>();
+
+        for (M message : campaign.getMessages()) {
+            DateTime fireTime = messageFireTime(enrollment, message);
+            if (fireTime != null && !fireTime.isBefore(from) && !fireTime.isAfter(until)) {
+                events.add(new MotechEvent(EventKeys.SEND_MESSAGE,
+                        messageParams(message.getMessageKey(), enrollment, campaign.getName())));
+            }
+        }
+
+        return events;
+    }
+
+    /**
+     * Returns the time of the first message of the given {@link CampaignEnrollment} sent after the given time.
+     *
+     * @param enrollment the enrollment to return the time for
+     * @param campaign the campaign definition
+     * @param after the time after which the message is sent
+     * @return the time of the next message, null if all messages were already sent
+     */
+    public DateTime getNextMessageTime(CampaignEnrollment enrollment, C campaign, DateTime after) {
+        DateTime nextMessageTime = null;
+
+        for (M message : campaign.getMessages()) {
+            DateTime fireTime = messageFireTime(enrollment, message);
+            if (fireTime != null && fireTime.isAfter(after) &&
+                    (nextMessageTime == null || fireTime.isBefore(nextMessageTime))) {
+                nextMessageTime = fireTime;
+            }
+        }
+
+        return nextMessageTime;
+    }
+
+    /**
+     * Builds the event signaling the end of the campaign for the given {@link CampaignEnrollment}.
+     *
+     * @param enrollment the enrollment which completed the campaign
+     * @return the campaign completed event
+     */
+    public MotechEvent campaignCompletedEvent(CampaignEnrollment enrollment) {
+        String campaignName = enrollment.getCampaignName();
+        String externalId = enrollment.getExternalId();
+
+        Map<String, Object> params = new SchedulerPayloadBuilder()
+                .withExternalId(externalId)
+                .withCampaignName(campaignName)
+                .withJobId(jobIdFactory.campaignCompletedJobIdFor(campaignName, externalId))
+                .payload();
+
+        return new MotechEvent(EventKeys.CAMPAIGN_COMPLETED, params);
+    }
+
     /**
      * Unschedules a job, responsible for sending the provided {@link CampaignMessage}, belonging to the provided
      * {@link CampaignMessage}.
@@ -158,6 +266,26 @@ public abstract class CampaignSchedulerService<M extends CampaignMessage, C exte
      */
     protected abstract void scheduleMessageJob(CampaignEnrollment enrollment, C campaign, M message);
 
+    /**
+     * Returns the date and time at which the given message of the {@link CampaignEnrollment} is sent. Campaign types
+     * which send every message once, at a time known upfront, override this method, which allows dispatching their
+     * messages in buckets.
+     *
+     * @param enrollment the enrollment the message belongs to
+     * @param message the message
+     * @return the date and time of the message, null if bucketed dispatch is not supported for this campaign type
+     */
+    protected DateTime messageFireTime(CampaignEnrollment enrollment, M message) {
+        return null;
+    }
+
+    /**
+     * @return true if the messages of this campaign type can be dispatched in buckets, instead of by separate jobs
+     */
+    protected boolean supportsBucketedDispatch() {
+        return false;
+    }
+
     /**
      * Returns the delivery time, for the given {@link CampaignMessage}, that belongs to the provided {@link CampaignEnrollment}.
      * It will return the time from enrollment if provided. Otherwise it will take the default time from the message definition.
@@ -186,12 +314,7 @@ public abstract class CampaignSchedulerService<M extends CampaignMessage, C exte
      */
     protected Map<String, Object> jobParams(String messageKey, CampaignEnrollment enrollment) {
         Campaign campaign = getCampaignRecordService().findByName(enrollment.getCampaignName()).toCampaign();
-        return new SchedulerPayloadBuilder()
-                .withJobId(messageJobIdFor(messageKey, enrollment.getExternalId(), enrollment.getCampaignName()))
-                .withCampaignName(campaign.getName())
-                .withMessageKey(messageKey)
-                .withExternalId(enrollment.getExternalId())
-                .payload();
+        return messageParams(messageKey, enrollment, campaign.getName());
     }
 
     /**
@@ -231,26 +354,65 @@ public abstract class CampaignSchedulerService<M extends CampaignMessage, C exte
      * @param enrollment the campaign enrollment to schedule the job for
      */
     protected void scheduleEndOfCampaignEvent(C campaign, CampaignEnrollment enrollment) {
-        DateTime endDate = campaignEndDate(campaign, enrollment);
+        DateTime endDate = validateCampaignEndDate(campaign, enrollment);
 
         if (endDate != null && endDate.isAfterNow()) {
-            String campaignName = campaign.getName();
-            String externalId = enrollment.getExternalId();
+            schedulerService.scheduleRunOnceJob(new RunOnceSchedulableJob(campaignCompletedEvent(enrollment), endDate));
+        }
+    }
 
-            Map<String, Object> params = new SchedulerPayloadBuilder()
-                .withExternalId(externalId)
-                .withCampaignName(campaignName)
-                .withJobId(jobIdFactory.campaignCompletedJobIdFor(campaignName, externalId))
-                .payload();
+    /**
+     * @return true if the messages of this campaign type are dispatched in buckets, instead of by separate jobs
+     */
+    protected boolean dispatchesInBuckets() {
+        return supportsBucketedDispatch() && dispatchSettings != null && dispatchSettings.isBucketedDispatch();
+    }
 
-            MotechEvent endOfCampaignEvent = new MotechEvent(EventKeys.CAMPAIGN_COMPLETED, params);
+    private DateTime validateCampaignEndDate(C campaign, CampaignEnrollment enrollment) {
+        DateTime endDate = campaignEndDate(campaign, enrollment);
 
-            schedulerService.scheduleRunOnceJob(new RunOnceSchedulableJob(endOfCampaignEvent, endDate));
-        } else if (endDate != null && endDate.isBeforeNow()) {
+        if (endDate != null && endDate.isBeforeNow()) {
             throw new IllegalArgumentException(
                     String.format("No messages scheduled for enrollment with ID %s for campaign %s, last message was scheduled in the past(%s)",
                             enrollment.getExternalId(), enrollment.getCampaignName(), endDate.toString()));
         }
+
+        return endDate;
+    }
+
+    private void updateNextMessageTime(CampaignEnrollment enrollment, C campaign) {
+        enrollment.setNextMessageTime(getNextMessageTime(enrollment, campaign, now()));
+
+        // new enrollments are saved by the caller, existing ones must be updated here
+        if (enrollment.getId() != null) {
+            campaignEnrollmentDataService.update(enrollment);
+        }
+    }
+
+    private Map<String, List<DateTime>> getDispatchTimings(DateTime startDate, DateTime endDate,
+                                                           CampaignEnrollment enrollment, C campaign) {
+        Map<String, List<DateTime>> messageTimingsMap = new HashMap<>();
+        for (M message : campaign.getMessages()) {
+            List<DateTime> dates = new ArrayList<>();
+            DateTime fireTime = messageFireTime(enrollment, message);
+
+            if (fireTime != null && !fireTime.isBefore(enrollment.getNextMessageTime()) &&
+                    !fireTime.isBefore(startDate) && !fireTime.isAfter(endDate)) {
+                dates.add(fireTime);
+            }
+
+            messageTimingsMap.put(message.getName(), dates);
+        }
+        return messageTimingsMap;
+    }
+
+    private Map<String, Object> messageParams(String messageKey, CampaignEnrollment enrollment, String campaignName) {
+        return new SchedulerPayloadBuilder()
+                .withJobId(messageJobIdFor(messageKey, enrollment.getExternalId(), enrollment.getCampaignName()))
+                .withCampaignName(campaignName)
+                .withMessageKey(messageKey)
+                .withExternalId(enrollment.getExternalId())
+                .payload();
     }
 
     private void rescheduleEndOfCampaignEvent(C campaign, CampaignEnrollment enrollment) {
@@ -266,5 +428,15 @@ public abstract class CampaignSchedulerService<M extends CampaignMessage, C exte
     public CampaignRecordService getCampaignRecordService() {
         return campaignRecordService;
     }
+
+    @Autowired
+    public void setDispatchSettings(CampaignDispatchSettings dispatchSettings) {
+        this.dispatchSettings = dispatchSettings;
+    }
+
+    @Autowired
+    public void setCampaignEnrollmentDataService(CampaignEnrollmentDataService campaignEnrollmentDataService) {
+        this.campaignEnrollmentDataService = campaignEnrollmentDataService;
+    }
 }
 
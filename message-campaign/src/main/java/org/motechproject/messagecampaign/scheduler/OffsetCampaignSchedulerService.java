@@ -40,9 +40,7 @@ public class OffsetCampaignSchedulerService extends CampaignSchedulerService<Off
 
     @Override
     protected void scheduleMessageJob(CampaignEnrollment enrollment, OffsetCampaign campaign, OffsetCampaignMessage message) {
-        Time deliverTime = deliverTimeFor(enrollment, message);
-        DateTime jobTime = (newDateTime(enrollment.getReferenceDate(), deliverTime)).toLocalDateTime()
-                .plus(message.getTimeOffset()).toDateTime();
+        DateTime jobTime = messageFireTime(enrollment, message);
 
         if (jobTime.isAfter(now())) {
             MotechEvent motechEvent = new MotechEvent(EventKeys.SEND_MESSAGE, jobParams(message.getMessageKey(), enrollment));
@@ -57,6 +55,18 @@ public class OffsetCampaignSchedulerService extends CampaignSchedulerService<Off
         }
     }
 
+    @Override
+    protected DateTime messageFireTime(CampaignEnrollment enrollment, OffsetCampaignMessage message) {
+        Time deliverTime = deliverTimeFor(enrollment, message);
+        return (newDateTime(enrollment.getReferenceDate(), deliverTime)).toLocalDateTime()
+                .plus(message.getTimeOffset()).toDateTime();
+    }
+
+    @Override
+    protected boolean supportsBucketedDispatch() {
+        return true;
+    }
+
     @Override
     public void unscheduleMessageJobs(CampaignEnrollment enrollment) {
         OffsetCampaign campaign = (OffsetCampaign) getCampaignRecordService().findByName(enrollment.getCampaignName()).toCampaign();
@@ -0,0 +1,93 @@
+package org.motechproject.messagecampaign.service;
+
+import java.util.Objects;
+
+/**
+ * Describes a single row of a bulk enrollment or unenrollment, which could not be processed.
+ *
+ * @see BulkEnrollmentResult
+ */
+public class BulkEnrollmentError {
+
+    private int row;
+    private String externalId;
+    private String campaignName;
+    private String message;
+
+    public BulkEnrollmentError() {
+    }
+
+    /**
+     * Creates the error of a single row.
+     *
+     * @param row the position of the row in the submitted rows, starting from 0
+     * @param externalId external ID of the row
+     * @param campaignName campaign name of the row
+     * @param message the reason of the failure
+     */
+    public BulkEnrollmentError(int row, String externalId, String campaignName, String message) {
+        this.row = row;
+        this.externalId = externalId;
+        this.campaignName = campaignName;
+        this.message = message;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public String getExternalId() {
+        return externalId;
+    }
+
+    public void setExternalId(String externalId) {
+        this.externalId = externalId;
+    }
+
+    public String getCampaignName() {
+        return campaignName;
+    }
+
+    public void setCampaignName(String campaignName) {
+        this.campaignName = campaignName;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(row, externalId, campaignName, message);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof BulkEnrollmentError)) {
+            return false;
+        }
+
+        BulkEnrollmentError other = (BulkEnrollmentError) o;
+
+        return row == other.row && Objects.equals(externalId, other.externalId) &&
+                Objects.equals(campaignName, other.campaignName) && Objects.equals(message, other.message);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkEnrollmentError{row=%d, externalId='%s', campaignName='%s', message='%s'}",
+                row, externalId, campaignName, message);
+    }
+}
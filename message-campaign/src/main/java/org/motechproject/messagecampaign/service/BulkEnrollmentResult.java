@@ -0,0 +1,103 @@
+package org.motechproject.messagecampaign.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summarizes a bulk enrollment or unenrollment. Every submitted row is either processed successfully, skipped, because
+ * there was nothing to do for it, or failed. The failed rows are described by {@link BulkEnrollmentError}s.
+ *
+ * @see MessageCampaignService#enrollAll(Iterable)
+ * @see MessageCampaignService#unenrollAll(String, Iterable)
+ */
+public class BulkEnrollmentResult {
+
+    private int processed;
+    private int succeeded;
+    private int skipped;
+    private List<BulkEnrollmentError> errors = new ArrayList<>();
+
+    /**
+     * Adds the outcome of another batch of rows to this result.
+     *
+     * @param other the result of the batch
+     */
+    public void add(BulkEnrollmentResult other) {
+        processed += other.processed;
+        succeeded += other.succeeded;
+        skipped += other.skipped;
+        errors.addAll(other.errors);
+    }
+
+    void recordSuccess() {
+        processed++;
+        succeeded++;
+    }
+
+    void recordSkip() {
+        processed++;
+        skipped++;
+    }
+
+    void recordError(int row, String externalId, String campaignName, String message) {
+        processed++;
+        errors.add(new BulkEnrollmentError(row, externalId, campaignName, message));
+    }
+
+    /**
+     * @return the number of all processed rows
+     */
+    public int getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(int processed) {
+        this.processed = processed;
+    }
+
+    /**
+     * @return the number of rows processed successfully
+     */
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    /**
+     * @return the number of rows which required no changes, for example already existing enrollments
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    /**
+     * @return the number of rows which could not be processed
+     */
+    public int getFailed() {
+        return errors.size();
+    }
+
+    /**
+     * @return the errors of the rows which could not be processed, in the order of the rows
+     */
+    public List<BulkEnrollmentError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BulkEnrollmentError> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkEnrollmentResult{processed=%d, succeeded=%d, skipped=%d, failed=%d}",
+                processed, succeeded, skipped, getFailed());
+    }
+}
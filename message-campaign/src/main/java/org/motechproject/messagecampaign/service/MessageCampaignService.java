@@ -26,6 +26,29 @@ public interface MessageCampaignService {
      */
     void enroll(CampaignRequest enrollRequest);
 
+    /**
+     * Enrolls many external IDs at once, as specified in the given requests. The requests are processed in batches,
+     * each batch in a separate transaction. Existing enrollments are looked up once per batch and campaign, and every
+     * campaign definition is loaded once per batch. A request that cannot be processed does not stop the others, it is
+     * reported in the returned result instead. The progress is published after every batch, as a bulk enrollment
+     * progress event. Requests for already active enrollments with the same reference date and deliver time are
+     * skipped.
+     *
+     * @param enrollRequests the enrollment requests, they are read only once, so they can be streamed
+     * @return the summary of the enrollment, including the errors of the failed requests
+     */
+    BulkEnrollmentResult enrollAll(Iterable<CampaignRequest> enrollRequests);
+
+    /**
+     * Unenrolls many external IDs at once from the given campaign. The external IDs are processed in batches, in the
+     * same manner as by {@link #enrollAll(Iterable)}. External IDs not enrolled into the campaign are skipped.
+     *
+     * @param campaignName the name of the campaign
+     * @param externalIds the external IDs to unenroll, they are read only once, so they can be streamed
+     * @return the summary of the unenrollment, including the errors of the failed external IDs
+     */
+    BulkEnrollmentResult unenrollAll(String campaignName, Iterable<String> externalIds);
+
     /**
      * Unenrolls the external ID from the campaign as specified in the request. The entity will no longer receive events
      * from the campaign.
@@ -34,16 +34,24 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.web.multipart.commons.CommonsMultipartResolver;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Implementation of {@link MessageCampaignService}
@@ -53,6 +61,8 @@ public class MessageCampaignServiceImpl implements MessageCampaignService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MessageCampaignServiceImpl.class);
 
+    private static final int BULK_BATCH_SIZE = 500;
+
     private EnrollmentService enrollmentService;
     private CampaignEnrollmentRecordMapper campaignEnrollmentRecordMapper;
     private CampaignEnrollmentDataService campaignEnrollmentDataService;
@@ -108,12 +118,57 @@ public class MessageCampaignServiceImpl implements MessageCampaignService {
             throw new EnrollmentAlreadyExists(request.externalId(), request.campaignName(), e);
         }
 
-        Map<String, Object> param = new HashMap<>();
-        param.put(EventKeys.EXTERNAL_ID_KEY, enrollment.getExternalId());
-        param.put(EventKeys.CAMPAIGN_NAME_KEY, enrollment.getCampaignName());
-        MotechEvent event = new MotechEvent(EventKeys.ENROLLED_USER_SUBJECT, param);
+        relay.sendEventMessage(enrollmentEvent(EventKeys.ENROLLED_USER_SUBJECT, enrollment.getExternalId(),
+                enrollment.getCampaignName()));
+    }
+
+    @Override
+    public BulkEnrollmentResult enrollAll(Iterable<CampaignRequest> enrollRequests) {
+        // not transactional on purpose, every batch is committed separately
+        BulkEnrollmentResult result = new BulkEnrollmentResult();
+        List<CampaignRequest> batch = new ArrayList<>(BULK_BATCH_SIZE);
+
+        for (CampaignRequest request : enrollRequests) {
+            batch.add(request);
+            if (batch.size() == BULK_BATCH_SIZE) {
+                result.add(enrollBatch(batch, result.getProcessed()));
+                publishBulkProgress(result);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            result.add(enrollBatch(batch, result.getProcessed()));
+            publishBulkProgress(result);
+        }
+
+        LOGGER.info("Finished bulk enrollment: {}", result);
+        return result;
+    }
+
+    @Override
+    public BulkEnrollmentResult unenrollAll(String campaignName, Iterable<String> externalIds) {
+        // not transactional on purpose, every batch is committed separately
+        CampaignSchedulerService campaignScheduler = campaignSchedulerFactory.getCampaignScheduler(campaignName);
+        BulkEnrollmentResult result = new BulkEnrollmentResult();
+        List<String> batch = new ArrayList<>(BULK_BATCH_SIZE);
+
+        for (String externalId : externalIds) {
+            batch.add(externalId);
+            if (batch.size() == BULK_BATCH_SIZE) {
+                result.add(unenrollBatch(campaignName, campaignScheduler, batch, result.getProcessed()));
+                publishBulkProgress(result);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            result.add(unenrollBatch(campaignName, campaignScheduler, batch, result.getProcessed()));
+            publishBulkProgress(result);
+        }
 
-        relay.sendEventMessage(event);
+        LOGGER.info("Finished bulk unenrollment from campaign {}: {}", campaignName, result);
+        return result;
     }
 
     @Override
@@ -125,12 +180,7 @@ public class MessageCampaignServiceImpl implements MessageCampaignService {
             campaignSchedulerFactory.getCampaignScheduler(campaignName).stop(enrollment);
             enrollmentService.unregister(externalId, campaignName);
 
-            Map<String, Object> param = new HashMap<>();
-            param.put(EventKeys.EXTERNAL_ID_KEY, externalId);
-            param.put(EventKeys.CAMPAIGN_NAME_KEY, campaignName);
-            MotechEvent event = new MotechEvent(EventKeys.UNENROLLED_USER_SUBJECT, param);
-
-            relay.sendEventMessage(event);
+            relay.sendEventMessage(enrollmentEvent(EventKeys.UNENROLLED_USER_SUBJECT, externalId, campaignName));
         } else {
             LOGGER.warn("No enrollment with ExternalID {} registered in campaign {}", externalId, campaignName);
         }
@@ -332,10 +382,14 @@ public class MessageCampaignServiceImpl implements MessageCampaignService {
 
         List<CampaignEnrollment> campaignEnrollments = enrollmentService.search(query);
 
-        for (CampaignEnrollment campaignEnrollment : campaignEnrollments) {
-            campaignSchedulerFactory.getCampaignScheduler(campaignEnrollment.getCampaignName()).stop(campaignEnrollment);
+        if (!campaignEnrollments.isEmpty()) {
+            CampaignSchedulerService campaignScheduler = campaignSchedulerFactory.getCampaignScheduler(campaign.getName());
+            Campaign campaignDefinition = campaign.toCampaign();
 
-            campaignSchedulerFactory.getCampaignScheduler(campaignEnrollment.getCampaignName()).start(campaignEnrollment);
+            for (CampaignEnrollment campaignEnrollment : campaignEnrollments) {
+                campaignScheduler.stop(campaignEnrollment);
+                campaignScheduler.start(campaignEnrollment, campaignDefinition);
+            }
         }
     }
 
@@ -398,8 +452,10 @@ public class MessageCampaignServiceImpl implements MessageCampaignService {
     @Transactional
     public void stopAll(CampaignEnrollmentsQuery query, boolean deleteEnrollments) {
         List<CampaignEnrollment> enrollments = enrollmentService.search(query);
+        Map<String, CampaignSchedulerService> campaignSchedulers = new HashMap<>();
+
         for (CampaignEnrollment enrollment : enrollments) {
-            campaignSchedulerFactory.getCampaignScheduler(enrollment.getCampaignName()).stop(enrollment);
+            getCampaignScheduler(enrollment.getCampaignName(), campaignSchedulers).stop(enrollment);
 
             if (deleteEnrollments) {
                 enrollmentService.delete(enrollment);
@@ -409,6 +465,275 @@ public class MessageCampaignServiceImpl implements MessageCampaignService {
         }
     }
 
+    private BulkEnrollmentResult enrollBatch(final List<CampaignRequest> batch, final int offset) {
+        final List<MotechEvent> events = new ArrayList<>();
+        final List<CampaignEnrollment> started = new ArrayList<>();
+        BulkEnrollmentResult result;
+
+        try {
+            result = campaignEnrollmentDataService.doInTransaction(new TransactionCallback<BulkEnrollmentResult>() {
+                @Override
+                public BulkEnrollmentResult doInTransaction(TransactionStatus status) {
+                    BulkEnrollmentResult batchResult = new BulkEnrollmentResult();
+                    for (Map.Entry<String, List<Integer>> entry : rowsByCampaignName(batch).entrySet()) {
+                        enrollCampaignRows(entry.getKey(), entry.getValue(), batch, offset, batchResult, events,
+                                started);
+                    }
+                    return batchResult;
+                }
+            });
+        } catch (RuntimeException e) {
+            LOGGER.error(String.format("Unable to enroll rows %d-%d", offset, offset + batch.size() - 1), e);
+
+            // the enrollments were rolled back, but their jobs were already scheduled
+            Map<String, CampaignSchedulerService> campaignSchedulers = new HashMap<>();
+            for (CampaignEnrollment enrollment : started) {
+                unschedule(getCampaignScheduler(enrollment.getCampaignName(), campaignSchedulers), enrollment);
+            }
+
+            result = new BulkEnrollmentResult();
+            for (int i = 0; i < batch.size(); i++) {
+                result.recordError(offset + i, batch.get(i).externalId(), batch.get(i).campaignName(), e.getMessage());
+            }
+            return result;
+        }
+
+        sortErrorsByRow(result);
+        sendEvents(events);
+
+        return result;
+    }
+
+    private void enrollCampaignRows(String campaignName, List<Integer> rows, List<CampaignRequest> batch, int offset,
+                                    BulkEnrollmentResult result, List<MotechEvent> events,
+                                    List<CampaignEnrollment> started) {
+        CampaignSchedulerService campaignScheduler;
+        Campaign campaign;
+
+        try {
+            campaignScheduler = campaignSchedulerFactory.getCampaignScheduler(campaignName);
+            campaign = campaignRecordService.findByName(campaignName).toCampaign();
+        } catch (CampaignNotFoundException e) {
+            for (Integer row : rows) {
+                result.recordError(offset + row, batch.get(row).externalId(), campaignName, e.getMessage());
+            }
+            return;
+        }
+
+        Set<String> externalIds = new HashSet<>();
+        for (Integer row : rows) {
+            if (StringUtils.isNotBlank(batch.get(row).externalId())) {
+                externalIds.add(batch.get(row).externalId());
+            }
+        }
+
+        Map<String, CampaignEnrollment> existingEnrollments = byExternalId(
+                campaignEnrollmentDataService.findByExternalIdsAndCampaignName(externalIds, campaignName));
+
+        for (Integer row : rows) {
+            CampaignEnrollment enrollment = startRow(batch.get(row), offset + row, campaignScheduler, campaign,
+                    existingEnrollments, result);
+
+            if (enrollment != null) {
+                started.add(enrollment);
+                saveEnrollment(enrollment, existingEnrollments);
+
+                events.add(enrollmentEvent(EventKeys.ENROLLED_USER_SUBJECT, enrollment.getExternalId(), campaignName));
+                result.recordSuccess();
+            }
+        }
+    }
+
+    private CampaignEnrollment startRow(CampaignRequest request, int row, CampaignSchedulerService campaignScheduler,
+                                        Campaign campaign, Map<String, CampaignEnrollment> existingEnrollments,
+                                        BulkEnrollmentResult result) {
+        String externalId = request.externalId();
+        String campaignName = request.campaignName();
+
+        if (StringUtils.isBlank(externalId)) {
+            result.recordError(row, externalId, campaignName, "External ID is required");
+            return null;
+        }
+
+        CampaignEnrollment existingEnrollment = existingEnrollments.get(externalId);
+
+        if (existingEnrollment != null && existingEnrollment.getStatus() != CampaignEnrollmentStatus.INACTIVE) {
+            if (Objects.equals(existingEnrollment.getReferenceDate(), request.referenceDate()) &&
+                    Objects.equals(existingEnrollment.getDeliverTime(), request.deliverTime())) {
+                result.recordSkip();
+            } else {
+                result.recordError(row, externalId, campaignName, String.format("Enrollment already exists, with " +
+                        "different reference date and delivery time: %s/%s", existingEnrollment.getReferenceDate(),
+                        existingEnrollment.getDeliverTime()));
+            }
+            return null;
+        }
+
+        CampaignEnrollment enrollment = new CampaignEnrollment(externalId, campaignName);
+        enrollment.setReferenceDate(request.referenceDate());
+        enrollment.setDeliverTime(request.deliverTime());
+
+        try {
+            campaignScheduler.start(enrollment, campaign);
+        } catch (RuntimeException e) {
+            // some of the message jobs might have been scheduled before the failure
+            unschedule(campaignScheduler, enrollment);
+            result.recordError(row, externalId, campaignName, e.getMessage());
+            return null;
+        }
+
+        return enrollment;
+    }
+
+    private void saveEnrollment(CampaignEnrollment enrollment, Map<String, CampaignEnrollment> existingEnrollments) {
+        CampaignEnrollment existingEnrollment = existingEnrollments.get(enrollment.getExternalId());
+
+        if (existingEnrollment == null) {
+            campaignEnrollmentDataService.create(enrollment);
+            existingEnrollments.put(enrollment.getExternalId(), enrollment);
+        } else {
+            existingEnrollment.copyFrom(enrollment);
+            campaignEnrollmentDataService.update(existingEnrollment);
+        }
+    }
+
+    private void unschedule(CampaignSchedulerService campaignScheduler, CampaignEnrollment enrollment) {
+        try {
+            campaignScheduler.stop(enrollment);
+        } catch (RuntimeException e) {
+            LOGGER.error(String.format("Unable to unschedule the jobs of enrollment with ID %s for campaign %s",
+                    enrollment.getExternalId(), enrollment.getCampaignName()), e);
+        }
+    }
+
+    private BulkEnrollmentResult unenrollBatch(final String campaignName,
+                                               final CampaignSchedulerService campaignScheduler,
+                                               final List<String> batch, final int offset) {
+        final List<MotechEvent> events = new ArrayList<>();
+        BulkEnrollmentResult result;
+
+        try {
+            result = campaignEnrollmentDataService.doInTransaction(new TransactionCallback<BulkEnrollmentResult>() {
+                @Override
+                public BulkEnrollmentResult doInTransaction(TransactionStatus status) {
+                    BulkEnrollmentResult batchResult = new BulkEnrollmentResult();
+                    Set<String> externalIds = new HashSet<>(batch);
+                    externalIds.remove(null);
+
+                    Map<String, CampaignEnrollment> enrollments = byExternalId(campaignEnrollmentDataService
+                            .findByExternalIdsAndCampaignName(externalIds, campaignName));
+
+                    for (int i = 0; i < batch.size(); i++) {
+                        unenrollRow(enrollments.get(batch.get(i)), offset + i, batch.get(i), campaignName,
+                                campaignScheduler, batchResult, events);
+                    }
+                    return batchResult;
+                }
+            });
+        } catch (RuntimeException e) {
+            LOGGER.error(String.format("Unable to unenroll rows %d-%d", offset, offset + batch.size() - 1), e);
+
+            result = new BulkEnrollmentResult();
+            for (int i = 0; i < batch.size(); i++) {
+                result.recordError(offset + i, batch.get(i), campaignName, e.getMessage());
+            }
+            return result;
+        }
+
+        sendEvents(events);
+
+        return result;
+    }
+
+    private void unenrollRow(CampaignEnrollment enrollment, int row, String externalId, String campaignName,
+                             CampaignSchedulerService campaignScheduler, BulkEnrollmentResult result,
+                             List<MotechEvent> events) {
+        if (enrollment == null || enrollment.getStatus() == CampaignEnrollmentStatus.INACTIVE) {
+            result.recordSkip();
+            return;
+        }
+
+        try {
+            campaignScheduler.stop(enrollment);
+        } catch (MotechSchedulerException e) {
+            result.recordError(row, externalId, campaignName, e.getMessage());
+            return;
+        }
+
+        enrollment.setStatus(CampaignEnrollmentStatus.INACTIVE);
+        campaignEnrollmentDataService.update(enrollment);
+
+        events.add(enrollmentEvent(EventKeys.UNENROLLED_USER_SUBJECT, externalId, campaignName));
+        result.recordSuccess();
+    }
+
+    private Map<String, List<Integer>> rowsByCampaignName(List<CampaignRequest> batch) {
+        Map<String, List<Integer>> rows = new LinkedHashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            String campaignName = batch.get(i).campaignName();
+            if (!rows.containsKey(campaignName)) {
+                rows.put(campaignName, new ArrayList<Integer>());
+            }
+            rows.get(campaignName).add(i);
+        }
+
+        return rows;
+    }
+
+    private Map<String, CampaignEnrollment> byExternalId(List<CampaignEnrollment> enrollments) {
+        Map<String, CampaignEnrollment> enrollmentsByExternalId = new HashMap<>();
+        for (CampaignEnrollment enrollment : enrollments) {
+            enrollmentsByExternalId.put(enrollment.getExternalId(), enrollment);
+        }
+        return enrollmentsByExternalId;
+    }
+
+    private void sortErrorsByRow(BulkEnrollmentResult result) {
+        // rows are processed grouped by campaign, errors are reported in the order of the rows
+        Collections.sort(result.getErrors(), new Comparator<BulkEnrollmentError>() {
+            @Override
+            public int compare(BulkEnrollmentError first, BulkEnrollmentError second) {
+                return Integer.compare(first.getRow(), second.getRow());
+            }
+        });
+    }
+
+    private void sendEvents(List<MotechEvent> events) {
+        // sent once the batch is committed, so that the listeners see the enrollments
+        for (MotechEvent event : events) {
+            relay.sendEventMessage(event);
+        }
+    }
+
+    private void publishBulkProgress(BulkEnrollmentResult result) {
+        Map<String, Object> params = new HashMap<>();
+        params.put(EventKeys.PROCESSED_KEY, result.getProcessed());
+        params.put(EventKeys.SUCCEEDED_KEY, result.getSucceeded());
+        params.put(EventKeys.SKIPPED_KEY, result.getSkipped());
+        params.put(EventKeys.FAILED_KEY, result.getFailed());
+
+        relay.sendEventMessage(new MotechEvent(EventKeys.BULK_ENROLLMENT_PROGRESS, params));
+        LOGGER.debug("Bulk enrollment progress: {}", result);
+    }
+
+    private MotechEvent enrollmentEvent(String subject, String externalId, String campaignName) {
+        Map<String, Object> params = new HashMap<>();
+        params.put(EventKeys.EXTERNAL_ID_KEY, externalId);
+        params.put(EventKeys.CAMPAIGN_NAME_KEY, campaignName);
+        return new MotechEvent(subject, params);
+    }
+
+    private CampaignSchedulerService getCampaignScheduler(String campaignName,
+                                                          Map<String, CampaignSchedulerService> campaignSchedulers) {
+        CampaignSchedulerService campaignScheduler = campaignSchedulers.get(campaignName);
+        if (campaignScheduler == null) {
+            campaignScheduler = campaignSchedulerFactory.getCampaignScheduler(campaignName);
+            campaignSchedulers.put(campaignName, campaignScheduler);
+        }
+        return campaignScheduler;
+    }
+
     @MotechListener(subjects = ConfigurationConstants.FILE_CHANGED_EVENT_SUBJECT)
     public void changeMaxUploadSize(MotechEvent event) {
         String uploadSize = settingsFacade.getPlatformSettings().getUploadSize();
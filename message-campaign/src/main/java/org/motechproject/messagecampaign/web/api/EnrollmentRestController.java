@@ -4,13 +4,16 @@ import org.motechproject.messagecampaign.contract.CampaignRequest;
 import org.motechproject.messagecampaign.domain.campaign.CampaignEnrollment;
 import org.motechproject.messagecampaign.domain.campaign.CampaignEnrollmentStatus;
 import org.motechproject.messagecampaign.exception.EnrollmentNotFoundException;
+import org.motechproject.messagecampaign.service.BulkEnrollmentResult;
 import org.motechproject.messagecampaign.service.CampaignEnrollmentsQuery;
 import org.motechproject.messagecampaign.service.EnrollmentService;
 import org.motechproject.messagecampaign.service.MessageCampaignService;
 import org.motechproject.messagecampaign.web.MessageCampaignController;
+import org.motechproject.messagecampaign.web.model.BulkEnrollmentRequest;
 import org.motechproject.messagecampaign.web.model.EnrollmentDto;
 import org.motechproject.messagecampaign.web.model.EnrollmentList;
 import org.motechproject.messagecampaign.web.model.EnrollmentRequest;
+import org.motechproject.messagecampaign.web.util.JsonArrayReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -23,6 +26,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 
@@ -66,6 +72,68 @@ public class EnrollmentRestController extends MessageCampaignController {
         }
     }
 
+    /**
+     * Enrolls many clients into the given message campaign at once. The body is a JSON array of enrollments, read
+     * while the enrollments are processed, so arrays of any size can be submitted. Clients already enrolled with the
+     * same reference date and start time are skipped. A malformed element stops the processing, the enrollments
+     * preceding it stay in place.
+     *
+     * @param campaignName the name of the campaign
+     * @param body the stream of the request body, a JSON array of enrollments
+     * @return the summary of the enrollment, including the errors of the failed rows
+     * @throws IOException in case of problems reading the request body
+     */
+    @RequestMapping(value = "/{campaignName}/bulk", method = RequestMethod.POST)
+    @PreAuthorize(HAS_MANAGE_ENROLLMENTS_ROLE)
+    @ResponseBody
+    public BulkEnrollmentResult enrollUsers(@PathVariable final String campaignName, InputStream body)
+            throws IOException {
+        final Iterable<BulkEnrollmentRequest> rows = new JsonArrayReader<>(body, BulkEnrollmentRequest.class);
+
+        return messageCampaignService.enrollAll(new Iterable<CampaignRequest>() {
+            @Override
+            public Iterator<CampaignRequest> iterator() {
+                final Iterator<BulkEnrollmentRequest> iterator = rows.iterator();
+
+                return new Iterator<CampaignRequest>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public CampaignRequest next() {
+                        BulkEnrollmentRequest row = iterator.next();
+                        return new CampaignRequest(row.getExternalId(), campaignName, row.getReferenceDate(),
+                                row.getStartTime());
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("Enrollment requests cannot be removed");
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * Unenrolls many clients from the given message campaign at once. The body is a JSON array of external client IDs,
+     * read while the clients are unenrolled. Clients not enrolled into the campaign are skipped.
+     *
+     * @param campaignName the name of the campaign
+     * @param body the stream of the request body, a JSON array of external client IDs
+     * @return the summary of the unenrollment, including the errors of the failed rows
+     * @throws IOException in case of problems reading the request body
+     */
+    @RequestMapping(value = "/{campaignName}/bulk/remove", method = RequestMethod.POST)
+    @PreAuthorize(HAS_MANAGE_ENROLLMENTS_ROLE)
+    @ResponseBody
+    public BulkEnrollmentResult removeEnrollments(@PathVariable String campaignName, InputStream body)
+            throws IOException {
+        return messageCampaignService.unenrollAll(campaignName, new JsonArrayReader<>(body, String.class));
+    }
+
     /**
      * Retrieves an enrollment, based on the provided campaign name and external client ID.
      *
@@ -0,0 +1,72 @@
+package org.motechproject.messagecampaign.web.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.joda.time.LocalDate;
+import org.motechproject.commons.date.model.Time;
+import org.motechproject.messagecampaign.web.util.LocalDateSerializer;
+import org.motechproject.messagecampaign.web.util.TimeSerializer;
+
+import java.io.Serializable;
+
+/**
+ * DTO representation of a single row of the bulk enrollment. It is used to pass the enrollments of many clients
+ * into a campaign at once.
+ */
+public class BulkEnrollmentRequest implements Serializable {
+
+    private static final long serialVersionUID = -2951346278462096718L;
+
+    /**
+     * External ID of the client.
+     */
+    @JsonProperty
+    private String externalId;
+
+    /**
+     * The preferred time to send the messages.
+     */
+    @JsonProperty
+    @JsonSerialize(using = TimeSerializer.class)
+    private Time startTime;
+
+    /**
+     * The reference date, used as a start point to send messages.
+     */
+    @JsonProperty
+    @JsonSerialize(using = LocalDateSerializer.class)
+    private LocalDate referenceDate;
+
+    public BulkEnrollmentRequest(String externalId, Time startTime, LocalDate referenceDate) {
+        this.externalId = externalId;
+        this.startTime = startTime;
+        this.referenceDate = referenceDate;
+    }
+
+    public BulkEnrollmentRequest() {
+    }
+
+    public String getExternalId() {
+        return externalId;
+    }
+
+    public void setExternalId(String externalId) {
+        this.externalId = externalId;
+    }
+
+    public Time getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Time startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDate getReferenceDate() {
+        return referenceDate;
+    }
+
+    public void setReferenceDate(LocalDate referenceDate) {
+        this.referenceDate = referenceDate;
+    }
+}
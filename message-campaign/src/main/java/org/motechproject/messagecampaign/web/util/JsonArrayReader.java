@@ -0,0 +1,93 @@
+package org.motechproject.messagecampaign.web.util;
+
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the elements of a JSON array one by one, while they are being iterated. Allows processing request bodies
+ * holding many elements, without reading the whole array into memory. The elements can be iterated only once.
+ *
+ * @param <T> the type of the array elements
+ */
+public class JsonArrayReader<T> implements Iterable<T> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final JsonParser parser;
+    private final Class<T> elementType;
+
+    /**
+     * Creates the reader of the JSON array in the given stream.
+     *
+     * @param inputStream the stream to read the array from
+     * @param elementType the type of the array elements
+     * @throws IOException if the stream does not start with a JSON array
+     */
+    public JsonArrayReader(InputStream inputStream, Class<T> elementType) throws IOException {
+        this.parser = MAPPER.getJsonFactory().createJsonParser(inputStream);
+        this.elementType = elementType;
+
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException("Expected a JSON array", parser.getCurrentLocation());
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private boolean finished;
+            private boolean advanced;
+
+            @Override
+            public boolean hasNext() {
+                if (!advanced && !finished) {
+                    finished = nextToken() == JsonToken.END_ARRAY;
+                    advanced = true;
+                }
+                return !finished;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                advanced = false;
+                return readElement();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Elements of a JSON array cannot be removed");
+            }
+        };
+    }
+
+    private JsonToken nextToken() {
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new HttpMessageNotReadableException("Unexpected end of the JSON array");
+            }
+            return token;
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Unable to read the JSON array: " + e.getMessage(), e);
+        }
+    }
+
+    private T readElement() {
+        try {
+            return parser.readValueAs(elementType);
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Unable to read the JSON array element: " + e.getMessage(), e);
+        }
+    }
+}
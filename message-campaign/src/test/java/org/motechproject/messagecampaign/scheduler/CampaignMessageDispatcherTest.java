@@ -0,0 +1,210 @@
+package org.motechproject.messagecampaign.scheduler;
+
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.motechproject.commons.api.Range;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.EventRelay;
+import org.motechproject.mds.query.QueryParams;
+import org.motechproject.messagecampaign.EventKeys;
+import org.motechproject.messagecampaign.dao.CampaignEnrollmentDataService;
+import org.motechproject.messagecampaign.dao.CampaignRecordService;
+import org.motechproject.messagecampaign.domain.campaign.Campaign;
+import org.motechproject.messagecampaign.domain.campaign.CampaignEnrollment;
+import org.motechproject.messagecampaign.domain.campaign.CampaignEnrollmentStatus;
+import org.motechproject.messagecampaign.domain.campaign.CampaignRecord;
+import org.springframework.transaction.support.TransactionCallback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class CampaignMessageDispatcherTest {
+
+    private static final String CAMPAIGN_NAME = "Pregnancy campaign";
+    private static final DateTime UNTIL = new DateTime(2015, 6, 1, 10, 0);
+
+    @Mock
+    private CampaignEnrollmentDataService campaignEnrollmentDataService;
+
+    @Mock
+    private CampaignRecordService campaignRecordService;
+
+    @Mock
+    private CampaignSchedulerFactory campaignSchedulerFactory;
+
+    @Mock
+    private CampaignSchedulerService campaignScheduler;
+
+    @Mock
+    private CampaignDispatchSettings dispatchSettings;
+
+    @Mock
+    private EventRelay eventRelay;
+
+    @Mock
+    private CampaignRecord campaignRecord;
+
+    @Mock
+    private Campaign campaign;
+
+    private CampaignMessageDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        dispatcher = new CampaignMessageDispatcher();
+        dispatcher.setCampaignEnrollmentDataService(campaignEnrollmentDataService);
+        dispatcher.setCampaignRecordService(campaignRecordService);
+        dispatcher.setCampaignSchedulerFactory(campaignSchedulerFactory);
+        dispatcher.setEventRelay(eventRelay);
+        dispatcher.setDispatchSettings(dispatchSettings);
+
+        when(dispatchSettings.getPageSize()).thenReturn(2);
+        when(campaignRecordService.findByName(CAMPAIGN_NAME)).thenReturn(campaignRecord);
+        when(campaignRecord.toCampaign()).thenReturn(campaign);
+        when(campaignSchedulerFactory.getCampaignScheduler(CAMPAIGN_NAME)).thenReturn(campaignScheduler);
+
+        executeTransactionCallbacks();
+    }
+
+    @Test
+    public void shouldDispatchDueMessagesPageByPage() {
+        CampaignEnrollment first = enrollment("1");
+        CampaignEnrollment second = enrollment("2");
+        CampaignEnrollment third = enrollment("3");
+        when(campaignEnrollmentDataService.findByStatusAndNextMessageTime(eq(CampaignEnrollmentStatus.ACTIVE),
+                any(Range.class), any(QueryParams.class))).thenReturn(asList(first, second), asList(third));
+        dueMessages(first, 1);
+        dueMessages(second, 2);
+        dueMessages(third, 1);
+
+        assertEquals(4, dispatcher.dispatchDueMessages(UNTIL));
+
+        verify(campaignEnrollmentDataService, times(2)).doInTransaction(any(TransactionCallback.class));
+        verify(eventRelay, times(4)).sendEventMessage(any(MotechEvent.class));
+        verify(campaignEnrollmentDataService).update(first);
+        verify(campaignEnrollmentDataService).update(second);
+        verify(campaignEnrollmentDataService).update(third);
+    }
+
+    @Test
+    public void shouldMoveEnrollmentsToTheirNextMessage() {
+        CampaignEnrollment enrollment = enrollment("1");
+        DateTime nextMessageTime = UNTIL.plusDays(1);
+        page(enrollment);
+        dueMessages(enrollment, 1);
+        when(campaignScheduler.getNextMessageTime(enrollment, campaign, UNTIL)).thenReturn(nextMessageTime);
+
+        dispatcher.dispatchDueMessages(UNTIL);
+
+        assertEquals(nextMessageTime, enrollment.getNextMessageTime());
+        verify(campaignScheduler, never()).campaignCompletedEvent(enrollment);
+    }
+
+    @Test
+    public void shouldPublishCompletionAfterTheLastMessage() {
+        CampaignEnrollment enrollment = enrollment("1");
+        MotechEvent completed = new MotechEvent(EventKeys.CAMPAIGN_COMPLETED);
+        page(enrollment);
+        List<MotechEvent> messages = dueMessages(enrollment, 1);
+        when(campaignScheduler.getNextMessageTime(enrollment, campaign, UNTIL)).thenReturn(null);
+        when(campaignScheduler.campaignCompletedEvent(enrollment)).thenReturn(completed);
+
+        assertEquals(1, dispatcher.dispatchDueMessages(UNTIL));
+
+        assertNull(enrollment.getNextMessageTime());
+        InOrder order = inOrder(eventRelay);
+        order.verify(eventRelay).sendEventMessage(messages.get(0));
+        order.verify(eventRelay).sendEventMessage(completed);
+    }
+
+    @Test
+    public void shouldSkipEnrollmentWhichCannotBeDispatched() {
+        CampaignEnrollment broken = enrollment("1");
+        CampaignEnrollment valid = enrollment("2");
+        page(broken, valid);
+        dueMessages(broken, 1);
+        when(campaignScheduler.getNextMessageTime(broken, campaign, UNTIL))
+                .thenThrow(new IllegalStateException("Invalid campaign message"));
+        List<MotechEvent> messages = dueMessages(valid, 1);
+
+        assertEquals(1, dispatcher.dispatchDueMessages(UNTIL));
+
+        assertEquals(UNTIL.plusMillis(1), broken.getNextMessageTime());
+        verify(campaignEnrollmentDataService).update(broken);
+        verify(eventRelay).sendEventMessage(messages.get(0));
+        verify(eventRelay, times(1)).sendEventMessage(any(MotechEvent.class));
+    }
+
+    @Test
+    public void shouldNotPublishEventsOfRolledBackPage() {
+        CampaignEnrollment first = enrollment("1");
+        CampaignEnrollment second = enrollment("2");
+        page(first, second);
+        dueMessages(first, 1);
+        dueMessages(second, 1);
+        doThrow(new IllegalStateException("Connection lost")).when(campaignEnrollmentDataService).update(second);
+
+        try {
+            dispatcher.dispatchDueMessages(UNTIL);
+            fail("Expected the failure of the transaction to be passed on");
+        } catch (IllegalStateException e) {
+            // expected, the page is dispatched again by the next run
+        }
+
+        verify(eventRelay, never()).sendEventMessage(any(MotechEvent.class));
+    }
+
+    private void page(CampaignEnrollment... enrollments) {
+        when(campaignEnrollmentDataService.findByStatusAndNextMessageTime(eq(CampaignEnrollmentStatus.ACTIVE),
+                any(Range.class), any(QueryParams.class))).thenReturn(asList(enrollments),
+                Collections.<CampaignEnrollment>emptyList());
+    }
+
+    private List<MotechEvent> dueMessages(CampaignEnrollment enrollment, int count) {
+        List<MotechEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new MotechEvent(EventKeys.SEND_MESSAGE));
+        }
+        when(campaignScheduler.getDueMessageEvents(enrollment, campaign, enrollment.getNextMessageTime(), UNTIL))
+                .thenReturn(events);
+        when(campaignScheduler.getNextMessageTime(enrollment, campaign, UNTIL)).thenReturn(UNTIL.plusHours(1));
+        return events;
+    }
+
+    private CampaignEnrollment enrollment(String externalId) {
+        CampaignEnrollment enrollment = new CampaignEnrollment(externalId, CAMPAIGN_NAME);
+        enrollment.setNextMessageTime(UNTIL.minusMinutes(1));
+        return enrollment;
+    }
+
+    private void executeTransactionCallbacks() {
+        when(campaignEnrollmentDataService.doInTransaction(any(TransactionCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return ((TransactionCallback) invocation.getArguments()[0]).doInTransaction(null);
+            }
+        });
+    }
+}
@@ -12,9 +12,11 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.motechproject.commons.date.model.Time;
 import org.motechproject.commons.date.util.DateUtil;
+import org.motechproject.event.MotechEvent;
 import org.motechproject.messagecampaign.builder.CampaignBuilder;
 import org.motechproject.messagecampaign.builder.EnrollRequestBuilder;
 import org.motechproject.messagecampaign.contract.CampaignRequest;
+import org.motechproject.messagecampaign.dao.CampaignEnrollmentDataService;
 import org.motechproject.messagecampaign.dao.CampaignRecordService;
 import org.motechproject.messagecampaign.domain.campaign.CampaignEnrollment;
 import org.motechproject.messagecampaign.domain.campaign.CampaignRecord;
@@ -28,8 +30,12 @@ import java.util.List;
 
 import static java.util.Collections.singletonList;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
 import static org.joda.time.Period.days;
 import static org.joda.time.Period.minutes;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -50,6 +56,10 @@ public class OffsetCampaignSchedulerServiceTest {
     private CampaignRecordService campaignRecordService;
     @Mock
     private CampaignRecord campaignRecord;
+    @Mock
+    private CampaignDispatchSettings dispatchSettings;
+    @Mock
+    private CampaignEnrollmentDataService campaignEnrollmentDataService;
 
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
@@ -207,6 +217,60 @@ public class OffsetCampaignSchedulerServiceTest {
         verifyZeroInteractions(schedulerService);
     }
 
+    @Test
+    public void shouldStoreNextMessageTimeInsteadOfSchedulingJobsWhenDispatchingInBuckets() {
+        try {
+            fakeNow(newDateTime(2010, 10, 1));
+
+            OffsetCampaign campaign = CampaignBuilder.defaultOffsetCampaign();
+            when(campaignRecordService.findByName("testCampaign")).thenReturn(campaignRecord);
+            when(campaignRecord.toCampaign()).thenReturn(campaign);
+            when(dispatchSettings.isBucketedDispatch()).thenReturn(true);
+
+            offsetCampaignSchedulerService.setDispatchSettings(dispatchSettings);
+            offsetCampaignSchedulerService.setCampaignEnrollmentDataService(campaignEnrollmentDataService);
+
+            CampaignEnrollment enrollment = new CampaignEnrollment("12345", "testCampaign");
+            enrollment.setReferenceDate(new LocalDate(2010, 10, 1));
+            enrollment.setDeliverTime(new Time(9, 30));
+
+            offsetCampaignSchedulerService.start(enrollment);
+
+            assertEquals(newDateTime(2010, 10, 8, 9, 30, 0), enrollment.getNextMessageTime());
+            verify(schedulerService, never()).scheduleRunOnceJob(any(RunOnceSchedulableJob.class));
+            verify(campaignEnrollmentDataService, never()).update(enrollment);
+
+            offsetCampaignSchedulerService.stop(enrollment);
+
+            assertNull(enrollment.getNextMessageTime());
+            verify(schedulerService, never()).safeUnscheduleRunOnceJob(anyString(), anyString());
+        } finally {
+            stopFakingTime();
+        }
+    }
+
+    @Test
+    public void shouldReturnEventsOfMessagesDueInBucket() {
+        OffsetCampaign campaign = CampaignBuilder.defaultOffsetCampaign();
+
+        CampaignEnrollment enrollment = new CampaignEnrollment("12345", "testCampaign");
+        enrollment.setReferenceDate(new LocalDate(2010, 10, 1));
+        enrollment.setDeliverTime(new Time(9, 30));
+
+        List<MotechEvent> events = offsetCampaignSchedulerService.getDueMessageEvents(enrollment, campaign,
+                newDateTime(2010, 10, 8, 9, 30, 0), newDateTime(2010, 10, 15, 9, 30, 0));
+
+        assertEquals(2, events.size());
+        assertEquals("child-info-week-1", events.get(0).getParameters().get("MessageKey"));
+        assertEquals("MessageJob.testCampaign.12345.child-info-week-1", events.get(0).getParameters().get("JobID"));
+        assertEquals("child-info-week-1a", events.get(1).getParameters().get("MessageKey"));
+
+        assertEquals(newDateTime(2010, 11, 1, 9, 30, 0), offsetCampaignSchedulerService.getNextMessageTime(enrollment,
+                campaign, newDateTime(2010, 10, 15, 9, 30, 0)));
+        assertNull(offsetCampaignSchedulerService.getNextMessageTime(enrollment, campaign,
+                newDateTime(2010, 11, 1, 9, 30, 0)));
+    }
+
     private void assertMotechEvent(RunOnceSchedulableJob runOnceSchedulableJob, String expectedJobId, String messageKey) {
         Assert.assertEquals(expectedJobId, runOnceSchedulableJob.getMotechEvent().getParameters().get("JobID"));
         Assert.assertEquals("testCampaign", runOnceSchedulableJob.getMotechEvent().getParameters().get("CampaignName"));
@@ -8,6 +8,8 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.motechproject.commons.date.model.Time;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
@@ -35,10 +37,12 @@ import org.motechproject.messagecampaign.search.Criterion;
 import org.motechproject.scheduler.contract.CronJobId;
 import org.motechproject.scheduler.contract.JobId;
 import org.motechproject.scheduler.service.MotechSchedulerService;
+import org.springframework.transaction.support.TransactionCallback;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import static java.util.Arrays.asList;
 import static junit.framework.Assert.assertEquals;
@@ -47,7 +51,10 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -501,4 +508,132 @@ public class MessageCampaignServiceImplTest {
 
         Assert.assertNull(nextCampaignMessage);
     }
+
+    @Test
+    public void shouldEnrollAllRequestsAndReportFailedRows() {
+        Campaign campaign = mock(Campaign.class);
+        when(campaignRecordService.findByName("testCampaign")).thenReturn(campaignRecord);
+        when(campaignRecord.toCampaign()).thenReturn(campaign);
+        when(campaignSchedulerFactory.getCampaignScheduler("testCampaign")).thenReturn(campaignSchedulerService);
+        executeTransactionCallbacks();
+
+        CampaignEnrollment enrolled = new CampaignEnrollment("enrolled", "testCampaign");
+        enrolled.setReferenceDate(new LocalDate(2011, 11, 22));
+        CampaignEnrollment enrolledDifferently = new CampaignEnrollment("different", "testCampaign");
+        enrolledDifferently.setReferenceDate(new LocalDate(2011, 11, 1));
+        when(campaignEnrollmentDataService.findByExternalIdsAndCampaignName(any(Set.class), eq("testCampaign")))
+                .thenReturn(asList(enrolled, enrolledDifferently));
+
+        doThrow(new IllegalArgumentException("ended")).when(campaignSchedulerService)
+                .start(argThat(new ExternalIdMatcher("ended")), eq(campaign));
+
+        List<CampaignRequest> requests = asList(
+                new CampaignRequest("new", "testCampaign", new LocalDate(2011, 11, 22), null),
+                new CampaignRequest("enrolled", "testCampaign", new LocalDate(2011, 11, 22), null),
+                new CampaignRequest("different", "testCampaign", new LocalDate(2011, 11, 22), null),
+                new CampaignRequest(" ", "testCampaign", new LocalDate(2011, 11, 22), null),
+                new CampaignRequest("ended", "testCampaign", new LocalDate(2011, 11, 22), null));
+
+        BulkEnrollmentResult result = messageCampaignService.enrollAll(requests);
+
+        assertEquals(5, result.getProcessed());
+        assertEquals(1, result.getSucceeded());
+        assertEquals(1, result.getSkipped());
+        assertEquals(3, result.getFailed());
+        assertEquals(asList(2, 3, 4), asList(result.getErrors().get(0).getRow(), result.getErrors().get(1).getRow(),
+                result.getErrors().get(2).getRow()));
+        assertEquals("ended", result.getErrors().get(2).getMessage());
+
+        ArgumentCaptor<CampaignEnrollment> enrollmentCaptor = ArgumentCaptor.forClass(CampaignEnrollment.class);
+        verify(campaignEnrollmentDataService).create(enrollmentCaptor.capture());
+        assertEquals("new", enrollmentCaptor.getValue().getExternalId());
+        verify(campaignEnrollmentDataService, times(1)).findByExternalIdsAndCampaignName(any(Set.class),
+                eq("testCampaign"));
+        verify(campaignRecordService, times(1)).findByName("testCampaign");
+
+        ArgumentCaptor<MotechEvent> eventCaptor = ArgumentCaptor.forClass(MotechEvent.class);
+        verify(eventRelay, times(2)).sendEventMessage(eventCaptor.capture());
+        assertEquals(EventKeys.ENROLLED_USER_SUBJECT, eventCaptor.getAllValues().get(0).getSubject());
+        assertEquals("new", eventCaptor.getAllValues().get(0).getParameters().get(EventKeys.EXTERNAL_ID_KEY));
+        assertEquals(EventKeys.BULK_ENROLLMENT_PROGRESS, eventCaptor.getAllValues().get(1).getSubject());
+        assertEquals(5, eventCaptor.getAllValues().get(1).getParameters().get(EventKeys.PROCESSED_KEY));
+    }
+
+    @Test
+    public void shouldUnscheduleJobsOfRolledBackBatch() {
+        Campaign campaign = mock(Campaign.class);
+        when(campaignRecordService.findByName("testCampaign")).thenReturn(campaignRecord);
+        when(campaignRecord.toCampaign()).thenReturn(campaign);
+        when(campaignSchedulerFactory.getCampaignScheduler("testCampaign")).thenReturn(campaignSchedulerService);
+        executeTransactionCallbacks();
+
+        doThrow(new IllegalStateException("Connection lost")).when(campaignEnrollmentDataService)
+                .create(argThat(new ExternalIdMatcher("second")));
+
+        List<CampaignRequest> requests = asList(
+                new CampaignRequest("first", "testCampaign", new LocalDate(2011, 11, 22), null),
+                new CampaignRequest("second", "testCampaign", new LocalDate(2011, 11, 22), null));
+
+        BulkEnrollmentResult result = messageCampaignService.enrollAll(requests);
+
+        assertEquals(2, result.getProcessed());
+        assertEquals(0, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+
+        verify(campaignSchedulerService).start(argThat(new ExternalIdMatcher("first")), eq(campaign));
+        verify(campaignSchedulerService).stop(argThat(new ExternalIdMatcher("first")));
+        verify(campaignSchedulerService).stop(argThat(new ExternalIdMatcher("second")));
+
+        ArgumentCaptor<MotechEvent> eventCaptor = ArgumentCaptor.forClass(MotechEvent.class);
+        verify(eventRelay).sendEventMessage(eventCaptor.capture());
+        assertEquals(EventKeys.BULK_ENROLLMENT_PROGRESS, eventCaptor.getValue().getSubject());
+    }
+
+    @Test
+    public void shouldUnenrollAllActiveEnrollments() {
+        when(campaignSchedulerFactory.getCampaignScheduler("testCampaign")).thenReturn(campaignSchedulerService);
+        executeTransactionCallbacks();
+
+        CampaignEnrollment active = new CampaignEnrollment("active", "testCampaign");
+        CampaignEnrollment inactive = new CampaignEnrollment("inactive", "testCampaign");
+        inactive.setStatus(CampaignEnrollmentStatus.INACTIVE);
+        when(campaignEnrollmentDataService.findByExternalIdsAndCampaignName(any(Set.class), eq("testCampaign")))
+                .thenReturn(asList(active, inactive));
+
+        BulkEnrollmentResult result = messageCampaignService.unenrollAll("testCampaign",
+                asList("active", "inactive", "missing"));
+
+        assertEquals(3, result.getProcessed());
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getSkipped());
+        assertEquals(0, result.getFailed());
+
+        verify(campaignSchedulerService).stop(active);
+        verify(campaignSchedulerService, never()).stop(inactive);
+        verify(campaignEnrollmentDataService).update(active);
+        assertEquals(CampaignEnrollmentStatus.INACTIVE, active.getStatus());
+    }
+
+    private void executeTransactionCallbacks() {
+        when(campaignEnrollmentDataService.doInTransaction(any(TransactionCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return ((TransactionCallback) invocation.getArguments()[0]).doInTransaction(null);
+            }
+        });
+    }
+
+    private static class ExternalIdMatcher extends ArgumentMatcher<CampaignEnrollment> {
+        private final String externalId;
+
+        ExternalIdMatcher(String externalId) {
+            this.externalId = externalId;
+        }
+
+        @Override
+        public boolean matches(Object argument) {
+            return argument instanceof CampaignEnrollment &&
+                    externalId.equals(((CampaignEnrollment) argument).getExternalId());
+        }
+    }
 }
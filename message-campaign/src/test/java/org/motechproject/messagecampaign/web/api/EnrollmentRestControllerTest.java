@@ -10,6 +10,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.motechproject.commons.date.model.Time;
 import org.motechproject.messagecampaign.contract.CampaignRequest;
 import org.motechproject.messagecampaign.dao.CampaignEnrollmentDataService;
@@ -21,6 +23,7 @@ import org.motechproject.messagecampaign.exception.EnrollmentNotFoundException;
 import org.motechproject.messagecampaign.exception.MessageCampaignException;
 import org.motechproject.messagecampaign.exception.SchedulingException;
 import org.motechproject.messagecampaign.search.Criterion;
+import org.motechproject.messagecampaign.service.BulkEnrollmentResult;
 import org.motechproject.messagecampaign.service.CampaignEnrollmentsQuery;
 import org.motechproject.messagecampaign.service.EnrollmentService;
 import org.motechproject.messagecampaign.service.MessageCampaignService;
@@ -32,8 +35,10 @@ import org.springframework.test.web.server.setup.MockMvcBuilders;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static java.util.Arrays.asList;
 import static junit.framework.Assert.assertEquals;
@@ -101,6 +106,42 @@ public class EnrollmentRestControllerTest {
         assertEquals(CAMPAIGN_NAME, captor.getValue().campaignName());
     }
 
+    @Test
+    public void shouldEnrollUsersInBulk() throws Exception {
+        final List<CampaignRequest> requests = new ArrayList<>();
+
+        when(messageCampaignService.enrollAll(any(Iterable.class))).thenAnswer(new Answer<BulkEnrollmentResult>() {
+            @Override
+            public BulkEnrollmentResult answer(InvocationOnMock invocation) {
+                for (Object request : (Iterable) invocation.getArguments()[0]) {
+                    requests.add((CampaignRequest) request);
+                }
+                BulkEnrollmentResult result = new BulkEnrollmentResult();
+                result.setProcessed(requests.size());
+                result.setSucceeded(requests.size());
+                return result;
+            }
+        });
+
+        controller.perform(
+                post("/web-api/enrollments/{campaignName}/bulk", CAMPAIGN_NAME)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(loadJson("bulkEnrollmentRequest.json").getBytes("UTF-8"))
+        ).andExpect(
+                status().is(HttpStatus.OK.value())
+        ).andExpect(
+                content().string(jsonMatcher("{\"processed\":2,\"succeeded\":2,\"skipped\":0,\"failed\":0,\"errors\":[]}"))
+        );
+
+        assertEquals(2, requests.size());
+        assertEquals(USER_ID, requests.get(0).externalId());
+        assertEquals(CAMPAIGN_NAME, requests.get(0).campaignName());
+        assertEquals(new Time(20, 1), requests.get(0).deliverTime());
+        assertEquals(new LocalDate(2013, 8, 14), requests.get(0).referenceDate());
+        assertEquals("47sf6b", requests.get(1).externalId());
+        assertEquals(null, requests.get(1).deliverTime());
+    }
+
     @Test
     public void shouldUpdateUserEnrollmentWithExtId() throws Exception {
         controller.perform(
@@ -0,0 +1,75 @@
+package org.motechproject.modules.commons.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility class for creating the executors used by the modules for their background work. All threads are daemon
+ * threads, so they never keep the JVM alive, and have names which make them easy to spot in thread dumps.
+ */
+public final class ExecutorUtil {
+
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Utility class, should not be instantiated.
+     */
+    private ExecutorUtil() {
+    }
+
+    /**
+     * Creates a factory of daemon threads with the given name.
+     *
+     * @param name  the name of the created threads
+     * @return the thread factory
+     */
+    public static ThreadFactory daemonThreadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Creates a factory of daemon threads named with the given prefix followed by the number of the thread.
+     *
+     * @param namePrefix  the prefix of the names of the created threads
+     * @return the thread factory
+     */
+    public static ThreadFactory numberedDaemonThreadFactory(final String namePrefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Creates a pool of at most {@code threads} daemon threads, named with the given prefix followed by the number of
+     * the thread. Tasks submitted while all threads are busy are queued. Threads which stay idle for a minute are
+     * stopped, so the pool costs nothing while it is not used.
+     *
+     * @param namePrefix  the prefix of the names of the created threads
+     * @param threads  the maximum number of threads
+     * @return the executor
+     */
+    public static ExecutorService newDaemonThreadPool(String namePrefix, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), numberedDaemonThreadFactory(namePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,93 @@
+package org.motechproject.modules.commons.http;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A commons-httpclient {@link HttpClient} with a pool of connections of its own. Authentication is pre-emptive, the
+ * credentials can be set on the state of the client. The connections are counted as they are leased and released,
+ * since the size of the pool also includes connections which are not used by any request.
+ */
+public class CommonsHttpPooledClient implements PooledClient<HttpClient> {
+
+    private final HttpClient httpClient;
+    private final LeaseCountingConnectionManager connectionManager;
+    private final ConnectionSettings settings;
+
+    /**
+     * Creates a client with a new connection pool.
+     *
+     * @param settings  the settings of the connection pool
+     */
+    public CommonsHttpPooledClient(ConnectionSettings settings) {
+        this.settings = settings;
+
+        connectionManager = new LeaseCountingConnectionManager();
+        HttpConnectionManagerParams params = connectionManager.getParams();
+        params.setDefaultMaxConnectionsPerHost(settings.getMaxConnectionsPerRoute());
+        params.setMaxTotalConnections(settings.getMaxTotalConnections());
+        params.setConnectionTimeout(settings.getConnectTimeout());
+        params.setSoTimeout(settings.getReadTimeout());
+        params.setStaleCheckingEnabled(true);
+
+        httpClient = new HttpClient(connectionManager);
+        httpClient.getParams().setConnectionManagerTimeout(settings.getConnectTimeout());
+        httpClient.getParams().setAuthenticationPreemptive(true);
+    }
+
+    @Override
+    public HttpClient getClient() {
+        return httpClient;
+    }
+
+    @Override
+    public int getLeasedConnections() {
+        return connectionManager.leased.get();
+    }
+
+    @Override
+    public long getMaxRequestMillis() {
+        return settings.getMaxRequestMillis();
+    }
+
+    @Override
+    public void closeIdleConnections() {
+        connectionManager.closeIdleConnections(settings.getIdleConnectionTimeout());
+        connectionManager.deleteClosedConnections();
+    }
+
+    @Override
+    public void shutdown() {
+        connectionManager.shutdown();
+    }
+
+    private static final class LeaseCountingConnectionManager extends MultiThreadedHttpConnectionManager {
+
+        private final AtomicInteger leased = new AtomicInteger();
+
+        @Override
+        public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration, long timeout)
+                throws ConnectionPoolTimeoutException {
+            // the other ways of getting a connection delegate to this method
+            HttpConnection connection = super.getConnectionWithTimeout(hostConfiguration, timeout);
+            leased.incrementAndGet();
+            return connection;
+        }
+
+        @Override
+        public void releaseConnection(HttpConnection connection) {
+            // called once for every leased connection, when the connection handed out to the request is released
+            try {
+                super.releaseConnection(connection);
+            } finally {
+                leased.decrementAndGet();
+            }
+        }
+    }
+}
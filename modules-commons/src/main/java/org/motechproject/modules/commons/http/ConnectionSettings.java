@@ -0,0 +1,88 @@
+package org.motechproject.modules.commons.http;
+
+import java.util.Arrays;
+
+/**
+ * The size and the timeouts of the connection pool of a {@link PooledClient}. All timeouts are in milliseconds.
+ */
+public final class ConnectionSettings {
+
+    private final int maxConnectionsPerRoute;
+    private final int maxTotalConnections;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int idleConnectionTimeout;
+
+    /**
+     * Creates the settings of a connection pool.
+     *
+     * @param maxConnectionsPerRoute  the maximum number of connections to a single host
+     * @param maxTotalConnections  the maximum number of connections in the pool
+     * @param connectTimeout  the timeout for opening a connection, also used for waiting for a free connection
+     * @param readTimeout  the timeout for reading from a connection
+     * @param idleConnectionTimeout  the time after which unused connections are closed
+     */
+    public ConnectionSettings(int maxConnectionsPerRoute, int maxTotalConnections, int connectTimeout,
+                              int readTimeout, int idleConnectionTimeout) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.maxTotalConnections = maxTotalConnections;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public int getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    /**
+     * @return the longest time a request sent through a pool with these settings can take
+     */
+    public long getMaxRequestMillis() {
+        // waiting for a connection, connecting and reading can each take up to their timeout
+        return 2L * connectTimeout + readTimeout;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConnectionSettings)) {
+            return false;
+        }
+        return Arrays.equals(values(), ((ConnectionSettings) o).values());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d connections per route, %d in total, %dms connect timeout, %dms read timeout",
+                maxConnectionsPerRoute, maxTotalConnections, connectTimeout, readTimeout);
+    }
+
+    private int[] values() {
+        return new int[] {maxConnectionsPerRoute, maxTotalConnections, connectTimeout, readTimeout,
+                idleConnectionTimeout};
+    }
+}
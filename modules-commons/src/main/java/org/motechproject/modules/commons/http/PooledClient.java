@@ -0,0 +1,37 @@
+package org.motechproject.modules.commons.http;
+
+/**
+ * An HTTP client together with the pool of connections it sends its requests through.
+ *
+ * @param <C> the type of the client
+ */
+public interface PooledClient<C> {
+
+    /**
+     * @return the client which should be used for sending requests
+     */
+    C getClient();
+
+    /**
+     * Returns the number of connections which were handed out to requests and not released yet. A request which is
+     * still running always holds a leased connection.
+     *
+     * @return the number of leased connections
+     */
+    int getLeasedConnections();
+
+    /**
+     * @return the longest time a request sent through this client can take, in milliseconds
+     */
+    long getMaxRequestMillis();
+
+    /**
+     * Closes the connections which were not used for longer than the idle connection timeout of this client.
+     */
+    void closeIdleConnections();
+
+    /**
+     * Shuts down the pool, closing all of its connections.
+     */
+    void shutdown();
+}
@@ -0,0 +1,220 @@
+package org.motechproject.modules.commons.http;
+
+import org.motechproject.modules.commons.concurrent.ExecutorUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for keeping a separate {@link PooledClient} for every key, for instance for every configuration of a
+ * module. Clients of different keys never compete for connections, and warm connections are reused between requests.
+ * A client is rebuilt only when the settings it was created with change.
+ * <p>
+ * A replaced client is retired rather than shut down right away, since requests may still be running on it. Retired
+ * clients are checked periodically and shut down once none of their connections is leased, or once the longest request
+ * they could still be running has timed out. The same check closes the idle connections of the clients in use.
+ *
+ * @param <K> the type of the keys
+ * @param <S> the type of the settings the clients are created with, compared using {@code equals}
+ * @param <C> the type of the clients
+ */
+public abstract class PooledClientRegistry<K, S, C> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledClientRegistry.class);
+
+    private final String name;
+    private final Map<K, Entry<S, C>> clients = new HashMap<>();
+    private final List<Entry<S, C>> retired = new ArrayList<>();
+    private ScheduledExecutorService reaper;
+
+    /**
+     * @param name  the name of the registry, used for naming its thread and in logs
+     */
+    protected PooledClientRegistry(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts checking the clients periodically.
+     *
+     * @param checkIntervalMillis  the time between two checks, in milliseconds
+     */
+    public synchronized void start(long checkIntervalMillis) {
+        reaper = Executors.newSingleThreadScheduledExecutor(
+                ExecutorUtil.daemonThreadFactory(name + "-http-client-reaper"));
+        reaper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    check();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to clean up the HTTP connections of " + name, e);
+                }
+            }
+        }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic checks and shuts down all clients, including the ones which are in use.
+     */
+    public synchronized void stop() {
+        if (reaper != null) {
+            reaper.shutdownNow();
+        }
+        for (Entry<S, C> entry : clients.values()) {
+            entry.pooledClient.shutdown();
+        }
+        for (Entry<S, C> entry : retired) {
+            entry.pooledClient.shutdown();
+        }
+        clients.clear();
+        retired.clear();
+    }
+
+    /**
+     * Retires the clients which were not asked for during the given time.
+     *
+     * @param unusedTimeoutMillis  the time after which a client counts as unused, in milliseconds
+     */
+    public synchronized void retireUnused(long unusedTimeoutMillis) {
+        long unusedSince = System.currentTimeMillis() - unusedTimeoutMillis;
+        Iterator<Map.Entry<K, Entry<S, C>>> it = clients.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<S, C>> entry = it.next();
+            if (entry.getValue().lastUsedAt < unusedSince) {
+                LOGGER.debug("Retiring the unused HTTP client of {}", entry.getKey());
+                retire(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Shuts down the retired clients which have no leased connections anymore, or whose requests must have timed out
+     * by now.
+     */
+    public synchronized void reapRetired() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry<S, C>> it = retired.iterator();
+        while (it.hasNext()) {
+            Entry<S, C> entry = it.next();
+            int leased = entry.pooledClient.getLeasedConnections();
+            if (leased == 0 || now >= entry.retiredAt + entry.pooledClient.getMaxRequestMillis()) {
+                if (leased > 0) {
+                    LOGGER.warn("Shutting down a retired HTTP client of {} with {} leased connections", name, leased);
+                }
+                entry.pooledClient.shutdown();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of retired clients which were not shut down yet
+     */
+    public synchronized int getRetiredCount() {
+        return retired.size();
+    }
+
+    /**
+     * @return the number of clients in use
+     */
+    public synchronized int size() {
+        return clients.size();
+    }
+
+    /**
+     * Returns the client for the given key, creating it if there is none yet or if the settings of the existing one
+     * differ.
+     *
+     * @param key  the key of the client
+     * @param settings  the settings the client should have
+     * @return the client
+     */
+    protected synchronized C getClient(K key, S settings) {
+        Entry<S, C> entry = clients.get(key);
+
+        if (entry == null || !entry.settings.equals(settings)) {
+            if (entry != null) {
+                retire(entry);
+            }
+            entry = new Entry<>(createClient(key, settings), settings);
+            clients.put(key, entry);
+        }
+
+        entry.lastUsedAt = System.currentTimeMillis();
+        return entry.pooledClient.getClient();
+    }
+
+    /**
+     * Creates a new client.
+     *
+     * @param key  the key of the client
+     * @param settings  the settings of the client
+     * @return the created client
+     */
+    protected abstract PooledClient<C> createClient(K key, S settings);
+
+    /**
+     * The periodic check, closes the idle connections of the clients in use and shuts down the retired clients which
+     * are not used anymore.
+     */
+    protected void check() {
+        closeIdleConnections();
+        reapRetired();
+    }
+
+    /**
+     * @return the keys of the clients in use
+     */
+    protected synchronized Set<K> getKeys() {
+        return new HashSet<>(clients.keySet());
+    }
+
+    /**
+     * Retires the client of the given key. It is created again if it is asked for later.
+     *
+     * @param key  the key of the client
+     */
+    protected synchronized void retire(K key) {
+        Entry<S, C> entry = clients.remove(key);
+        if (entry != null) {
+            retire(entry);
+        }
+    }
+
+    private synchronized void closeIdleConnections() {
+        for (Entry<S, C> entry : clients.values()) {
+            entry.pooledClient.closeIdleConnections();
+        }
+    }
+
+    private void retire(Entry<S, C> entry) {
+        // requests still running on the old client finish normally, it is shut down by reapRetired
+        entry.retiredAt = System.currentTimeMillis();
+        retired.add(entry);
+    }
+
+    private static final class Entry<S, C> {
+
+        private final PooledClient<C> pooledClient;
+        private final S settings;
+        private long lastUsedAt;
+        private long retiredAt;
+
+        private Entry(PooledClient<C> pooledClient, S settings) {
+            this.pooledClient = pooledClient;
+            this.settings = settings;
+        }
+    }
+}
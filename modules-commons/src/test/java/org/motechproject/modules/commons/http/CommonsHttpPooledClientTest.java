@@ -0,0 +1,81 @@
+package org.motechproject.modules.commons.http;
+
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CommonsHttpPooledClientTest {
+
+    private CommonsHttpPooledClient pooledClient;
+
+    @Before
+    public void setUp() {
+        pooledClient = new CommonsHttpPooledClient(new ConnectionSettings(2, 3, 1000, 2000, 60000));
+    }
+
+    @After
+    public void tearDown() {
+        pooledClient.shutdown();
+    }
+
+    @Test
+    public void shouldCreateClientWithGivenSettings() {
+        MultiThreadedHttpConnectionManager connectionManager =
+                (MultiThreadedHttpConnectionManager) pooledClient.getClient().getHttpConnectionManager();
+
+        assertEquals(2, connectionManager.getParams().getDefaultMaxConnectionsPerHost());
+        assertEquals(3, connectionManager.getParams().getMaxTotalConnections());
+        assertEquals(1000, connectionManager.getParams().getConnectionTimeout());
+        assertEquals(2000, connectionManager.getParams().getSoTimeout());
+        assertTrue(pooledClient.getClient().getParams().isAuthenticationPreemptive());
+        assertEquals(4000, pooledClient.getMaxRequestMillis());
+    }
+
+    @Test
+    public void shouldCountLeasedConnectionsUntilTheyAreReleased() throws Exception {
+        HttpConnectionManager connectionManager = pooledClient.getClient().getHttpConnectionManager();
+
+        HttpConnection first = connectionManager.getConnectionWithTimeout(localhost(), 1000);
+        HttpConnection second = connectionManager.getConnection(localhost());
+        assertEquals(2, pooledClient.getLeasedConnections());
+
+        first.releaseConnection();
+        assertEquals(1, pooledClient.getLeasedConnections());
+
+        // releasing the same connection again does not count twice
+        first.releaseConnection();
+        assertEquals(1, pooledClient.getLeasedConnections());
+
+        // a released connection stays in the pool, but is not leased anymore
+        second.releaseConnection();
+        assertEquals(0, pooledClient.getLeasedConnections());
+        assertEquals(2, ((MultiThreadedHttpConnectionManager) connectionManager).getConnectionsInPool());
+    }
+
+    @Test
+    public void shouldNotHandOutConnectionsAfterShutdown() {
+        pooledClient.shutdown();
+
+        try {
+            pooledClient.getClient().getHttpConnectionManager().getConnection(localhost());
+            fail("Expected the connection manager to be shut down");
+        } catch (IllegalStateException e) {
+            assertEquals(0, pooledClient.getLeasedConnections());
+        }
+    }
+
+    private HostConfiguration localhost() {
+        HostConfiguration hostConfiguration = new HostConfiguration();
+        hostConfiguration.setHost("localhost", 80);
+        // acquiring a connection does not open it, so no server is needed
+        return hostConfiguration;
+    }
+}
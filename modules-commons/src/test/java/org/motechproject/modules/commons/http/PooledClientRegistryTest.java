@@ -0,0 +1,172 @@
+package org.motechproject.modules.commons.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PooledClientRegistryTest {
+
+    private TestRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new TestRegistry();
+    }
+
+    @After
+    public void tearDown() {
+        registry.stop();
+    }
+
+    @Test
+    public void shouldReuseClientWhileSettingsDoNotChange() {
+        Object client = registry.getClient("config", 1);
+
+        assertSame(client, registry.getClient("config", 1));
+        assertEquals(1, registry.created.size());
+        assertEquals(0, registry.getRetiredCount());
+    }
+
+    @Test
+    public void shouldNotShutDownRetiredClientWhileItHasLeasedConnections() {
+        registry.getClient("config", 1);
+        TestClient old = registry.created.get(0);
+        old.leased = 1;
+
+        assertNotSame(old.getClient(), registry.getClient("config", 2));
+        registry.reapRetired();
+        assertEquals(1, registry.getRetiredCount());
+        assertFalse(old.shutDown);
+
+        old.leased = 0;
+        registry.reapRetired();
+        assertEquals(0, registry.getRetiredCount());
+        assertTrue(old.shutDown);
+        assertFalse(registry.created.get(1).shutDown);
+    }
+
+    @Test
+    public void shouldShutDownRetiredClientWhoseRequestsMustHaveTimedOut() {
+        registry.getClient("config", 1);
+        TestClient old = registry.created.get(0);
+        old.leased = 1;
+        old.maxRequestMillis = 0;
+
+        registry.getClient("config", 2);
+        registry.reapRetired();
+
+        assertTrue(old.shutDown);
+        assertEquals(0, registry.getRetiredCount());
+    }
+
+    @Test
+    public void shouldRetireClientsByKey() {
+        registry.getClient("kept", 1);
+        registry.getClient("deleted", 1);
+
+        registry.retire("deleted");
+        registry.reapRetired();
+
+        assertEquals(asList("kept"), new ArrayList<>(registry.getKeys()));
+        assertTrue(registry.created.get(1).shutDown);
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void shouldRetireUnusedClients() throws InterruptedException {
+        registry.getClient("config", 1);
+
+        registry.retireUnused(60000);
+        assertEquals(1, registry.size());
+
+        Thread.sleep(5);
+        registry.retireUnused(0);
+        registry.reapRetired();
+
+        assertEquals(0, registry.size());
+        assertTrue(registry.created.get(0).shutDown);
+    }
+
+    @Test
+    public void shouldCloseIdleConnectionsOfClientsInUse() {
+        registry.getClient("config", 1);
+
+        registry.check();
+
+        assertEquals(1, registry.created.get(0).idleChecks);
+    }
+
+    @Test
+    public void shouldShutDownAllClientsWhenStopped() {
+        registry.getClient("config", 1);
+        registry.created.get(0).leased = 1;
+        registry.getClient("config", 2);
+
+        registry.stop();
+
+        assertTrue(registry.created.get(0).shutDown);
+        assertTrue(registry.created.get(1).shutDown);
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.getRetiredCount());
+    }
+
+    private static class TestRegistry extends PooledClientRegistry<String, Integer, Object> {
+
+        private final List<TestClient> created = new ArrayList<>();
+
+        TestRegistry() {
+            super("test");
+        }
+
+        @Override
+        protected PooledClient<Object> createClient(String key, Integer settings) {
+            TestClient client = new TestClient();
+            created.add(client);
+            return client;
+        }
+    }
+
+    private static class TestClient implements PooledClient<Object> {
+
+        private final Object client = new Object();
+        private int leased;
+        private long maxRequestMillis = 60000;
+        private int idleChecks;
+        private boolean shutDown;
+
+        @Override
+        public Object getClient() {
+            return client;
+        }
+
+        @Override
+        public int getLeasedConnections() {
+            return leased;
+        }
+
+        @Override
+        public long getMaxRequestMillis() {
+            return maxRequestMillis;
+        }
+
+        @Override
+        public void closeIdleConnections() {
+            idleChecks++;
+        }
+
+        @Override
+        public void shutdown() {
+            shutDown = true;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package org.motechproject.odk.event.builder;
 
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.ObjectReader;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.odk.constant.EventParameters;
 import org.motechproject.odk.constant.EventSubjects;
 import org.motechproject.odk.domain.Configuration;
 import org.motechproject.odk.domain.FormDefinition;
 import org.motechproject.odk.domain.FormElement;
+import org.motechproject.odk.event.builder.FormEventPlan.FieldPlan;
+import org.motechproject.odk.event.builder.FormEventPlan.RepeatGroupPlan;
 import org.motechproject.odk.exception.EventBuilderException;
+import org.motechproject.odk.util.EventBuilderUtils;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -18,6 +23,36 @@ import java.util.Map;
  */
 public abstract class AbstractEventBuilder implements EventBuilder {
 
+    /**
+     * Mapper shared by all the builders, it is thread-safe once configured.
+     */
+    protected static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Reader of the form instance data, shared by all the builders.
+     */
+    protected static final ObjectReader DATA_READER = MAPPER.reader(Map.class);
+
+    /**
+     * Formatter passing the value as it is.
+     */
+    protected static final ValueFormatter IDENTITY_FORMATTER = new ValueFormatter() {
+        @Override
+        public Object format(Object value, Map<String, Object> submission) {
+            return value;
+        }
+    };
+
+    /**
+     * Formatter of repeat groups, passing them as JSON.
+     */
+    protected static final ValueFormatter JSON_FORMATTER = new ValueFormatter() {
+        @Override
+        public Object format(Object value, Map<String, Object> submission) throws EventBuilderException {
+            return EventBuilderUtils.formatAsJson(value);
+        }
+    };
+
     /**
      * Builds a list of {@link MotechEvent} from the JSON payload. It will create
      * one persist form instance event and one event for each repeat group, including nested repeat
@@ -30,99 +65,119 @@ public abstract class AbstractEventBuilder implements EventBuilder {
      */
     @Override
     public List<MotechEvent> createEvents(String json, FormDefinition formDefinition, Configuration configuration) throws EventBuilderException {
-        Map<String, Object> data = getData(json);
-        List<MotechEvent> events = createRepeatGroupEvents(data, formDefinition, configuration);
-        events.add(createFormEvent(data, formDefinition, configuration));
-        return events;
+        return createEvents(json, compile(formDefinition, configuration));
     }
 
-    private MotechEvent createFormEvent(Map<String, Object> data, FormDefinition formDefinition, Configuration configuration) throws EventBuilderException {
-        Map<String, Object> params = new HashMap<>();
+    /**
+     * Compiles the form definition into a {@link FormEventPlan}. The fields which are neither repeat groups nor part
+     * of one make up the root scope, the repeat groups which are not nested are the roots of the repeat group tree.
+     * @param formDefinition The internal representation of the XML form.
+     * @param configuration {@link Configuration}
+     * @return The compiled {@link FormEventPlan}
+     */
+    @Override
+    public FormEventPlan compile(FormDefinition formDefinition, Configuration configuration) {
+        String repeatGroupSubject = EventSubjects.REPEAT_GROUP + "." + configuration.getName() + "." + formDefinition.getTitle() + ".";
+        List<FieldPlan> rootFields = new ArrayList<>();
+        List<RepeatGroupPlan> repeatGroups = new ArrayList<>();
+
         for (FormElement formElement : formDefinition.getFormElements()) {
-            Object value = data.get(formElement.getName());
-            Object formattedValue = formatValue(formElement.getType(), value);
-            if (formattedValue != null) {
-                params.put(formElement.getName(), formattedValue);
+            if (formElement.isPartOfRepeatGroup()) {
+                continue;
+            }
+            if (formElement.isRepeatGroup()) {
+                repeatGroups.add(compileRepeatGroup(formElement, repeatGroupSubject));
+            } else {
+                rootFields.add(new FieldPlan(formElement.getName(), getFormatter(formElement.getType())));
             }
         }
 
-        params.put(EventParameters.FORM_TITLE, formDefinition.getTitle());
-        params.put(EventParameters.CONFIGURATION_NAME, configuration.getName());
         String subject = EventSubjects.RECEIVED_FORM + "." + configuration.getName() + "." + formDefinition.getTitle();
-        return new MotechEvent(subject, params);
+        return new FormEventPlan(this, configuration.getName(), formDefinition.getTitle(), subject, rootFields, repeatGroups);
     }
 
+    /**
+     * Builds a list of {@link MotechEvent} from the JSON payload, which is parsed once. The values of the root scope
+     * are formatted once and shared by the form instance event and the repeat group events.
+     * @param json JSON representation of the form instance data
+     * @param plan The {@link FormEventPlan} compiled from the form definition
+     * @return A List of {@link MotechEvent}
+     * @throws EventBuilderException If an error is encountered while building the event list.
+     */
+    @Override
+    public List<MotechEvent> createEvents(String json, FormEventPlan plan) throws EventBuilderException {
+        Map<String, Object> data = getData(json);
+        Map<String, Object> rootScopeValues = new HashMap<>();
+        Map<String, Object> params = new HashMap<>();
+
+        for (FieldPlan field : plan.getRootFields()) {
+            Object formattedValue = field.format(data.get(field.getName()), data);
+            rootScopeValues.put(field.getName(), formattedValue);
+            if (formattedValue != null) {
+                params.put(field.getName(), formattedValue);
+            }
+        }
 
-    private List<MotechEvent> createRepeatGroupEvents(Map<String, Object> data, FormDefinition formDefinition, Configuration configuration) throws EventBuilderException {
         List<MotechEvent> events = new ArrayList<>();
-        Map<String, Object> rootScopeValues = getRootScope(data, formDefinition);
-        List<FormElement> repeatGroups = getNonNestedRepeatGroups(formDefinition);
-
-        for (FormElement repeatGroup : repeatGroups) {
-            List<Map<String, Object>> repeatGroupInstances = (List<Map<String, Object>>) data.get(repeatGroup.getName());
-            for (Map<String, Object> repeatGroupInstance : repeatGroupInstances) {
-                createRepeatGroupEvent(repeatGroup, events, formDefinition, repeatGroupInstance, rootScopeValues, configuration.getName());
+        for (RepeatGroupPlan repeatGroup : plan.getRepeatGroups()) {
+            Object instances = data.get(repeatGroup.getName());
+            Object formattedValue = repeatGroup.format(instances, data);
+            if (formattedValue != null) {
+                params.put(repeatGroup.getName(), formattedValue);
             }
+            createRepeatGroupEvents(repeatGroup, instances, rootScopeValues, data, events);
         }
+
+        params.put(EventParameters.FORM_TITLE, plan.getFormTitle());
+        params.put(EventParameters.CONFIGURATION_NAME, plan.getConfigurationName());
+        events.add(new MotechEvent(plan.getFormSubject(), params));
         return events;
     }
 
-    private Map<String, Object> getRootScope(Map<String, Object> data, FormDefinition formDefinition) throws EventBuilderException {
-        Map<String, Object> values = new HashMap<>();
+    private RepeatGroupPlan compileRepeatGroup(FormElement repeatGroup, String subjectPrefix) {
+        List<FieldPlan> fields = new ArrayList<>();
+        List<RepeatGroupPlan> childRepeatGroups = new ArrayList<>();
 
-        for (FormElement formElement : formDefinition.getFormElements()) {
-            if (!formElement.isRepeatGroup() && !formElement.isPartOfRepeatGroup()) {
-
-                Object value = data.get(formElement.getName());
-                if (value != null) {
-                    values.put(formElement.getName(), formatValue(formElement.getType(), value));
+        if (repeatGroup.hasChildren()) {
+            for (FormElement child : repeatGroup.getChildren()) {
+                if (child.isRepeatGroup()) {
+                    childRepeatGroups.add(compileRepeatGroup(child, subjectPrefix));
                 } else {
-                    values.put(formElement.getName(), null);
+                    fields.add(new FieldPlan(child.getName(), getFormatter(child.getType())));
                 }
             }
         }
-        return values;
-    }
-
-    private List<FormElement> getNonNestedRepeatGroups(FormDefinition formDefinition) {
-        List<FormElement> formElements = new ArrayList<>();
 
-        for (FormElement formElement : formDefinition.getFormElements()) {
-            if (!formElement.isPartOfRepeatGroup() && formElement.isRepeatGroup()) {
-                formElements.add(formElement);
-            }
-        }
-        return formElements;
+        return new RepeatGroupPlan(repeatGroup.getName(), getFormatter(repeatGroup.getType()),
+                subjectPrefix + repeatGroup.getName(), fields, childRepeatGroups);
     }
 
-    private void createRepeatGroupEvent(FormElement repeatGroup, List<MotechEvent> events, FormDefinition formDefinition, Map<String, Object> data,
-                                        Map<String, Object> scope, String configName) throws EventBuilderException {
-        List<FormElement> childRepeatGroups = new ArrayList<>();
-        Map<String, Object> localScope = new HashMap<>();
-        localScope.putAll(scope);
-
-        for (FormElement child : repeatGroup.getChildren()) {
-            if (child.isRepeatGroup()) {
-                childRepeatGroups.add(child);
-            } else {
-                Object value = data.get(child.getName());
-                localScope.put(child.getName(), formatValue(child.getType(), value));
-            }
+    private void createRepeatGroupEvents(RepeatGroupPlan repeatGroup, Object instances, Map<String, Object> scope,
+                                         Map<String, Object> data, List<MotechEvent> events) throws EventBuilderException {
+        if (instances == null) {
+            return;
         }
 
-        String subject = EventSubjects.REPEAT_GROUP + "." + configName + "." + formDefinition.getTitle() + "." + repeatGroup.getName();
-        events.add(new MotechEvent(subject, localScope));
+        for (Map<String, Object> instance : (List<Map<String, Object>>) instances) {
+            Map<String, Object> localScope = new HashMap<>(scope);
+            for (FieldPlan field : repeatGroup.getFields()) {
+                localScope.put(field.getName(), field.format(instance.get(field.getName()), data));
+            }
 
-        for (FormElement childRepeatGroup : childRepeatGroups) {
-            List<Map<String, Object>> childRepeatGroupInstances = (List<Map<String, Object>>) data.get(childRepeatGroup.getName());
+            events.add(new MotechEvent(repeatGroup.getSubject(), localScope));
 
-            for (Map<String, Object> childInstance : childRepeatGroupInstances) {
-                createRepeatGroupEvent(childRepeatGroup, events, formDefinition, childInstance, localScope, configName);
+            for (RepeatGroupPlan childRepeatGroup : repeatGroup.getChildren()) {
+                createRepeatGroupEvents(childRepeatGroup, instance.get(childRepeatGroup.getName()), localScope, data, events);
             }
         }
     }
 
-    protected abstract Object formatValue(String type, Object value) throws EventBuilderException;
+    /**
+     * Returns the formatter for the values of the given field type.
+     * @param type The type of the field.
+     * @return {@link ValueFormatter}
+     */
+    protected abstract ValueFormatter getFormatter(String type);
 
     protected abstract Map<String, Object> getData(String json) throws EventBuilderException;
 
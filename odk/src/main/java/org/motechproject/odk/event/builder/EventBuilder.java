@@ -30,4 +30,24 @@ public interface EventBuilder {
      */
     List<MotechEvent> createEvents(String json, FormDefinition formDefinition, Configuration configuration) throws EventBuilderException;
 
+    /**
+     * Compiles the form definition into a plan, which creates the same events as
+     * {@link #createEvents(String, FormDefinition, Configuration)} without walking the form definition again. The
+     * plan can be reused for every form instance of the form, until the form definition or the configuration changes.
+     * @param formDefinition The internal representation of the XML form.
+     * @param configuration {@link Configuration}
+     * @return The compiled {@link FormEventPlan}
+     */
+    FormEventPlan compile(FormDefinition formDefinition, Configuration configuration);
+
+    /**
+     * Creates the list of events for a form instance from a plan compiled by this builder.
+     * @param json JSON representation of the form instance data
+     * @param plan The {@link FormEventPlan} compiled from the form definition
+     * @return A list of {@link MotechEvent}
+     * @throws EventBuilderException If an error is encountered while building the list of events.
+     * @see #createEvents(String, FormDefinition, Configuration)
+     */
+    List<MotechEvent> createEvents(String json, FormEventPlan plan) throws EventBuilderException;
+
 }
@@ -0,0 +1,116 @@
+package org.motechproject.odk.event.builder;
+
+import org.motechproject.event.MotechEvent;
+import org.motechproject.odk.exception.EventBuilderException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A form definition compiled for building events. It holds the fields of the root scope and the tree of repeat
+ * groups, together with the formatters of their values and the subjects of their events, so that the form definition
+ * does not have to be walked again for every received form instance. Plans are immutable and can be shared between
+ * threads.
+ */
+public final class FormEventPlan {
+
+    private final EventBuilder builder;
+    private final String configurationName;
+    private final String formTitle;
+    private final String formSubject;
+    private final List<FieldPlan> rootFields;
+    private final List<RepeatGroupPlan> repeatGroups;
+
+    FormEventPlan(EventBuilder builder, String configurationName, String formTitle, String formSubject,
+                  List<FieldPlan> rootFields, List<RepeatGroupPlan> repeatGroups) {
+        this.builder = builder;
+        this.configurationName = configurationName;
+        this.formTitle = formTitle;
+        this.formSubject = formSubject;
+        this.rootFields = rootFields;
+        this.repeatGroups = repeatGroups;
+    }
+
+    /**
+     * Creates the events for a form instance, using the builder which compiled this plan.
+     * @param json JSON representation of the form instance data
+     * @return A list of {@link MotechEvent}
+     * @throws EventBuilderException If an error is encountered while building the list of events.
+     * @see EventBuilder#createEvents(String, org.motechproject.odk.domain.FormDefinition, org.motechproject.odk.domain.Configuration)
+     */
+    public List<MotechEvent> createEvents(String json) throws EventBuilderException {
+        return builder.createEvents(json, this);
+    }
+
+    public String getConfigurationName() {
+        return configurationName;
+    }
+
+    public String getFormTitle() {
+        return formTitle;
+    }
+
+    String getFormSubject() {
+        return formSubject;
+    }
+
+    List<FieldPlan> getRootFields() {
+        return rootFields;
+    }
+
+    List<RepeatGroupPlan> getRepeatGroups() {
+        return repeatGroups;
+    }
+
+    /**
+     * A field of the form, with the formatter for its type.
+     */
+    static class FieldPlan {
+
+        private final String name;
+        private final ValueFormatter formatter;
+
+        FieldPlan(String name, ValueFormatter formatter) {
+            this.name = name;
+            this.formatter = formatter;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Object format(Object value, Map<String, Object> submission) throws EventBuilderException {
+            return (value == null) ? null : formatter.format(value, submission);
+        }
+    }
+
+    /**
+     * A repeat group of the form, with its fields, its nested repeat groups and the subject of its events.
+     */
+    static final class RepeatGroupPlan extends FieldPlan {
+
+        private final String subject;
+        private final List<FieldPlan> fields;
+        private final List<RepeatGroupPlan> children;
+
+        RepeatGroupPlan(String name, ValueFormatter formatter, String subject, List<FieldPlan> fields,
+                        List<RepeatGroupPlan> children) {
+            super(name, formatter);
+            this.subject = subject;
+            this.fields = fields;
+            this.children = children;
+        }
+
+        String getSubject() {
+            return subject;
+        }
+
+        List<FieldPlan> getFields() {
+            return fields;
+        }
+
+        List<RepeatGroupPlan> getChildren() {
+            return children;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.motechproject.odk.event.builder;
+
+import org.motechproject.odk.exception.EventBuilderException;
+
+import java.util.Map;
+
+/**
+ * Formats the value of a form field as an event parameter. A formatter is resolved once for every field, based on
+ * its type, when a form definition is compiled into a {@link FormEventPlan}.
+ */
+public interface ValueFormatter {
+
+    /**
+     * Formats the value.
+     * @param value The value of the field, never null.
+     * @param submission The data of the whole form instance, for values which refer to other parts of the submission.
+     * @return The formatted value.
+     * @throws EventBuilderException If the value cannot be formatted.
+     */
+    Object format(Object value, Map<String, Object> submission) throws EventBuilderException;
+}
@@ -1,61 +1,80 @@
 package org.motechproject.odk.event.builder.impl;
 
-import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.motechproject.odk.constant.FieldTypeConstants;
-import org.motechproject.odk.domain.OdkJsonFormPublication;
 import org.motechproject.odk.exception.EventBuilderException;
 import org.motechproject.odk.event.builder.AbstractEventBuilder;
 import org.motechproject.odk.event.builder.EventBuilder;
-import org.motechproject.odk.util.EventBuilderUtils;
+import org.motechproject.odk.event.builder.ValueFormatter;
 
 import java.io.IOException;
 import java.util.Map;
 
 public class EventBuilderODK extends AbstractEventBuilder implements EventBuilder {
 
+    private static final String DATA = "data";
     private static final String URL = "url";
     private static final int TIME_STRING_SIZE = 5;
 
+    private static final ValueFormatter URL_FORMATTER = new ValueFormatter() {
+        @Override
+        public Object format(Object value, Map<String, Object> submission) {
+            return ((Map<String, String>) value).get(URL);
+        }
+    };
+
+    private static final ValueFormatter TIME_FORMATTER = new ValueFormatter() {
+        @Override
+        public Object format(Object value, Map<String, Object> submission) {
+            return ((String) value).substring(0, TIME_STRING_SIZE);
+        }
+    };
 
-    protected Object formatValue(String type, Object value) throws EventBuilderException {
+    @Override
+    protected ValueFormatter getFormatter(String type) {
 
         switch (type) {
 
             case FieldTypeConstants.BINARY:
-                return formatUrl((Map<String, String>) value);
+                return URL_FORMATTER;
 
             case FieldTypeConstants.REPEAT_GROUP:
-                return EventBuilderUtils.formatAsJson(value);
+                return JSON_FORMATTER;
 
             case FieldTypeConstants.TIME:
-                return formatDate((String) value);
+                return TIME_FORMATTER;
 
             default:
-                return value;
+                return IDENTITY_FORMATTER;
         }
     }
 
-    private String formatDate(String value) {
-        return value.substring(0, TIME_STRING_SIZE);
-    }
-
-
-    private String formatUrl(Map<String, String> value) {
-        if (value == null) {
-            return null;
-        }
-        return value.get(URL);
-    }
-
+    /**
+     * Reads the first form instance of the publication in a single pass, without binding the other instances and
+     * fields of the publication.
+     */
     @Override
     protected Map<String, Object> getData(String json) throws EventBuilderException {
-        try {
-            OdkJsonFormPublication publication = new ObjectMapper().readValue(json, OdkJsonFormPublication.class);
-            return publication.getData()[0];
+        try (JsonParser parser = MAPPER.getJsonFactory().createJsonParser(json)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    JsonToken token = parser.nextToken();
+
+                    if (DATA.equals(fieldName) && token == JsonToken.START_ARRAY) {
+                        if (parser.nextToken() == JsonToken.START_OBJECT) {
+                            return DATA_READER.readValue(parser);
+                        }
+                        break;
+                    }
+                    parser.skipChildren();
+                }
+            }
         } catch (IOException e) {
             throw new EventBuilderException(e);
         }
 
+        throw new EventBuilderException("No form instance data in the publication");
     }
 }
-
@@ -1,18 +1,13 @@
 package org.motechproject.odk.event.builder.impl;
 
-import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.type.TypeReference;
-import org.motechproject.event.MotechEvent;
 import org.motechproject.odk.constant.FieldTypeConstants;
-import org.motechproject.odk.domain.Configuration;
-import org.motechproject.odk.domain.FormDefinition;
 import org.motechproject.odk.exception.EventBuilderException;
 import org.motechproject.odk.event.builder.AbstractEventBuilder;
 import org.motechproject.odk.event.builder.EventBuilder;
+import org.motechproject.odk.event.builder.ValueFormatter;
 import org.motechproject.odk.util.EventBuilderUtils;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,58 +17,57 @@ public class EventBuilderOna extends AbstractEventBuilder implements EventBuilde
     private static final String FILENAME = "filename";
     private static final String DOWNLOAD_URL = "download_url";
 
+    private static final ValueFormatter SELECT_FORMATTER = new ValueFormatter() {
+        @Override
+        public Object format(Object value, Map<String, Object> submission) {
+            return EventBuilderUtils.formatStringList(value);
+        }
+    };
 
-    private List<Map<String, String>> attachments;
-
-
-    @Override
-    public List<MotechEvent> createEvents(String json, FormDefinition formDefinition, Configuration configuration) throws EventBuilderException {
-
-        try {
-            Map<String, Object> data = new ObjectMapper().readValue(json, new TypeReference<HashMap<String, Object>>() {
-            });
-            attachments = (List<Map<String, String>>) data.get(ATTACHMENTS);
-            return super.createEvents(json, formDefinition, configuration);
-        } catch (IOException e) {
-            throw new EventBuilderException(e);
+    private static final ValueFormatter URL_FORMATTER = new ValueFormatter() {
+        @Override
+        public Object format(Object value, Map<String, Object> submission) throws EventBuilderException {
+            return formatUrl((String) value, (List<Map<String, String>>) submission.get(ATTACHMENTS));
         }
-    }
+    };
 
+    private static final ValueFormatter DATE_TIME_FORMATTER = new ValueFormatter() {
+        @Override
+        public Object format(Object value, Map<String, Object> submission) {
+            return EventBuilderUtils.formatDateTime((String) value);
+        }
+    };
 
-    protected Object formatValue(String type, Object value) throws EventBuilderException {
+    @Override
+    protected ValueFormatter getFormatter(String type) {
 
         switch (type) {
             case FieldTypeConstants.SELECT:
-                return EventBuilderUtils.formatStringList(value);
+                return SELECT_FORMATTER;
 
             case FieldTypeConstants.BINARY:
-                return formatUrl((String) value);
+                return URL_FORMATTER;
 
             case FieldTypeConstants.REPEAT_GROUP:
-                return EventBuilderUtils.formatAsJson(value);
+                return JSON_FORMATTER;
 
             case FieldTypeConstants.DATE_TIME:
-                return EventBuilderUtils.formatDateTime((String) value);
+                return DATE_TIME_FORMATTER;
 
             default:
-                return value;
+                return IDENTITY_FORMATTER;
         }
     }
 
+    private static Object formatUrl(String value, List<Map<String, String>> attachments) throws EventBuilderException {
+        if (attachments != null) {
+            for (Map<String, String> attachment : attachments) {
+                String filename = attachment.get(FILENAME);
+                filename = filename.substring(filename.lastIndexOf('/') + 1);
 
-
-
-    private Object formatUrl(String value) throws EventBuilderException {
-        if (value == null) {
-            return null;
-        }
-
-        for (Map<String, String> attachment : attachments) {
-            String filename = attachment.get(FILENAME);
-            filename = filename.substring(filename.lastIndexOf('/') + 1);
-
-            if (filename.equals(value)) {
-                return attachment.get(DOWNLOAD_URL);
+                if (filename.equals(value)) {
+                    return attachment.get(DOWNLOAD_URL);
+                }
             }
         }
         throw new EventBuilderException("Error constructing media url:" + value);
@@ -83,8 +77,7 @@ public class EventBuilderOna extends AbstractEventBuilder implements EventBuilde
     protected Map<String, Object> getData(String json) throws EventBuilderException {
 
         try {
-            return new ObjectMapper().readValue(json, new TypeReference<HashMap<String, Object>>() {
-            });
+            return DATA_READER.readValue(json);
         } catch (IOException e) {
             throw new EventBuilderException(e);
         }
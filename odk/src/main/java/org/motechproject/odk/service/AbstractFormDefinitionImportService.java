@@ -44,6 +44,7 @@ public abstract class AbstractFormDefinitionImportService implements FormDefinit
     private HttpClient client;
     private TasksService tasksService;
     private FormDefinitionService formDefinitionService;
+    private FormEventPlanService formEventPlanService;
 
     @Autowired
     public AbstractFormDefinitionImportService(HttpClientBuilderFactory httpClientBuilderFactory, TasksService tasksService, FormDefinitionService formDefinitionService) {
@@ -158,6 +159,7 @@ public abstract class AbstractFormDefinitionImportService implements FormDefinit
         for (FormDefinition formDefinition : formDefinitions) {
             formDefinitionService.create(formDefinition);
         }
+        formEventPlanService.invalidate(configName);
     }
 
 
@@ -181,4 +183,9 @@ public abstract class AbstractFormDefinitionImportService implements FormDefinit
         return client;
     }
 
+    @Autowired
+    public void setFormEventPlanService(FormEventPlanService formEventPlanService) {
+        this.formEventPlanService = formEventPlanService;
+    }
+
 }
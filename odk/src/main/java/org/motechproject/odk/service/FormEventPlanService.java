@@ -0,0 +1,29 @@
+package org.motechproject.odk.service;
+
+import org.motechproject.odk.domain.Configuration;
+import org.motechproject.odk.event.builder.FormEventPlan;
+import org.motechproject.odk.exception.ConfigurationTypeException;
+
+/**
+ * Service providing the {@link FormEventPlan}s used to build the events for received form instances. Plans are
+ * compiled once from the form definitions and cached until the form definitions of the configuration are imported
+ * again or the configuration changes.
+ */
+public interface FormEventPlanService {
+
+    /**
+     * Returns the plan for the form with a particular title that is associated with a configuration, compiling it
+     * from the form definition if it is not cached.
+     * @param configuration {@link Configuration}
+     * @param formTitle The title of the form.
+     * @return {@link FormEventPlan}, or null if the form definition does not exist
+     * @throws ConfigurationTypeException If there is no event builder for the type of the configuration.
+     */
+    FormEventPlan getPlan(Configuration configuration, String formTitle) throws ConfigurationTypeException;
+
+    /**
+     * Discards the cached plans of all the forms associated with a configuration.
+     * @param configName The name of the configuration
+     */
+    void invalidate(String configName);
+}
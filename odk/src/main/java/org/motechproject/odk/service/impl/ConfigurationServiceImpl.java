@@ -7,6 +7,7 @@ import org.apache.commons.io.IOUtils;
 import org.motechproject.odk.domain.Configuration;
 import org.motechproject.odk.domain.Settings;
 import org.motechproject.odk.service.ConfigurationService;
+import org.motechproject.odk.service.FormEventPlanService;
 import org.motechproject.config.SettingsFacade;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
@@ -25,6 +26,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     private static final String CONFIG_FILE_NAME = "settings.json";
     private SettingsFacade settingsFacade;
     private Settings settings;
+    private FormEventPlanService formEventPlanService;
 
     @Autowired
     public ConfigurationServiceImpl(SettingsFacade settingsFacade) {
@@ -53,6 +55,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
             settings.getConfigurations().add(configuration);
         }
         updateSettings();
+        formEventPlanService.invalidate(configuration.getName());
     }
 
     @Override
@@ -61,6 +64,7 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         if (configuration != null) {
             settings.getConfigurations().remove(configuration);
             updateSettings();
+            formEventPlanService.invalidate(configName);
         }
     }
 
@@ -69,6 +73,11 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         return settings.getConfigurations();
     }
 
+    @Autowired
+    public void setFormEventPlanService(FormEventPlanService formEventPlanService) {
+        this.formEventPlanService = formEventPlanService;
+    }
+
     private synchronized void loadSettings() {
         try (InputStream is = settingsFacade.getRawConfig(CONFIG_FILE_NAME)) {
             String jsonText = IOUtils.toString(is);
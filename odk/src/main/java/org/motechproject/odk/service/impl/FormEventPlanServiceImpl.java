@@ -0,0 +1,59 @@
+package org.motechproject.odk.service.impl;
+
+import org.motechproject.odk.domain.Configuration;
+import org.motechproject.odk.domain.FormDefinition;
+import org.motechproject.odk.event.builder.FormEventPlan;
+import org.motechproject.odk.event.factory.FormEventBuilderFactory;
+import org.motechproject.odk.exception.ConfigurationTypeException;
+import org.motechproject.odk.service.FormDefinitionService;
+import org.motechproject.odk.service.FormEventPlanService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Implementation of {@link FormEventPlanService}. Plans are cached per configuration, so that re-importing the form
+ * definitions of a configuration discards all of its plans at once. Cached plans are returned without locking, only
+ * compiling a missing plan is synchronized with the invalidation.
+ */
+@Service("odkFormEventPlanService")
+public class FormEventPlanServiceImpl implements FormEventPlanService {
+
+    private final ConcurrentMap<String, ConcurrentMap<String, FormEventPlan>> plans = new ConcurrentHashMap<>();
+
+    @Autowired
+    private FormDefinitionService formDefinitionService;
+
+    @Override
+    public FormEventPlan getPlan(Configuration configuration, String formTitle) throws ConfigurationTypeException {
+        ConcurrentMap<String, FormEventPlan> configurationPlans = plans.get(configuration.getName());
+        FormEventPlan plan = (configurationPlans == null) ? null : configurationPlans.get(formTitle);
+        return (plan == null) ? compile(configuration, formTitle) : plan;
+    }
+
+    @Override
+    public synchronized void invalidate(String configName) {
+        plans.remove(configName);
+    }
+
+    private synchronized FormEventPlan compile(Configuration configuration, String formTitle) throws ConfigurationTypeException {
+        ConcurrentMap<String, FormEventPlan> configurationPlans = plans.get(configuration.getName());
+        if (configurationPlans == null) {
+            configurationPlans = new ConcurrentHashMap<>();
+            plans.put(configuration.getName(), configurationPlans);
+        }
+
+        FormEventPlan plan = configurationPlans.get(formTitle);
+        if (plan == null) {
+            FormDefinition formDefinition = formDefinitionService.findByConfigurationNameAndTitle(configuration.getName(), formTitle);
+            if (formDefinition == null) {
+                return null;
+            }
+            plan = new FormEventBuilderFactory().getBuilder(configuration.getType()).compile(formDefinition, configuration);
+            configurationPlans.put(formTitle, plan);
+        }
+        return plan;
+    }
+}
@@ -2,6 +2,7 @@ package org.motechproject.odk.util;
 
 import org.apache.commons.lang.StringUtils;
 import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.ObjectWriter;
 import org.motechproject.odk.exception.EventBuilderException;
 
 import java.io.IOException;
@@ -15,6 +16,7 @@ public final class EventBuilderUtils {
 
     private static final int DATE_TIME_STRING_LENGTH = 29;
     private static final String GMT_OFFSET = ".000-00:00";
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writer();
 
     private EventBuilderUtils() {
     }
@@ -47,7 +49,7 @@ public final class EventBuilderUtils {
             return null;
         }
         try {
-            return new ObjectMapper().writeValueAsString(value);
+            return JSON_WRITER.writeValueAsString(value);
         } catch (IOException e) {
             throw new EventBuilderException("Unable to format value as JSON", e);
         }
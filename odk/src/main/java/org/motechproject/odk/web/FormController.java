@@ -4,12 +4,10 @@ package org.motechproject.odk.web;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
 import org.motechproject.odk.domain.Configuration;
-import org.motechproject.odk.domain.FormDefinition;
-import org.motechproject.odk.event.builder.EventBuilder;
+import org.motechproject.odk.event.builder.FormEventPlan;
 import org.motechproject.odk.event.builder.impl.FailureEventBuilder;
-import org.motechproject.odk.event.factory.FormEventBuilderFactory;
-import org.motechproject.odk.service.FormDefinitionService;
 import org.motechproject.odk.service.ConfigurationService;
+import org.motechproject.odk.service.FormEventPlanService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,7 +42,7 @@ public class FormController {
     private ConfigurationService configurationService;
 
     @Autowired
-    private FormDefinitionService formDefinitionService;
+    private FormEventPlanService formEventPlanService;
 
     @Autowired
     private EventRelay eventRelay;
@@ -62,25 +60,26 @@ public class FormController {
         LOGGER.debug(RECEIVED_FORM + form + " " + CONFIGURATION + config);
 
         Configuration configuration = configurationService.getConfigByName(config);
-        FormDefinition formDefinition = formDefinitionService.findByConfigurationNameAndTitle(config, form);
 
         if (configuration == null) {
             LOGGER.error(CONFIGURATION + config + DOES_NOT_EXIST);
             publishFailureEvent(CONFIGURATION + " " + config + DOES_NOT_EXIST, null, config, form, body);
-
-        } else if (formDefinition == null) {
-            LOGGER.error(FORM + form + FORM);
-            publishFailureEvent(FORM + form + FORM, null, config, form, body);
-
         } else {
-            publishEvents(body, configuration, formDefinition);
+            publishEvents(body, configuration, form);
         }
     }
 
-    private void publishEvents(String body, Configuration configuration, FormDefinition formDefinition) {
+    private void publishEvents(String body, Configuration configuration, String form) {
         try {
-            EventBuilder builder = new FormEventBuilderFactory().getBuilder(configuration.getType());
-            List<MotechEvent> events = builder.createEvents(body, formDefinition, configuration);
+            FormEventPlan plan = formEventPlanService.getPlan(configuration, form);
+
+            if (plan == null) {
+                LOGGER.error(FORM + form + DOES_NOT_EXIST);
+                publishFailureEvent(FORM + form + DOES_NOT_EXIST, null, configuration.getName(), form, body);
+                return;
+            }
+
+            List<MotechEvent> events = plan.createEvents(body);
 
             for (MotechEvent event : events) {
                 LOGGER.debug(PUBLISHING_EVENT + event.getSubject());
@@ -89,7 +88,7 @@ public class FormController {
 
         } catch (Exception e) {
             LOGGER.error(PUBLISHING_FAILURE + e.toString());
-            publishFailureEvent(ERROR_JSON, e.toString(), configuration.getName(), formDefinition.getTitle(), body);
+            publishFailureEvent(ERROR_JSON, e.toString(), configuration.getName(), form, body);
         }
     }
 
@@ -9,11 +9,14 @@ import org.motechproject.odk.domain.Configuration;
 import org.motechproject.odk.domain.FormDefinition;
 import org.motechproject.odk.domain.FormElement;
 import org.motechproject.odk.event.builder.EventBuilder;
+import org.motechproject.odk.event.builder.FormEventPlan;
+import org.motechproject.odk.exception.EventBuilderException;
 import org.motechproject.odk.parser.impl.XformParserODK;
 
 import java.io.File;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -113,6 +116,37 @@ public class EventBuilderOdkTest {
 
     }
 
+    @Test
+    public void testPlanIsReusedForFormInstances() throws Exception {
+        FormEventPlan plan = new EventBuilderOna().compile(formDefinition, configuration);
+
+        List<MotechEvent> first = plan.createEvents(json);
+        List<MotechEvent> second = plan.createEvents(json);
+
+        assertEquals(7, first.size());
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getSubject(), second.get(i).getSubject());
+            assertEquals(first.get(i).getParameters(), second.get(i).getParameters());
+        }
+    }
+
+    @Test
+    public void testOdkDataIsReadFromFirstFormInstance() throws Exception {
+        String publication = "{\"token\":\"\",\"formId\":\"widgets\",\"extra\":{\"data\":[]}," +
+                "\"data\":[{\"my_string\":\"string\",\"my_group\":[{\"my_int\":6}]},{\"my_string\":\"other\"}]}";
+
+        Map<String, Object> data = new EventBuilderODK().getData(publication);
+
+        assertEquals(2, data.size());
+        assertEquals("string", data.get("my_string"));
+    }
+
+    @Test(expected = EventBuilderException.class)
+    public void testOdkPublicationWithoutData() throws Exception {
+        new EventBuilderODK().getData("{\"token\":\"\",\"data\":[]}");
+    }
+
 
     private void alterFormDef(FormDefinition formDefinition) {
         List<FormElement> formElements = formDefinition.getFormElements();
@@ -0,0 +1,80 @@
+package org.motechproject.odk.service.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.motechproject.odk.domain.Configuration;
+import org.motechproject.odk.domain.ConfigurationType;
+import org.motechproject.odk.domain.FormDefinition;
+import org.motechproject.odk.domain.FormElement;
+import org.motechproject.odk.event.builder.FormEventPlan;
+import org.motechproject.odk.service.FormDefinitionService;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class FormEventPlanServiceImplTest {
+
+    private static final String CONFIG_NAME = "configName";
+    private static final String FORM_TITLE = "formTitle";
+
+    @Mock
+    private FormDefinitionService formDefinitionService;
+
+    @InjectMocks
+    private FormEventPlanServiceImpl formEventPlanService;
+
+    private Configuration configuration;
+
+    @Before
+    public void setUp() {
+        formEventPlanService = new FormEventPlanServiceImpl();
+        initMocks(this);
+
+        configuration = new Configuration();
+        configuration.setName(CONFIG_NAME);
+        configuration.setType(ConfigurationType.ODK);
+
+        FormDefinition formDefinition = new FormDefinition(CONFIG_NAME);
+        formDefinition.setTitle(FORM_TITLE);
+        formDefinition.setFormElements(new ArrayList<FormElement>());
+        when(formDefinitionService.findByConfigurationNameAndTitle(CONFIG_NAME, FORM_TITLE)).thenReturn(formDefinition);
+    }
+
+    @Test
+    public void shouldCompileFormDefinitionOnce() throws Exception {
+        FormEventPlan plan = formEventPlanService.getPlan(configuration, FORM_TITLE);
+
+        assertEquals(CONFIG_NAME, plan.getConfigurationName());
+        assertEquals(FORM_TITLE, plan.getFormTitle());
+        assertSame(plan, formEventPlanService.getPlan(configuration, FORM_TITLE));
+        verify(formDefinitionService).findByConfigurationNameAndTitle(CONFIG_NAME, FORM_TITLE);
+    }
+
+    @Test
+    public void shouldCompileFormDefinitionAgainAfterInvalidation() throws Exception {
+        FormEventPlan plan = formEventPlanService.getPlan(configuration, FORM_TITLE);
+
+        formEventPlanService.invalidate(CONFIG_NAME);
+
+        assertNotSame(plan, formEventPlanService.getPlan(configuration, FORM_TITLE));
+        verify(formDefinitionService, times(2)).findByConfigurationNameAndTitle(CONFIG_NAME, FORM_TITLE);
+    }
+
+    @Test
+    public void shouldNotCacheMissingFormDefinitions() throws Exception {
+        assertNull(formEventPlanService.getPlan(configuration, "missing"));
+        assertNull(formEventPlanService.getPlan(configuration, "missing"));
+
+        verify(formDefinitionService, times(2)).findByConfigurationNameAndTitle(CONFIG_NAME, "missing");
+    }
+}
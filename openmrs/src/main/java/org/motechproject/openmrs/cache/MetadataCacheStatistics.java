@@ -0,0 +1,39 @@
+package org.motechproject.openmrs.cache;
+
+/**
+ * The number of lookups of a single {@link MetadataType} answered by the {@link OpenMRSMetadataCache} and the number of
+ * lookups which had to be sent to the OpenMRS server.
+ */
+public class MetadataCacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+
+    public MetadataCacheStatistics(long hitCount, long missCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of the lookups answered by the cache to all lookups, 1.0 if there were no lookups.
+     *
+     * @return the hit rate
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MetadataCacheStatistics{hitCount=%d, missCount=%d}", hitCount, missCount);
+    }
+}
@@ -0,0 +1,48 @@
+package org.motechproject.openmrs.cache;
+
+/**
+ * The kinds of OpenMRS reference data held by the {@link OpenMRSMetadataCache}. Each kind describes both the cached
+ * entity and the key it is looked up by.
+ */
+public enum MetadataType {
+
+    /**
+     * Concepts, by their UUIDs.
+     */
+    CONCEPT,
+
+    /**
+     * UUIDs of concepts, by the names of the concepts.
+     */
+    CONCEPT_UUID_BY_NAME,
+
+    /**
+     * Locations, by their UUIDs.
+     */
+    LOCATION,
+
+    /**
+     * Lists of locations, by the names of the locations.
+     */
+    LOCATIONS_BY_NAME,
+
+    /**
+     * Providers, by their UUIDs.
+     */
+    PROVIDER,
+
+    /**
+     * Forms, by their UUIDs.
+     */
+    FORM,
+
+    /**
+     * Encounter types, by their UUIDs.
+     */
+    ENCOUNTER_TYPE,
+
+    /**
+     * Person attribute types, by their UUIDs.
+     */
+    PERSON_ATTRIBUTE_TYPE
+}
@@ -0,0 +1,297 @@
+package org.motechproject.openmrs.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.annotations.MotechListener;
+import org.motechproject.modules.commons.concurrent.ExecutorUtil;
+import org.motechproject.openmrs.config.Config;
+import org.motechproject.openmrs.domain.Location;
+import org.motechproject.openmrs.resource.LocationResource;
+import org.motechproject.openmrs.service.OpenMRSConfigService;
+import org.motechproject.openmrs.tasks.constants.EventSubjects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache of the OpenMRS reference data, like concepts, locations or providers, shared by the OpenMRS
+ * services. Entries are kept separately for every configuration and expire after a while, so changes made directly on
+ * the OpenMRS server are eventually picked up. Changes made through the module invalidate the affected entries right
+ * away. The locations of every configuration are loaded in the background when the configurations are loaded or
+ * changed.
+ */
+@Component("openMRSMetadataCache")
+public class OpenMRSMetadataCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenMRSMetadataCache.class);
+
+    static final long MAXIMUM_SIZE = 10000;
+    static final long EXPIRE_AFTER_WRITE_MINUTES = 30;
+
+    private final Cache<Key, Object> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    private final Map<MetadataType, AtomicLong> hitCounts = new EnumMap<>(MetadataType.class);
+    private final Map<MetadataType, AtomicLong> missCounts = new EnumMap<>(MetadataType.class);
+
+    private OpenMRSConfigService configService;
+    private LocationResource locationResource;
+
+    private ExecutorService warmUpExecutor;
+
+    @Autowired
+    public OpenMRSMetadataCache(OpenMRSConfigService configService, LocationResource locationResource) {
+        this.configService = configService;
+        this.locationResource = locationResource;
+
+        for (MetadataType type : MetadataType.values()) {
+            hitCounts.put(type, new AtomicLong());
+            missCounts.put(type, new AtomicLong());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        warmUpExecutor = Executors.newSingleThreadExecutor(
+                ExecutorUtil.daemonThreadFactory("openmrs-metadata-warm-up"));
+        scheduleWarmUp();
+    }
+
+    @PreDestroy
+    public void stop() {
+        warmUpExecutor.shutdownNow();
+    }
+
+    /**
+     * Drops all entries when the configurations change, since the server of a configuration might have changed, and
+     * loads the reference data of the new configurations.
+     *
+     * @param event  the configuration change event
+     */
+    @MotechListener(subjects = EventSubjects.CONFIG_CHANGE_EVENT)
+    public void handleConfigChange(MotechEvent event) {
+        invalidateAll();
+        scheduleWarmUp();
+    }
+
+    /**
+     * Returns the cached entry, or loads it from the OpenMRS server using the given {@code loader} and caches it, if
+     * there is no such entry. Missing entities, for which the loader returns null, are not cached. Exceptions thrown
+     * by the loader are passed on to the caller.
+     *
+     * @param configName  the name of the configuration
+     * @param type  the type of the entry
+     * @param key  the key of the entry, for example the UUID of the entity
+     * @param loader  the loader used to retrieve the entry from the OpenMRS server
+     * @param <T>  the type of the entry
+     * @return the cached or loaded entry, null if the entity does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String configName, MetadataType type, String key, Loader<T> loader) {
+        Key cacheKey = new Key(configName, type, key);
+        T value = (T) cache.getIfPresent(cacheKey);
+
+        if (value != null) {
+            hitCounts.get(type).incrementAndGet();
+            return value;
+        }
+
+        missCounts.get(type).incrementAndGet();
+        value = loader.load();
+        if (value != null) {
+            cache.put(cacheKey, value);
+        }
+
+        return value;
+    }
+
+    /**
+     * Caches the given entry, for example an entity that was just created.
+     *
+     * @param configName  the name of the configuration
+     * @param type  the type of the entry
+     * @param key  the key of the entry
+     * @param value  the entry, ignored if null
+     */
+    public void put(String configName, MetadataType type, String key, Object value) {
+        if (key != null && value != null) {
+            cache.put(new Key(configName, type, key), value);
+        }
+    }
+
+    /**
+     * Removes a single entry, for example after the entity was updated or deleted.
+     *
+     * @param configName  the name of the configuration
+     * @param type  the type of the entry
+     * @param key  the key of the entry
+     */
+    public void invalidate(String configName, MetadataType type, String key) {
+        cache.invalidate(new Key(configName, type, key));
+    }
+
+    /**
+     * Removes all entries of the given type of a single configuration. Used when it is not known which keys point
+     * to a changed entity, for example after the name of a concept was changed.
+     *
+     * @param configName  the name of the configuration
+     * @param type  the type of the entries
+     */
+    public void invalidate(String configName, MetadataType type) {
+        Iterator<Key> keys = cache.asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            if (key.type == type && Objects.equals(key.configName, configName)) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all entries of all configurations.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Loads the reference data of the given configuration which can be retrieved with a single request, so the first
+     * lookups made by tasks do not have to wait for the OpenMRS server.
+     *
+     * @param config  the configuration
+     */
+    public void warmUp(Config config) {
+        List<Location> locations = locationResource.getAllLocations(config).getResults();
+        Map<String, List<Location>> locationsByName = new HashMap<>();
+
+        for (Location location : locations) {
+            put(config.getName(), MetadataType.LOCATION, location.getUuid(), location);
+
+            if (location.getName() != null) {
+                if (!locationsByName.containsKey(location.getName())) {
+                    locationsByName.put(location.getName(), new ArrayList<Location>());
+                }
+                locationsByName.get(location.getName()).add(location);
+            }
+        }
+
+        for (Map.Entry<String, List<Location>> entry : locationsByName.entrySet()) {
+            put(config.getName(), MetadataType.LOCATIONS_BY_NAME, entry.getKey(), entry.getValue());
+        }
+
+        LOGGER.debug("Loaded {} locations of configuration {}", locations.size(), config.getName());
+    }
+
+    /**
+     * Returns the number of lookups of the given type answered by the cache and sent to the OpenMRS server, since
+     * the module was started.
+     *
+     * @param type  the type of the entries
+     * @return the statistics of the given type
+     */
+    public MetadataCacheStatistics getStatistics(MetadataType type) {
+        return new MetadataCacheStatistics(hitCounts.get(type).get(), missCounts.get(type).get());
+    }
+
+    /**
+     * Returns the statistics of all types of entries, since the module was started.
+     *
+     * @return the statistics, mapped by the type of the entries
+     */
+    public Map<MetadataType, MetadataCacheStatistics> getStatistics() {
+        Map<MetadataType, MetadataCacheStatistics> statistics = new EnumMap<>(MetadataType.class);
+        for (MetadataType type : MetadataType.values()) {
+            statistics.put(type, getStatistics(type));
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     *
+     * @return the number of entries
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    private void scheduleWarmUp() {
+        warmUpExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Config config : configService.getConfigs().getConfigs()) {
+                    try {
+                        warmUp(config);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Unable to load the reference data of configuration {}: {}", config.getName(),
+                                e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Retrieves a single entry from the OpenMRS server, when it is not cached.
+     *
+     * @param <T>  the type of the entry
+     */
+    public interface Loader<T> {
+
+        /**
+         * Retrieves the entry from the OpenMRS server.
+         *
+         * @return the entry, null if the entity does not exist
+         */
+        T load();
+    }
+
+    private static final class Key {
+
+        private final String configName;
+        private final MetadataType type;
+        private final String key;
+
+        private Key(String configName, MetadataType type, String key) {
+            this.configName = configName;
+            this.type = type;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return type == other.type && Objects.equals(configName, other.configName) &&
+                    Objects.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(configName, type, key);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.motechproject.openmrs.domain;
+
+import java.util.Objects;
+
+/**
+ * Stores the result of creating a single {@link Encounter} submitted in a batch. Either the created encounter or the
+ * reason of the failure is set.
+ */
+public class EncounterBatchResult {
+
+    private int index;
+    private Encounter encounter;
+    private String error;
+
+    public EncounterBatchResult() {
+    }
+
+    public EncounterBatchResult(int index, Encounter encounter, String error) {
+        this.index = index;
+        this.encounter = encounter;
+        this.error = error;
+    }
+
+    /**
+     * Creates the result of a successfully created encounter.
+     *
+     * @param index  the position of the encounter in the batch
+     * @param encounter  the created encounter
+     * @return the result
+     */
+    public static EncounterBatchResult created(int index, Encounter encounter) {
+        return new EncounterBatchResult(index, encounter, null);
+    }
+
+    /**
+     * Creates the result of an encounter which could not be created.
+     *
+     * @param index  the position of the encounter in the batch
+     * @param error  the reason of the failure
+     * @return the result
+     */
+    public static EncounterBatchResult failed(int index, String error) {
+        return new EncounterBatchResult(index, null, error);
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Encounter getEncounter() {
+        return encounter;
+    }
+
+    public void setEncounter(Encounter encounter) {
+        this.encounter = encounter;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, encounter, error);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof EncounterBatchResult)) {
+            return false;
+        }
+
+        EncounterBatchResult other = (EncounterBatchResult) o;
+
+        return index == other.index && Objects.equals(encounter, other.encounter) && Objects.equals(error, other.error);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EncounterBatchResult{index=%d, encounter=%s, error=%s}", index,
+                encounter == null ? null : encounter.getUuid(), error);
+    }
+}
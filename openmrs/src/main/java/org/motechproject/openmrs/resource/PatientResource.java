@@ -32,6 +32,18 @@ public interface PatientResource {
      */
     PatientListResult queryForPatient(Config config, String term);
 
+    /**
+     * Returns {@code PatientListResult} of all patients matching given term. Unlike
+     * {@link #queryForPatient(Config, String)}, the patients are returned along with their identifiers and person
+     * details, so there is no need to fetch them one by one. The given {@code config} will be used while performing
+     * this action.
+     *
+     * @param config  the configuration to be used while performing this action
+     * @param term  the term to be matched
+     * @return  the list of matching patients
+     */
+    PatientListResult searchForPatients(Config config, String term);
+
     /**
      * Gets patient by its UUID. The given {@code config} will be used while performing this action.
      *
@@ -1,8 +1,9 @@
 package org.motechproject.openmrs.resource.impl;
 
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.httpclient.HttpClient;
 import org.motechproject.openmrs.config.Config;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
+import org.motechproject.openmrs.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
@@ -10,25 +11,38 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestOperations;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Serves as a base for all implementation of the resource interfaces. Provides method for basic REST operations with
- * the OpenMRS servers.
+ * the OpenMRS servers. Requests of a single configuration share an OpenMRS session, see {@link OpenMRSSessions}.
  */
 public abstract class BaseResource {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseResource.class);
 
+    private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+
     private RestOperations restOperations;
-    private HttpClient httpClient;
+    private OpenMRSSessions sessions;
 
-    protected BaseResource(RestOperations restOperations, HttpClient httpClient) {
+    protected BaseResource(RestOperations restOperations, OpenMRSSessions sessions) {
         this.restOperations = restOperations;
-        this.httpClient = httpClient;
+        this.sessions = sessions;
     }
 
     /**
@@ -45,6 +59,60 @@ public abstract class BaseResource {
         return responseJson;
     }
 
+    /**
+     * Sends a get request to the OpenMRS server using the given {@code config} and reads the response into an object
+     * of the given {@code type}. Unlike {@link #getJson(Config, String, Object...)}, the response is parsed as it is
+     * received, without buffering it as a {@code String}, which makes it the better choice for large lists.
+     *
+     * @param config  the configuration to be used
+     * @param type  the type of the object the response is read into
+     * @param path  the path to the resource
+     * @param params  the path parameters
+     * @param <T>  the type of the object the response is read into
+     * @return the read object
+     */
+    protected <T> T getAndReadJson(Config config, Type type, String path, Object... params) {
+        return getAndReadJson(config, type, new HashMap<Type, Object>(), path, params);
+    }
+
+    /**
+     * Sends a get request to the OpenMRS server using the given {@code config} and reads the response into an object
+     * of the given {@code type}, using the given {@code adapters}. The response is parsed as it is received.
+     *
+     * @param config  the configuration to be used
+     * @param type  the type of the object the response is read into
+     * @param adapters  custom adapters to use for deserialization
+     * @param path  the path to the resource
+     * @param params  the path parameters
+     * @param <T>  the type of the object the response is read into
+     * @return the read object
+     */
+    protected <T> T getAndReadJson(final Config config, final Type type, final Map<Type, Object> adapters, String path,
+                                   Object... params) {
+        final HttpHeaders headers = prepareHeaders(config, new HttpHeaders());
+
+        return restOperations.execute(buildUrl(config, path, params), HttpMethod.GET, new RequestCallback() {
+            @Override
+            public void doWithRequest(ClientHttpRequest request) {
+                request.getHeaders().putAll(headers);
+            }
+        }, new ResponseExtractor<T>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public T extractData(ClientHttpResponse response) throws IOException {
+                sessions.updateSession(config, response.getHeaders());
+
+                MediaType contentType = response.getHeaders().getContentType();
+                Charset charset = contentType != null && contentType.getCharSet() != null ?
+                        contentType.getCharSet() : DEFAULT_CHARSET;
+
+                try (Reader reader = new InputStreamReader(response.getBody(), charset)) {
+                    return (T) JsonUtils.readJsonWithAdapters(reader, type, adapters);
+                }
+            }
+        });
+    }
+
     /**
      * Sends a post request to the OpenMRS server using the given {@code config}.
      *
@@ -95,12 +163,21 @@ public abstract class BaseResource {
     }
 
     private ResponseEntity<String> exchange(Config config, URI url, HttpMethod method, String body, HttpHeaders headers) {
-        headers.add("Authorization", "Basic " + prepareCredentials(config));
+        ResponseEntity<String> response = restOperations.exchange(url, method,
+                new HttpEntity<>(body, prepareHeaders(config, headers)), String.class);
 
-        //Clear cookies to avoid SESSIONID mismatch
-        httpClient.getState().clearCookies();
+        if (response != null) {
+            sessions.updateSession(config, response.getHeaders());
+        }
 
-        return restOperations.exchange(url, method, new HttpEntity<>(body, headers), String.class);
+        return response;
+    }
+
+    private HttpHeaders prepareHeaders(Config config, HttpHeaders headers) {
+        // the credentials are sent along with the session cookie, so an expired session is replaced right away
+        headers.add("Authorization", "Basic " + prepareCredentials(config));
+        sessions.addSessionCookie(config, headers);
+        return headers;
     }
 
     private String prepareCredentials(Config config) {
@@ -2,10 +2,10 @@ package org.motechproject.openmrs.resource.impl;
 
 
 import org.apache.commons.collections.MapUtils;
-import org.apache.commons.httpclient.HttpClient;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.CohortQueryReport;
 import org.motechproject.openmrs.resource.CohortResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,8 +21,8 @@ public class CohortResourceImpl extends BaseResource implements CohortResource {
     private static final Logger LOGGER = LoggerFactory.getLogger(CohortResourceImpl.class);
 
     @Autowired
-    protected CohortResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    protected CohortResourceImpl(RestOperations restOperations, OpenMRSSessions sessions) {
+        super(restOperations, sessions);
     }
 
     @Override
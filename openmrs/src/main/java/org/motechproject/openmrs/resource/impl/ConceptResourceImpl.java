@@ -2,12 +2,12 @@ package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.lang.Validate;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Concept;
 import org.motechproject.openmrs.domain.ConceptListResult;
 import org.motechproject.openmrs.resource.ConceptResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -21,14 +21,13 @@ public class ConceptResourceImpl extends BaseResource implements ConceptResource
     private static final String GET_CONCEPTS_PATH = "/concept?v=full&limit={pageSize}&startIndex={startIndex}";
 
     @Autowired
-    public ConceptResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    public ConceptResourceImpl(RestOperations restOperations, OpenMRSSessions sessions) {
+        super(restOperations, sessions);
     }
 
     @Override
     public ConceptListResult queryForConceptsByName(Config config, String name) {
-        String responseJson = getJson(config, "/concept?v=full&q={conceptName}", name);
-        return (ConceptListResult) JsonUtils.readJson(responseJson, ConceptListResult.class);
+        return getAndReadJson(config, ConceptListResult.class, "/concept?v=full&q={conceptName}", name);
     }
 
     @Override
@@ -59,8 +58,7 @@ public class ConceptResourceImpl extends BaseResource implements ConceptResource
 
     @Override
     public ConceptListResult getAllConcepts(Config config) {
-        String responseJson = getJson(config, "/concept?v=full");
-        return (ConceptListResult) JsonUtils.readJson(responseJson, ConceptListResult.class);
+        return getAndReadJson(config, ConceptListResult.class, "/concept?v=full");
     }
 
     @Override
@@ -80,9 +78,7 @@ public class ConceptResourceImpl extends BaseResource implements ConceptResource
         Validate.isTrue(page > 0, "Page number must be a positive value!");
         Validate.isTrue(pageSize > 0, "Page size must be a positive value!");
 
-        String json = getJson(config, GET_CONCEPTS_PATH, pageSize, (page - 1) * pageSize);
-
-        return (ConceptListResult) JsonUtils.readJson(json, ConceptListResult.class);
+        return getAndReadJson(config, ConceptListResult.class, GET_CONCEPTS_PATH, pageSize, (page - 1) * pageSize);
     }
 
     private Gson buildGson(boolean excludeFieldsWithoutExposeAnnotation) {
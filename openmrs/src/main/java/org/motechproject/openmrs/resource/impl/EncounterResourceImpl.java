@@ -6,13 +6,13 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import org.apache.commons.httpclient.HttpClient;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Encounter;
 import org.motechproject.openmrs.domain.EncounterListResult;
 import org.motechproject.openmrs.domain.EncounterType;
 import org.motechproject.openmrs.domain.Observation;
 import org.motechproject.openmrs.resource.EncounterResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -27,8 +27,8 @@ public class EncounterResourceImpl extends BaseResource implements EncounterReso
     private static final String OPENMRS_V19 = "1.9";
 
     @Autowired
-    public EncounterResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    public EncounterResourceImpl(RestOperations restOperations, OpenMRSSessions sessions) {
+        super(restOperations, sessions);
     }
 
     @Override
@@ -1,9 +1,9 @@
 package org.motechproject.openmrs.resource.impl;
 
-import org.apache.commons.httpclient.HttpClient;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Form;
 import org.motechproject.openmrs.resource.FormResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -13,8 +13,8 @@ import org.springframework.web.client.RestOperations;
 public class FormResourceImpl extends BaseResource implements FormResource {
 
     @Autowired
-    public FormResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    public FormResourceImpl(RestOperations restOperations, OpenMRSSessions sessions) {
+        super(restOperations, sessions);
     }
 
     @Override
@@ -1,9 +1,9 @@
 package org.motechproject.openmrs.resource.impl;
 
-import org.apache.commons.httpclient.HttpClient;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.GeneratedIdentifier;
 import org.motechproject.openmrs.resource.GeneratedIdentifierResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestOperations;
@@ -12,8 +12,8 @@ import org.springframework.web.client.RestOperations;
 public class GeneratedIdentifierResourceImpl extends BaseResource implements GeneratedIdentifierResource {
 
     @Autowired
-    public GeneratedIdentifierResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    public GeneratedIdentifierResourceImpl(RestOperations restOperations, OpenMRSSessions sessions) {
+        super(restOperations, sessions);
     }
 
     @Override
@@ -2,12 +2,12 @@ package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.lang.Validate;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Location;
 import org.motechproject.openmrs.domain.LocationListResult;
 import org.motechproject.openmrs.resource.LocationResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -19,14 +19,13 @@ public class LocationResourceImpl extends BaseResource implements LocationResour
     private static final String GET_LOCATIONS_PATH = "/location?v=full&limit={pageSize}&startIndex={startIndex}";
 
     @Autowired
-    public LocationResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    public LocationResourceImpl(RestOperations restOperations, OpenMRSSessions sessions) {
+        super(restOperations, sessions);
     }
 
     @Override
     public LocationListResult getAllLocations(Config config) {
-        String responseJson = getJson(config, "/location?v=full");
-        return (LocationListResult) JsonUtils.readJson(responseJson, LocationListResult.class);
+        return getAndReadJson(config, LocationListResult.class, "/location?v=full");
     }
 
     @Override
@@ -34,15 +33,12 @@ public class LocationResourceImpl extends BaseResource implements LocationResour
         Validate.isTrue(page > 0, "Page number must be a positive value!");
         Validate.isTrue(pageSize > 0, "Page size must be a positive value!");
 
-        String responseJson = getJson(config, GET_LOCATIONS_PATH, pageSize, (page - 1) * pageSize);
-
-        return (LocationListResult) JsonUtils.readJson(responseJson, LocationListResult.class);
+        return getAndReadJson(config, LocationListResult.class, GET_LOCATIONS_PATH, pageSize, (page - 1) * pageSize);
     }
 
     @Override
     public LocationListResult queryForLocationByName(Config config, String locationName) {
-        String responseJson = getJson(config, "/location?q={name}&v=full", locationName);
-        return (LocationListResult) JsonUtils.readJson(responseJson, LocationListResult.class);
+        return getAndReadJson(config, LocationListResult.class, "/location?q={name}&v=full", locationName);
     }
 
     @Override
@@ -2,7 +2,6 @@ package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.lang.StringUtils;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Concept;
@@ -10,6 +9,7 @@ import org.motechproject.openmrs.domain.Observation;
 import org.motechproject.openmrs.domain.ObservationListResult;
 import org.motechproject.openmrs.domain.Person;
 import org.motechproject.openmrs.resource.ObservationResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -23,14 +23,13 @@ import java.util.Map;
 public class ObservationResourceImpl extends BaseResource implements ObservationResource {
 
     @Autowired
-    public ObservationResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    public ObservationResourceImpl(RestOperations restOperations, OpenMRSSessions sessions) {
+        super(restOperations, sessions);
     }
 
     @Override
     public ObservationListResult queryForObservationsByPatientId(Config config, String uuid) {
-        String responseJson = getJson(config, "/obs?patient={uuid}&v=full", uuid);
-        return (ObservationListResult) JsonUtils.readJson(responseJson, ObservationListResult.class);
+        return getAndReadJson(config, ObservationListResult.class, "/obs?patient={uuid}&v=full", uuid);
     }
 
     @Override
@@ -1,10 +1,7 @@
 package org.motechproject.openmrs.resource.impl;
 
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.lang.StringUtils;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Attribute;
@@ -17,6 +14,7 @@ import org.motechproject.openmrs.domain.PatientIdentifierListResult;
 import org.motechproject.openmrs.domain.PatientListResult;
 import org.motechproject.openmrs.domain.Person;
 import org.motechproject.openmrs.resource.PatientResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -26,16 +24,34 @@ import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Component
 public class PatientResourceImpl extends BaseResource implements PatientResource {
 
-    private String motechIdTypeUuid;
-    private BiMap<String, String> identifierTypeUuidByName = HashBiMap.create();
+    /**
+     * The representation of patients returned by searches. It includes everything the full representation of a patient
+     * includes, apart from links and audit info of nested objects, so that search results need no further requests.
+     */
+    static final String SEARCH_REPRESENTATION = "custom:(uuid,display," +
+            "identifiers:(uuid,display,identifier,identifierType:(uuid,display,name),location:(uuid,display,name))," +
+            "person:(uuid,display,gender,age,birthdate,birthdateEstimated,dead,deathDate," +
+            "causeOfDeath:(uuid,display)," +
+            "preferredName:(uuid,display,givenName,middleName,familyName)," +
+            "names:(uuid,display,givenName,middleName,familyName)," +
+            "preferredAddress:(uuid,address1,address2,address3,address4,address5,address6,cityVillage,countyDistrict," +
+            "stateProvince,country,postalCode,latitude,longitude,startDate,endDate)," +
+            "addresses:(uuid,address1,address2,address3,address4,address5,address6,cityVillage,countyDistrict," +
+            "stateProvince,country,postalCode,latitude,longitude,startDate,endDate)," +
+            "attributes:(uuid,display,value,attributeType:(uuid,display,format))," +
+            "auditInfo))";
+
+    private final ConcurrentMap<String, IdentifierTypes> identifierTypesByConfig = new ConcurrentHashMap<>();
 
     @Autowired
-    public PatientResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    public PatientResourceImpl(RestOperations restOperations, OpenMRSSessions sessions) {
+        super(restOperations, sessions);
     }
 
     @Override
@@ -47,8 +63,14 @@ public class PatientResourceImpl extends BaseResource implements PatientResource
 
     @Override
     public PatientListResult queryForPatient(Config config, String motechId) {
-        String responseJson = getJson(config, "/patient?q={motechId}", motechId);
-        return (PatientListResult) JsonUtils.readJsonWithAdapters(responseJson, PatientListResult.class, createAttributeAdapter());
+        return getAndReadJson(config, PatientListResult.class, createAttributeAdapter(), "/patient?q={motechId}",
+                motechId);
+    }
+
+    @Override
+    public PatientListResult searchForPatients(Config config, String term) {
+        return getAndReadJson(config, PatientListResult.class, createAttributeAdapter(),
+                "/patient?q={term}&v=" + SEARCH_REPRESENTATION, term);
     }
 
     @Override
@@ -59,66 +81,42 @@ public class PatientResourceImpl extends BaseResource implements PatientResource
 
     @Override
     public String getMotechPatientIdentifierUuid(Config config) {
-        if (StringUtils.isNotEmpty(motechIdTypeUuid)) {
-            return motechIdTypeUuid;
-        }
+        String name = config.getMotechPatientIdentifierTypeName();
+        String uuid = getIdentifierTypes(config, false).uuidByName.get(name);
 
-        PatientIdentifierListResult result = getAllPatientIdentifierTypes(config);
-        String motechPatientIdentifierTypeName = config.getMotechPatientIdentifierTypeName();
-        for (IdentifierType type : result.getResults()) {
-            if (motechPatientIdentifierTypeName.equals(type.getName())) {
-                motechIdTypeUuid = type.getUuid();
-                break;
-            }
+        if (uuid == null) {
+            // the type might have been added on the server since the types were cached
+            uuid = getIdentifierTypes(config, true).uuidByName.get(name);
         }
 
-        return motechIdTypeUuid;
+        return uuid;
     }
 
     @Override
     public String getPatientIdentifierTypeNameByUuid(Config config, String identifierTypeUuid) {
-        // Firstly, we try to retrieve a name from the cache
-        String identifierTypeName = identifierTypeUuidByName.get(identifierTypeUuid);
-
-        if (identifierTypeName == null) {
-            PatientIdentifierListResult result = getAllPatientIdentifierTypes(config);
-            for (IdentifierType type : result.getResults()) {
-                if (StringUtils.equals(identifierTypeUuid, type.getUuid())) {
-                    if (isIdentifierTypeSupportedInMotech(config, type.getName())) {
-                        identifierTypeName = type.getName();
-                        // After retrieving an identifierType from an OpenMRS server, the uuid and name are stored in cache
-                        identifierTypeUuidByName.put(identifierTypeUuid, identifierTypeName);
-                    }
-
-                    break;
-                }
-            }
+        IdentifierTypes identifierTypes = getIdentifierTypes(config, false);
+
+        if (!identifierTypes.nameByUuid.containsKey(identifierTypeUuid)) {
+            identifierTypes = getIdentifierTypes(config, true);
         }
 
-        return identifierTypeName;
+        String identifierTypeName = identifierTypes.nameByUuid.get(identifierTypeUuid);
+        return isIdentifierTypeSupportedInMotech(config, identifierTypeName) ? identifierTypeName : null;
     }
 
     @Override
     public String getPatientIdentifierTypeUuidByName(Config config, String identifierTypeName) {
-        // Firstly, we try to retrieve a uuid from the cache
-        String identifierTypeUuid = identifierTypeUuidByName.inverse().get(identifierTypeName);
-
-        if (identifierTypeUuid == null) {
-            PatientIdentifierListResult result = getAllPatientIdentifierTypes(config);
-            for (IdentifierType type : result.getResults()) {
-                if (StringUtils.equals(identifierTypeName, type.getName())) {
-                    if (isIdentifierTypeSupportedInMotech(config, type.getName())) {
-                        identifierTypeUuid = type.getUuid();
-                        // After retrieving an identifierType from an OpenMRS server, the uuid and name are stored in cache
-                        identifierTypeUuidByName.put(identifierTypeUuid, identifierTypeName);
-                    }
-
-                    break;
-                }
-            }
+        if (!isIdentifierTypeSupportedInMotech(config, identifierTypeName)) {
+            return null;
+        }
+
+        IdentifierTypes identifierTypes = getIdentifierTypes(config, false);
+
+        if (!identifierTypes.uuidByName.containsKey(identifierTypeName)) {
+            identifierTypes = getIdentifierTypes(config, true);
         }
 
-        return identifierTypeUuid;
+        return identifierTypes.uuidByName.get(identifierTypeName);
     }
 
     @Override
@@ -164,7 +162,19 @@ public class PatientResourceImpl extends BaseResource implements PatientResource
     }
 
     private boolean isIdentifierTypeSupportedInMotech(Config config, String identifierTypeName) {
-        return config.getPatientIdentifierTypeNames().contains(identifierTypeName);
+        return identifierTypeName != null && config.getPatientIdentifierTypeNames().contains(identifierTypeName);
+    }
+
+    private IdentifierTypes getIdentifierTypes(Config config, boolean reload) {
+        IdentifierTypes identifierTypes = identifierTypesByConfig.get(config.getName());
+
+        // the cache is keyed by the name of the configuration, so it is dropped when the server of the config changes
+        if (reload || identifierTypes == null || !identifierTypes.isFor(config)) {
+            identifierTypes = new IdentifierTypes(config, getAllPatientIdentifierTypes(config).getResults());
+            identifierTypesByConfig.put(config.getName(), identifierTypes);
+        }
+
+        return identifierTypes;
     }
 
     private Gson buildGsonWithAdapters(boolean excludeFieldsWithoutExposeAnnotation) {
@@ -191,4 +201,29 @@ public class PatientResourceImpl extends BaseResource implements PatientResource
 
         return attributeAdapter;
     }
+
+    /**
+     * The patient identifier types of a single OpenMRS server, retrieved with a single request. Instances are
+     * immutable and replaced as a whole when the types are reloaded.
+     */
+    private static final class IdentifierTypes {
+
+        private final String baseUrl;
+        private final Map<String, String> nameByUuid = new HashMap<>();
+        private final Map<String, String> uuidByName = new HashMap<>();
+
+        private IdentifierTypes(Config config, List<IdentifierType> types) {
+            this.baseUrl = config.getOpenMrsUrl();
+            for (IdentifierType type : types) {
+                nameByUuid.put(type.getUuid(), type.getName());
+                if (!uuidByName.containsKey(type.getName())) {
+                    uuidByName.put(type.getName(), type.getUuid());
+                }
+            }
+        }
+
+        private boolean isFor(Config config) {
+            return StringUtils.equals(baseUrl, config.getOpenMrsUrl());
+        }
+    }
 }
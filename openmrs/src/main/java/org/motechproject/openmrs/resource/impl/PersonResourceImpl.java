@@ -2,7 +2,8 @@ package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import org.apache.commons.httpclient.HttpClient;
+import org.motechproject.openmrs.cache.MetadataType;
+import org.motechproject.openmrs.cache.OpenMRSMetadataCache;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Attribute;
 import org.motechproject.openmrs.domain.AttributeListResult;
@@ -10,6 +11,7 @@ import org.motechproject.openmrs.domain.AttributeTypeListResult;
 import org.motechproject.openmrs.domain.Concept;
 import org.motechproject.openmrs.domain.Person;
 import org.motechproject.openmrs.resource.PersonResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -24,9 +26,13 @@ import java.util.Map;
 @Component
 public class PersonResourceImpl extends BaseResource implements PersonResource {
 
+    private final OpenMRSMetadataCache metadataCache;
+
     @Autowired
-    public PersonResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    public PersonResourceImpl(RestOperations restOperations, OpenMRSSessions sessions,
+                              OpenMRSMetadataCache metadataCache) {
+        super(restOperations, sessions);
+        this.metadataCache = metadataCache;
     }
 
     @Override
@@ -103,13 +109,20 @@ public class PersonResourceImpl extends BaseResource implements PersonResource {
     }
 
     @Override
-    public void checkPersonAttributeTypes(Config config, Person person) {
+    public void checkPersonAttributeTypes(final Config config, Person person) {
         List<Attribute> checkedAttributes = new ArrayList<>();
 
         if (!person.getAttributes().isEmpty()) {
             for (Attribute attribute : person.getAttributes()) {
-                Attribute.AttributeType attributeType = queryPersonAttributeTypeByUuid(config,
-                        attribute.getAttributeType().getUuid());
+                final String attributeTypeUuid = attribute.getAttributeType().getUuid();
+                Attribute.AttributeType attributeType = metadataCache.get(config.getName(),
+                        MetadataType.PERSON_ATTRIBUTE_TYPE, attributeTypeUuid,
+                        new OpenMRSMetadataCache.Loader<Attribute.AttributeType>() {
+                            @Override
+                            public Attribute.AttributeType load() {
+                                return queryPersonAttributeTypeByUuid(config, attributeTypeUuid);
+                            }
+                        });
                 if (!attributeType.getFormat().contains("java.lang")) {
                     Attribute changedAttribute = new Attribute();
                     changedAttribute.setHydratedObject(attribute.getValue());
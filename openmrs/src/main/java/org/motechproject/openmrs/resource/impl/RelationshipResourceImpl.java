@@ -1,9 +1,9 @@
 package org.motechproject.openmrs.resource.impl;
 
-import org.apache.commons.httpclient.HttpClient;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.RelationshipListResult;
 import org.motechproject.openmrs.resource.RelationshipResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,8 +13,8 @@ import org.springframework.web.client.RestOperations;
 public class RelationshipResourceImpl extends BaseResource implements RelationshipResource {
 
     @Autowired
-    public RelationshipResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    public RelationshipResourceImpl(RestOperations restOperations, OpenMRSSessions sessions) {
+        super(restOperations, sessions);
     }
 
     @Override
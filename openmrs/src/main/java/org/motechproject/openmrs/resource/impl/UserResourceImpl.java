@@ -2,7 +2,6 @@ package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import org.apache.commons.httpclient.HttpClient;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Person;
 import org.motechproject.openmrs.domain.Role;
@@ -10,6 +9,7 @@ import org.motechproject.openmrs.domain.RoleListResult;
 import org.motechproject.openmrs.domain.User;
 import org.motechproject.openmrs.domain.UserListResult;
 import org.motechproject.openmrs.resource.UserResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -19,8 +19,8 @@ import org.springframework.web.client.RestOperations;
 public class UserResourceImpl extends BaseResource implements UserResource {
 
     @Autowired
-    public UserResourceImpl(RestOperations restOperations, HttpClient httpClient) {
-        super(restOperations, httpClient);
+    public UserResourceImpl(RestOperations restOperations, OpenMRSSessions sessions) {
+        super(restOperations, sessions);
     }
 
     @Override
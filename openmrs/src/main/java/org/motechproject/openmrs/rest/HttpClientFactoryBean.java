@@ -2,17 +2,33 @@ package org.motechproject.openmrs.rest;
 
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.cookie.CookiePolicy;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
 
 /**
- * Factory bean for creating a HTTP client with BASIC authentication.
+ * Factory bean for creating a pooled HTTP client with BASIC authentication. The client keeps a limited number of open
+ * connections to every OpenMRS server, closes the connections which stay idle for too long and ignores cookies, since
+ * the OpenMRS sessions are kept by {@link OpenMRSSessions}, separately for every configuration.
  */
-public class HttpClientFactoryBean implements FactoryBean<HttpClient> {
+public class HttpClientFactoryBean implements FactoryBean<HttpClient>, DisposableBean {
+
+    private static final long IDLE_CHECK_INTERVAL = 5000;
 
     private HttpClient httpClient;
+    private MultiThreadedHttpConnectionManager connectionManager;
+    private IdleConnectionTimeoutThread idleConnectionTimeoutThread;
+
+    private int maxConnectionsPerHost = 20;
+    private int maxTotalConnections = 100;
+    private int connectionTimeout = 10000;
+    private int readTimeout = 60000;
+    private int idleConnectionTimeout = 60000;
 
     @Override
-    public HttpClient getObject() {
+    public synchronized HttpClient getObject() {
         if (httpClient == null) {
             initializeHttpClient();
         }
@@ -21,7 +37,34 @@ public class HttpClientFactoryBean implements FactoryBean<HttpClient> {
     }
 
     private void initializeHttpClient() {
-        httpClient = new HttpClient(new MultiThreadedHttpConnectionManager());
+        connectionManager = new MultiThreadedHttpConnectionManager();
+        HttpConnectionManagerParams params = connectionManager.getParams();
+        params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+        params.setMaxTotalConnections(maxTotalConnections);
+        params.setConnectionTimeout(connectionTimeout);
+        params.setSoTimeout(readTimeout);
+        params.setStaleCheckingEnabled(true);
+
+        httpClient = new HttpClient(connectionManager);
+        httpClient.getParams().setConnectionManagerTimeout(connectionTimeout);
+        httpClient.getParams().setCookiePolicy(CookiePolicy.IGNORE_COOKIES);
+
+        idleConnectionTimeoutThread = new IdleConnectionTimeoutThread();
+        idleConnectionTimeoutThread.setName("openmrs-idle-connection-timeout");
+        idleConnectionTimeoutThread.setTimeoutInterval(IDLE_CHECK_INTERVAL);
+        idleConnectionTimeoutThread.setConnectionTimeout(idleConnectionTimeout);
+        idleConnectionTimeoutThread.addConnectionManager(connectionManager);
+        idleConnectionTimeoutThread.start();
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (idleConnectionTimeoutThread != null) {
+            idleConnectionTimeoutThread.shutdown();
+        }
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+        }
     }
 
     @Override
@@ -33,4 +76,24 @@ public class HttpClientFactoryBean implements FactoryBean<HttpClient> {
     public boolean isSingleton() {
         return true;
     }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public void setMaxTotalConnections(int maxTotalConnections) {
+        this.maxTotalConnections = maxTotalConnections;
+    }
+
+    public void setConnectionTimeout(int connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public void setIdleConnectionTimeout(int idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
 }
@@ -0,0 +1,91 @@
+package org.motechproject.openmrs.rest;
+
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.annotations.MotechListener;
+import org.motechproject.openmrs.config.Config;
+import org.motechproject.openmrs.tasks.constants.EventSubjects;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the IDs of the OpenMRS sessions, one for every configuration, so that the OpenMRS server authenticates the
+ * user of a configuration once per session, instead of on every request. Requests still carry the BASIC credentials,
+ * so when a session expires, the server authenticates the user again and starts a new session, which then replaces
+ * the expired one.
+ */
+@Component("openMRSSessions")
+public class OpenMRSSessions {
+
+    static final String SESSION_COOKIE_NAME = "JSESSIONID";
+
+    private static final String SET_COOKIE_HEADER = "Set-Cookie";
+    private static final String COOKIE_HEADER = "Cookie";
+
+    private final ConcurrentMap<String, String> sessionIds = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the cookie of the current session of the given configuration to the headers of a request, if there is
+     * such session.
+     *
+     * @param config  the configuration the request is sent for
+     * @param headers  the headers of the request
+     */
+    public void addSessionCookie(Config config, HttpHeaders headers) {
+        String sessionId = sessionIds.get(keyFor(config));
+        if (sessionId != null) {
+            headers.add(COOKIE_HEADER, SESSION_COOKIE_NAME + "=" + sessionId);
+        }
+    }
+
+    /**
+     * Stores the ID of the session started by the OpenMRS server, if the headers of its response contain one.
+     *
+     * @param config  the configuration the request was sent for
+     * @param headers  the headers of the response
+     */
+    public void updateSession(Config config, HttpHeaders headers) {
+        List<String> cookies = headers == null ? null : headers.get(SET_COOKIE_HEADER);
+        if (cookies == null) {
+            return;
+        }
+
+        for (String cookie : cookies) {
+            String sessionId = parseSessionId(cookie);
+            if (sessionId != null) {
+                sessionIds.put(keyFor(config), sessionId);
+            }
+        }
+    }
+
+    /**
+     * Drops all sessions when the configurations change, since their servers or users might have changed.
+     *
+     * @param event  the configuration change event
+     */
+    @MotechListener(subjects = EventSubjects.CONFIG_CHANGE_EVENT)
+    public void handleConfigChange(MotechEvent event) {
+        sessionIds.clear();
+    }
+
+    int size() {
+        return sessionIds.size();
+    }
+
+    private String parseSessionId(String cookie) {
+        String nameAndValue = cookie.split(";", 2)[0].trim();
+        if (!nameAndValue.startsWith(SESSION_COOKIE_NAME + "=")) {
+            return null;
+        }
+
+        String sessionId = nameAndValue.substring(SESSION_COOKIE_NAME.length() + 1);
+        return sessionId.isEmpty() ? null : sessionId;
+    }
+
+    private String keyFor(Config config) {
+        return config.getName() + '|' + config.getOpenMrsUrl() + '|' + config.getUsername();
+    }
+}
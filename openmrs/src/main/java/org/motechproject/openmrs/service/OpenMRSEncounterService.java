@@ -1,6 +1,7 @@
 package org.motechproject.openmrs.service;
 
 import org.motechproject.openmrs.domain.Encounter;
+import org.motechproject.openmrs.domain.EncounterBatchResult;
 import org.motechproject.openmrs.domain.EncounterType;
 
 import java.util.List;
@@ -20,6 +21,18 @@ public interface OpenMRSEncounterService {
      */
     Encounter createEncounter(String configName, Encounter encounter);
 
+    /**
+     * Creates the given {@code encounters}, along with their observations, on the OpenMRS server. Each encounter is
+     * sent with its observations nested in a single request and several encounters are sent at the same time. A
+     * failure of one encounter does not stop the others from being created. Configuration with the given
+     * {@code configName} will be used while performing this action.
+     *
+     * @param configName  the name of the configuration
+     * @param encounters  the encounters to be created
+     * @return the results of creating the encounters, in the order of the given encounters
+     */
+    List<EncounterBatchResult> createEncounters(String configName, List<Encounter> encounters);
+
     /**
      * Returns the latest encounter of type {@code encounterType} for a patient with the given {@code motechId}.
      * Configuration with the given {@code configName} will be used while performing this action.
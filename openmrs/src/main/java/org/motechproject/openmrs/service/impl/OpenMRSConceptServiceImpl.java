@@ -3,6 +3,8 @@ package org.motechproject.openmrs.service.impl;
 import org.apache.commons.lang.Validate;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
+import org.motechproject.openmrs.cache.MetadataType;
+import org.motechproject.openmrs.cache.OpenMRSMetadataCache;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Concept;
 import org.motechproject.openmrs.domain.ConceptListResult;
@@ -20,9 +22,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Service("conceptService")
 public class OpenMRSConceptServiceImpl implements OpenMRSConceptService {
@@ -35,42 +35,28 @@ public class OpenMRSConceptServiceImpl implements OpenMRSConceptService {
 
     private final EventRelay eventRelay;
 
-    private final Map<String, String> conceptCache = new HashMap<>();
+    private final OpenMRSMetadataCache metadataCache;
 
     @Autowired
     public OpenMRSConceptServiceImpl(ConceptResource conceptResource, EventRelay eventRelay,
-                                     OpenMRSConfigService configService) {
+                                     OpenMRSConfigService configService, OpenMRSMetadataCache metadataCache) {
         this.conceptResource = conceptResource;
         this.configService = configService;
         this.eventRelay = eventRelay;
+        this.metadataCache = metadataCache;
     }
 
     @Override
-    public String resolveConceptUuidFromConceptName(String configName, String name) {
-        if (conceptCache.containsKey(name)) {
-            return conceptCache.get(name);
-        }
-
-        ConceptListResult results;
-        try {
-            Config config = configService.getConfigByName(configName);
-            results = conceptResource.queryForConceptsByName(config, name);
-        } catch (HttpClientErrorException e) {
-            throw new OpenMRSException("There was an error retrieving the uuid of the concept with concept name: " + name, e);
-        }
-
-        if (results.getResults().isEmpty()) {
-            throw new OpenMRSException("Can't create an encounter because no concept was found with name: " + name);
-        }
-
-        for (Concept concept : results.getResults()) {
-            if (concept.getDisplay().equals(name)) {
-                conceptCache.put(name, concept.getUuid());
-                return concept.getUuid();
-            }
-        }
-
-        return null;
+    public String resolveConceptUuidFromConceptName(String configName, final String name) {
+        final Config config = configService.getConfigByName(configName);
+
+        return metadataCache.get(config.getName(), MetadataType.CONCEPT_UUID_BY_NAME, name,
+                new OpenMRSMetadataCache.Loader<String>() {
+                    @Override
+                    public String load() {
+                        return queryForConceptUuid(config, name);
+                    }
+                });
     }
 
     @Override
@@ -83,7 +69,8 @@ public class OpenMRSConceptServiceImpl implements OpenMRSConceptService {
         Concept created;
         try {
             created = conceptResource.createConcept(config, concept);
-            conceptCache.put(created.getName().getName(), created.getUuid());
+            metadataCache.put(config.getName(), MetadataType.CONCEPT_UUID_BY_NAME, created.getName().getName(),
+                    created.getUuid());
             eventRelay.sendEventMessage(new MotechEvent(EventKeys.CREATED_NEW_CONCEPT_SUBJECT, EventHelper.conceptParameters(created)));
 
         } catch (HttpClientErrorException e) {
@@ -95,14 +82,20 @@ public class OpenMRSConceptServiceImpl implements OpenMRSConceptService {
     }
 
     @Override
-    public Concept getConceptByUuid(String configName, String uuid) {
+    public Concept getConceptByUuid(String configName, final String uuid) {
         Validate.notEmpty(uuid, "Concept Id cannot be empty");
 
         Concept concept;
 
         try {
-            Config config = configService.getConfigByName(configName);
-            concept = conceptResource.getConceptById(config, uuid);
+            final Config config = configService.getConfigByName(configName);
+            concept = metadataCache.get(config.getName(), MetadataType.CONCEPT, uuid,
+                    new OpenMRSMetadataCache.Loader<Concept>() {
+                        @Override
+                        public Concept load() {
+                            return conceptResource.getConceptById(config, uuid);
+                        }
+                    });
         } catch (HttpClientErrorException e) {
             LOGGER.error("Failed to get concept with ID " + uuid);
             concept = null;
@@ -152,7 +145,8 @@ public class OpenMRSConceptServiceImpl implements OpenMRSConceptService {
             Config config = configService.getConfigByName(configName);
             Concept concept = conceptResource.getConceptById(config, uuid);
             conceptResource.deleteConcept(config, uuid);
-            conceptCache.remove(concept.getName().getName());
+            metadataCache.invalidate(config.getName(), MetadataType.CONCEPT, uuid);
+            metadataCache.invalidate(config.getName(), MetadataType.CONCEPT_UUID_BY_NAME, concept.getName().getName());
             eventRelay.sendEventMessage(new MotechEvent(EventKeys.DELETED_CONCEPT_SUBJECT, EventHelper.conceptParameters(concept)));
         } catch (HttpClientErrorException e) {
             LOGGER.error("Failed to remove concept with ID " + uuid);
@@ -167,6 +161,9 @@ public class OpenMRSConceptServiceImpl implements OpenMRSConceptService {
         try {
             Config config = configService.getConfigByName(configName);
             updatedConcept = conceptResource.updateConcept(config, concept);
+            // the names of the concept might have changed as well
+            metadataCache.invalidate(config.getName(), MetadataType.CONCEPT, concept.getUuid());
+            metadataCache.invalidate(config.getName(), MetadataType.CONCEPT_UUID_BY_NAME);
             eventRelay.sendEventMessage(new MotechEvent(EventKeys.UPDATED_CONCEPT_SUBJECT, EventHelper.conceptParameters(updatedConcept)));
         } catch (HttpClientErrorException e) {
             LOGGER.error("Failed to update concept with name " + concept.getName());
@@ -176,6 +173,27 @@ public class OpenMRSConceptServiceImpl implements OpenMRSConceptService {
         return updatedConcept;
     }
 
+    private String queryForConceptUuid(Config config, String name) {
+        ConceptListResult results;
+        try {
+            results = conceptResource.queryForConceptsByName(config, name);
+        } catch (HttpClientErrorException e) {
+            throw new OpenMRSException("There was an error retrieving the uuid of the concept with concept name: " + name, e);
+        }
+
+        if (results.getResults().isEmpty()) {
+            throw new OpenMRSException("Can't create an encounter because no concept was found with name: " + name);
+        }
+
+        for (Concept concept : results.getResults()) {
+            if (concept.getDisplay().equals(name)) {
+                return concept.getUuid();
+            }
+        }
+
+        return null;
+    }
+
     private List<Concept> search(Config config, String phrase) {
         Validate.notEmpty(phrase, "Name cannot be empty");
 
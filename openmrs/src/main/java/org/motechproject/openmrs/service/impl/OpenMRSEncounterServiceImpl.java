@@ -4,8 +4,12 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
+import org.motechproject.modules.commons.concurrent.ExecutorUtil;
+import org.motechproject.openmrs.cache.MetadataType;
+import org.motechproject.openmrs.cache.OpenMRSMetadataCache;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Encounter;
+import org.motechproject.openmrs.domain.EncounterBatchResult;
 import org.motechproject.openmrs.domain.EncounterType;
 import org.motechproject.openmrs.domain.Patient;
 import org.motechproject.openmrs.exception.OpenMRSException;
@@ -21,15 +25,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @Service("encounterService")
 public class OpenMRSEncounterServiceImpl implements OpenMRSEncounterService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OpenMRSEncounterServiceImpl.class);
 
+    static final int BATCH_THREADS = 8;
+
     private final OpenMRSPatientService patientService;
 
     private final OpenMRSConfigService configService;
@@ -38,21 +49,74 @@ public class OpenMRSEncounterServiceImpl implements OpenMRSEncounterService {
 
     private final EventRelay eventRelay;
 
+    private final OpenMRSMetadataCache metadataCache;
+
+    private final ExecutorService batchExecutor;
+
     @Autowired
     public OpenMRSEncounterServiceImpl(EncounterResource encounterResource, OpenMRSPatientService patientAdapter,
-                                       EventRelay eventRelay, OpenMRSConfigService configService) {
+                                       EventRelay eventRelay, OpenMRSConfigService configService,
+                                       OpenMRSMetadataCache metadataCache) {
         this.encounterResource = encounterResource;
         this.patientService = patientAdapter;
         this.configService = configService;
         this.eventRelay = eventRelay;
+        this.metadataCache = metadataCache;
+        this.batchExecutor = ExecutorUtil.newDaemonThreadPool("openmrs-encounter-batch", BATCH_THREADS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
     }
 
     @Override
     public Encounter createEncounter(String configName, Encounter encounter) {
+        return createEncounter(configService.getConfigByName(configName), encounter);
+    }
+
+    @Override
+    public List<EncounterBatchResult> createEncounters(String configName, List<Encounter> encounters) {
+        final Config config = configService.getConfigByName(configName);
+        List<Callable<EncounterBatchResult>> submissions = new ArrayList<>(encounters.size());
+
+        for (int i = 0; i < encounters.size(); i++) {
+            final int index = i;
+            final Encounter encounter = encounters.get(i);
+
+            submissions.add(new Callable<EncounterBatchResult>() {
+                @Override
+                public EncounterBatchResult call() {
+                    try {
+                        return EncounterBatchResult.created(index, createEncounter(config, encounter));
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Could not create encounter {} of the batch: {}", index, e.getMessage());
+                        return EncounterBatchResult.failed(index, e.getMessage());
+                    }
+                }
+            });
+        }
+
+        List<EncounterBatchResult> results = new ArrayList<>(submissions.size());
+
+        try {
+            for (Future<EncounterBatchResult> submission : batchExecutor.invokeAll(submissions)) {
+                results.add(submission.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenMRSException("Interrupted while creating the batch of encounters", e);
+        } catch (ExecutionException e) {
+            throw new OpenMRSException("Failed to create the batch of encounters", e.getCause());
+        }
+
+        return results;
+    }
+
+    private Encounter createEncounter(Config config, Encounter encounter) {
         validateEncounter(encounter);
 
         Encounter createdEncounter;
-        Config config = configService.getConfigByName(configName);
 
         try {
             createdEncounter = encounterResource.createEncounter(config, encounter);
@@ -112,7 +176,9 @@ public class OpenMRSEncounterServiceImpl implements OpenMRSEncounterService {
     public EncounterType createEncounterType(String configName, EncounterType encounterType) {
         try {
             Config config = configService.getConfigByName(configName);
-            return encounterResource.createEncounterType(config, encounterType);
+            EncounterType created = encounterResource.createEncounterType(config, encounterType);
+            metadataCache.put(config.getName(), MetadataType.ENCOUNTER_TYPE, created.getUuid(), created);
+            return created;
         } catch (HttpClientErrorException e) {
             LOGGER.error("Error while creating encounter type with name: " + encounterType.getName());
             return null;
@@ -120,10 +186,16 @@ public class OpenMRSEncounterServiceImpl implements OpenMRSEncounterService {
     }
 
     @Override
-    public EncounterType getEncounterTypeByUuid(String configName, String uuid) {
+    public EncounterType getEncounterTypeByUuid(String configName, final String uuid) {
         try {
-            Config config = configService.getConfigByName(configName);
-            return encounterResource.getEncounterTypeByUuid(config, uuid);
+            final Config config = configService.getConfigByName(configName);
+            return metadataCache.get(config.getName(), MetadataType.ENCOUNTER_TYPE, uuid,
+                    new OpenMRSMetadataCache.Loader<EncounterType>() {
+                        @Override
+                        public EncounterType load() {
+                            return encounterResource.getEncounterTypeByUuid(config, uuid);
+                        }
+                    });
         } catch (HttpClientErrorException e) {
             LOGGER.error("Error while fetching encounter type with UUID: " + uuid);
             return null;
@@ -135,6 +207,7 @@ public class OpenMRSEncounterServiceImpl implements OpenMRSEncounterService {
         try {
             Config config = configService.getConfigByName(configName);
             encounterResource.deleteEncounterType(config, uuid);
+            metadataCache.invalidate(config.getName(), MetadataType.ENCOUNTER_TYPE, uuid);
         } catch (HttpClientErrorException e) {
             LOGGER.error("Error deleting encounter type with UUID: " + uuid);
         }
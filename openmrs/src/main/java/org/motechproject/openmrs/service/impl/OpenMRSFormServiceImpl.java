@@ -1,5 +1,7 @@
 package org.motechproject.openmrs.service.impl;
 
+import org.motechproject.openmrs.cache.MetadataType;
+import org.motechproject.openmrs.cache.OpenMRSMetadataCache;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Form;
 import org.motechproject.openmrs.resource.FormResource;
@@ -19,18 +21,26 @@ public class OpenMRSFormServiceImpl implements OpenMRSFormService {
     @Autowired
     private final OpenMRSConfigService configService;
     private final FormResource formResource;
+    private final OpenMRSMetadataCache metadataCache;
 
     @Autowired
-    public OpenMRSFormServiceImpl(OpenMRSConfigService configService, FormResource formResource) {
+    public OpenMRSFormServiceImpl(OpenMRSConfigService configService, FormResource formResource,
+                                  OpenMRSMetadataCache metadataCache) {
         this.configService = configService;
         this.formResource = formResource;
+        this.metadataCache = metadataCache;
     }
 
     @Override
-    public Form getFormByUuid(String configName, String uuid) {
+    public Form getFormByUuid(String configName, final String uuid) {
         try {
-            Config config = configService.getConfigByName(configName);
-            return formResource.getFormByUuid(config, uuid);
+            final Config config = configService.getConfigByName(configName);
+            return metadataCache.get(config.getName(), MetadataType.FORM, uuid, new OpenMRSMetadataCache.Loader<Form>() {
+                @Override
+                public Form load() {
+                    return formResource.getFormByUuid(config, uuid);
+                }
+            });
         } catch (HttpClientErrorException e) {
             LOGGER.error("Error while fetching form with UUID: " + uuid);
             return null;
@@ -4,6 +4,8 @@ import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
+import org.motechproject.openmrs.cache.MetadataType;
+import org.motechproject.openmrs.cache.OpenMRSMetadataCache;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Location;
 import org.motechproject.openmrs.helper.EventHelper;
@@ -29,12 +31,15 @@ public class OpenMRSLocationServiceImpl implements OpenMRSLocationService {
 
     private final EventRelay eventRelay;
 
+    private final OpenMRSMetadataCache metadataCache;
+
     @Autowired
     public OpenMRSLocationServiceImpl(LocationResource locationResource, EventRelay eventRelay,
-                                      OpenMRSConfigService configService) {
+                                      OpenMRSConfigService configService, OpenMRSMetadataCache metadataCache) {
         this.locationResource = locationResource;
         this.configService = configService;
         this.eventRelay = eventRelay;
+        this.metadataCache = metadataCache;
     }
 
     @Override
@@ -68,28 +73,43 @@ public class OpenMRSLocationServiceImpl implements OpenMRSLocationService {
     }
 
     @Override
-    public List<Location> getLocations(String configName, String locationName) {
+    public List<Location> getLocations(String configName, final String locationName) {
         Validate.notEmpty(locationName, "Location name cannot be empty");
 
         List<Location> locations;
         try {
-            Config config = configService.getConfigByName(configName);
-            locations = locationResource.queryForLocationByName(config, locationName).getResults();
+            final Config config = configService.getConfigByName(configName);
+            locations = metadataCache.get(config.getName(), MetadataType.LOCATIONS_BY_NAME, locationName,
+                    new OpenMRSMetadataCache.Loader<List<Location>>() {
+                        @Override
+                        public List<Location> load() {
+                            List<Location> results = locationResource.queryForLocationByName(config, locationName)
+                                    .getResults();
+                            // no matches are not cached, since the location might be created on the server any time
+                            return results.isEmpty() ? null : results;
+                        }
+                    });
         } catch (HttpClientErrorException e) {
             LOGGER.error("Failed to retrieve all locations by location name: " + locationName);
             return Collections.emptyList();
         }
 
-        return locations;
+        return locations == null ? Collections.<Location>emptyList() : locations;
     }
 
     @Override
-    public Location getLocationByUuid(String configName, String uuid) {
+    public Location getLocationByUuid(String configName, final String uuid) {
         Validate.notEmpty(uuid, "Location id cannot be empty");
 
         try {
-            Config config = configService.getConfigByName(configName);
-            return locationResource.getLocationById(config, uuid);
+            final Config config = configService.getConfigByName(configName);
+            return metadataCache.get(config.getName(), MetadataType.LOCATION, uuid,
+                    new OpenMRSMetadataCache.Loader<Location>() {
+                        @Override
+                        public Location load() {
+                            return locationResource.getLocationById(config, uuid);
+                        }
+                    });
         } catch (HttpClientErrorException e) {
             LOGGER.error("Failed to fetch information about location with uuid: " + uuid);
             return null;
@@ -103,6 +123,7 @@ public class OpenMRSLocationServiceImpl implements OpenMRSLocationService {
         try {
             Config config = configService.getConfigByName(configName);
             Location saved = locationResource.createLocation(config, location);
+            metadataCache.invalidate(config.getName(), MetadataType.LOCATIONS_BY_NAME);
             eventRelay.sendEventMessage(new MotechEvent(EventKeys.CREATED_NEW_LOCATION_SUBJECT, EventHelper.locationParameters(saved)));
 
             return saved;
@@ -119,6 +140,7 @@ public class OpenMRSLocationServiceImpl implements OpenMRSLocationService {
             Config config = configService.getConfigByName(configName);
             Location locationToRemove = locationResource.getLocationById(config, uuid);
             locationResource.deleteLocation(config, uuid);
+            invalidateLocation(config, uuid);
             eventRelay.sendEventMessage(new MotechEvent(EventKeys.DELETED_LOCATION_SUBJECT, EventHelper.locationParameters(locationToRemove)));
         } catch (HttpClientErrorException e) {
             LOGGER.error("Failed to remove location for: " + uuid);
@@ -147,6 +169,7 @@ public class OpenMRSLocationServiceImpl implements OpenMRSLocationService {
 
         try {
             Location updatedLocation = locationResource.updateLocation(config, locationToUpdate);
+            invalidateLocation(config, location.getUuid());
             eventRelay.sendEventMessage(new MotechEvent(EventKeys.UPDATED_LOCATION_SUBJECT, EventHelper.locationParameters(updatedLocation)));
 
             return updatedLocation;
@@ -156,4 +179,10 @@ public class OpenMRSLocationServiceImpl implements OpenMRSLocationService {
             return null;
         }
     }
+
+    private void invalidateLocation(Config config, String uuid) {
+        metadataCache.invalidate(config.getName(), MetadataType.LOCATION, uuid);
+        // lookups by both the old and the new name might have returned the location
+        metadataCache.invalidate(config.getName(), MetadataType.LOCATIONS_BY_NAME);
+    }
 }
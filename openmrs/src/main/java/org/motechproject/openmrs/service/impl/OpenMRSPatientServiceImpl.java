@@ -4,6 +4,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
+import org.motechproject.modules.commons.concurrent.ExecutorUtil;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Attribute;
 import org.motechproject.openmrs.domain.Concept;
@@ -27,18 +28,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @Service("patientService")
 public class OpenMRSPatientServiceImpl implements OpenMRSPatientService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OpenMRSPatientServiceImpl.class);
 
+    /**
+     * The maximum number of patients fetched at the same time, when the search results are missing patient details.
+     */
+    static final int SEARCH_THREADS = 4;
+
     private final OpenMRSPersonService personService;
     private final OpenMRSConfigService configService;
     private final PatientResource patientResource;
@@ -46,6 +57,8 @@ public class OpenMRSPatientServiceImpl implements OpenMRSPatientService {
 
     private final EventRelay eventRelay;
 
+    private final ExecutorService searchExecutor;
+
     @Autowired
     public OpenMRSPatientServiceImpl(PatientResource patientResource, PersonResource personResource,
                                      OpenMRSPersonService personService, EventRelay eventRelay,
@@ -55,6 +68,12 @@ public class OpenMRSPatientServiceImpl implements OpenMRSPatientService {
         this.configService = configService;
         this.personService = personService;
         this.eventRelay = eventRelay;
+        this.searchExecutor = ExecutorUtil.newDaemonThreadPool("openmrs-patient-search", SEARCH_THREADS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchExecutor.shutdownNow();
     }
 
     @Override
@@ -126,7 +145,7 @@ public class OpenMRSPatientServiceImpl implements OpenMRSPatientService {
         Config config = configService.getConfigByName(configName);
 
         try {
-            result = patientResource.queryForPatient(config, name).getResults();
+            result = patientResource.searchForPatients(config, name).getResults();
         } catch (HttpClientErrorException e) {
             LOGGER.error("Failed search for patient name: " + name);
             return Collections.emptyList();
@@ -134,8 +153,10 @@ public class OpenMRSPatientServiceImpl implements OpenMRSPatientService {
 
         List<Patient> patients = new ArrayList<>();
 
-        for (Patient partialPatient : result) {
-            Patient patient = getPatientByUuid(config, partialPatient.getUuid());
+        for (Patient patient : completeSearchResults(config, result)) {
+            if (patient == null) {
+                continue;
+            }
             if (motechId == null) {
                 patients.add(patient);
             } else {
@@ -193,6 +214,53 @@ public class OpenMRSPatientServiceImpl implements OpenMRSPatientService {
             return null;
         }
 
+        return prepareFetchedPatient(config, patient);
+    }
+
+    /**
+     * Completes the patients returned by a search, keeping their order. Patients returned along with their details are
+     * only prepared, the rest is fetched concurrently, on the search executor. Patients which could not be fetched are
+     * null.
+     */
+    List<Patient> completeSearchResults(final Config config, List<Patient> searchResults) {
+        List<Patient> patients = new ArrayList<>(searchResults);
+        List<Integer> fetchedIndexes = new ArrayList<>();
+        List<Callable<Patient>> fetches = new ArrayList<>();
+
+        for (int i = 0; i < searchResults.size(); i++) {
+            final Patient patient = searchResults.get(i);
+            if (patient.getPerson() == null) {
+                fetchedIndexes.add(i);
+                fetches.add(new Callable<Patient>() {
+                    @Override
+                    public Patient call() {
+                        return getPatientByUuid(config, patient.getUuid());
+                    }
+                });
+            } else {
+                patients.set(i, prepareFetchedPatient(config, patient));
+            }
+        }
+
+        if (!fetches.isEmpty()) {
+            try {
+                // futures are returned in the order of the fetches, whichever completes first
+                List<Future<Patient>> fetched = searchExecutor.invokeAll(fetches);
+                for (int i = 0; i < fetched.size(); i++) {
+                    patients.set(fetchedIndexes.get(i), fetched.get(i).get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OpenMRSException("Interrupted while retrieving the found patients", e);
+            } catch (ExecutionException e) {
+                throw new OpenMRSException("Failed to retrieve the found patients", e.getCause());
+            }
+        }
+
+        return patients;
+    }
+
+    private Patient prepareFetchedPatient(Config config, Patient patient) {
         Identifier motechIdentifier = getMotechIdentifier(config, patient);
         patient.setMotechIdentifierValues(motechIdentifier);
 
@@ -1,5 +1,7 @@
 package org.motechproject.openmrs.service.impl;
 
+import org.motechproject.openmrs.cache.MetadataType;
+import org.motechproject.openmrs.cache.OpenMRSMetadataCache;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.Provider;
 import org.motechproject.openmrs.resource.ProviderResource;
@@ -20,10 +22,14 @@ public class OpenMRSProviderServiceImpl implements OpenMRSProviderService {
 
     private final ProviderResource providerResource;
 
+    private final OpenMRSMetadataCache metadataCache;
+
     @Autowired
-    OpenMRSProviderServiceImpl(ProviderResource providerResource, OpenMRSConfigService configService) {
+    OpenMRSProviderServiceImpl(ProviderResource providerResource, OpenMRSConfigService configService,
+                               OpenMRSMetadataCache metadataCache) {
         this.providerResource = providerResource;
         this.configService = configService;
+        this.metadataCache = metadataCache;
     }
 
     @Override
@@ -38,10 +44,16 @@ public class OpenMRSProviderServiceImpl implements OpenMRSProviderService {
     }
 
     @Override
-    public Provider getProviderByUuid(String configName, String uuid) {
+    public Provider getProviderByUuid(String configName, final String uuid) {
         try {
-            Config config = configService.getConfigByName(configName);
-            return providerResource.getByUuid(config, uuid);
+            final Config config = configService.getConfigByName(configName);
+            return metadataCache.get(config.getName(), MetadataType.PROVIDER, uuid,
+                    new OpenMRSMetadataCache.Loader<Provider>() {
+                        @Override
+                        public Provider load() {
+                            return providerResource.getByUuid(config, uuid);
+                        }
+                    });
         } catch (HttpClientErrorException e) {
             LOGGER.error("Error while fetching provider with UUID: " + uuid);
             return null;
@@ -53,6 +65,7 @@ public class OpenMRSProviderServiceImpl implements OpenMRSProviderService {
         try {
             Config config = configService.getConfigByName(configName);
             providerResource.deleteProvider(config, uuid);
+            metadataCache.invalidate(config.getName(), MetadataType.PROVIDER, uuid);
         } catch (HttpClientErrorException e) {
             LOGGER.error("Error while deleting provider with UUID: " + uuid);
         }
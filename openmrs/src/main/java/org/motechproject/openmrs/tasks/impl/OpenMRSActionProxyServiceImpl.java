@@ -30,7 +30,6 @@ import org.motechproject.openmrs.helper.EventHelper;
 import org.motechproject.openmrs.service.OpenMRSCohortService;
 import org.motechproject.openmrs.service.OpenMRSConceptService;
 import org.motechproject.openmrs.service.OpenMRSEncounterService;
-import org.motechproject.openmrs.service.OpenMRSFormService;
 import org.motechproject.openmrs.service.OpenMRSLocationService;
 import org.motechproject.openmrs.service.OpenMRSObservationService;
 import org.motechproject.openmrs.service.OpenMRSPatientService;
@@ -69,7 +68,6 @@ public class OpenMRSActionProxyServiceImpl implements OpenMRSActionProxyService
     private OpenMRSProgramEnrollmentService programEnrollmentService;
     private OpenMRSPersonService personService;
     private OpenMRSCohortService cohortService;
-    private OpenMRSFormService formService;
 
     private EventRelay eventRelay;
 
@@ -77,16 +75,23 @@ public class OpenMRSActionProxyServiceImpl implements OpenMRSActionProxyService
     public Encounter createEncounter(String configName, DateTime encounterDatetime, String encounterType,
                                 String locationName, String patientUuid, String providerUuid, String visitUuid,
                                 String formUuid, Map<String, String> observations) {
+        // the location and the provider are served from the metadata cache, the patient, the visit and the form are
+        // only referred to by their UUIDs in the created encounter, so they are not retrieved at all
         Location location = getLocationByName(configName, locationName);
-        Patient patient = patientService.getPatientByUuid(configName, patientUuid);
         Provider provider = providerService.getProviderByUuid(configName, providerUuid);
+
+        Patient patient = new Patient();
+        patient.setUuid(patientUuid);
+
         Visit visit = null;
         Form form = null;
         if (StringUtils.isNotEmpty(visitUuid)) {
-            visit = visitService.getVisitByUuid(configName, visitUuid);
+            visit = new Visit();
+            visit.setUuid(visitUuid);
         }
         if (StringUtils.isNotEmpty(formUuid)) {
-            form = formService.getFormByUuid(configName, formUuid);
+            form = new Form();
+            form.setUuid(formUuid);
         }
 
         //While creating observations, the encounterDateTime is used as a obsDateTime.
@@ -454,9 +459,4 @@ public class OpenMRSActionProxyServiceImpl implements OpenMRSActionProxyService
     public void setObservationService(OpenMRSObservationService observationService) {
         this.observationService = observationService;
     }
-
-    @Autowired
-    public void setFormService(OpenMRSFormService formService) {
-        this.formService = formService;
-    }
 }
@@ -1,5 +1,6 @@
 package org.motechproject.openmrs.util;
 
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
@@ -9,6 +10,7 @@ import com.google.gson.JsonSerializer;
 import org.apache.log4j.Logger;
 import org.motechproject.commons.api.json.MotechJsonReader;
 
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.text.ParseException;
 import java.util.Date;
@@ -58,6 +60,28 @@ public final class JsonUtils {
         return READER.readFromString(json, type, adapters);
     }
 
+    /**
+     * Creates object of type {@code type} from JSON read from the given {@code reader} using user-specified adapters.
+     * The JSON is parsed as it is read, so it never has to be held in memory as a whole.
+     *
+     * @param reader  the reader of the JSON to deserialize
+     * @param type  the type of the created object
+     * @param adapters  custom adapters to use for deserialization
+     * @return object of type {@code type}
+     */
+    public static Object readJsonWithAdapters(Reader reader, Type type, Map<Type, Object> adapters) {
+        GsonBuilder builder = new GsonBuilder();
+
+        for (Map.Entry<Type, Object> adapter : adapters.entrySet()) {
+            builder.registerTypeAdapter(adapter.getKey(), adapter.getValue());
+        }
+        for (Map.Entry<Type, Object> adapter : providedAdapters.entrySet()) {
+            builder.registerTypeAdapter(adapter.getKey(), adapter.getValue());
+        }
+
+        return builder.create().fromJson(reader, type);
+    }
+
     /**
      * Custom adapter for {@link Date} class. It is used to serialize/deserialize object from/to a {@link JsonElement}.
      */
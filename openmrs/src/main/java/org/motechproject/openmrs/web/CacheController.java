@@ -0,0 +1,34 @@
+package org.motechproject.openmrs.web;
+
+import org.motechproject.openmrs.cache.MetadataCacheStatistics;
+import org.motechproject.openmrs.cache.MetadataType;
+import org.motechproject.openmrs.cache.OpenMRSMetadataCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+/**
+ * Controller responsible for exposing the state of the OpenMRS reference data cache, so administrators can check how
+ * many lookups are answered without contacting the OpenMRS server.
+ */
+@Controller
+@RequestMapping(value = "/cache")
+public class CacheController extends OpenMRSController {
+
+    private OpenMRSMetadataCache metadataCache;
+
+    @RequestMapping(value = "/statistics", method = RequestMethod.GET)
+    @ResponseBody
+    public Map<MetadataType, MetadataCacheStatistics> getStatistics() {
+        return metadataCache.getStatistics();
+    }
+
+    @Autowired
+    public void setMetadataCache(OpenMRSMetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+}
@@ -0,0 +1,113 @@
+package org.motechproject.openmrs.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.motechproject.openmrs.config.Config;
+import org.motechproject.openmrs.config.ConfigDummyData;
+import org.motechproject.openmrs.domain.Location;
+import org.motechproject.openmrs.domain.LocationListResult;
+import org.motechproject.openmrs.resource.LocationResource;
+import org.motechproject.openmrs.service.OpenMRSConfigService;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class OpenMRSMetadataCacheTest {
+
+    @Mock
+    private OpenMRSConfigService configService;
+
+    @Mock
+    private LocationResource locationResource;
+
+    @Mock
+    private OpenMRSMetadataCache.Loader<String> loader;
+
+    private OpenMRSMetadataCache metadataCache;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        metadataCache = new OpenMRSMetadataCache(configService, locationResource);
+    }
+
+    @Test
+    public void shouldLoadEntryOnlyOnce() {
+        when(loader.load()).thenReturn("uuid");
+
+        assertEquals("uuid", metadataCache.get("one", MetadataType.CONCEPT_UUID_BY_NAME, "Weight", loader));
+        assertEquals("uuid", metadataCache.get("one", MetadataType.CONCEPT_UUID_BY_NAME, "Weight", loader));
+
+        verify(loader).load();
+        assertEquals(1, metadataCache.getStatistics(MetadataType.CONCEPT_UUID_BY_NAME).getHitCount());
+        assertEquals(1, metadataCache.getStatistics(MetadataType.CONCEPT_UUID_BY_NAME).getMissCount());
+        assertEquals(0, metadataCache.getStatistics(MetadataType.LOCATION).getMissCount());
+    }
+
+    @Test
+    public void shouldReturnStatisticsOfAllTypes() {
+        when(loader.load()).thenReturn("uuid");
+        metadataCache.get("one", MetadataType.PROVIDER, "uuid", loader);
+
+        Map<MetadataType, MetadataCacheStatistics> statistics = metadataCache.getStatistics();
+
+        assertEquals(MetadataType.values().length, statistics.size());
+        assertEquals(1, statistics.get(MetadataType.PROVIDER).getMissCount());
+        assertEquals(0, statistics.get(MetadataType.LOCATION).getMissCount());
+    }
+
+    @Test
+    public void shouldNotCacheMissingEntities() {
+        assertNull(metadataCache.get("one", MetadataType.PROVIDER, "uuid", loader));
+
+        assertEquals(0, metadataCache.size());
+    }
+
+    @Test
+    public void shouldKeepEntriesOfConfigurationsSeparately() {
+        metadataCache.put("one", MetadataType.CONCEPT_UUID_BY_NAME, "Weight", "uuid-one");
+        metadataCache.put("two", MetadataType.CONCEPT_UUID_BY_NAME, "Weight", "uuid-two");
+        metadataCache.put("one", MetadataType.CONCEPT, "uuid-one", "concept");
+
+        metadataCache.invalidate("one", MetadataType.CONCEPT_UUID_BY_NAME);
+
+        when(loader.load()).thenReturn("reloaded");
+        assertEquals("reloaded", metadataCache.get("one", MetadataType.CONCEPT_UUID_BY_NAME, "Weight", loader));
+        assertEquals("uuid-two", metadataCache.get("two", MetadataType.CONCEPT_UUID_BY_NAME, "Weight", loader));
+        assertEquals(3, metadataCache.size());
+    }
+
+    @Test
+    public void shouldLoadLocationsOnWarmUp() {
+        Config config = ConfigDummyData.prepareConfig("one");
+        Location first = new Location("uuid1", "Clinic", "Clinic", null, null, null, null);
+        Location second = new Location("uuid2", "Clinic", "Clinic", null, null, null, null);
+        Location third = new Location("uuid3", "Hospital", "Hospital", null, null, null, null);
+
+        LocationListResult result = new LocationListResult();
+        result.setResults(Arrays.asList(first, second, third));
+        when(locationResource.getAllLocations(config)).thenReturn(result);
+
+        metadataCache.warmUp(config);
+
+        OpenMRSMetadataCache.Loader<List<Location>> failingLoader = new OpenMRSMetadataCache.Loader<List<Location>>() {
+            @Override
+            public List<Location> load() {
+                throw new AssertionError("The locations should have been cached");
+            }
+        };
+        assertEquals(Arrays.asList(first, second),
+                metadataCache.get(config.getName(), MetadataType.LOCATIONS_BY_NAME, "Clinic", failingLoader));
+        assertEquals(Arrays.asList(third),
+                metadataCache.get(config.getName(), MetadataType.LOCATIONS_BY_NAME, "Hospital", failingLoader));
+        assertEquals(5, metadataCache.size());
+    }
+}
@@ -2,20 +2,37 @@ package org.motechproject.openmrs.resource.impl;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.IOUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestOperations;
 
 import java.io.InputStream;
 import java.lang.reflect.Type;
+import java.net.URI;
 import java.util.Arrays;
 import java.util.Map;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 public abstract class AbstractResourceImplTest {
 
     protected String readJsonFromFile(String filename) throws Exception {
@@ -44,6 +61,42 @@ public abstract class AbstractResourceImplTest {
         return JsonUtils.readJsonWithAdapters(readJsonFromFile(filename), type, adapters);
     }
 
+    /**
+     * Makes the given mock answer a streamed get request, sent with
+     * {@link RestOperations#execute(URI, HttpMethod, RequestCallback, ResponseExtractor)}, with the content of the given
+     * file.
+     */
+    protected void mockStreamedGet(RestOperations restOperations, URI url, final String file) throws Exception {
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                ClientHttpResponse response = mock(ClientHttpResponse.class);
+                when(response.getHeaders()).thenReturn(new HttpHeaders());
+                when(response.getBody()).thenReturn(new ClassPathResource(file).getInputStream());
+
+                ResponseExtractor<?> extractor = (ResponseExtractor<?>) invocation.getArguments()[3];
+                return extractor.extractData(response);
+            }
+        }).when(restOperations).execute(eq(url), eq(HttpMethod.GET), any(RequestCallback.class),
+                any(ResponseExtractor.class));
+    }
+
+    /**
+     * Returns the headers of the streamed get request sent to the given mock.
+     */
+    protected HttpHeaders getStreamedRequestHeaders(RestOperations restOperations, URI url) throws Exception {
+        ArgumentCaptor<RequestCallback> callbackCaptor = ArgumentCaptor.forClass(RequestCallback.class);
+        verify(restOperations).execute(eq(url), eq(HttpMethod.GET), callbackCaptor.capture(),
+                any(ResponseExtractor.class));
+
+        HttpHeaders headers = new HttpHeaders();
+        ClientHttpRequest request = mock(ClientHttpRequest.class);
+        when(request.getHeaders()).thenReturn(headers);
+        callbackCaptor.getValue().doWithRequest(request);
+
+        return headers;
+    }
+
     protected HttpHeaders getHeadersForPost(Config config) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
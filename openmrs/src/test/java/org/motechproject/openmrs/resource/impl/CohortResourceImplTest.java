@@ -1,7 +1,5 @@
 package org.motechproject.openmrs.resource.impl;
 
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpState;
 import org.apache.http.client.utils.URIBuilder;
 import org.junit.Before;
 import org.junit.Test;
@@ -11,6 +9,7 @@ import org.mockito.Mock;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.config.ConfigDummyData;
 import org.motechproject.openmrs.domain.CohortQueryReport;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.web.client.RestOperations;
@@ -33,9 +32,6 @@ public class CohortResourceImplTest extends AbstractResourceImplTest {
     @Mock
     private RestOperations restOperations;
 
-    @Mock
-    private HttpClient httpClient;
-
     @Captor
     private ArgumentCaptor<HttpEntity<String>> requestCaptor;
 
@@ -46,9 +42,7 @@ public class CohortResourceImplTest extends AbstractResourceImplTest {
     @Before
     public void setUp() {
         initMocks(this);
-        when(httpClient.getState()).thenReturn(new HttpState());
-
-        cohortResource = new CohortResourceImpl(restOperations, httpClient);
+        cohortResource = new CohortResourceImpl(restOperations, new OpenMRSSessions());
         config = ConfigDummyData.prepareConfig("one");
     }
 
@@ -1,8 +1,6 @@
 package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.JsonObject;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpState;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -12,6 +10,7 @@ import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.config.ConfigDummyData;
 import org.motechproject.openmrs.domain.Concept;
 import org.motechproject.openmrs.domain.ConceptListResult;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -37,9 +36,6 @@ public class ConceptResourceImplTest extends AbstractResourceImplTest {
     @Mock
     private RestOperations restOperations;
 
-    @Mock
-    private HttpClient httpClient;
-
     @Captor
     private ArgumentCaptor<HttpEntity<String>> requestCaptor;
 
@@ -50,9 +46,7 @@ public class ConceptResourceImplTest extends AbstractResourceImplTest {
     @Before
     public void setUp() {
         initMocks(this);
-        when(httpClient.getState()).thenReturn(new HttpState());
-
-        conceptResource = new ConceptResourceImpl(restOperations, httpClient);
+        conceptResource = new ConceptResourceImpl(restOperations, new OpenMRSSessions());
         config = ConfigDummyData.prepareConfig("one");
     }
 
@@ -96,16 +90,12 @@ public class ConceptResourceImplTest extends AbstractResourceImplTest {
     public void shouldGetAllConcepts() throws Exception {
         URI url = config.toInstancePath("/concept?v=full");
 
-        when(restOperations.exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(getResponseFromFile(CONCEPT_LIST_RESPONSE_JSON));
+        mockStreamedGet(restOperations, url, CONCEPT_LIST_RESPONSE_JSON);
 
         ConceptListResult result = conceptResource.getAllConcepts(config);
 
-        verify(restOperations).exchange(eq(url), eq(HttpMethod.GET), requestCaptor.capture(), eq(String.class));
-
         assertThat(result, equalTo(readFromFile(CONCEPT_LIST_RESPONSE_JSON, ConceptListResult.class)));
-        assertThat(requestCaptor.getValue().getHeaders(), equalTo(getHeadersForGet(config)));
-        assertThat(requestCaptor.getValue().getBody(), nullValue());
+        assertThat(getStreamedRequestHeaders(restOperations, url), equalTo(getHeadersForGet(config)));
     }
 
     @Test
@@ -130,16 +120,12 @@ public class ConceptResourceImplTest extends AbstractResourceImplTest {
         String query = "Test";
         URI url = config.toInstancePathWithParams("/concept?v=full&q={conceptName}", query);
 
-        when(restOperations.exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(getResponseFromFile(CONCEPT_LIST_RESPONSE_JSON));
+        mockStreamedGet(restOperations, url, CONCEPT_LIST_RESPONSE_JSON);
 
         ConceptListResult result = conceptResource.queryForConceptsByName(config, query);
 
-        verify(restOperations).exchange(eq(url), eq(HttpMethod.GET), requestCaptor.capture(), eq(String.class));
-
         assertThat(result, equalTo(readFromFile(CONCEPT_LIST_RESPONSE_JSON, ConceptListResult.class)));
-        assertThat(requestCaptor.getValue().getHeaders(), equalTo(getHeadersForGet(config)));
-        assertThat(requestCaptor.getValue().getBody(), nullValue());
+        assertThat(getStreamedRequestHeaders(restOperations, url), equalTo(getHeadersForGet(config)));
     }
 
     private Concept prepareConcept() throws Exception {
@@ -1,8 +1,6 @@
 package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.JsonObject;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpState;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -13,6 +11,7 @@ import org.motechproject.openmrs.config.ConfigDummyData;
 import org.motechproject.openmrs.domain.Encounter;
 import org.motechproject.openmrs.domain.EncounterListResult;
 import org.motechproject.openmrs.resource.EncounterResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -47,9 +46,6 @@ public class EncounterResourceImplTest extends AbstractResourceImplTest {
     @Mock
     private RestOperations restOperations;
 
-    @Mock
-    private HttpClient httpClient;
-
     @Captor
     private ArgumentCaptor<HttpEntity<String>> requestCaptor;
 
@@ -60,9 +56,7 @@ public class EncounterResourceImplTest extends AbstractResourceImplTest {
     @Before
     public void setUp() {
         initMocks(this);
-        when(httpClient.getState()).thenReturn(new HttpState());
-
-        encounterResource = new EncounterResourceImpl(restOperations, httpClient);
+        encounterResource = new EncounterResourceImpl(restOperations, new OpenMRSSessions());
         config = ConfigDummyData.prepareConfig("one");
     }
 
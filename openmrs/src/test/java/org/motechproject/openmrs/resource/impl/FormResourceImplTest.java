@@ -1,7 +1,5 @@
 package org.motechproject.openmrs.resource.impl;
 
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpState;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -10,6 +8,7 @@ import org.mockito.Mock;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.config.ConfigDummyData;
 import org.motechproject.openmrs.domain.Form;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.web.client.RestOperations;
@@ -30,9 +29,6 @@ public class FormResourceImplTest extends AbstractResourceImplTest {
     @Mock
     private RestOperations restOperations;
 
-    @Mock
-    private HttpClient httpClient;
-
     @Captor
     private ArgumentCaptor<HttpEntity<String>> requestCaptor;
 
@@ -43,9 +39,7 @@ public class FormResourceImplTest extends AbstractResourceImplTest {
     @Before
     public void setUp() {
         initMocks(this);
-        when(httpClient.getState()).thenReturn(new HttpState());
-
-        formResource = new FormResourceImpl(restOperations, httpClient);
+        formResource = new FormResourceImpl(restOperations, new OpenMRSSessions());
         config = ConfigDummyData.prepareConfig("one");
     }
 
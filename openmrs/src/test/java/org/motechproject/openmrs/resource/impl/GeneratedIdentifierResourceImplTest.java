@@ -1,7 +1,5 @@
 package org.motechproject.openmrs.resource.impl;
 
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpState;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -11,6 +9,7 @@ import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.config.ConfigDummyData;
 import org.motechproject.openmrs.domain.GeneratedIdentifier;
 import org.motechproject.openmrs.resource.GeneratedIdentifierResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.web.client.RestOperations;
@@ -32,9 +31,6 @@ public class GeneratedIdentifierResourceImplTest extends AbstractResourceImplTes
     @Mock
     private RestOperations restOperations;
 
-    @Mock
-    private HttpClient httpClient;
-
     @Captor
     private ArgumentCaptor<HttpEntity<String>> requestCaptor;
 
@@ -45,9 +41,7 @@ public class GeneratedIdentifierResourceImplTest extends AbstractResourceImplTes
     @Before
     public void setUp() {
         initMocks(this);
-        when(httpClient.getState()).thenReturn(new HttpState());
-
-        generatedIdentifierResource = new GeneratedIdentifierResourceImpl(restOperations, httpClient);
+        generatedIdentifierResource = new GeneratedIdentifierResourceImpl(restOperations, new OpenMRSSessions());
 
         config = ConfigDummyData.prepareConfig("one");
     }
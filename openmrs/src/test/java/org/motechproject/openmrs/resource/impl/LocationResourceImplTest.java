@@ -1,8 +1,6 @@
 package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.JsonObject;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpState;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -12,6 +10,7 @@ import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.config.ConfigDummyData;
 import org.motechproject.openmrs.domain.Location;
 import org.motechproject.openmrs.domain.LocationListResult;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -37,9 +36,6 @@ public class LocationResourceImplTest extends AbstractResourceImplTest {
     @Mock
     private RestOperations restOperations;
 
-    @Mock
-    private HttpClient httpClient;
-
     @Captor
     private ArgumentCaptor<HttpEntity<String>> requestCaptor;
 
@@ -50,9 +46,7 @@ public class LocationResourceImplTest extends AbstractResourceImplTest {
     @Before
     public void setUp() {
         initMocks(this);
-        when(httpClient.getState()).thenReturn(new HttpState());
-
-        locationResource = new LocationResourceImpl(restOperations, httpClient);
+        locationResource = new LocationResourceImpl(restOperations, new OpenMRSSessions());
         config = ConfigDummyData.prepareConfig("one");
     }
 
@@ -96,16 +90,12 @@ public class LocationResourceImplTest extends AbstractResourceImplTest {
     public void shouldGetAllLocations() throws Exception {
         URI url = config.toInstancePath("/location?v=full");
 
-        when(restOperations.exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(getResponseFromFile(LOCATION_LIST_RESPONSE_JSON));
+        mockStreamedGet(restOperations, url, LOCATION_LIST_RESPONSE_JSON);
 
         LocationListResult result = locationResource.getAllLocations(config);
 
-        verify(restOperations).exchange(eq(url), eq(HttpMethod.GET), requestCaptor.capture(), eq(String.class));
-
         assertThat(result, equalTo(readFromFile(LOCATION_LIST_RESPONSE_JSON, LocationListResult.class)));
-        assertThat(requestCaptor.getValue().getHeaders(), equalTo(getHeadersForGet(config)));
-        assertThat(requestCaptor.getValue().getBody(), nullValue());
+        assertThat(getStreamedRequestHeaders(restOperations, url), equalTo(getHeadersForGet(config)));
     }
 
     @Test
@@ -130,16 +120,12 @@ public class LocationResourceImplTest extends AbstractResourceImplTest {
         String query = "Test";
         URI url = config.toInstancePathWithParams("/location?q={name}&v=full", query);
 
-        when(restOperations.exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(getResponseFromFile(LOCATION_LIST_RESPONSE_JSON));
+        mockStreamedGet(restOperations, url, LOCATION_LIST_RESPONSE_JSON);
 
         LocationListResult result = locationResource.queryForLocationByName(config, query);
 
-        verify(restOperations).exchange(eq(url), eq(HttpMethod.GET), requestCaptor.capture(), eq(String.class));
-
         assertThat(result, equalTo(readFromFile(LOCATION_LIST_RESPONSE_JSON, LocationListResult.class)));
-        assertThat(requestCaptor.getValue().getHeaders(), equalTo(getHeadersForGet(config)));
-        assertThat(requestCaptor.getValue().getBody(), nullValue());
+        assertThat(getStreamedRequestHeaders(restOperations, url), equalTo(getHeadersForGet(config)));
     }
 
     private Location prepareLocation() throws Exception {
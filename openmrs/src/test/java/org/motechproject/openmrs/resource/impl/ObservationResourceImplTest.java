@@ -1,8 +1,6 @@
 package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.JsonObject;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpState;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
@@ -14,6 +12,7 @@ import org.motechproject.openmrs.config.ConfigDummyData;
 import org.motechproject.openmrs.domain.Observation;
 import org.motechproject.openmrs.domain.ObservationListResult;
 import org.motechproject.openmrs.resource.ObservationResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -24,7 +23,6 @@ import java.util.Date;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.equalTo;
-import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -41,9 +39,6 @@ public class ObservationResourceImplTest extends AbstractResourceImplTest {
 
     @Mock
     private RestOperations restOperations;
-    @Mock
-    private HttpClient httpClient;
-
     @Captor
     private ArgumentCaptor<HttpEntity<String>> requestCaptor;
 
@@ -54,9 +49,7 @@ public class ObservationResourceImplTest extends AbstractResourceImplTest {
     @Before
     public void setUp() {
         initMocks(this);
-        when(httpClient.getState()).thenReturn(new HttpState());
-
-        observationResource = new ObservationResourceImpl(restOperations, httpClient);
+        observationResource = new ObservationResourceImpl(restOperations, new OpenMRSSessions());
         config = ConfigDummyData.prepareConfig("one");
     }
 
@@ -65,16 +58,12 @@ public class ObservationResourceImplTest extends AbstractResourceImplTest {
         String patientId = "OOO";
         URI url = config.toInstancePathWithParams("/obs?patient={uuid}&v=full", patientId);
 
-        when(restOperations.exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(getResponseFromFile(OBSERVATION_LIST_RESPONSE_JSON));
+        mockStreamedGet(restOperations, url, OBSERVATION_LIST_RESPONSE_JSON);
 
         ObservationListResult result = observationResource.queryForObservationsByPatientId(config, patientId);
 
-        verify(restOperations).exchange(eq(url), eq(HttpMethod.GET), requestCaptor.capture(), eq(String.class));
-
         assertThat(result, equalTo(readFromFile(OBSERVATION_LIST_RESPONSE_JSON, ObservationListResult.class)));
-        assertThat(requestCaptor.getValue().getHeaders(), equalTo(getHeadersForGet(config)));
-        assertThat(requestCaptor.getValue().getBody(), nullValue());
+        assertThat(getStreamedRequestHeaders(restOperations, url), equalTo(getHeadersForGet(config)));
     }
 
     @Test
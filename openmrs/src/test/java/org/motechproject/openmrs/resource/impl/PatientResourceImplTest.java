@@ -1,8 +1,6 @@
 package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.JsonObject;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpState;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -14,12 +12,14 @@ import org.motechproject.openmrs.domain.Identifier;
 import org.motechproject.openmrs.domain.Patient;
 import org.motechproject.openmrs.domain.PatientListResult;
 import org.motechproject.openmrs.resource.PatientResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.web.client.RestOperations;
 
 import java.net.URI;
+import java.util.Arrays;
 
 import static junit.framework.Assert.assertEquals;
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -27,6 +27,7 @@ import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -42,9 +43,6 @@ public class PatientResourceImplTest extends AbstractResourceImplTest {
     @Mock
     private RestOperations restOperations;
 
-    @Mock
-    private HttpClient httpClient;
-
     @Captor
     private ArgumentCaptor<HttpEntity<String>> requestCaptor;
 
@@ -55,9 +53,7 @@ public class PatientResourceImplTest extends AbstractResourceImplTest {
     @Before
     public void setUp() {
         initMocks(this);
-        when(httpClient.getState()).thenReturn(new HttpState());
-
-        patientResource = new PatientResourceImpl(restOperations, httpClient);
+        patientResource = new PatientResourceImpl(restOperations, new OpenMRSSessions());
         config = ConfigDummyData.prepareConfig("one");
     }
 
@@ -84,16 +80,26 @@ public class PatientResourceImplTest extends AbstractResourceImplTest {
         String patientId = "558";
         URI url = config.toInstancePathWithParams("/patient?q={motechId}", patientId);
 
-        when(restOperations.exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(getResponseFromFile(PATIENT_LIST_RESPONSE_JSON));
+        mockStreamedGet(restOperations, url, PATIENT_LIST_RESPONSE_JSON);
 
         PatientListResult result = patientResource.queryForPatient(config, patientId);
 
-        verify(restOperations).exchange(eq(url), eq(HttpMethod.GET), requestCaptor.capture(), eq(String.class));
+        assertThat(result, equalTo(readFromFile(PATIENT_LIST_RESPONSE_JSON, PatientListResult.class)));
+        assertThat(getStreamedRequestHeaders(restOperations, url), equalTo(getHeadersForGet(config)));
+    }
+
+    @Test
+    public void shouldSearchForPatientsWithDetails() throws Exception {
+        String term = "Doe";
+        URI url = config.toInstancePathWithParams("/patient?q={term}&v=" + PatientResourceImpl.SEARCH_REPRESENTATION,
+                term);
+
+        mockStreamedGet(restOperations, url, PATIENT_LIST_RESPONSE_JSON);
+
+        PatientListResult result = patientResource.searchForPatients(config, term);
 
         assertThat(result, equalTo(readFromFile(PATIENT_LIST_RESPONSE_JSON, PatientListResult.class)));
-        assertThat(requestCaptor.getValue().getHeaders(), equalTo(getHeadersForGet(config)));
-        assertThat(requestCaptor.getValue().getBody(), nullValue());
+        assertThat(getStreamedRequestHeaders(restOperations, url), equalTo(getHeadersForGet(config)));
     }
 
     @Test
@@ -129,6 +135,28 @@ public class PatientResourceImplTest extends AbstractResourceImplTest {
         assertThat(requestCaptor.getValue().getBody(), nullValue());
     }
 
+    @Test
+    public void shouldRetrieveIdentifierTypesOncePerConfig() throws Exception {
+        String supportedTypeName = "OpenMRS Identification Number";
+        String supportedTypeUuid = "8d79403a-c2cc-11de-8d13-0010c6dffd0f";
+        config.setPatientIdentifierTypeNames(Arrays.asList(supportedTypeName));
+        URI url = config.toInstancePath("/patientidentifiertype?v=full");
+
+        when(restOperations.exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(getResponseFromFile(PATIENT_IDENTIFIER_LIST_RESPONSE_JSON));
+
+        assertThat(patientResource.getMotechPatientIdentifierUuid(config), equalTo("III"));
+        assertThat(patientResource.getPatientIdentifierTypeNameByUuid(config, supportedTypeUuid),
+                equalTo(supportedTypeName));
+        assertThat(patientResource.getPatientIdentifierTypeUuidByName(config, supportedTypeName),
+                equalTo(supportedTypeUuid));
+        // known, but not supported types are not retrieved again
+        assertThat(patientResource.getPatientIdentifierTypeNameByUuid(config, "III"), nullValue());
+        assertThat(patientResource.getPatientIdentifierTypeUuidByName(config, "motech_default_type"), nullValue());
+
+        verify(restOperations, times(1)).exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
     @Test
     public void shouldUpdatePatientIdentifiers() throws Exception {
         Patient patient = preparePatient();
@@ -1,19 +1,21 @@
 package org.motechproject.openmrs.resource.impl;
 
 import com.google.gson.JsonObject;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpState;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
+import org.motechproject.openmrs.cache.OpenMRSMetadataCache;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.config.ConfigDummyData;
 import org.motechproject.openmrs.domain.Attribute;
 import org.motechproject.openmrs.domain.AttributeListResult;
 import org.motechproject.openmrs.domain.AttributeTypeListResult;
 import org.motechproject.openmrs.domain.Person;
+import org.motechproject.openmrs.resource.LocationResource;
+import org.motechproject.openmrs.rest.OpenMRSSessions;
+import org.motechproject.openmrs.service.OpenMRSConfigService;
 import org.motechproject.openmrs.util.JsonUtils;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -47,7 +49,10 @@ public class PersonResourceImplTest extends AbstractResourceImplTest {
     private RestOperations restOperations;
 
     @Mock
-    private HttpClient httpClient;
+    private OpenMRSConfigService configService;
+
+    @Mock
+    private LocationResource locationResource;
 
     @Captor
     private ArgumentCaptor<HttpEntity<String>> requestCaptor;
@@ -59,9 +64,8 @@ public class PersonResourceImplTest extends AbstractResourceImplTest {
     @Before
     public void setUp() {
         initMocks(this);
-        when(httpClient.getState()).thenReturn(new HttpState());
-
-        personResource = new PersonResourceImpl(restOperations, httpClient);
+        personResource = new PersonResourceImpl(restOperations, new OpenMRSSessions(),
+                new OpenMRSMetadataCache(configService, locationResource));
         config = ConfigDummyData.prepareConfig("one");
     }
 
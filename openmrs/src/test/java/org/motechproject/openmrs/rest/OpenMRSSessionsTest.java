@@ -0,0 +1,78 @@
+package org.motechproject.openmrs.rest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.openmrs.config.Config;
+import org.motechproject.openmrs.config.ConfigDummyData;
+import org.motechproject.openmrs.tasks.constants.EventSubjects;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OpenMRSSessionsTest {
+
+    private OpenMRSSessions sessions;
+
+    private Config first;
+    private Config second;
+
+    @Before
+    public void setUp() {
+        sessions = new OpenMRSSessions();
+        first = ConfigDummyData.prepareConfig("one");
+        second = ConfigDummyData.prepareConfig("two");
+    }
+
+    @Test
+    public void shouldSendSessionCookieReceivedFromServer() {
+        sessions.updateSession(first, responseHeaders("JSESSIONID=ABC123; Path=/openmrs; HttpOnly"));
+
+        assertEquals(Arrays.asList("JSESSIONID=ABC123"), requestHeaders(first).get("Cookie"));
+    }
+
+    @Test
+    public void shouldIgnoreOtherCookies() {
+        sessions.updateSession(first, responseHeaders("locale=en; Path=/"));
+        sessions.updateSession(first, new HttpHeaders());
+
+        assertNull(requestHeaders(first).get("Cookie"));
+        assertEquals(0, sessions.size());
+    }
+
+    @Test
+    public void shouldKeepSessionsOfConfigurationsSeparately() {
+        sessions.updateSession(first, responseHeaders("JSESSIONID=ABC123"));
+        sessions.updateSession(second, responseHeaders("JSESSIONID=DEF456"));
+        sessions.updateSession(first, responseHeaders("JSESSIONID=GHI789"));
+
+        assertEquals(Arrays.asList("JSESSIONID=GHI789"), requestHeaders(first).get("Cookie"));
+        assertEquals(Arrays.asList("JSESSIONID=DEF456"), requestHeaders(second).get("Cookie"));
+        assertEquals(2, sessions.size());
+    }
+
+    @Test
+    public void shouldDropSessionsWhenConfigurationsChange() {
+        sessions.updateSession(first, responseHeaders("JSESSIONID=ABC123"));
+
+        sessions.handleConfigChange(new MotechEvent(EventSubjects.CONFIG_CHANGE_EVENT));
+
+        assertNull(requestHeaders(first).get("Cookie"));
+        assertEquals(0, sessions.size());
+    }
+
+    private HttpHeaders responseHeaders(String cookie) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Set-Cookie", cookie);
+        return headers;
+    }
+
+    private HttpHeaders requestHeaders(Config config) {
+        HttpHeaders headers = new HttpHeaders();
+        sessions.addSessionCookie(config, headers);
+        return headers;
+    }
+}
@@ -6,7 +6,9 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
+import org.motechproject.openmrs.cache.OpenMRSMetadataCache;
 import org.motechproject.openmrs.config.Config;
 import org.motechproject.openmrs.domain.*;
 import org.motechproject.openmrs.exception.OpenMRSException;
@@ -18,9 +20,15 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.client.HttpClientErrorException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 
@@ -47,8 +55,11 @@ public class OpenMRSEncounterServiceImplTest {
     @Mock
     private Config config;
 
+    @Mock
+    private OpenMRSMetadataCache metadataCache;
+
     @InjectMocks
-    private OpenMRSEncounterServiceImpl encounterServiceImpl = new OpenMRSEncounterServiceImpl(encounterResource, patientService, eventRelay, configService);
+    private OpenMRSEncounterServiceImpl encounterServiceImpl = new OpenMRSEncounterServiceImpl(encounterResource, patientService, eventRelay, configService, metadataCache);
 
 
     @Test(expected = OpenMRSException.class)
@@ -84,4 +95,43 @@ public class OpenMRSEncounterServiceImplTest {
             verify(encounterResource).createEncounter(config, encounter);
         }
     }
+
+    @Test
+    public void shouldReturnResultOfEveryEncounterOfBatch() throws Exception {
+        Encounter first = prepareEncounter("10");
+        Encounter second = prepareEncounter("11");
+        Encounter invalid = prepareEncounter("12");
+        invalid.setEncounterDatetime(null);
+
+        Encounter created = prepareEncounter("10");
+        created.setUuid("created");
+
+        when(configService.getConfigByName(CONFIG_NAME)).thenReturn(config);
+        when(encounterResource.createEncounter(config, first)).thenReturn(created);
+        when(encounterResource.createEncounter(config, second)).thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+
+        List<EncounterBatchResult> results = encounterServiceImpl.createEncounters(CONFIG_NAME, Arrays.asList(first, second, invalid));
+
+        assertEquals(3, results.size());
+        assertEquals(EncounterBatchResult.created(0, created), results.get(0));
+        assertTrue(results.get(0).isSuccessful());
+        assertEquals(1, results.get(1).getIndex());
+        assertFalse(results.get(1).isSuccessful());
+        assertEquals(2, results.get(2).getIndex());
+        assertFalse(results.get(2).isSuccessful());
+
+        verify(encounterResource, never()).createEncounter(config, invalid);
+        verify(eventRelay).sendEventMessage(any(MotechEvent.class));
+    }
+
+    private Encounter prepareEncounter(String patientUuid) {
+        Patient patient = new Patient();
+        patient.setUuid(patientUuid);
+
+        Person person = new Person();
+        person.setUuid("30");
+
+        return new Encounter(new Location(), new EncounterType("testEncounterType"), new DateTime("2000-08-16T07:22:05Z").toDate(),
+                patient, null, Collections.singletonList(person), new ArrayList<Observation>());
+    }
 }
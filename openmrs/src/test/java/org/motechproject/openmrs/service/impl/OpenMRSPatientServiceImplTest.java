@@ -0,0 +1,161 @@
+package org.motechproject.openmrs.service.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.motechproject.event.listener.EventRelay;
+import org.motechproject.openmrs.config.Config;
+import org.motechproject.openmrs.domain.Identifier;
+import org.motechproject.openmrs.domain.IdentifierType;
+import org.motechproject.openmrs.domain.Patient;
+import org.motechproject.openmrs.domain.PatientListResult;
+import org.motechproject.openmrs.domain.Person;
+import org.motechproject.openmrs.exception.OpenMRSException;
+import org.motechproject.openmrs.resource.PatientResource;
+import org.motechproject.openmrs.resource.PersonResource;
+import org.motechproject.openmrs.service.OpenMRSConfigService;
+import org.motechproject.openmrs.service.OpenMRSPersonService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OpenMRSPatientServiceImplTest {
+
+    private static final String CONFIG_NAME = "Configuration name";
+    private static final String MOTECH_ID_TYPE_UUID = "motechIdTypeUuid";
+
+    @Mock
+    private PatientResource patientResource;
+
+    @Mock
+    private PersonResource personResource;
+
+    @Mock
+    private OpenMRSPersonService personService;
+
+    @Mock
+    private EventRelay eventRelay;
+
+    @Mock
+    private OpenMRSConfigService configService;
+
+    @Mock
+    private Config config;
+
+    private OpenMRSPatientServiceImpl patientService;
+
+    @Before
+    public void setUp() {
+        when(config.getName()).thenReturn(CONFIG_NAME);
+        when(configService.getConfigByName(CONFIG_NAME)).thenReturn(config);
+        when(patientResource.getMotechPatientIdentifierUuid(config)).thenReturn(MOTECH_ID_TYPE_UUID);
+
+        patientService = new OpenMRSPatientServiceImpl(patientResource, personResource, personService, eventRelay,
+                configService);
+    }
+
+    @After
+    public void tearDown() {
+        patientService.shutdown();
+    }
+
+    @Test
+    public void shouldKeepTheOrderOfSearchResultsWhenFetchingConcurrently() {
+        // the first patients take the longest to fetch
+        fetchedAfter("0", 300);
+        fetchedAfter("2", 150);
+        fetchedAfter("3", 0);
+
+        List<Patient> patients = patientService.completeSearchResults(config, Arrays.asList(
+                searchResult("0"), patient("1"), searchResult("2"), searchResult("3")));
+
+        assertEquals(Arrays.asList("motech0", "motech1", "motech2", "motech3"), motechIds(patients));
+    }
+
+    @Test
+    public void shouldReturnNullForPatientsWhichCannotBeFetched() {
+        fetchedAfter("0", 0);
+        when(patientResource.getPatientById(config, "1")).thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        fetchedAfter("2", 0);
+
+        List<Patient> patients = patientService.completeSearchResults(config, Arrays.asList(
+                searchResult("0"), searchResult("1"), searchResult("2")));
+
+        assertEquals(3, patients.size());
+        assertEquals("motech0", patients.get(0).getMotechId());
+        assertNull(patients.get(1));
+        assertEquals("motech2", patients.get(2).getMotechId());
+    }
+
+    @Test(expected = OpenMRSException.class)
+    public void shouldFailWhenFetchFailsUnexpectedly() {
+        fetchedAfter("0", 0);
+        when(patientResource.getPatientById(config, "1")).thenThrow(new IllegalStateException("Connection reset"));
+
+        patientService.completeSearchResults(config, Arrays.asList(searchResult("0"), searchResult("1")));
+    }
+
+    @Test
+    public void shouldSkipPatientsWhichCannotBeFetchedWhenSearching() {
+        PatientListResult searchResults = new PatientListResult();
+        searchResults.setResults(Arrays.asList(searchResult("0"), searchResult("1"), searchResult("2")));
+        when(patientResource.searchForPatients(config, "John")).thenReturn(searchResults);
+        fetchedAfter("0", 0);
+        when(patientResource.getPatientById(config, "1")).thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        fetchedAfter("2", 0);
+
+        List<Patient> patients = patientService.search(CONFIG_NAME, "John", null);
+
+        assertEquals(Arrays.asList("motech0", "motech2"), motechIds(patients));
+    }
+
+    private void fetchedAfter(final String uuid, final long delayMillis) {
+        when(patientResource.getPatientById(config, uuid)).thenAnswer(new Answer<Patient>() {
+            @Override
+            public Patient answer(InvocationOnMock invocation) throws InterruptedException {
+                Thread.sleep(delayMillis);
+                return patient(uuid);
+            }
+        });
+    }
+
+    private Patient searchResult(String uuid) {
+        // patients found without their details are fetched one by one
+        Patient patient = new Patient();
+        patient.setUuid(uuid);
+        return patient;
+    }
+
+    private Patient patient(String uuid) {
+        IdentifierType motechIdType = new IdentifierType("MOTECH Id");
+        motechIdType.setUuid(MOTECH_ID_TYPE_UUID);
+
+        List<Identifier> identifiers = new ArrayList<>();
+        identifiers.add(new Identifier("motech" + uuid, motechIdType));
+
+        Patient patient = new Patient(identifiers, new Person(uuid), null, null);
+        patient.setUuid(uuid);
+        return patient;
+    }
+
+    private List<String> motechIds(List<Patient> patients) {
+        List<String> motechIds = new ArrayList<>();
+        for (Patient patient : patients) {
+            motechIds.add(patient.getMotechId());
+        }
+        return motechIds;
+    }
+}
@@ -36,7 +36,6 @@ import org.motechproject.openmrs.domain.VisitType;
 import org.motechproject.openmrs.service.OpenMRSCohortService;
 import org.motechproject.openmrs.service.OpenMRSConceptService;
 import org.motechproject.openmrs.service.OpenMRSEncounterService;
-import org.motechproject.openmrs.service.OpenMRSFormService;
 import org.motechproject.openmrs.service.OpenMRSLocationService;
 import org.motechproject.openmrs.service.OpenMRSObservationService;
 import org.motechproject.openmrs.service.OpenMRSPatientService;
@@ -101,9 +100,6 @@ public class OpenMRSActionProxyServiceTest {
     @Mock
     private EventRelay eventRelay;
 
-    @Mock
-    private OpenMRSFormService formService;
-
     @Captor
     private ArgumentCaptor<Patient> patientCaptor;
 
@@ -149,11 +145,9 @@ public class OpenMRSActionProxyServiceTest {
 
         List<Observation> obsList = createObservationList(1);
 
-        Encounter encounter = new Encounter(location, new EncounterType("testEncounterType"), encounterDatetime.toDate(), patient, visit, Collections.singletonList(provider.getPerson()), obsList);
+        Encounter encounter = new Encounter(location, new EncounterType("testEncounterType"), encounterDatetime.toDate(), patient, visit, Collections.singletonList(provider.getPerson()), obsList, form);
 
-        doReturn(patient).when(patientService).getPatientByUuid(eq(CONFIG_NAME), eq(patient.getUuid()));
         doReturn(provider).when(providerService).getProviderByUuid(eq(CONFIG_NAME), eq(provider.getUuid()));
-        doReturn(visit).when(visitService).getVisitByUuid(eq(CONFIG_NAME), eq(visit.getUuid()));
         doReturn(encounter).when(encounterService).createEncounter(eq(CONFIG_NAME), eq(encounter));
 
         doReturn(Collections.singletonList(location))
@@ -164,6 +158,8 @@ public class OpenMRSActionProxyServiceTest {
                 visit.getUuid(), form.getUuid(),  observations);
 
         assertEquals(encounter, encounterCreated);
+        verify(patientService, never()).getPatientByUuid(CONFIG_NAME, patient.getUuid());
+        verify(visitService, never()).getVisitByUuid(CONFIG_NAME, visit.getUuid());
     }
 
     @Test
@@ -193,11 +189,9 @@ public class OpenMRSActionProxyServiceTest {
 
         List<Observation> obsList = new ArrayList<>();
 
-        Encounter encounter = new Encounter(location, new EncounterType("testEncounterType"), encounterDatetime.toDate(), patient, visit, Collections.singletonList(provider.getPerson()), obsList);
+        Encounter encounter = new Encounter(location, new EncounterType("testEncounterType"), encounterDatetime.toDate(), patient, visit, Collections.singletonList(provider.getPerson()), obsList, form);
 
-        doReturn(patient).when(patientService).getPatientByUuid(eq(CONFIG_NAME), eq(patient.getUuid()));
         doReturn(provider).when(providerService).getProviderByUuid(eq(CONFIG_NAME), eq(provider.getUuid()));
-        doReturn(visit).when(visitService).getVisitByUuid(eq(CONFIG_NAME), eq(visit.getUuid()));
         doReturn(encounter).when(encounterService).createEncounter(eq(CONFIG_NAME), eq(encounter));
 
         doReturn(Collections.singletonList(location))
@@ -238,11 +232,9 @@ public class OpenMRSActionProxyServiceTest {
         observations.put("18ff53df-744a-4a3f-8f25-dac6de5b7131","testObservationValueName0, ,testObservationValueName1");
         List<Observation> obsList = createObservationList(2);
 
-        Encounter encounter = new Encounter(location, new EncounterType("testEncounterType"), encounterDatetime.toDate(), patient, visit, Collections.singletonList(provider.getPerson()), obsList);
+        Encounter encounter = new Encounter(location, new EncounterType("testEncounterType"), encounterDatetime.toDate(), patient, visit, Collections.singletonList(provider.getPerson()), obsList, form);
 
-        doReturn(patient).when(patientService).getPatientByUuid(eq(CONFIG_NAME), eq(patient.getUuid()));
         doReturn(provider).when(providerService).getProviderByUuid(eq(CONFIG_NAME), eq(provider.getUuid()));
-        doReturn(visit).when(visitService).getVisitByUuid(eq(CONFIG_NAME), eq(visit.getUuid()));
         doReturn(encounter).when(encounterService).createEncounter(eq(CONFIG_NAME), eq(encounter));
 
         doReturn(Collections.singletonList(location))
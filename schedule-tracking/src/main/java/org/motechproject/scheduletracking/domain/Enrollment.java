@@ -9,6 +9,7 @@ import org.motechproject.mds.annotations.Field;
 import org.motechproject.mds.annotations.Ignore;
 import org.motechproject.mds.event.CrudEventType;
 
+import javax.jdo.annotations.Index;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -92,6 +93,41 @@ public class Enrollment {
     @Field
     private List<MilestoneFulfillment> fulfillments = new LinkedList<>();
 
+    /**
+     * The start date and time of the earliest window of the current milestone.
+     */
+    @Field
+    @Index
+    private DateTime earliestWindowStart;
+
+    /**
+     * The start date and time of the due window of the current milestone.
+     */
+    @Field
+    @Index
+    private DateTime dueWindowStart;
+
+    /**
+     * The start date and time of the late window of the current milestone.
+     */
+    @Field
+    @Index
+    private DateTime lateWindowStart;
+
+    /**
+     * The start date and time of the max window of the current milestone.
+     */
+    @Field
+    @Index
+    private DateTime maxWindowStart;
+
+    /**
+     * The end date and time of the max window of the current milestone.
+     */
+    @Field
+    @Index
+    private DateTime maxWindowEnd;
+
     /**
      * Creates an Enrollment.
      */
@@ -313,6 +349,75 @@ public class Enrollment {
         return currentMilestoneStartDate.plus(currentMilestone.getWindowEnd(windowName));
     }
 
+    /**
+     * Calculates the start and end dates of the windows of the current milestone and stores them in this enrollment,
+     * so that enrollments can be searched by their windows in the database. It is called right before the enrollment
+     * is stored, by the {@link org.motechproject.scheduletracking.handler.EnrollmentLifecycleListener}. It only has to
+     * be called directly when the schedule of the enrollment changes, since that does not modify the enrollment
+     * itself. The dates are cleared if there is no current milestone or its start is unknown.
+     */
+    public void updateWindowBoundaries() {
+        Milestone currentMilestone = (schedule == null || currentMilestoneName == null)
+                ? null
+                : schedule.getMilestone(currentMilestoneName);
+
+        DateTime milestoneStart = (currentMilestone == null) ? null : getCurrentMilestoneStartDate();
+
+        if (milestoneStart == null) {
+            earliestWindowStart = null;
+            dueWindowStart = null;
+            lateWindowStart = null;
+            maxWindowStart = null;
+            maxWindowEnd = null;
+        } else {
+            earliestWindowStart = milestoneStart.plus(currentMilestone.getWindowStart(WindowName.earliest));
+            dueWindowStart = milestoneStart.plus(currentMilestone.getWindowStart(WindowName.due));
+            lateWindowStart = milestoneStart.plus(currentMilestone.getWindowStart(WindowName.late));
+            maxWindowStart = milestoneStart.plus(currentMilestone.getWindowStart(WindowName.max));
+            maxWindowEnd = milestoneStart.plus(currentMilestone.getWindowEnd(WindowName.max));
+        }
+    }
+
+    public DateTime getEarliestWindowStart() {
+        return setTimeZone(earliestWindowStart);
+    }
+
+    public void setEarliestWindowStart(DateTime earliestWindowStart) {
+        this.earliestWindowStart = earliestWindowStart;
+    }
+
+    public DateTime getDueWindowStart() {
+        return setTimeZone(dueWindowStart);
+    }
+
+    public void setDueWindowStart(DateTime dueWindowStart) {
+        this.dueWindowStart = dueWindowStart;
+    }
+
+    public DateTime getLateWindowStart() {
+        return setTimeZone(lateWindowStart);
+    }
+
+    public void setLateWindowStart(DateTime lateWindowStart) {
+        this.lateWindowStart = lateWindowStart;
+    }
+
+    public DateTime getMaxWindowStart() {
+        return setTimeZone(maxWindowStart);
+    }
+
+    public void setMaxWindowStart(DateTime maxWindowStart) {
+        this.maxWindowStart = maxWindowStart;
+    }
+
+    public DateTime getMaxWindowEnd() {
+        return setTimeZone(maxWindowEnd);
+    }
+
+    public void setMaxWindowEnd(DateTime maxWindowEnd) {
+        this.maxWindowEnd = maxWindowEnd;
+    }
+
     public Long getId() {
         return id;
     }
@@ -2,7 +2,9 @@ package org.motechproject.scheduletracking.domain.search;
 
 import org.joda.time.DateTime;
 import org.motechproject.scheduletracking.domain.Enrollment;
+import org.motechproject.scheduletracking.domain.EnrollmentStatus;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,6 +36,14 @@ public class CompletedDuringCriterion implements Criterion {
         return allEnrollments.completedDuring(start, end);
     }
 
+    @Override
+    public void addTo(CriteriaQueryExecution queryExecution) {
+        String fulfillment = queryExecution.variable("fulfillment");
+        queryExecution.and("status == '" + EnrollmentStatus.COMPLETED.name() + "' && fulfillments.contains(" + fulfillment +
+                ") && " + fulfillment + ".fulfillmentDateTime >= " + queryExecution.parameter(start) + " && " +
+                fulfillment + ".fulfillmentDateTime <= " + queryExecution.parameter(end));
+    }
+
     @Override
     public List<Enrollment> filter(List<Enrollment> enrollments) {
         List<Enrollment> filteredEnrollments = new ArrayList<Enrollment>();
@@ -2,11 +2,13 @@ package org.motechproject.scheduletracking.domain.search;
 
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 
 import java.util.List;
 
 /**
- * Criteria interface provides methods to fetch records from database and to filter records in memory.
+ * Criteria interface provides methods to fetch records from database, to add conditions to database queries and to
+ * filter records in memory.
  */
 public interface Criterion  {
 
@@ -25,6 +27,14 @@ public interface Criterion  {
      * @return the filtered list of the enrollments
      */
     List<Enrollment> filter(List<Enrollment> enrollments);
+
+    /**
+     * Adds the condition of this criterion to the given database query. It allows evaluating many criteria
+     * in a single query, instead of filtering the enrollments in memory.
+     *
+     * @param queryExecution the query to which the condition is added
+     */
+    void addTo(CriteriaQueryExecution queryExecution);
 }
 
 
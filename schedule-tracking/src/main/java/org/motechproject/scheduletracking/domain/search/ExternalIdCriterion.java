@@ -3,6 +3,7 @@ package org.motechproject.scheduletracking.domain.search;
 import ch.lambdaj.Lambda;
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 
 import java.util.List;
 
@@ -31,6 +32,11 @@ public class ExternalIdCriterion implements Criterion {
         return allEnrollments.findByExternalId(externalId);
     }
 
+    @Override
+    public void addTo(CriteriaQueryExecution queryExecution) {
+        queryExecution.and("externalId == " + queryExecution.parameter(externalId));
+    }
+
     @Override
     public List<Enrollment> filter(List<Enrollment> enrollments) {
         return Lambda.filter(having(on(Enrollment.class).getExternalId(), equalTo(externalId)), enrollments);
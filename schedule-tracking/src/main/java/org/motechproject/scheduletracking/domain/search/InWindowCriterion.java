@@ -1,9 +1,12 @@
 package org.motechproject.scheduletracking.domain.search;
 
+import org.apache.commons.lang.StringUtils;
 import org.joda.time.DateTime;
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.domain.WindowName;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,7 +29,19 @@ public class InWindowCriterion implements Criterion {
 
     @Override
     public List<Enrollment> fetch(AllEnrollments allEnrollments) {
-        return filter(allEnrollments.retrieveAll());
+        CriteriaQueryExecution queryExecution = new CriteriaQueryExecution();
+        addTo(queryExecution);
+        return allEnrollments.search(queryExecution);
+    }
+
+    @Override
+    public void addTo(CriteriaQueryExecution queryExecution) {
+        String now = queryExecution.parameter(DateTime.now());
+        List<String> windowConditions = new ArrayList<>();
+        for (WindowName windowName : windowNames) {
+            windowConditions.add(WindowBoundaries.inWindowCondition(windowName, now));
+        }
+        queryExecution.and(windowConditions.isEmpty() ? "false" : StringUtils.join(windowConditions, " || "));
     }
 
     @Override
@@ -2,6 +2,7 @@ package org.motechproject.scheduletracking.domain.search;
 
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -32,6 +33,12 @@ public class MetadataCriterion implements Criterion {
         return allEnrollments.findByMetadataProperty(key, value);
     }
 
+    @Override
+    public void addTo(CriteriaQueryExecution queryExecution) {
+        queryExecution.and("metadata.containsEntry(" + queryExecution.parameter(key) + ", " +
+                queryExecution.parameter(value) + ")");
+    }
+
     @Override
     public List<Enrollment> filter(List<Enrollment> enrollments) {
         List<Enrollment> filteredEnrollments = new ArrayList<Enrollment>();
@@ -3,6 +3,7 @@ package org.motechproject.scheduletracking.domain.search;
 import ch.lambdaj.Lambda;
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 
 import java.util.List;
 
@@ -31,6 +32,11 @@ public class MilestoneCriterion implements Criterion {
         return allEnrollments.findByCurrentMilestone(milestoneName);
     }
 
+    @Override
+    public void addTo(CriteriaQueryExecution queryExecution) {
+        queryExecution.and("currentMilestoneName == " + queryExecution.parameter(milestoneName));
+    }
+
     @Override
     public List<Enrollment> filter(List<Enrollment> enrollments) {
         return Lambda.filter(having(on(Enrollment.class).getCurrentMilestoneName(), equalTo(milestoneName)), enrollments);
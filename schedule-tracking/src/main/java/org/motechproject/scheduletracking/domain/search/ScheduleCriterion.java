@@ -2,6 +2,7 @@ package org.motechproject.scheduletracking.domain.search;
 
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 
 import java.util.Arrays;
 import java.util.Iterator;
@@ -29,6 +30,11 @@ public class ScheduleCriterion implements Criterion {
         return allEnrollments.findBySchedule(scheduleNames);
     }
 
+    @Override
+    public void addTo(CriteriaQueryExecution queryExecution) {
+        queryExecution.and(queryExecution.parameter(scheduleNames) + ".contains(scheduleName)");
+    }
+
     @Override
     public List<Enrollment> filter(List<Enrollment> enrollments) {
         for (Iterator it = enrollments.iterator(); it.hasNext();) {
@@ -5,6 +5,7 @@ import org.motechproject.commons.date.util.DateUtil;
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.domain.WindowName;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -36,7 +37,16 @@ public class StartOfWindowCriterion implements Criterion {
 
     @Override
     public List<Enrollment> fetch(AllEnrollments allEnrollments) {
-        return filter(allEnrollments.retrieveAll());
+        CriteriaQueryExecution queryExecution = new CriteriaQueryExecution();
+        addTo(queryExecution);
+        return allEnrollments.search(queryExecution);
+    }
+
+    @Override
+    public void addTo(CriteriaQueryExecution queryExecution) {
+        String field = WindowBoundaries.startField(windowName);
+        queryExecution.and(field + " >= " + queryExecution.parameter(start) + " && " +
+                field + " <= " + queryExecution.parameter(end));
     }
 
     @Override
@@ -4,6 +4,7 @@ import ch.lambdaj.Lambda;
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.domain.EnrollmentStatus;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 
 import java.util.List;
 
@@ -32,6 +33,11 @@ public class StatusCriterion implements Criterion {
         return allEnrollments.findByStatus(status);
     }
 
+    @Override
+    public void addTo(CriteriaQueryExecution queryExecution) {
+        queryExecution.and("status == '" + status.name() + "'");
+    }
+
     @Override
     public List<Enrollment> filter(List<Enrollment> enrollments) {
         return Lambda.filter(having(on(Enrollment.class).getStatus(), equalTo(status)), enrollments);
@@ -0,0 +1,67 @@
+package org.motechproject.scheduletracking.domain.search;
+
+import org.motechproject.scheduletracking.domain.WindowName;
+
+/**
+ * Maps the windows of the current milestone to the fields of the
+ * {@link org.motechproject.scheduletracking.domain.Enrollment}, which store their boundaries. The windows are
+ * contiguous, so a window ends where the next one starts.
+ */
+final class WindowBoundaries {
+
+    /**
+     * Returns the name of the field storing the start of the given window.
+     *
+     * @param windowName the window name
+     * @return the field name
+     */
+    static String startField(WindowName windowName) {
+        switch (windowName) {
+            case earliest:
+                return "earliestWindowStart";
+            case due:
+                return "dueWindowStart";
+            case late:
+                return "lateWindowStart";
+            default:
+                return "maxWindowStart";
+        }
+    }
+
+    /**
+     * Returns the name of the field storing the end of the given window.
+     *
+     * @param windowName the window name
+     * @return the field name
+     */
+    static String endField(WindowName windowName) {
+        switch (windowName) {
+            case earliest:
+                return "dueWindowStart";
+            case due:
+                return "lateWindowStart";
+            case late:
+                return "maxWindowStart";
+            default:
+                return "maxWindowEnd";
+        }
+    }
+
+    /**
+     * Returns the JDOQL condition met by the enrollments, which current milestone is in the given window at the
+     * given date and time. Both boundaries of the window are inclusive, but the earlier window wins when the date and
+     * time is the boundary of two windows, just like in
+     * {@link org.motechproject.scheduletracking.domain.Enrollment#getCurrentWindowAsOf(org.joda.time.DateTime)}.
+     *
+     * @param windowName the window name
+     * @param asOf the query parameter holding the date and time
+     * @return the JDOQL condition
+     */
+    static String inWindowCondition(WindowName windowName, String asOf) {
+        String startOperator = windowName == WindowName.earliest ? " <= " : " < ";
+        return "(" + startField(windowName) + startOperator + asOf + " && " + endField(windowName) + " >= " + asOf + ")";
+    }
+
+    private WindowBoundaries() {
+    }
+}
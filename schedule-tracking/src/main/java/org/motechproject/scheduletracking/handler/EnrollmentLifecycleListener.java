@@ -0,0 +1,20 @@
+package org.motechproject.scheduletracking.handler;
+
+import org.motechproject.mds.annotations.InstanceLifecycleListener;
+import org.motechproject.mds.annotations.InstanceLifecycleListenerType;
+import org.motechproject.scheduletracking.domain.Enrollment;
+
+/**
+ * MDS instance lifecycle listener. The purpose of this interface is to mark methods responsible for keeping the
+ * stored window boundaries of enrollments in sync with their current milestones.
+ */
+public interface EnrollmentLifecycleListener {
+
+    /**
+     * Calculates the window boundaries of the current milestone of the given enrollment, right before it is stored.
+     *
+     * @param enrollment enrollment being stored
+     */
+    @InstanceLifecycleListener(value = InstanceLifecycleListenerType.PRE_STORE)
+    void updateWindowBoundaries(Enrollment enrollment);
+}
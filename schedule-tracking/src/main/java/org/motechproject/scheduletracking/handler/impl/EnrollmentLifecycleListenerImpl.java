@@ -0,0 +1,18 @@
+package org.motechproject.scheduletracking.handler.impl;
+
+import org.motechproject.scheduletracking.domain.Enrollment;
+import org.motechproject.scheduletracking.handler.EnrollmentLifecycleListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementation of the {@link EnrollmentLifecycleListener}, which stores the window boundaries in every enrollment
+ * saved through MDS, no matter if it is saved by this module, by other modules or through the data browser.
+ */
+@Service("enrollmentLifecycleListener")
+public class EnrollmentLifecycleListenerImpl implements EnrollmentLifecycleListener {
+
+    @Override
+    public void updateWindowBoundaries(Enrollment enrollment) {
+        enrollment.updateWindowBoundaries();
+    }
+}
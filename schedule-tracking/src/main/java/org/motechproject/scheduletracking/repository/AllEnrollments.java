@@ -97,4 +97,34 @@ public class AllEnrollments {
     public List<Enrollment> completedDuring(DateTime start, DateTime end) {
         return enrollmentDataService.executeQuery(new MilestoneRangeQueryExecution(start, end));
     }
+
+    /**
+     * Returns all enrollments which meet the conditions of the given query.
+     *
+     * @param queryExecution the query with the conditions
+     * @return the list of the enrollments which satisfy the search conditions
+     */
+    @Transactional
+    public List<Enrollment> search(CriteriaQueryExecution queryExecution) {
+        return enrollmentDataService.executeQuery(queryExecution);
+    }
+
+    /**
+     * Stores the window boundaries of the current milestone in the enrollments, which do not have them yet. It
+     * updates the enrollments stored before the boundaries were introduced, so that they can be searched by their
+     * windows.
+     *
+     * @return the number of updated enrollments
+     * @see Enrollment#updateWindowBoundaries()
+     */
+    @Transactional
+    public int updateMissingWindowBoundaries() {
+        List<Enrollment> enrollments = enrollmentDataService.executeQuery(new CriteriaQueryExecution()
+                .and("currentMilestoneName != null && maxWindowEnd == null"));
+        for (Enrollment enrollment : enrollments) {
+            enrollment.updateWindowBoundaries();
+            enrollmentDataService.update(enrollment);
+        }
+        return enrollments.size();
+    }
 }
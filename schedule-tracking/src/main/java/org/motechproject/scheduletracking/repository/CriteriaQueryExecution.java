@@ -0,0 +1,75 @@
+package org.motechproject.scheduletracking.repository;
+
+import org.apache.commons.lang.StringUtils;
+import org.motechproject.mds.query.QueryExecution;
+import org.motechproject.mds.util.InstanceSecurityRestriction;
+import org.motechproject.scheduletracking.domain.Enrollment;
+
+import javax.jdo.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The <code>CriteriaQueryExecution</code> class prepares a custom MDS query built from many conditions. The query
+ * should return only these enrollments, that meet all of the added conditions. The values used by the conditions
+ * are passed as query parameters, registered through {@link #parameter(Object)}.
+ *
+ * @see org.motechproject.scheduletracking.domain.Enrollment
+ * @see org.motechproject.scheduletracking.domain.search.Criterion
+ */
+public class CriteriaQueryExecution implements QueryExecution<List<Enrollment>> {
+
+    private List<String> conditions = new ArrayList<>();
+    private Map<String, Object> parameters = new HashMap<>();
+    private int variables;
+
+    /**
+     * Adds the given JDOQL condition to the query. All added conditions have to be met by the returned enrollments.
+     *
+     * @param condition the JDOQL condition
+     * @return this instance
+     */
+    public CriteriaQueryExecution and(String condition) {
+        conditions.add("(" + condition + ")");
+        return this;
+    }
+
+    /**
+     * Registers the given value as a query parameter.
+     *
+     * @param value the value of the parameter
+     * @return the parameter reference, which should be used in the conditions
+     */
+    public String parameter(Object value) {
+        String name = "param" + parameters.size();
+        parameters.put(name, value);
+        return ":" + name;
+    }
+
+    /**
+     * Returns a variable name, unique within this query, starting with the given prefix.
+     *
+     * @param prefix the prefix of the variable name
+     * @return the variable name
+     */
+    public String variable(String prefix) {
+        return prefix + variables++;
+    }
+
+    public boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    @Override
+    public List<Enrollment> execute(Query query, InstanceSecurityRestriction instanceSecurityRestriction) {
+        query.setFilter(StringUtils.join(conditions, " && "));
+        return (List<Enrollment>) query.executeWithMap(parameters);
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.join(conditions, " && ");
+    }
+}
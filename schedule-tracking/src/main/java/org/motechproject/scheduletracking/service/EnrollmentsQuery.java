@@ -21,9 +21,7 @@ import static java.util.Arrays.asList;
 
 /**
  * This is the Query builder for retrieving enrollments, provides methods for different query criteria.
- * The order of criteria matters, as the first criterion is used to fetch the result from database
- * and the other criterion are used to filter the results(in the specified sequence) fetched by
- * the first criterion(in memory).
+ * All criteria are evaluated together by the database, so only the enrollments meeting all of them are fetched.
  */
 public class EnrollmentsQuery {
 
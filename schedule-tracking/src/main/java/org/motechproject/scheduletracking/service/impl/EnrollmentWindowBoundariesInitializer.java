@@ -0,0 +1,42 @@
+package org.motechproject.scheduletracking.service.impl;
+
+import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Component which stores the window boundaries in the enrollments created before the boundaries were introduced,
+ * so that they can be found by the window criteria of the enrollment searches.
+ */
+@Component
+public class EnrollmentWindowBoundariesInitializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EnrollmentWindowBoundariesInitializer.class);
+
+    private AllEnrollments allEnrollments;
+
+    /**
+     * Updates the enrollments without window boundaries. Failures are logged, so that they do not prevent the module
+     * from starting.
+     */
+    @PostConstruct
+    public void updateMissingWindowBoundaries() {
+        try {
+            int updated = allEnrollments.updateMissingWindowBoundaries();
+            if (updated > 0) {
+                LOGGER.info("Stored window boundaries of {} enrollments", updated);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to store window boundaries of existing enrollments", e);
+        }
+    }
+
+    @Autowired
+    public void setAllEnrollments(AllEnrollments allEnrollments) {
+        this.allEnrollments = allEnrollments;
+    }
+}
@@ -3,6 +3,7 @@ package org.motechproject.scheduletracking.service.impl;
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.domain.search.Criterion;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 import org.motechproject.scheduletracking.service.EnrollmentsQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -20,23 +21,18 @@ public class EnrollmentsQueryService {
     private AllEnrollments allEnrollments;
 
     /**
-     * Returns enrollments which meet the given criterions. Enrollments are retrieved from database using primary criteria
-     * and then result list is filtered using secondary criteria.
+     * Returns enrollments which meet the given criterions. All criteria are evaluated by the database in a single query.
      *
      * @param query the enrollment query with search criteria
      * @return the list of the enrollments
      */
     @Transactional
     public List<Enrollment> search(EnrollmentsQuery query) {
-        List<Enrollment> enrollments = new ArrayList<Enrollment>();
-        Criterion primaryCriterion = query.getPrimaryCriterion();
-        if (primaryCriterion != null) {
-            enrollments = primaryCriterion.fetch(allEnrollments);
+        CriteriaQueryExecution queryExecution = new CriteriaQueryExecution();
+        for (Criterion criterion : query.getCriteria()) {
+            criterion.addTo(queryExecution);
         }
-        for (Criterion criterion : query.getSecondaryCriteria()) {
-            enrollments = criterion.filter(enrollments);
-        }
-        return enrollments;
+        return queryExecution.isEmpty() ? new ArrayList<Enrollment>() : allEnrollments.search(queryExecution);
     }
 
     @Autowired
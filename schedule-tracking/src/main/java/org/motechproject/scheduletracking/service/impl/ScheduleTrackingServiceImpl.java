@@ -31,6 +31,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -149,6 +150,7 @@ public class ScheduleTrackingServiceImpl implements ScheduleTrackingService {
             LOGGER.info("Updating a schedule record with schedule name {}.", existing.getName());
             existing.merge(schedule);
             scheduleDataService.update(existing);
+            updateWindowBoundaries(existing);
         }
     }
 
@@ -197,6 +199,15 @@ public class ScheduleTrackingServiceImpl implements ScheduleTrackingService {
         enrollmentService.fulfillCurrentMilestone(activeEnrollment, newDateTime(fulfillmentDate, fulfillmentTime));
     }
 
+    private void updateWindowBoundaries(Schedule schedule) {
+        LOGGER.info("Updating window boundaries of enrollments in schedule {}.", schedule.getName());
+        for (Enrollment enrollment : enrollmentDataService.findByScheduleName(Collections.singleton(schedule.getName()))) {
+            // the enrollment itself is not modified, so it would not be stored without recalculating its boundaries
+            enrollment.updateWindowBoundaries();
+            enrollmentDataService.update(enrollment);
+        }
+    }
+
     private boolean isDuplicateFulfillment(Enrollment activeEnrollment, LocalDate fulfillmentDate, Time fulfillmentTime) {
         return activeEnrollment.getFulfillments().size() > 0 && activeEnrollment.getLastFulfilledDate().equals(newDateTime(fulfillmentDate, fulfillmentTime));
     }
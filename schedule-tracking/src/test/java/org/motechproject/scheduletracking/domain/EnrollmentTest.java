@@ -181,4 +181,38 @@ public class EnrollmentTest  {
         Assert.assertEquals(referenceDate.plusWeeks(1), enrollment.getStartOfWindowForCurrentMilestone(WindowName.due));
         Assert.assertEquals(referenceDate.plusWeeks(2), enrollment.getStartOfWindowForCurrentMilestone(WindowName.late));
         Assert.assertEquals(referenceDate.plusWeeks(3), enrollment.getStartOfWindowForCurrentMilestone(WindowName.max));
-    }}
+    }
+
+    @Test
+    public void shouldStoreTheWindowBoundariesOfTheCurrentMilestone() {
+        Milestone firstMilestone = new Milestone("first_milestone", weeks(1), weeks(1), weeks(1), weeks(1));
+        Milestone secondMilestone = new Milestone("second_milestone", weeks(2), weeks(1), weeks(1), weeks(1));
+        Schedule schedule = new Schedule("my_schedule");
+        schedule.addMilestones(firstMilestone, secondMilestone);
+
+        DateTime referenceDate = newDateTime(2012, 12, 4, 8, 30, 0);
+        Enrollment enrollment = new EnrollmentBuilder().withExternalId("ID-074285").withSchedule(schedule).withCurrentMilestoneName("first_milestone").withStartOfSchedule(referenceDate).withEnrolledOn(referenceDate).withPreferredAlertTime(null).withStatus(EnrollmentStatus.ACTIVE).withMetadata(null).toEnrollment();
+        enrollment.updateWindowBoundaries();
+
+        assertEquals(referenceDate, enrollment.getEarliestWindowStart());
+        assertEquals(referenceDate.plusWeeks(1), enrollment.getDueWindowStart());
+        assertEquals(referenceDate.plusWeeks(2), enrollment.getLateWindowStart());
+        assertEquals(referenceDate.plusWeeks(3), enrollment.getMaxWindowStart());
+        assertEquals(referenceDate.plusWeeks(4), enrollment.getMaxWindowEnd());
+
+        DateTime fulfillmentDate = referenceDate.plusDays(10);
+        enrollment.fulfillCurrentMilestone(fulfillmentDate);
+        enrollment.setCurrentMilestoneName("second_milestone");
+        enrollment.updateWindowBoundaries();
+
+        assertEquals(fulfillmentDate, enrollment.getEarliestWindowStart());
+        assertEquals(fulfillmentDate.plusWeeks(2), enrollment.getDueWindowStart());
+        assertEquals(fulfillmentDate.plusWeeks(5), enrollment.getMaxWindowEnd());
+
+        enrollment.setCurrentMilestoneName(null);
+        enrollment.updateWindowBoundaries();
+
+        assertEquals(null, enrollment.getEarliestWindowStart());
+        assertEquals(null, enrollment.getMaxWindowEnd());
+    }
+}
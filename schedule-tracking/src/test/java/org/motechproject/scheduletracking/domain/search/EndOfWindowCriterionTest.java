@@ -7,12 +7,14 @@ import org.mockito.Mock;
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.domain.WindowName;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 import static junit.framework.Assert.assertEquals;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.motechproject.commons.date.util.DateUtil.newDateTime;
@@ -37,7 +39,7 @@ public class EndOfWindowCriterionTest {
         Enrollment enrollment4 = mock(Enrollment.class);
         enrollments.addAll(asList(enrollment1, enrollment2, enrollment3, enrollment4));
 
-        when(allEnrollments.retrieveAll()).thenReturn(enrollments);
+        when(allEnrollments.search(any(CriteriaQueryExecution.class))).thenReturn(asList(enrollment1, enrollment2, enrollment3));
 
         when(enrollment1.getEndOfWindowForCurrentMilestone(WindowName.due)).thenReturn(newDateTime(2012, 2, 3, 5, 10, 0));
         when(enrollment2.getEndOfWindowForCurrentMilestone(WindowName.due)).thenReturn(newDateTime(2012, 2, 3, 0, 0, 0));
@@ -52,4 +54,12 @@ public class EndOfWindowCriterionTest {
         assertEquals(asList(enrollment1, enrollment2, enrollment3), fetchedEnrollments);
         assertEquals(asList(enrollment1, enrollment2, enrollment3), filteredEnrollments);
     }
+
+    @Test
+    public void shouldQueryStoredWindowBoundary() {
+        CriteriaQueryExecution queryExecution = new CriteriaQueryExecution();
+        new EndOfWindowCriterion(WindowName.due, newDateTime(2012, 2, 3, 0, 0, 0), newDateTime(2012, 2, 5, 23, 59, 59)).addTo(queryExecution);
+
+        assertEquals("(lateWindowStart >= :param0 && lateWindowStart <= :param1)", queryExecution.toString());
+    }
 }
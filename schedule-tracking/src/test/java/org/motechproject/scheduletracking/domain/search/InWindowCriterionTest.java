@@ -13,6 +13,7 @@ import org.motechproject.scheduletracking.domain.Milestone;
 import org.motechproject.scheduletracking.domain.Schedule;
 import org.motechproject.scheduletracking.domain.WindowName;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 import org.motechproject.scheduletracking.repository.dataservices.ScheduleDataService;
 
 import java.util.ArrayList;
@@ -20,6 +21,7 @@ import java.util.List;
 
 import static java.util.Arrays.asList;
 import static junit.framework.Assert.assertEquals;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.motechproject.commons.date.util.DateUtil.newDateTime;
@@ -46,16 +48,12 @@ public class InWindowCriterionTest {
         Enrollment enrollment3 = mock(Enrollment.class);
         enrollments.addAll(asList(enrollment1, enrollment2, enrollment3));
 
-        when(allEnrollments.retrieveAll()).thenReturn(enrollments);
-
         when(enrollment1.getCurrentWindowAsOf(Matchers.<DateTime>any())).thenReturn(WindowName.earliest);
         when(enrollment2.getCurrentWindowAsOf(Matchers.<DateTime>any())).thenReturn(WindowName.due);
         when(enrollment3.getCurrentWindowAsOf(Matchers.<DateTime>any())).thenReturn(WindowName.earliest);
 
-        assertEquals(asList(enrollment1, enrollment3), new InWindowCriterion((asList(WindowName.earliest))).fetch(allEnrollments));
         assertEquals(asList(enrollment1, enrollment3), new InWindowCriterion((asList(WindowName.earliest))).filter(enrollments));
 
-        assertEquals(asList(enrollment2), new InWindowCriterion((asList(WindowName.due))).fetch(allEnrollments));
         assertEquals(asList(enrollment2), new InWindowCriterion((asList(WindowName.due))).filter(enrollments));
     }
 
@@ -67,16 +65,30 @@ public class InWindowCriterionTest {
         Enrollment enrollment3 = mock(Enrollment.class);
         enrollments.addAll(asList(enrollment1, enrollment2, enrollment3));
 
-        when(allEnrollments.retrieveAll()).thenReturn(enrollments);
-
         when(enrollment1.getCurrentWindowAsOf(Matchers.<DateTime>any())).thenReturn(WindowName.earliest);
         when(enrollment2.getCurrentWindowAsOf(Matchers.<DateTime>any())).thenReturn(WindowName.due);
         when(enrollment3.getCurrentWindowAsOf(Matchers.<DateTime>any())).thenReturn(WindowName.late);
 
-        assertEquals(asList(enrollment1, enrollment3), new InWindowCriterion((asList(WindowName.earliest, WindowName.late))).fetch(allEnrollments));
         assertEquals(asList(enrollment1, enrollment3), new InWindowCriterion((asList(WindowName.earliest, WindowName.late))).filter(enrollments));
     }
 
+    @Test
+    public void shouldFetchEnrollmentsInWindowsFromDatabase() {
+        List<Enrollment> enrollments = asList(mock(Enrollment.class), mock(Enrollment.class));
+        when(allEnrollments.search(any(CriteriaQueryExecution.class))).thenReturn(enrollments);
+
+        assertEquals(enrollments, new InWindowCriterion(asList(WindowName.earliest, WindowName.late)).fetch(allEnrollments));
+    }
+
+    @Test
+    public void shouldQueryStoredWindowBoundariesGivingPrecedenceToEarlierWindows() {
+        CriteriaQueryExecution queryExecution = new CriteriaQueryExecution();
+        new InWindowCriterion(asList(WindowName.earliest, WindowName.late)).addTo(queryExecution);
+
+        assertEquals("((earliestWindowStart <= :param0 && dueWindowStart >= :param0) || " +
+                "(lateWindowStart < :param0 && maxWindowStart >= :param0))", queryExecution.toString());
+    }
+
     @Test
     public void shouldReturnTheWindowAnEnrollmentIsInForTheCurrentMilestone() {
         Milestone firstMilestone = new Milestone("first_milestone", weeks(1), weeks(1), weeks(1), weeks(1));
@@ -7,12 +7,14 @@ import org.mockito.Mock;
 import org.motechproject.scheduletracking.domain.Enrollment;
 import org.motechproject.scheduletracking.domain.WindowName;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 import static junit.framework.Assert.assertEquals;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.motechproject.commons.date.util.DateUtil.newDateTime;
@@ -42,7 +44,7 @@ public class StartOfWindowCriterionTest {
         when(enrollment3.getStartOfWindowForCurrentMilestone(WindowName.due)).thenReturn(newDateTime(2012, 2, 5, 0, 0, 0));
         when(enrollment4.getStartOfWindowForCurrentMilestone(WindowName.due)).thenReturn(newDateTime(2012, 2, 6, 0, 0, 0));
 
-        when(allEnrollments.retrieveAll()).thenReturn(enrollments);
+        when(allEnrollments.search(any(CriteriaQueryExecution.class))).thenReturn(asList(enrollment1, enrollment2, enrollment3));
 
         DateTime start = newDateTime(2012, 2, 3, 0, 0, 0);
         DateTime end = newDateTime(2012, 2, 5, 23, 59, 59);
@@ -52,4 +54,12 @@ public class StartOfWindowCriterionTest {
         assertEquals(asList(enrollment1, enrollment2, enrollment3), fetchedEnrollments);
         assertEquals(asList(enrollment1, enrollment2, enrollment3), filteredEnrollments);
     }
+
+    @Test
+    public void shouldQueryStoredWindowBoundary() {
+        CriteriaQueryExecution queryExecution = new CriteriaQueryExecution();
+        new StartOfWindowCriterion(WindowName.due, newDateTime(2012, 2, 3, 0, 0, 0), newDateTime(2012, 2, 5, 23, 59, 59)).addTo(queryExecution);
+
+        assertEquals("(dueWindowStart >= :param0 && dueWindowStart <= :param1)", queryExecution.toString());
+    }
 }
@@ -149,6 +149,33 @@ public class EnrollmentsSearchBundleIT extends BasePaxIT {
         assertEquals(asList(new DateTime[]{ newDateTime(2012, 4, 1, 0, 0, 0), newDateTime(2012, 4, 7, 0, 0, 0)}), extract(result, on(EnrollmentRecord.class).getStartOfDueWindow()));
     }
 
+    @Test
+    public void shouldStoreWindowBoundariesOfTheCurrentMilestoneWhenEnrollmentIsSaved() {
+        DateTime referenceDate = newDateTime(2012, 10, 1, 0, 0, 0);
+        Enrollment enrollment = createEnrollment("entity_1", "IPTI Schedule", "IPTI 2", referenceDate, referenceDate, new Time(6, 30), EnrollmentStatus.ACTIVE, null);
+
+        Enrollment stored = enrollmentDataService.findById(enrollment.getId());
+        assertEquals(referenceDate, stored.getEarliestWindowStart());
+        assertEquals(referenceDate.plusWeeks(1), stored.getDueWindowStart());
+        assertEquals(referenceDate.plusWeeks(3), stored.getLateWindowStart());
+        assertEquals(referenceDate.plusWeeks(6), stored.getMaxWindowStart());
+        assertEquals(referenceDate.plusWeeks(6), stored.getMaxWindowEnd());
+    }
+
+    @Test
+    public void shouldSearchByTheWindowsOfTheMilestoneReachedByFulfillment() {
+        createEnrollment("entity_1", "IPTI Schedule", "IPTI 1", weeksAgo(2), weeksAgo(2), new Time(6, 30), EnrollmentStatus.ACTIVE, null);
+        createEnrollment("entity_2", "IPTI Schedule", "IPTI 1", weeksAgo(2), weeksAgo(2), new Time(6, 30), EnrollmentStatus.ACTIVE, null);
+        // the due window of IPTI 2 starts a week after the fulfillment
+        scheduleTrackingService.fulfillCurrentMilestone("entity_1", "IPTI Schedule", weeksAgo(2).toLocalDate(), new Time(0, 0));
+
+        EnrollmentsQuery inDueWindow = new EnrollmentsQuery().havingSchedule("IPTI Schedule").currentlyInWindow(WindowName.due);
+        assertEquals(asList(new String[]{ "entity_1" }), extract(scheduleTrackingService.search(inDueWindow), on(EnrollmentRecord.class).getExternalId()));
+
+        EnrollmentsQuery inEarliestWindow = new EnrollmentsQuery().havingSchedule("IPTI Schedule").currentlyInWindow(WindowName.earliest);
+        assertEquals(asList(new String[]{ "entity_2" }), extract(scheduleTrackingService.search(inEarliestWindow), on(EnrollmentRecord.class).getExternalId()));
+    }
+
     @Test
     public void shouldFindEnrollmentsByMetadataProperties() {
         HashMap<String,String> metadata;
@@ -2,17 +2,24 @@ package org.motechproject.scheduletracking.service.impl;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.motechproject.scheduletracking.domain.Enrollment;
-import org.motechproject.scheduletracking.domain.search.Criterion;
+import org.motechproject.scheduletracking.domain.EnrollmentStatus;
+import org.motechproject.scheduletracking.domain.WindowName;
 import org.motechproject.scheduletracking.repository.AllEnrollments;
+import org.motechproject.scheduletracking.repository.CriteriaQueryExecution;
 import org.motechproject.scheduletracking.service.EnrollmentsQuery;
 
 import java.util.List;
 
 import static java.util.Arrays.asList;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -31,25 +38,25 @@ public class EnrollmentsQueryServiceTest {
     }
 
     @Test
-    public void shouldFetchByPrimaryCriterionFromDbAndFilterSubsequentCriteriaInCode() {
+    public void shouldFetchByAllCriteriaFromDbInSingleQuery() {
+        List<Enrollment> expectedEnrollments = asList(mock(Enrollment.class));
+        when(allEnrollments.search(any(CriteriaQueryExecution.class))).thenReturn(expectedEnrollments);
 
-        Criterion primaryCriterion = mock(Criterion.class);
-        List<Enrollment> filteredByMetadata = mock(List.class);
-        when(primaryCriterion.fetch(allEnrollments)).thenReturn(filteredByMetadata);
+        EnrollmentsQuery enrollmentQuery = new EnrollmentsQuery().havingSchedule("schedule")
+                .havingState(EnrollmentStatus.ACTIVE).currentlyInWindow(WindowName.due);
 
-        Criterion secondaryCriterion1 = mock(Criterion.class);
-        List<Enrollment> criterion1FilteredEnrollments = mock(List.class);
-        when(secondaryCriterion1.filter(filteredByMetadata)).thenReturn(criterion1FilteredEnrollments);
+        assertEquals(expectedEnrollments, enrollmentsQueryService.search(enrollmentQuery));
 
-        Criterion secondaryCriterion2 = mock(Criterion.class);
-        List<Enrollment> expectedFilteredEnrollments = mock(List.class);
-        when(secondaryCriterion2.filter(criterion1FilteredEnrollments)).thenReturn(expectedFilteredEnrollments);
-
-        EnrollmentsQuery enrollmentQuery = mock(EnrollmentsQuery.class);
-        when(enrollmentQuery.getPrimaryCriterion()).thenReturn(primaryCriterion);
-        when(enrollmentQuery.getSecondaryCriteria()).thenReturn(asList(secondaryCriterion1, secondaryCriterion2));
+        ArgumentCaptor<CriteriaQueryExecution> captor = ArgumentCaptor.forClass(CriteriaQueryExecution.class);
+        verify(allEnrollments).search(captor.capture());
+        assertEquals("(:param0.contains(scheduleName)) && (status == 'ACTIVE') && " +
+                "((dueWindowStart < :param1 && lateWindowStart >= :param1))", captor.getValue().toString());
+    }
 
-        assertEquals(expectedFilteredEnrollments, enrollmentsQueryService.search(enrollmentQuery));
+    @Test
+    public void shouldNotQueryDbWhenThereAreNoCriteria() {
+        assertTrue(enrollmentsQueryService.search(new EnrollmentsQuery()).isEmpty());
 
+        verify(allEnrollments, never()).search(any(CriteriaQueryExecution.class));
     }
 }
@@ -0,0 +1,109 @@
+package org.motechproject.sms.audit;
+
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.DateTime;
+import org.motechproject.commons.date.util.DateUtil;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A short-lived, in-memory index of recently audited outbound SMS records, keyed by config together with the
+ * provider id. Delivery status callbacks usually arrive within minutes after the message was sent, so most of them
+ * can be matched with their record without querying the database. The index is bounded both in time and in size, the
+ * oldest entries are evicted first.
+ * <p>
+ * Records are only indexed once they are committed, so that records of rolled back transactions never show up in
+ * lookups. MOTECH ids are not indexed, since all the recipients of a provider chunk share the same MOTECH id and a
+ * lookup by it could not tell their records apart.
+ */
+@Component
+public class RecentSmsRecords {
+
+    private static final int MAX_ENTRIES = 50000;
+    private static final int TIME_TO_LIVE_MINUTES = 30;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(1024, 0.75f, false) {
+        private static final long serialVersionUID = 3186452837209582196L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES || eldest.getValue().isExpired(DateUtil.now());
+        }
+    };
+
+    /**
+     * Remembers the given record under its provider id, if it is set. If called within a transaction, the record is
+     * remembered once the transaction commits.
+     * @param smsRecord the record to remember
+     */
+    public void add(SmsRecord smsRecord) {
+        addAll(Collections.singletonList(smsRecord));
+    }
+
+    /**
+     * Remembers the given records under their provider ids, if they are set. If called within a transaction, the
+     * records are remembered once the transaction commits.
+     * @param smsRecords the records to remember
+     */
+    public void addAll(final Collection<SmsRecord> smsRecords) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    remember(smsRecords);
+                }
+            });
+        } else {
+            remember(smsRecords);
+        }
+    }
+
+    /**
+     * @param config the name of the config the message was sent through
+     * @param providerId the id given to the message by the provider
+     * @return the most recent record with the given provider id, or null if it is not known
+     */
+    public SmsRecord findByProviderId(String config, String providerId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key(config, providerId));
+        }
+        return entry == null || entry.isExpired(DateUtil.now()) ? null : entry.smsRecord;
+    }
+
+    private void remember(Collection<SmsRecord> smsRecords) {
+        DateTime expires = DateUtil.now().plusMinutes(TIME_TO_LIVE_MINUTES);
+        synchronized (entries) {
+            for (SmsRecord smsRecord : smsRecords) {
+                if (StringUtils.isNotBlank(smsRecord.getProviderId())) {
+                    entries.put(key(smsRecord.getConfig(), smsRecord.getProviderId()), new Entry(smsRecord, expires));
+                }
+            }
+        }
+    }
+
+    private static String key(String config, String providerId) {
+        return config + '|' + providerId;
+    }
+
+    private static final class Entry {
+
+        private final SmsRecord smsRecord;
+        private final DateTime expires;
+
+        private Entry(SmsRecord smsRecord, DateTime expires) {
+            this.smsRecord = smsRecord;
+            this.expires = expires;
+        }
+
+        private boolean isExpired(DateTime now) {
+            return now.isAfter(expires);
+        }
+    }
+}
@@ -13,6 +13,8 @@ import org.motechproject.mds.annotations.Entity;
 import org.motechproject.mds.annotations.UIFilterable;
 import org.motechproject.mds.util.SecurityMode;
 
+import javax.jdo.annotations.Index;
+
 import static org.motechproject.sms.util.Constants.VIEW_SMS_LOGS_PERMISSION;
 
 /**
@@ -60,11 +62,13 @@ public class SmsRecord {
     /**
      * The ID by which MOTECH identifies this SMS.
      */
+    @Index
     private String motechId;
 
     /**
      * The ID generated by the provider for this SMS.
      */
+    @Index
     private String providerId;
 
     /**
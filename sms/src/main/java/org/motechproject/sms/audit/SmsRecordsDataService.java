@@ -105,4 +105,32 @@ public interface SmsRecordsDataService extends MotechDataService<SmsRecord> {
     List<SmsRecord> findByProviderAndMotechId(
             @LookupField(name = PROVIDER_ID, customOperator = MATCHES_CASE_INSENSITIVE) String providerId,
             @LookupField(name = MOTECH_ID, customOperator = MATCHES_CASE_INSENSITIVE) String motechId);
+
+    /**
+     * Retrieves records sent through the given config by the exact provider ID. Unlike
+     * {@link #findByProviderId(String)}, this lookup does not use regular expressions, so it can be served using the
+     * index on the provider ID.
+     * @param config the name of the configuration associated with the SMS message
+     * @param providerId the provider ID
+     * @param queryParams the query params controlling the ordering and size of the lookup
+     * @return the list of matching records
+     */
+    @Lookup
+    List<SmsRecord> findByConfigAndExactProviderId(@LookupField(name = "config") String config,
+                                                   @LookupField(name = PROVIDER_ID) String providerId,
+                                                   QueryParams queryParams);
+
+    /**
+     * Retrieves records sent through the given config by the exact MOTECH ID. Unlike
+     * {@link #findByMotechId(String)}, this lookup does not use regular expressions, so it can be served using the
+     * index on the MOTECH ID.
+     * @param config the name of the configuration associated with the SMS message
+     * @param motechId the MOTECH ID
+     * @param queryParams the query params controlling the ordering and size of the lookup
+     * @return the list of matching records
+     */
+    @Lookup
+    List<SmsRecord> findByConfigAndExactMotechId(@LookupField(name = "config") String config,
+                                                 @LookupField(name = MOTECH_ID) String motechId,
+                                                 QueryParams queryParams);
 }
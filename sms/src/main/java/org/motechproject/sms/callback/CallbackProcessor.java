@@ -0,0 +1,283 @@
+package org.motechproject.sms.callback;
+
+import org.joda.time.DateTime;
+import org.motechproject.admin.service.StatusMessageService;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.mds.query.QueryParams;
+import org.motechproject.mds.util.Order;
+import org.motechproject.sms.audit.RecentSmsRecords;
+import org.motechproject.sms.audit.SmsRecord;
+import org.motechproject.sms.audit.SmsRecordsDataService;
+import org.motechproject.sms.audit.constants.DeliveryStatuses;
+import org.motechproject.sms.configs.Config;
+import org.motechproject.sms.service.ConfigService;
+import org.motechproject.sms.service.TemplateService;
+import org.motechproject.sms.templates.Status;
+import org.motechproject.sms.templates.Template;
+import org.motechproject.sms.util.SmsEventSubjects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.motechproject.commons.date.util.DateUtil.now;
+import static org.motechproject.sms.audit.SmsDirection.INBOUND;
+import static org.motechproject.sms.audit.SmsDirection.OUTBOUND;
+import static org.motechproject.sms.util.SmsEvents.inboundEvent;
+import static org.motechproject.sms.util.SmsEvents.outboundEvent;
+
+/**
+ * Turns status updates and inbound messages sent by the providers into audit records and MOTECH events. The
+ * processor neither saves the records nor publishes the events, it adds them to the given lists, so that the caller
+ * can do that for a single callback or for a whole batch of them.
+ */
+@Service
+public class CallbackProcessor {
+
+    private static final String SMS_MODULE = "motech-sms";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallbackProcessor.class);
+
+    private StatusMessageService statusMessageService;
+    private TemplateService templateService;
+    private ConfigService configService;
+    private SmsRecordsDataService smsRecordsDataService;
+    private RecentSmsRecords recentSmsRecords;
+
+    /**
+     * Processes the given callback.
+     * @param callback the callback received from the provider
+     * @param auditRecords the list to which the records that should be audited will be added
+     * @param events the list to which the events that should be published will be added
+     */
+    public void process(ProviderCallback callback, List<SmsRecord> auditRecords, List<MotechEvent> events) {
+        switch (callback.getType()) {
+            case STATUS:
+                processStatus(callback, auditRecords, events);
+                break;
+            case INCOMING:
+                processIncoming(callback, auditRecords, events);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown callback type: " + callback.getType());
+        }
+    }
+
+    private void processStatus(ProviderCallback callback, List<SmsRecord> auditRecords, List<MotechEvent> events) {
+        String configName = callback.getConfigName();
+        Map<String, String> params = callback.getParams();
+
+        if (!configService.hasConfig(configName)) {
+            warn(String.format("Received SMS Status for '%s' config but no matching config: %s, " +
+                    "will try the default config", configName, params));
+        }
+        Config config = configService.getConfigOrDefault(configName);
+        Template template = templateService.getTemplate(config.getTemplateName());
+        Status status = template.getStatus();
+
+        if (status.hasMessageIdKey() && params.containsKey(status.getMessageIdKey())) {
+            if (status.hasStatusKey() && status.hasStatusSuccess()) {
+                analyzeStatus(status, configName, params, callback.getReceivedAt(), auditRecords, events);
+            } else {
+                warn(String.format("We have a message id, but don't know how to extract message status, this is most likely a template error. Config: %s, Parameters: %s",
+                        configName, params));
+            }
+        } else {
+            warn(String.format("Status message received from provider, but no template support! Config: %s, Parameters: %s",
+                    configName, params));
+        }
+    }
+
+    private SmsRecord findExistingSmsRecord(String configName, String providerMessageId) {
+        // Try to find an existing SMS record using the provider message ID
+        // NOTE: Only works if the provider guarantees the message id is unique. So far, all do.
+        SmsRecord existingSmsRecord = recentSmsRecords.findByProviderId(configName, providerMessageId);
+        if (existingSmsRecord != null) {
+            LOGGER.debug("Found recent log record with matching providerId {}", providerMessageId);
+            return existingSmsRecord;
+        }
+
+        QueryParams queryParams = new QueryParams(1, 1, new Order("timestamp", Order.Direction.DESC));
+
+        List<SmsRecord> smsRecords = smsRecordsDataService.findByConfigAndExactProviderId(configName,
+                providerMessageId, queryParams);
+        if (!CollectionUtils.isEmpty(smsRecords)) {
+            LOGGER.debug("Found log record with matching providerId {}", providerMessageId);
+            return smsRecords.get(0);
+        }
+
+        // If we couldn't find a record by provider message ID try using the MOTECH ID
+        smsRecords = smsRecordsDataService.findByConfigAndExactMotechId(configName, providerMessageId, queryParams);
+        if (!CollectionUtils.isEmpty(smsRecords)) {
+            LOGGER.debug("Found log record with matching motechId {}", providerMessageId);
+            return smsRecords.get(0);
+        }
+
+        return null;
+    }
+
+    private SmsRecord findOrCreateSmsRecord(String configName, String providerMessageId, String statusString,
+                                            DateTime timestamp) {
+        SmsRecord existingSmsRecord = findExistingSmsRecord(configName, providerMessageId);
+
+        if (existingSmsRecord == null) {
+            warn(String.format("Received status update but couldn't find a log record with matching " +
+                    "ProviderMessageId or motechId: %s", providerMessageId));
+            //start with an empty SMS record
+            return new SmsRecord(configName, OUTBOUND, null, null, timestamp, null, statusString, null,
+                    providerMessageId, null);
+        }
+
+        return new SmsRecord(configName, OUTBOUND, existingSmsRecord.getPhoneNumber(),
+                existingSmsRecord.getMessageContent(), timestamp, null, statusString,
+                existingSmsRecord.getMotechId(), providerMessageId, null);
+    }
+
+    private void analyzeStatus(Status status, String configName, Map<String, String> params, //NO CHECKSTYLE ParameterNumber
+                               DateTime timestamp, List<SmsRecord> auditRecords, List<MotechEvent> events) {
+        String statusString = params.get(status.getStatusKey());
+        String providerMessageId = params.get(status.getMessageIdKey());
+        SmsRecord smsRecord = findOrCreateSmsRecord(configName, providerMessageId, statusString, timestamp);
+        List<String> recipients = Collections.singletonList(smsRecord.getPhoneNumber());
+
+        if (statusString != null) {
+            String eventSubject;
+            if (statusString.matches(status.getStatusSuccess())) {
+                smsRecord.setDeliveryStatus(statusString);
+                eventSubject = SmsEventSubjects.DELIVERY_CONFIRMED;
+            } else if (status.hasStatusFailure() && statusString.matches(status.getStatusFailure())) {
+                smsRecord.setDeliveryStatus(statusString);
+                eventSubject = SmsEventSubjects.FAILURE_CONFIRMED;
+            } else {
+                // If we're not certain the message was delivered or failed, then it's in the DISPATCHED gray area
+                smsRecord.setDeliveryStatus(statusString);
+                eventSubject = SmsEventSubjects.DISPATCHED;
+            }
+            events.add(outboundEvent(eventSubject, configName, recipients,
+                    smsRecord.getMessageContent(), smsRecord.getMotechId(), providerMessageId, null, statusString,
+                    timestamp, null));
+        } else {
+            warn(String.format("Likely template error, unable to extract status string. Config: %s, Parameters: %s",
+                    configName, params));
+            smsRecord.setDeliveryStatus(DeliveryStatuses.FAILURE_CONFIRMED);
+            events.add(outboundEvent(SmsEventSubjects.FAILURE_CONFIRMED, configName, recipients,
+                    smsRecord.getMessageContent(), smsRecord.getMotechId(), providerMessageId, null, null,
+                    timestamp, null));
+        }
+
+        auditRecords.add(smsRecord);
+    }
+
+    private void processIncoming(ProviderCallback callback, List<SmsRecord> auditRecords, List<MotechEvent> events) {
+        String configName = callback.getConfigName();
+        Map<String, String> params = callback.getParams();
+
+        if (!configService.hasConfig(configName)) {
+            warn(String.format("Invalid config in incoming request: %s, params: %s", configName, params));
+            return;
+        }
+        Config config = configService.getConfig(configName);
+        Template template = templateService.getTemplate(config.getTemplateName());
+
+        events.add(inboundEvent(config.getName(),
+                getSender(params, template),
+                getRecipient(params, template),
+                getMessage(params, template),
+                getMsgId(params, template),
+                getTimestamp(params, template, callback.getReceivedAt())));
+        auditRecords.add(new SmsRecord(config.getName(),
+                INBOUND,
+                getSender(params, template),
+                getMessage(params, template),
+                callback.getReceivedAt(),
+                getStatus(params, template),
+                null,
+                null,
+                getMsgId(params, template), null));
+    }
+
+    private String getSender(Map<String, String> params, Template template) {
+        String sender = null;
+        if (params.containsKey(template.getIncoming().getSenderKey())) {
+            sender = params.get(template.getIncoming().getSenderKey());
+            if (template.getIncoming().hasSenderRegex()) {
+                sender = template.getIncoming().extractSender(sender);
+            }
+        }
+        return sender;
+    }
+
+    private String getRecipient(Map<String, String> params, Template template) {
+        String recipient = null;
+        if (params.containsKey(template.getIncoming().getRecipientKey())) {
+            recipient = params.get(template.getIncoming().getRecipientKey());
+            if (template.getIncoming().hasRecipientRegex()) {
+                recipient = template.getIncoming().extractRecipient(recipient);
+            }
+        }
+        return recipient;
+    }
+
+    private String getMessage(Map<String, String> params, Template template) {
+        return params.get(template.getIncoming().getMessageKey());
+    }
+
+    private String getMsgId(Map<String, String> params, Template template) {
+        return params.get(template.getIncoming().getMsgIdKey());
+    }
+
+    private DateTime getTimestamp(Map<String, String> params, Template template, DateTime receivedAt) {
+        if (params.containsKey(template.getIncoming().getTimestampKey())) {
+            String dt = params.get(template.getIncoming().getTimestampKey());
+            //todo: some providers may send timestamps in a different way, deal it it if/when we see that
+            // replace "yyyy-mm-dd hh:mm:ss" with "yyyy-mm-ddThh:mm:ss" (note the T)
+            if (dt.matches("(\\d\\d\\d\\d|\\d\\d)-\\d\\d?-\\d\\d? \\d\\d?:\\d\\d?:\\d\\d?")) {
+                dt = dt.replace(" ", "T");
+            }
+            return DateTime.parse(dt);
+        }
+        return receivedAt == null ? now() : receivedAt;
+    }
+
+    private String getStatus(Map<String, String> params, Template template) {
+        return template.getStatus().hasStatusKey() && params.containsKey(template.getStatus().getStatusKey()) ? params.get(template.getStatus().getStatusKey()) : DeliveryStatuses.RECEIVED;
+    }
+
+    private void warn(String message) {
+        LOGGER.error(message);
+        statusMessageService.warn(message, SMS_MODULE);
+    }
+
+    @Autowired
+    public void setStatusMessageService(StatusMessageService statusMessageService) {
+        this.statusMessageService = statusMessageService;
+    }
+
+    @Autowired
+    @Qualifier("templateService")
+    public void setTemplateService(TemplateService templateService) {
+        this.templateService = templateService;
+    }
+
+    @Autowired
+    @Qualifier("configService")
+    public void setConfigService(ConfigService configService) {
+        this.configService = configService;
+    }
+
+    @Autowired
+    public void setSmsRecordsDataService(SmsRecordsDataService smsRecordsDataService) {
+        this.smsRecordsDataService = smsRecordsDataService;
+    }
+
+    @Autowired
+    public void setRecentSmsRecords(RecentSmsRecords recentSmsRecords) {
+        this.recentSmsRecords = recentSmsRecords;
+    }
+}
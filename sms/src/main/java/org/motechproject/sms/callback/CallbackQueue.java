@@ -0,0 +1,372 @@
+package org.motechproject.sms.callback;
+
+import org.motechproject.config.SettingsFacade;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.EventRelay;
+import org.motechproject.sms.audit.RecentSmsRecords;
+import org.motechproject.sms.audit.SmsRecord;
+import org.motechproject.sms.audit.SmsRecordsDataService;
+import org.motechproject.sms.util.SmsSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processes provider callbacks (delivery status updates and inbound messages). In synchronous mode - the default -
+ * callbacks are processed on the servlet thread, before the provider gets its response. In asynchronous mode, enabled
+ * with the sms.callbacks.async setting, callbacks are put on a bounded in-memory queue and the provider is answered
+ * right away. A single consumer thread drains the queue in batches, saving the audit records of a batch in one
+ * transaction and publishing its events afterwards. A batch which could not be saved is retried a few times, with
+ * an increasing delay, before it is dropped - dropped callbacks are logged and counted. Callbacks still queued when
+ * the module stops are drained before the consumer exits.
+ */
+@Service
+public class CallbackQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallbackQueue.class);
+
+    private static final String ASYNC = "sms.callbacks.async";
+    private static final String QUEUE_CAPACITY = "sms.callbacks.queue_capacity";
+    private static final String BATCH_SIZE = "sms.callbacks.batch_size";
+    private static final String SHUTDOWN_TIMEOUT = "sms.callbacks.shutdown_timeout_seconds";
+    private static final String MAX_ATTEMPTS = "sms.callbacks.max_attempts";
+    private static final String RETRY_DELAY = "sms.callbacks.retry_delay_ms";
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_SHUTDOWN_TIMEOUT = 30;
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final int DEFAULT_RETRY_DELAY = 1000;
+    private static final long POLL_TIMEOUT_MILLIS = 500;
+
+    private CallbackProcessor callbackProcessor;
+    private SmsRecordsDataService smsRecordsDataService;
+    private RecentSmsRecords recentSmsRecords;
+    private EventRelay eventRelay;
+    private SettingsFacade settingsFacade;
+
+    private boolean async;
+    private int batchSize;
+    private int maxAttempts;
+    private int retryDelay;
+    private BlockingQueue<ProviderCallback> callbacks;
+    private Thread consumer;
+    private volatile boolean running;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long lastDrainMillis;
+    private volatile long lastQueueLatencyMillis;
+
+    @PostConstruct
+    public void start() {
+        async = SmsSettings.getBoolean(settingsFacade, ASYNC, false);
+        if (!async) {
+            return;
+        }
+
+        batchSize = SmsSettings.getInt(settingsFacade, BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        maxAttempts = Math.max(1, SmsSettings.getInt(settingsFacade, MAX_ATTEMPTS, DEFAULT_MAX_ATTEMPTS));
+        retryDelay = SmsSettings.getInt(settingsFacade, RETRY_DELAY, DEFAULT_RETRY_DELAY);
+        callbacks = new LinkedBlockingQueue<>(SmsSettings.getInt(settingsFacade, QUEUE_CAPACITY,
+                DEFAULT_QUEUE_CAPACITY));
+        running = true;
+
+        consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        }, "sms-callback-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+
+        LOGGER.info("Started asynchronous SMS callback processing");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!async) {
+            return;
+        }
+
+        running = false;
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(SmsSettings.getInt(settingsFacade, SHUTDOWN_TIMEOUT,
+                    DEFAULT_SHUTDOWN_TIMEOUT)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (consumer.isAlive()) {
+            LOGGER.error("SMS callback consumer did not finish within the shutdown timeout, {} callbacks are still " +
+                    "queued", callbacks.size());
+        }
+    }
+
+    /**
+     * Handles a callback received from a provider. In synchronous mode, the callback is fully processed before this
+     * method returns. In asynchronous mode, it is only queued.
+     * @param callback the callback to handle
+     * @return false if the callback could not be queued, because the queue is full or is being shut down,
+     *         true otherwise
+     */
+    public boolean submit(ProviderCallback callback) {
+        if (!async) {
+            List<SmsRecord> auditRecords = new ArrayList<>();
+            List<MotechEvent> events = new ArrayList<>();
+            callbackProcessor.process(callback, auditRecords, events);
+            for (MotechEvent event : events) {
+                eventRelay.sendEventMessage(event);
+            }
+            for (SmsRecord smsRecord : auditRecords) {
+                smsRecordsDataService.create(smsRecord);
+                recentSmsRecords.add(smsRecord);
+            }
+            return true;
+        }
+
+        if (running && callbacks.offer(callback)) {
+            accepted.incrementAndGet();
+            return true;
+        }
+
+        rejected.incrementAndGet();
+        LOGGER.warn("SMS callback queue is full, rejecting {}", callback);
+        return false;
+    }
+
+    /**
+     * @return true if callbacks are processed asynchronously
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * @return the number of callbacks waiting to be processed
+     */
+    public int getQueueDepth() {
+        return callbacks == null ? 0 : callbacks.size();
+    }
+
+    /**
+     * @return the number of callbacks accepted into the queue
+     */
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    /**
+     * @return the number of callbacks rejected because the queue was full
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the number of callbacks processed by the consumer
+     */
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    /**
+     * @return the number of times a batch of callbacks was retried, because it could not be saved
+     */
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    /**
+     * @return the number of callbacks dropped, because their batch could not be saved after all attempts
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the time, in milliseconds, it took to process the last batch
+     */
+    public long getLastDrainMillis() {
+        return lastDrainMillis;
+    }
+
+    /**
+     * @return the time, in milliseconds, the oldest callback of the last batch spent waiting in the queue
+     */
+    public long getLastQueueLatencyMillis() {
+        return lastQueueLatencyMillis;
+    }
+
+    /**
+     * @return the statistics of the queue, keyed by their names
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("async", async);
+        statistics.put("queueDepth", getQueueDepth());
+        statistics.put("accepted", getAcceptedCount());
+        statistics.put("rejected", getRejectedCount());
+        statistics.put("processed", getProcessedCount());
+        statistics.put("retried", getRetriedCount());
+        statistics.put("dropped", getDroppedCount());
+        statistics.put("lastDrainMillis", getLastDrainMillis());
+        statistics.put("lastQueueLatencyMillis", getLastQueueLatencyMillis());
+        return statistics;
+    }
+
+    private void consume() {
+        boolean interrupted = false;
+
+        while (running || !callbacks.isEmpty()) {
+            List<ProviderCallback> batch = new ArrayList<>(batchSize);
+            try {
+                // once interrupted, drain what is left without waiting
+                ProviderCallback first = interrupted ? callbacks.poll()
+                        : callbacks.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                callbacks.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                LOGGER.warn("SMS callback consumer interrupted, draining {} queued callbacks", callbacks.size());
+                interrupted = true;
+                running = false;
+                continue;
+            }
+
+            interrupted = processWithRetries(batch) || interrupted;
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Processes the batch, retrying it if it cannot be saved. Once the attempts run out, the callbacks are dropped.
+     * @return true if the consumer was interrupted while waiting for a retry
+     */
+    private boolean processWithRetries(List<ProviderCallback> batch) {
+        boolean interrupted = false;
+
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            try {
+                processBatch(batch);
+                return interrupted;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    dropped.addAndGet(batch.size());
+                    LOGGER.error("Dropping {} SMS callbacks after {} failed attempts: {}", batch.size(), attempt,
+                            batch, e);
+                    return interrupted;
+                }
+
+                retried.incrementAndGet();
+                LOGGER.warn("Unable to process a batch of {} SMS callbacks, attempt {} of {}", batch.size(), attempt,
+                        maxAttempts, e);
+                interrupted = pause((long) retryDelay * attempt) || interrupted;
+            }
+        }
+    }
+
+    private boolean pause(long millis) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return false;
+        } catch (InterruptedException e) {
+            // don't wait for the remaining attempts, but make them anyway
+            return true;
+        }
+    }
+
+    private void processBatch(List<ProviderCallback> batch) {
+        long start = System.currentTimeMillis();
+        lastQueueLatencyMillis = start - batch.get(0).getReceivedAt().getMillis();
+
+        final List<SmsRecord> auditRecords = new ArrayList<>();
+        List<MotechEvent> events = new ArrayList<>();
+
+        int failed = 0;
+        for (ProviderCallback callback : batch) {
+            try {
+                callbackProcessor.process(callback, auditRecords, events);
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to process {}", callback, e);
+                failed++;
+            }
+        }
+
+        smsRecordsDataService.doInTransaction(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                for (SmsRecord smsRecord : auditRecords) {
+                    smsRecordsDataService.create(smsRecord);
+                }
+                // later callbacks for the same messages should find these records, once they are committed
+                recentSmsRecords.addAll(auditRecords);
+            }
+        });
+
+        for (MotechEvent event : events) {
+            eventRelay.sendEventMessage(event);
+        }
+
+        processed.addAndGet(batch.size() - failed);
+        dropped.addAndGet(failed);
+        lastDrainMillis = System.currentTimeMillis() - start;
+        LOGGER.debug("Processed {} SMS callbacks in {}ms, {} waiting, queue latency {}ms", batch.size(),
+                lastDrainMillis, callbacks.size(), lastQueueLatencyMillis);
+    }
+
+    @Autowired
+    public void setCallbackProcessor(CallbackProcessor callbackProcessor) {
+        this.callbackProcessor = callbackProcessor;
+    }
+
+    @Autowired
+    public void setSmsRecordsDataService(SmsRecordsDataService smsRecordsDataService) {
+        this.smsRecordsDataService = smsRecordsDataService;
+    }
+
+    @Autowired
+    public void setRecentSmsRecords(RecentSmsRecords recentSmsRecords) {
+        this.recentSmsRecords = recentSmsRecords;
+    }
+
+    @Autowired
+    public void setEventRelay(EventRelay eventRelay) {
+        this.eventRelay = eventRelay;
+    }
+
+    @Autowired
+    @Qualifier("smsSettings")
+    public void setSettingsFacade(SettingsFacade settingsFacade) {
+        this.settingsFacade = settingsFacade;
+    }
+}
@@ -0,0 +1,79 @@
+package org.motechproject.sms.callback;
+
+import org.joda.time.DateTime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A request made by an SMS provider to one of the callback endpoints of the module, captured so that it can be
+ * processed after the provider has been answered.
+ */
+public class ProviderCallback {
+
+    /**
+     * The kinds of callbacks providers make.
+     */
+    public enum Type {
+        /**
+         * A delivery status update for an outbound message.
+         */
+        STATUS,
+        /**
+         * An inbound message.
+         */
+        INCOMING
+    }
+
+    private final Type type;
+    private final String configName;
+    private final Map<String, String> params;
+    private final DateTime receivedAt;
+
+    /**
+     * Constructs a callback received now.
+     * @param type the kind of the callback
+     * @param configName the name of the config from the request path
+     * @param params the request params sent by the provider
+     * @param receivedAt the time at which the callback was received
+     */
+    public ProviderCallback(Type type, String configName, Map<String, String> params, DateTime receivedAt) {
+        this.type = type;
+        this.configName = configName;
+        this.params = params == null ? new HashMap<String, String>() : new HashMap<>(params);
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * @return the kind of the callback
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the name of the config from the request path
+     */
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * @return the request params sent by the provider
+     */
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    /**
+     * @return the time at which the callback was received
+     */
+    public DateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProviderCallback{type=%s, configName='%s', params=%s}", type, configName, params);
+    }
+}
@@ -48,6 +48,33 @@ public class Config {
      */
     private List<ConfigProp> props = new ArrayList<>();
 
+    /**
+     * The maximum number of pooled connections to the provider. If not set, the module default is used.
+     */
+    private Integer maxConnections;
+
+    /**
+     * The timeout in milliseconds for establishing a connection to the provider. If not set, the module default
+     * is used.
+     */
+    private Integer connectTimeout;
+
+    /**
+     * The timeout in milliseconds for reading the response of the provider. If not set, the module default is used.
+     */
+    private Integer readTimeout;
+
+    /**
+     * The delay in milliseconds before retrying a failed SMS. If the template enables exponential backoff, the delay
+     * doubles with every failure. If not set, the module default is used.
+     */
+    private Integer retryDelay;
+
+    /**
+     * The maximum delay in milliseconds before retrying a failed SMS. If not set, the module default is used.
+     */
+    private Integer maxRetryDelay;
+
     /**
      * @return the unique name identifying the configuration
      */
@@ -150,6 +177,76 @@ public class Config {
         this.props = props;
     }
 
+    /**
+     * @return the maximum number of pooled connections to the provider, or null to use the module default
+     */
+    public Integer getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @param maxConnections the maximum number of pooled connections to the provider
+     */
+    public void setMaxConnections(Integer maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @return the timeout in milliseconds for establishing a connection, or null to use the module default
+     */
+    public Integer getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @param connectTimeout the timeout in milliseconds for establishing a connection to the provider
+     */
+    public void setConnectTimeout(Integer connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return the timeout in milliseconds for reading the response, or null to use the module default
+     */
+    public Integer getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @param readTimeout the timeout in milliseconds for reading the response of the provider
+     */
+    public void setReadTimeout(Integer readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return the delay in milliseconds before retrying a failed SMS, or null to use the module default
+     */
+    public Integer getRetryDelay() {
+        return retryDelay;
+    }
+
+    /**
+     * @param retryDelay the delay in milliseconds before retrying a failed SMS
+     */
+    public void setRetryDelay(Integer retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * @return the maximum delay in milliseconds before retrying a failed SMS, or null to use the module default
+     */
+    public Integer getMaxRetryDelay() {
+        return maxRetryDelay;
+    }
+
+    /**
+     * @param maxRetryDelay the maximum delay in milliseconds before retrying a failed SMS
+     */
+    public void setMaxRetryDelay(Integer maxRetryDelay) {
+        this.maxRetryDelay = maxRetryDelay;
+    }
+
     /**
      * Returns an appropriate Delivery Status for the given failure count. If the failure count is higher than
      * the maximum number of retries for this configuration, then ABORTED Status is returned. Otherwise
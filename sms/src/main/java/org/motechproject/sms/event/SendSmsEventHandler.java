@@ -2,7 +2,7 @@ package org.motechproject.sms.event;
 
 import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.annotations.MotechListener;
-import org.motechproject.sms.http.SmsHttpService;
+import org.motechproject.sms.outbox.SmsOutbox;
 import org.motechproject.sms.service.OutgoingSms;
 import org.motechproject.sms.service.SmsService;
 import org.motechproject.sms.util.SmsEventSubjects;
@@ -13,19 +13,20 @@ import org.springframework.stereotype.Service;
 
 /**
  * When another module sends an SMS, it calls SmsService.send, which in turn sends one or more SEND_SMS events which
- * are handled here and passed straight through to to SmsHttpService.send
+ * are handled here and saved in the SmsOutbox, from which they are passed on to the SmsDispatcher for sending through
+ * SmsHttpService.send
  */
 @Service
 public class SendSmsEventHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SendSmsEventHandler.class);
 
-    private SmsHttpService smsHttpService;
+    private SmsOutbox smsOutbox;
     private SmsService smsService;
 
     @Autowired
-    public SendSmsEventHandler(SmsHttpService smsHttpService, SmsService smsService) {
-        this.smsHttpService = smsHttpService;
+    public SendSmsEventHandler(SmsOutbox smsOutbox, SmsService smsService) {
+        this.smsOutbox = smsOutbox;
         this.smsService = smsService;
     }
 
@@ -40,7 +41,8 @@ public class SendSmsEventHandler {
     public void handleInternal(MotechEvent event) {
         LOGGER.info("Handling internal event {}: {}", event.getSubject(),
                 event.getParameters().get("message").toString().replace("\n", "\\n"));
-        smsHttpService.send(new OutgoingSms(event));
+        // retries of failed sends are put back into the outbox by the outbox itself, with the backoff delay
+        smsOutbox.enqueue(new OutgoingSms(event));
     }
 }
 
@@ -0,0 +1,31 @@
+package org.motechproject.sms.http;
+
+import org.motechproject.sms.service.OutgoingSms;
+
+import java.util.List;
+
+/**
+ * Notified by the {@link SmsDispatcher} when it starts sending a message and once it is done with it.
+ */
+public interface SendCallback {
+
+    /**
+     * Called right before the message is handed over to the provider, after it waited in the send queue.
+     * @param sms the message
+     */
+    void started(OutgoingSms sms);
+
+    /**
+     * Called after the message was handed over to the provider, whatever the outcome.
+     * @param sms the message
+     * @param retries the messages, or parts of them, which failed and should be retried
+     */
+    void sent(OutgoingSms sms, List<OutgoingSms> retries);
+
+    /**
+     * Called if sending the message failed unexpectedly.
+     * @param sms the message
+     * @param e the cause of the failure
+     */
+    void failed(OutgoingSms sms, RuntimeException e);
+}
@@ -0,0 +1,265 @@
+package org.motechproject.sms.http;
+
+import org.motechproject.config.SettingsFacade;
+import org.motechproject.sms.configs.Config;
+import org.motechproject.sms.service.ConfigService;
+import org.motechproject.sms.service.OutgoingSms;
+import org.motechproject.sms.service.TemplateService;
+import org.motechproject.sms.templates.Template;
+import org.motechproject.sms.util.SmsSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatches outgoing SMS messages to the providers. Every {@link Config} gets its own send queue and its own
+ * {@link TokenBucket} rate limiter, all queues are drained by a shared, bounded pool of workers. A slow or rate
+ * limited provider only delays its own queue - messages for other configs keep flowing. Workers never sleep, a queue
+ * that ran out of tokens is simply rescheduled for the moment the next token becomes available.
+ */
+@Service
+public class SmsDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmsDispatcher.class);
+
+    private static final String WORKER_POOL_SIZE = "sms.dispatch.worker_pool_size";
+    private static final String QUEUE_CAPACITY = "sms.dispatch.queue_capacity";
+    private static final String SHUTDOWN_TIMEOUT = "sms.dispatch.shutdown_timeout_seconds";
+
+    private static final int DEFAULT_WORKER_POOL_SIZE = 4;
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final int DEFAULT_SHUTDOWN_TIMEOUT = 30;
+
+    /**
+     * The maximum number of messages a worker sends from one queue before giving other queues a chance.
+     */
+    private static final int MAX_MESSAGES_PER_TURN = 50;
+
+    private SmsHttpService smsHttpService;
+    private ConfigService configService;
+    private TemplateService templateService;
+    private SettingsFacade settingsFacade;
+
+    private final ConcurrentMap<String, ConfigQueue> queues = new ConcurrentHashMap<>();
+    private ScheduledExecutorService workers;
+    private int queueCapacity;
+
+    @PostConstruct
+    public void start() {
+        int poolSize = SmsSettings.getInt(settingsFacade, WORKER_POOL_SIZE, DEFAULT_WORKER_POOL_SIZE);
+        queueCapacity = SmsSettings.getInt(settingsFacade, QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+        workers = Executors.newScheduledThreadPool(poolSize, new DispatcherThreadFactory());
+        LOGGER.info("Started SMS dispatcher with {} workers", poolSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(SmsSettings.getInt(settingsFacade, SHUTDOWN_TIMEOUT,
+                    DEFAULT_SHUTDOWN_TIMEOUT), TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        for (ConfigQueue queue : queues.values()) {
+            if (!queue.messages.isEmpty()) {
+                LOGGER.warn("SMS dispatcher stopped with {} undelivered messages for config {}",
+                        queue.messages.size(), queue.configName);
+            }
+        }
+    }
+
+    /**
+     * Queues the given SMS for sending using its config. This never blocks the calling thread - if the queue for the
+     * config is full, the SMS is rejected and the caller is responsible for trying again later.
+     * @param sms the representation of the sms to send
+     * @param callback notified once the SMS was sent, it is not notified of rejected messages
+     * @return true if the SMS was queued, false if it was rejected because the queue for its config is full
+     */
+    public boolean dispatch(OutgoingSms sms, SendCallback callback) {
+        Config config = configService.getConfigOrDefault(sms.getConfig());
+        ConfigQueue queue = getQueue(config.getName());
+
+        if (!queue.messages.offer(new QueuedSms(sms, callback))) {
+            LOGGER.warn("The send queue for config {} is full, rejecting SMS {}", config.getName(), sms.getMotechId());
+            return false;
+        }
+
+        queue.schedule();
+        return true;
+    }
+
+    /**
+     * @param configName the name of the config
+     * @return the number of messages waiting to be sent using the given config
+     */
+    public int getQueueSize(String configName) {
+        ConfigQueue queue = queues.get(configName);
+        return queue == null ? 0 : queue.messages.size();
+    }
+
+    private ConfigQueue getQueue(String configName) {
+        ConfigQueue queue = queues.get(configName);
+        if (queue == null) {
+            ConfigQueue created = new ConfigQueue(configName);
+            queue = queues.putIfAbsent(configName, created);
+            if (queue == null) {
+                queue = created;
+            }
+        }
+        return queue;
+    }
+
+    private double permitsPerSecond(String configName) {
+        try {
+            Config config = configService.getConfigOrDefault(configName);
+            Template template = templateService.getTemplate(config.getTemplateName());
+            return template.getOutgoing().getPermitsPerSecond();
+        } catch (IllegalArgumentException e) {
+            // the send itself will report the broken config, don't block the queue because of it
+            LOGGER.warn("Unable to read the rate limit for config {}: {}", configName, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * The send queue of a single config. At most one worker drains a given queue at any time, which keeps the
+     * ordering of messages and makes the rate limit exact.
+     */
+    private class ConfigQueue implements Runnable {
+
+        private final String configName;
+        private final BlockingQueue<QueuedSms> messages;
+        private final TokenBucket bucket;
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+
+        ConfigQueue(String configName) {
+            this.configName = configName;
+            this.messages = new LinkedBlockingQueue<>(queueCapacity);
+            this.bucket = new TokenBucket(permitsPerSecond(configName), 1);
+        }
+
+        void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                workers.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            // the template might have been changed since the last run
+            bucket.setRate(permitsPerSecond(configName));
+
+            for (int sent = 0; sent < MAX_MESSAGES_PER_TURN; sent++) {
+                if (messages.isEmpty()) {
+                    draining.set(false);
+                    // a message could have been queued after the check above, but before the flag was cleared
+                    if (!messages.isEmpty()) {
+                        schedule();
+                    }
+                    return;
+                }
+
+                long wait = bucket.tryAcquire();
+                if (wait > 0) {
+                    workers.schedule(this, wait, TimeUnit.NANOSECONDS);
+                    return;
+                }
+
+                send(messages.poll());
+            }
+
+            // let the other queues have a go before we continue
+            workers.execute(this);
+        }
+
+        private void send(QueuedSms queued) {
+            List<OutgoingSms> retries = null;
+            RuntimeException failure = null;
+            try {
+                queued.callback.started(queued.sms);
+                retries = smsHttpService.send(queued.sms);
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to send SMS {} using config {}", queued.sms.getMotechId(), configName, e);
+                failure = e;
+            }
+
+            // a failing callback must not stop the queue
+            try {
+                if (failure == null) {
+                    queued.callback.sent(queued.sms, retries);
+                } else {
+                    queued.callback.failed(queued.sms, failure);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.error("Error while completing SMS {} using config {}", queued.sms.getMotechId(), configName, e);
+            }
+        }
+    }
+
+    private static final class QueuedSms {
+
+        private final OutgoingSms sms;
+        private final SendCallback callback;
+
+        private QueuedSms(OutgoingSms sms, SendCallback callback) {
+            this.sms = sms;
+            this.callback = callback;
+        }
+    }
+
+    private static class DispatcherThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "sms-dispatcher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    @Autowired
+    public void setSmsHttpService(SmsHttpService smsHttpService) {
+        this.smsHttpService = smsHttpService;
+    }
+
+    @Autowired
+    @Qualifier("configService")
+    public void setConfigService(ConfigService configService) {
+        this.configService = configService;
+    }
+
+    @Autowired
+    @Qualifier("templateService")
+    public void setTemplateService(TemplateService templateService) {
+        this.templateService = templateService;
+    }
+
+    @Autowired
+    @Qualifier("smsSettings")
+    public void setSettingsFacade(SettingsFacade settingsFacade) {
+        this.settingsFacade = settingsFacade;
+    }
+}
@@ -0,0 +1,115 @@
+package org.motechproject.sms.http;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.motechproject.config.SettingsFacade;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.annotations.MotechListener;
+import org.motechproject.modules.commons.http.CommonsHttpPooledClient;
+import org.motechproject.modules.commons.http.ConnectionSettings;
+import org.motechproject.modules.commons.http.PooledClient;
+import org.motechproject.modules.commons.http.PooledClientRegistry;
+import org.motechproject.sms.configs.Config;
+import org.motechproject.sms.service.ConfigService;
+import org.motechproject.sms.util.SmsSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import static org.motechproject.sms.event.constants.EventSubjects.CONFIGS_CHANGED;
+
+/**
+ * Keeps a separate, connection-pooled {@link HttpClient} for every {@link Config}, with the pool size and timeouts of
+ * the config, so providers never compete for connections. The clients of deleted configs are retired.
+ */
+@Component
+public class SmsHttpClients extends PooledClientRegistry<String, ConnectionSettings, HttpClient> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmsHttpClients.class);
+
+    private static final String MAX_CONNECTIONS = "sms.http.max_connections";
+    private static final String CONNECT_TIMEOUT = "sms.http.connect_timeout";
+    private static final String READ_TIMEOUT = "sms.http.read_timeout";
+    private static final String IDLE_CONNECTION_TIMEOUT = "sms.http.idle_connection_timeout";
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 20;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    private static final int DEFAULT_READ_TIMEOUT = 30000;
+    private static final int DEFAULT_IDLE_CONNECTION_TIMEOUT = 60000;
+    private static final long IDLE_CHECK_INTERVAL = 5000;
+
+    private SettingsFacade settingsFacade;
+    private ConfigService configService;
+
+    public SmsHttpClients() {
+        super("sms");
+    }
+
+    @PostConstruct
+    public void start() {
+        start(IDLE_CHECK_INTERVAL);
+    }
+
+    @PreDestroy
+    @Override
+    public void stop() {
+        super.stop();
+    }
+
+    /**
+     * Returns the client for the given config, creating it if needed.
+     * @param config the config used for sending
+     * @return the client which should be used for talking to the provider of the config
+     */
+    public HttpClient getClient(Config config) {
+        return getClient(config.getName(), settingsFor(config));
+    }
+
+    /**
+     * Retires the clients of configs which were deleted.
+     * @param event the configs changed event
+     */
+    @MotechListener(subjects = CONFIGS_CHANGED)
+    public synchronized void configsChanged(MotechEvent event) {
+        for (String configName : getKeys()) {
+            if (!configService.hasConfig(configName)) {
+                LOGGER.info("Config {} was deleted, retiring its HTTP client", configName);
+                retire(configName);
+            }
+        }
+    }
+
+    @Override
+    protected PooledClient<HttpClient> createClient(String configName, ConnectionSettings settings) {
+        CommonsHttpPooledClient client = new CommonsHttpPooledClient(settings);
+        LOGGER.info("Created HTTP client for config {}: {}", configName, settings);
+        return client;
+    }
+
+    private ConnectionSettings settingsFor(Config config) {
+        int maxConnections = valueOrDefault(config.getMaxConnections(), MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS);
+        return new ConnectionSettings(maxConnections, maxConnections,
+                valueOrDefault(config.getConnectTimeout(), CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT),
+                valueOrDefault(config.getReadTimeout(), READ_TIMEOUT, DEFAULT_READ_TIMEOUT),
+                SmsSettings.getInt(settingsFacade, IDLE_CONNECTION_TIMEOUT, DEFAULT_IDLE_CONNECTION_TIMEOUT));
+    }
+
+    private int valueOrDefault(Integer value, String key, int defaultValue) {
+        return value == null ? SmsSettings.getInt(settingsFacade, key, defaultValue) : value;
+    }
+
+    @Autowired
+    @Qualifier("smsSettings")
+    public void setSettingsFacade(SettingsFacade settingsFacade) {
+        this.settingsFacade = settingsFacade;
+    }
+
+    @Autowired
+    public void setConfigService(ConfigService configService) {
+        this.configService = configService;
+    }
+}
@@ -1,7 +1,7 @@
 package org.motechproject.sms.http;
 
-import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpState;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
@@ -12,13 +12,16 @@ import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.motechproject.admin.service.StatusMessageService;
 import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
+import org.motechproject.sms.audit.RecentSmsRecords;
 import org.motechproject.sms.audit.SmsRecord;
 import org.motechproject.sms.audit.SmsRecordsDataService;
+import org.motechproject.sms.audit.constants.DeliveryStatuses;
 import org.motechproject.sms.configs.Config;
 import org.motechproject.sms.configs.ConfigProp;
 import org.motechproject.sms.service.ConfigService;
 import org.motechproject.sms.service.OutgoingSms;
 import org.motechproject.sms.service.TemplateService;
+import org.motechproject.sms.templates.CompiledRequest;
 import org.motechproject.sms.templates.Response;
 import org.motechproject.sms.templates.Template;
 import org.slf4j.Logger;
@@ -35,6 +38,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.motechproject.commons.date.util.DateUtil.now;
 import static org.motechproject.sms.audit.SmsDirection.OUTBOUND;
@@ -52,17 +57,22 @@ public class SmsHttpService {
     private TemplateService templateService;
     private ConfigService configService;
     private EventRelay eventRelay;
-    private HttpClient commonsHttpClient;
+    private SmsHttpClients smsHttpClients;
     private StatusMessageService statusMessageService;
     private SmsRecordsDataService smsRecordsDataService;
+    private RecentSmsRecords recentSmsRecords;
+    private final ConcurrentMap<String, CompiledConfig> compiledConfigs = new ConcurrentHashMap<>();
 
     /**
      * This method allows sending outgoing sms messages through HTTP. The configuration specified in the {@link OutgoingSms}
-     * object will be used for dealing with the provider.
+     * object will be used for dealing with the provider. This method is safe to call concurrently, the rate at which
+     * messages are sent to the providers is controlled by the {@link SmsDispatcher}.
      * @param sms the representation of the sms to send
+     * @return the messages, or parts of them, which failed and should be retried, the caller is responsible for
+     *         scheduling the retries
      */
     @Transactional
-    public synchronized void send(OutgoingSms sms) {
+    public List<OutgoingSms> send(OutgoingSms sms) {
 
         Config config = configService.getConfigOrDefault(sms.getConfig());
         Template template = templateService.getTemplate(config.getTemplateName());
@@ -71,6 +81,7 @@ public class SmsHttpService {
         Integer httpStatus = null;
         String httpResponse = null;
         String errorMessage = null;
+        CompiledConfig compiledConfig = getCompiledConfig(config, template);
         Map<String, String> props = generateProps(sms, template, config);
         List<MotechEvent> events = new ArrayList<>();
         List<SmsRecord> auditRecords = new ArrayList<>();
@@ -79,8 +90,10 @@ public class SmsHttpService {
         // Generate the HTTP request
         //
         try {
-            httpMethod = prepHttpMethod(template, props, config);
-            httpStatus = commonsHttpClient.executeMethod(httpMethod);
+            httpMethod = compiledConfig.request.render(props);
+            logRequest(compiledConfig, props, httpMethod);
+            HttpState httpState = createHttpState(template, compiledConfig, props, config);
+            httpStatus = smsHttpClients.getClient(config).executeMethod(null, httpMethod, httpState);
             httpResponse = httpMethod.getResponseBodyAsString();
         } catch (UnknownHostException e) {
             errorMessage = String.format("Network connectivity issues or problem with '%s' template? %s",
@@ -93,11 +106,6 @@ public class SmsHttpService {
             }
         }
 
-        //
-        // make sure we don't talk to the SMS provider too fast (some only allow a max of n per minute calls)
-        //
-        delayProviderAccess(template);
-
         //
         // Analyze provider's response
         //
@@ -130,16 +138,29 @@ public class SmsHttpService {
         //
         // Finally send all the events that need sending...
         //
-        for (MotechEvent event : events) {
-            eventRelay.sendEventMessage(event);
-        }
+        List<OutgoingSms> retries = sendEvents(events);
 
         //
         // ...and audit all the records that need auditing
         //
         for (SmsRecord smsRecord : auditRecords) {
             smsRecordsDataService.create(smsRecord);
+            recentSmsRecords.add(smsRecord);
         }
+
+        return retries;
+    }
+
+    private List<OutgoingSms> sendEvents(List<MotechEvent> events) {
+        List<OutgoingSms> retries = new ArrayList<>();
+        for (MotechEvent event : events) {
+            eventRelay.sendEventMessage(event);
+            // failure events are published with the delivery status as their subject, see Config.retryOrAbortSubject
+            if (DeliveryStatuses.RETRYING.equals(event.getSubject())) {
+                retries.add(new OutgoingSms(event));
+            }
+        }
+        return retries;
     }
 
     private static String printableMethodParams(HttpMethod method) {
@@ -168,12 +189,32 @@ public class SmsHttpService {
         throw new IllegalStateException(String.format("Unexpected HTTP method: %s", method.getClass()));
     }
 
-    private void authenticate(Map<String, String> props, Config config) {
+    private CompiledConfig getCompiledConfig(Config config, Template template) {
+        CompiledConfig compiledConfig = compiledConfigs.get(config.getName());
+        // configs and templates are replaced with new instances when they are reloaded
+        if (compiledConfig == null || compiledConfig.config != config || compiledConfig.template != template) {
+            compiledConfig = new CompiledConfig(config, template);
+            compiledConfigs.put(config.getName(), compiledConfig);
+        }
+        return compiledConfig;
+    }
+
+    private HttpState createHttpState(Template template, CompiledConfig compiledConfig, Map<String, String> props,
+                                      Config config) {
+        // every request gets its own state, so concurrent sends never share credentials - the message's custom
+        // params may supply credentials missing from the config
+        HttpState httpState = new HttpState();
+        if (template.getOutgoing().hasAuthentication()) {
+            authenticate(httpState, compiledConfig.withConfigProps(props), config);
+        }
+        return httpState;
+    }
+
+    private void authenticate(HttpState httpState, Map<String, String> props, Config config) {
         if (props.containsKey("username") && props.containsKey("password")) {
             String u = props.get("username");
             String p = props.get("password");
-            commonsHttpClient.getParams().setAuthenticationPreemptive(true);
-            commonsHttpClient.getState().setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(u, p));
+            httpState.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(u, p));
         } else {
             String message;
             if (props.containsKey("username")) {
@@ -188,18 +229,6 @@ public class SmsHttpService {
         }
     }
 
-    private void delayProviderAccess(Template template) {
-        //todo: serialize access to configs, ie: one provider may allow 100 sms/min and another may allow 10...
-        //This prevents us from sending more messages per second than the provider allows
-        Integer milliseconds = template.getOutgoing().getMillisecondsBetweenMessages();
-        LOGGER.debug("Sleeping thread id {} for {}ms", Thread.currentThread().getId(), milliseconds);
-        try {
-            Thread.sleep(milliseconds);
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
     private Map<String, String> generateProps(OutgoingSms sms, Template template, Config config) {
         Map<String, String> props = new HashMap<>();
         props.put("recipients", template.recipientsAsString(sms.getRecipients()));
@@ -210,20 +239,25 @@ public class SmsHttpService {
             props.putAll(sms.getCustomParams());
         }
 
-        for (ConfigProp configProp : config.getProps()) {
-            props.put(configProp.getName(), configProp.getValue());
+        // config props are bound to the compiled request, see CompiledConfig
+        return props;
+    }
+
+    private void logRequest(CompiledConfig compiledConfig, Map<String, String> props, HttpMethod httpMethod) {
+        // the request is only printed when it will be logged, printing it merges the config props
+        if (LOGGER.isDebugEnabled()) {
+            logProps(compiledConfig.withConfigProps(props));
+            LOGGER.debug(printableMethodParams(httpMethod));
         }
+    }
 
+    private void logProps(Map<String, String> props) {
         // ***** WARNING *****
         // This displays usernames & passwords in the server log! But then again, so does the settings UI...
         // ***** WARNING *****
-        if (LOGGER.isDebugEnabled()) {
-            for (Map.Entry<String, String> entry : props.entrySet()) {
-                LOGGER.debug("PROP {}: {}", entry.getKey(), entry.getValue());
-            }
+        for (Map.Entry<String, String> entry : props.entrySet()) {
+            LOGGER.debug("PROP {}: {}", entry.getKey(), entry.getValue());
         }
-
-        return props;
     }
 
     private void handleFailure(Integer httpStatus, String priorErrorMessage, //NO CHECKSTYLE ParameterNumber
@@ -270,16 +304,32 @@ public class SmsHttpService {
         return handler;
     }
 
-    private HttpMethod prepHttpMethod(Template template, Map<String, String> props, Config config) {
-        HttpMethod method = template.generateRequestFor(props);
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug(printableMethodParams(method));
+    /**
+     * The outgoing request of a config's template, compiled with the config props bound to it.
+     */
+    private static final class CompiledConfig {
+
+        private final Config config;
+        private final Template template;
+        private final Map<String, String> configProps;
+        private final CompiledRequest request;
+
+        private CompiledConfig(Config config, Template template) {
+            this.config = config;
+            this.template = template;
+            this.configProps = new HashMap<>();
+            for (ConfigProp configProp : config.getProps()) {
+                configProps.put(configProp.getName(), configProp.getValue());
+            }
+            // config props take precedence over the message props, just like they always did
+            this.request = new CompiledRequest(template, configProps);
         }
 
-        if (template.getOutgoing().hasAuthentication()) {
-            authenticate(props, config);
+        private Map<String, String> withConfigProps(Map<String, String> props) {
+            Map<String, String> merged = new HashMap<>(props);
+            merged.putAll(configProps);
+            return merged;
         }
-        return method;
     }
 
     @Autowired
@@ -300,8 +350,8 @@ public class SmsHttpService {
     }
 
     @Autowired
-    public void setCommonsHttpClient(HttpClient commonsHttpClient) {
-        this.commonsHttpClient = commonsHttpClient;
+    public void setSmsHttpClients(SmsHttpClients smsHttpClients) {
+        this.smsHttpClients = smsHttpClients;
     }
 
     @Autowired
@@ -313,4 +363,9 @@ public class SmsHttpService {
     public void setSmsRecordsDataService(SmsRecordsDataService smsRecordsDataService) {
         this.smsRecordsDataService = smsRecordsDataService;
     }
+
+    @Autowired
+    public void setRecentSmsRecords(RecentSmsRecords recentSmsRecords) {
+        this.recentSmsRecords = recentSmsRecords;
+    }
 }
@@ -0,0 +1,78 @@
+package org.motechproject.sms.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simple token bucket used for limiting the rate at which messages are sent to a single SMS provider.
+ * Tokens are refilled continuously at the configured rate, up to the burst size. Acquiring never blocks - the caller
+ * is told how long it has to wait for the next token instead, so that no thread has to sleep while waiting.
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final int burst;
+    private double permitsPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Creates a bucket which starts full.
+     * @param permitsPerSecond the number of tokens added to the bucket every second, a non-positive value or infinity
+     *                         means that the rate is not limited
+     * @param burst the maximum number of tokens the bucket can hold
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefill = System.nanoTime();
+        setRate(permitsPerSecond);
+    }
+
+    /**
+     * Changes the rate at which tokens are added to the bucket. Tokens already in the bucket are kept.
+     * @param permitsPerSecond the number of tokens added to the bucket every second, a non-positive value or infinity
+     *                         means that the rate is not limited
+     */
+    public synchronized void setRate(double permitsPerSecond) {
+        refill(System.nanoTime());
+        if (permitsPerSecond <= 0 || Double.isInfinite(permitsPerSecond) || Double.isNaN(permitsPerSecond)) {
+            permitsPerNano = Double.POSITIVE_INFINITY;
+        } else {
+            permitsPerNano = permitsPerSecond / NANOS_PER_SECOND;
+        }
+    }
+
+    /**
+     * Tries to take a single token from the bucket.
+     * @return 0 if the token was taken, otherwise the number of nanoseconds after which a token will be available
+     */
+    public long tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    synchronized long tryAcquire(long now) {
+        if (Double.isInfinite(permitsPerNano)) {
+            return 0;
+        }
+
+        refill(now);
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+
+        return Math.max(1L, (long) Math.ceil((1 - tokens) / permitsPerNano));
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            if (!Double.isInfinite(permitsPerNano)) {
+                tokens = Math.min(burst, tokens + elapsed * permitsPerNano);
+            }
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.motechproject.sms.outbox;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.joda.time.DateTime;
+import org.motechproject.commons.date.util.DateUtil;
+import org.motechproject.mds.annotations.Access;
+import org.motechproject.mds.annotations.Entity;
+import org.motechproject.mds.annotations.Field;
+import org.motechproject.mds.annotations.UIFilterable;
+import org.motechproject.mds.util.SecurityMode;
+import org.motechproject.sms.service.OutgoingSms;
+
+import javax.jdo.annotations.Index;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.motechproject.sms.util.Constants.VIEW_SMS_LOGS_PERMISSION;
+
+/**
+ * An outgoing SMS waiting in the outbox, persisted so that it survives restarts of the server.
+ */
+@Entity(nonEditable = true)
+@Access(value = SecurityMode.PERMISSIONS, members = {VIEW_SMS_LOGS_PERMISSION})
+public class OutboxMessage {
+
+    /**
+     * The database ID of this message.
+     */
+    @Field
+    private Long id;
+
+    /**
+     * The name of the configuration used for sending this SMS.
+     */
+    @Index
+    private String config;
+
+    /**
+     * The recipients of this SMS.
+     */
+    @Field
+    private List<String> recipients;
+
+    /**
+     * The content of the SMS message.
+     */
+    @Field(type = "text")
+    private String message;
+
+    /**
+     * The ID by which MOTECH identifies this SMS.
+     */
+    private String motechId;
+
+    /**
+     * Custom parameters for the provider.
+     */
+    @Field
+    private Map<String, String> customParams;
+
+    /**
+     * The state of this message in the outbox.
+     */
+    @UIFilterable
+    private OutboxState state;
+
+    /**
+     * The number of failed attempts to send this SMS.
+     */
+    private Integer attempts;
+
+    /**
+     * The time at which this SMS should be sent next. For a message being sent, the time at which its lease expires.
+     */
+    @Index
+    @UIFilterable
+    private DateTime nextAttempt;
+
+    /**
+     * Constructs a new instance without filling out any fields.
+     */
+    public OutboxMessage() {
+    }
+
+    /**
+     * Constructs a new, pending message for the given SMS.
+     * @param config the name of the configuration used for sending the SMS
+     * @param sms the SMS to send
+     * @param nextAttempt the time at which the SMS should be sent
+     */
+    public OutboxMessage(String config, OutgoingSms sms, DateTime nextAttempt) {
+        this.config = config;
+        this.recipients = new ArrayList<>(sms.getRecipients());
+        this.message = sms.getMessage();
+        this.motechId = sms.getMotechId();
+        this.customParams = sms.getCustomParams() == null ? null : new HashMap<>(sms.getCustomParams());
+        this.attempts = sms.getFailureCount() == null ? 0 : sms.getFailureCount();
+        this.state = OutboxState.PENDING;
+        this.nextAttempt = nextAttempt;
+    }
+
+    /**
+     * @return the SMS represented by this message
+     */
+    public OutgoingSms toOutgoingSms() {
+        OutgoingSms sms = new OutgoingSms(config, new ArrayList<>(recipients), message);
+        sms.setMotechId(motechId);
+        sms.setFailureCount(attempts);
+        sms.setCustomParams(customParams == null ? null : new HashMap<>(customParams));
+        return sms;
+    }
+
+    /**
+     * @return the database ID of this message
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @param id the database ID of this message
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the name of the configuration used for sending this SMS
+     */
+    public String getConfig() {
+        return config;
+    }
+
+    /**
+     * @param config the name of the configuration used for sending this SMS
+     */
+    public void setConfig(String config) {
+        this.config = config;
+    }
+
+    /**
+     * @return the recipients of this SMS
+     */
+    public List<String> getRecipients() {
+        return recipients;
+    }
+
+    /**
+     * @param recipients the recipients of this SMS
+     */
+    public void setRecipients(List<String> recipients) {
+        this.recipients = recipients;
+    }
+
+    /**
+     * @return the content of the SMS message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @param message the content of the SMS message
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * @return the ID by which MOTECH identifies this SMS
+     */
+    public String getMotechId() {
+        return motechId;
+    }
+
+    /**
+     * @param motechId the ID by which MOTECH identifies this SMS
+     */
+    public void setMotechId(String motechId) {
+        this.motechId = motechId;
+    }
+
+    /**
+     * @return custom parameters for the provider
+     */
+    public Map<String, String> getCustomParams() {
+        return customParams;
+    }
+
+    /**
+     * @param customParams custom parameters for the provider
+     */
+    public void setCustomParams(Map<String, String> customParams) {
+        this.customParams = customParams;
+    }
+
+    /**
+     * @return the state of this message in the outbox
+     */
+    public OutboxState getState() {
+        return state;
+    }
+
+    /**
+     * @param state the state of this message in the outbox
+     */
+    public void setState(OutboxState state) {
+        this.state = state;
+    }
+
+    /**
+     * @return the number of failed attempts to send this SMS
+     */
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @param attempts the number of failed attempts to send this SMS
+     */
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return the time at which this SMS should be sent next
+     */
+    public DateTime getNextAttempt() {
+        return DateUtil.setTimeZoneUTC(nextAttempt);
+    }
+
+    /**
+     * @param nextAttempt the time at which this SMS should be sent next
+     */
+    public void setNextAttempt(DateTime nextAttempt) {
+        this.nextAttempt = nextAttempt;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
@@ -0,0 +1,52 @@
+package org.motechproject.sms.outbox;
+
+import org.joda.time.DateTime;
+import org.motechproject.commons.api.Range;
+import org.motechproject.mds.annotations.Lookup;
+import org.motechproject.mds.annotations.LookupField;
+import org.motechproject.mds.query.QueryParams;
+import org.motechproject.mds.service.MotechDataService;
+
+import java.util.List;
+
+/**
+ * Used to query and save outbox messages in the database.
+ * This is a service interface for which MDS will generate the implementation at runtime.
+ */
+public interface OutboxMessageDataService extends MotechDataService<OutboxMessage> {
+
+    /**
+     * Retrieves the messages of the given config, in the given state, whose next attempt falls into the given range.
+     * @param config the name of the configuration used for sending the messages
+     * @param state the state of the messages
+     * @param nextAttempt the date-time range the next attempt of the messages should fall into
+     * @param queryParams the query params controlling the ordering and size of the lookup
+     * @return the matching messages
+     */
+    @Lookup
+    List<OutboxMessage> findByConfigStateAndNextAttempt(@LookupField(name = "config") String config,
+                                                        @LookupField(name = "state") OutboxState state,
+                                                        @LookupField(name = "nextAttempt") Range<DateTime> nextAttempt,
+                                                        QueryParams queryParams);
+
+    /**
+     * Retrieves the messages in the given state, whose next attempt falls into the given range.
+     * @param state the state of the messages
+     * @param nextAttempt the date-time range the next attempt of the messages should fall into
+     * @param queryParams the query params controlling the ordering and size of the lookup
+     * @return the matching messages
+     */
+    @Lookup
+    List<OutboxMessage> findByStateAndNextAttempt(@LookupField(name = "state") OutboxState state,
+                                                  @LookupField(name = "nextAttempt") Range<DateTime> nextAttempt,
+                                                  QueryParams queryParams);
+
+    /**
+     * Retrieves the messages in the given state.
+     * @param state the state of the messages
+     * @param queryParams the query params controlling the ordering and size of the lookup
+     * @return the matching messages
+     */
+    @Lookup
+    List<OutboxMessage> findByState(@LookupField(name = "state") OutboxState state, QueryParams queryParams);
+}
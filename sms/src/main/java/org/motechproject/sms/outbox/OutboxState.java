@@ -0,0 +1,15 @@
+package org.motechproject.sms.outbox;
+
+/**
+ * The state of a message in the outbox.
+ */
+public enum OutboxState {
+    /**
+     * Waiting for its next attempt.
+     */
+    PENDING,
+    /**
+     * Claimed by the poller and handed over to the dispatcher, until its lease expires.
+     */
+    SENDING
+}
@@ -0,0 +1,44 @@
+package org.motechproject.sms.outbox;
+
+/**
+ * Computes the delay before the next attempt to send a failed SMS. The delay starts at the base delay and, if
+ * exponential backoff is enabled, doubles with every failure, up to the maximum delay. Half of the delay is random
+ * ("equal jitter"), so that messages which failed together during a provider outage do not all come back at once.
+ */
+public final class RetryBackoff {
+
+    private static final int MAX_SHIFT = 30;
+
+    private final long baseDelay;
+    private final long maxDelay;
+    private final boolean exponential;
+
+    /**
+     * @param baseDelay the delay in milliseconds after the first failure
+     * @param maxDelay the maximum delay in milliseconds
+     * @param exponential whether the delay should double with every failure
+     */
+    public RetryBackoff(long baseDelay, long maxDelay, boolean exponential) {
+        this.baseDelay = Math.max(0, baseDelay);
+        this.maxDelay = Math.max(this.baseDelay, maxDelay);
+        this.exponential = exponential;
+    }
+
+    /**
+     * Computes the delay before the next attempt.
+     * @param failureCount the number of failed attempts so far, at least 1
+     * @param random a random number between 0 (inclusive) and 1 (exclusive)
+     * @return the delay in milliseconds
+     */
+    public long delayMillis(int failureCount, double random) {
+        long delay = baseDelay;
+        if (exponential && failureCount > 1) {
+            int shift = Math.min(failureCount - 1, MAX_SHIFT);
+            delay = baseDelay > (maxDelay >> shift) ? maxDelay : baseDelay << shift;
+        }
+        delay = Math.min(delay, maxDelay);
+
+        long half = delay / 2;
+        return delay - half + (long) (random * (half + 1));
+    }
+}
@@ -0,0 +1,448 @@
+package org.motechproject.sms.outbox;
+
+import org.joda.time.DateTime;
+import org.motechproject.commons.api.Range;
+import org.motechproject.config.SettingsFacade;
+import org.motechproject.mds.query.QueryParams;
+import org.motechproject.mds.util.Order;
+import org.motechproject.sms.configs.Config;
+import org.motechproject.sms.http.SendCallback;
+import org.motechproject.sms.http.SmsDispatcher;
+import org.motechproject.sms.service.ConfigService;
+import org.motechproject.sms.service.OutgoingSms;
+import org.motechproject.sms.service.TemplateService;
+import org.motechproject.sms.templates.Template;
+import org.motechproject.sms.util.SmsSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.motechproject.commons.date.util.DateUtil.now;
+
+/**
+ * Persistent outbox for outgoing SMS messages. Every message is saved before it is sent and removed only once the
+ * provider was contacted, so no message is lost if the server goes down. A poller claims the due messages of every
+ * config in batches and hands them over to the {@link SmsDispatcher}. Failed messages are put back into the outbox
+ * with a delay computed by a {@link RetryBackoff}, so retries do not hammer a provider which is down. The number of
+ * messages claimed but not yet sent is capped for every config, which keeps a provider outage from piling up work in
+ * memory.
+ * <p>
+ * Claimed messages are leased: their next attempt is pushed back by the lease timeout. The lease of a message still
+ * waiting in the send queue of the dispatcher is renewed, so it only runs out once the send has started - a provider
+ * paced at a few messages a minute can keep a full batch queued for much longer than the lease. Every poll puts the
+ * messages whose lease expired back into the outbox, so a message lost by the dispatcher is sent again. Delivery is
+ * therefore at-least-once: messages claimed when the server went down are sent again on the next start, and a send
+ * taking longer than the lease timeout may be repeated. The outbox assumes it is the only one processing its table.
+ */
+@Service
+public class SmsOutbox {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmsOutbox.class);
+
+    private static final String POLL_INTERVAL = "sms.outbox.poll_interval_ms";
+    private static final String BATCH_SIZE = "sms.outbox.batch_size";
+    private static final String MAX_IN_FLIGHT = "sms.outbox.max_in_flight_per_config";
+    private static final String RETRY_DELAY = "sms.outbox.retry_delay_ms";
+    private static final String MAX_RETRY_DELAY = "sms.outbox.max_retry_delay_ms";
+    private static final String LEASE_TIMEOUT = "sms.outbox.lease_timeout_ms";
+
+    private static final int DEFAULT_POLL_INTERVAL = 1000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 500;
+    private static final int DEFAULT_RETRY_DELAY = 5000;
+    private static final int DEFAULT_MAX_RETRY_DELAY = 600000;
+    private static final int DEFAULT_LEASE_TIMEOUT = 300000;
+
+    private static final String NEXT_ATTEMPT = "nextAttempt";
+
+    private OutboxMessageDataService outboxMessageDataService;
+    private SmsDispatcher smsDispatcher;
+    private ConfigService configService;
+    private TemplateService templateService;
+    private SettingsFacade settingsFacade;
+
+    private final ConcurrentMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, ClaimedSms> claimedMessages = new ConcurrentHashMap<>();
+    private final AtomicBoolean pollRequested = new AtomicBoolean(false);
+    private ScheduledExecutorService poller;
+    private int batchSize;
+    private int maxInFlight;
+    private int leaseTimeout;
+
+    private final Runnable pollTask = new Runnable() {
+        @Override
+        public void run() {
+            pollRequested.set(false);
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to poll the SMS outbox", e);
+            }
+        }
+    };
+
+    @PostConstruct
+    public void start() {
+        batchSize = SmsSettings.getInt(settingsFacade, BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        maxInFlight = SmsSettings.getInt(settingsFacade, MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT);
+        leaseTimeout = SmsSettings.getInt(settingsFacade, LEASE_TIMEOUT, DEFAULT_LEASE_TIMEOUT);
+        int pollInterval = SmsSettings.getInt(settingsFacade, POLL_INTERVAL, DEFAULT_POLL_INTERVAL);
+
+        poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "sms-outbox-poller");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        poller.execute(new Runnable() {
+            @Override
+            public void run() {
+                recover(false);
+            }
+        });
+        poller.scheduleWithFixedDelay(pollTask, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+
+        LOGGER.info("Started SMS outbox, polling every {}ms", pollInterval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // messages claimed but not sent yet stay in the SENDING state and are recovered on the next start
+        poller.shutdownNow();
+    }
+
+    /**
+     * Saves the given SMS in the outbox, to be sent as soon as possible.
+     * @param sms the representation of the sms to send
+     */
+    public void enqueue(OutgoingSms sms) {
+        String configName = configService.getConfigOrDefault(sms.getConfig()).getName();
+        outboxMessageDataService.create(new OutboxMessage(configName, sms, now()));
+        requestPoll();
+    }
+
+    /**
+     * @param configName the name of the config
+     * @return the number of messages claimed from the outbox, but not sent yet, for the given config
+     */
+    public int getInFlight(String configName) {
+        AtomicInteger count = inFlight.get(configName);
+        return count == null ? 0 : count.get();
+    }
+
+    private void requestPoll() {
+        if (pollRequested.compareAndSet(false, true)) {
+            try {
+                poller.execute(pollTask);
+            } catch (RejectedExecutionException e) {
+                // shutting down, the message will be picked up on the next start
+                LOGGER.debug("SMS outbox poller is stopped");
+            }
+        }
+    }
+
+    void poll() {
+        recover(true);
+        for (Config config : configService.getConfigs().getConfigs()) {
+            claim(config.getName());
+        }
+    }
+
+    private void claim(final String configName) {
+        AtomicInteger count = getInFlightCount(configName);
+        final int capacity = Math.min(batchSize, maxInFlight - count.get());
+        if (capacity <= 0) {
+            LOGGER.debug("{} SMS messages in flight for config {}, not claiming more", count.get(), configName);
+            return;
+        }
+
+        List<ClaimedSms> claimed = outboxMessageDataService.doInTransaction(
+                new TransactionCallback<List<ClaimedSms>>() {
+                    @Override
+                    public List<ClaimedSms> doInTransaction(TransactionStatus status) {
+                        List<OutboxMessage> due = outboxMessageDataService.findByConfigStateAndNextAttempt(configName,
+                                OutboxState.PENDING, new Range<>(new DateTime(0), now()),
+                                new QueryParams(1, capacity, new Order(NEXT_ATTEMPT, Order.Direction.ASC)));
+
+                        DateTime leaseExpiry = now().plusMillis(leaseTimeout);
+                        List<ClaimedSms> result = new ArrayList<>(due.size());
+                        for (OutboxMessage message : due) {
+                            message.setState(OutboxState.SENDING);
+                            message.setNextAttempt(leaseExpiry);
+                            outboxMessageDataService.update(message);
+                            result.add(new ClaimedSms(message.getId(), configName, message.toOutgoingSms()));
+                        }
+                        return result;
+                    }
+                });
+
+        if (!claimed.isEmpty()) {
+            LOGGER.debug("Claimed {} SMS messages for config {}", claimed.size(), configName);
+        }
+
+        List<ClaimedSms> rejected = new ArrayList<>();
+        for (ClaimedSms sms : claimed) {
+            count.incrementAndGet();
+            claimedMessages.put(sms.id, sms);
+            if (!smsDispatcher.dispatch(sms.sms, sms)) {
+                rejected.add(sms);
+            }
+        }
+
+        if (!rejected.isEmpty()) {
+            // the dispatcher is backed up, leave the rest for a later poll
+            release(configName, rejected);
+            return;
+        }
+
+        // more messages are probably due, don't wait for the next scheduled poll
+        if (claimed.size() == capacity && capacity == batchSize) {
+            requestPoll();
+        }
+    }
+
+    private void complete(final ClaimedSms claimed, final List<OutgoingSms> retries) {
+        try {
+            outboxMessageDataService.doInTransaction(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    OutboxMessage message = outboxMessageDataService.findById(claimed.id);
+                    if (message != null) {
+                        outboxMessageDataService.delete(message);
+                    }
+                    for (OutgoingSms retry : retries) {
+                        outboxMessageDataService.create(new OutboxMessage(claimed.configName, retry,
+                                nextAttempt(claimed.configName, retry.getFailureCount())));
+                    }
+                }
+            });
+        } finally {
+            // a message whose lease expired during the send was already taken off the in flight count
+            if (claimedMessages.remove(claimed.id, claimed) &&
+                    getInFlightCount(claimed.configName).getAndDecrement() >= maxInFlight) {
+                // the config was at its in flight limit, there is room for more now
+                requestPoll();
+            }
+        }
+    }
+
+    private void release(String configName, final List<ClaimedSms> rejected) {
+        try {
+            outboxMessageDataService.doInTransaction(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    for (ClaimedSms sms : rejected) {
+                        OutboxMessage message = outboxMessageDataService.findById(sms.id);
+                        if (message != null) {
+                            message.setState(OutboxState.PENDING);
+                            message.setNextAttempt(now());
+                            outboxMessageDataService.update(message);
+                        }
+                    }
+                }
+            });
+        } finally {
+            for (ClaimedSms sms : rejected) {
+                claimedMessages.remove(sms.id, sms);
+            }
+            getInFlightCount(configName).addAndGet(-rejected.size());
+        }
+        LOGGER.debug("Released {} SMS messages for config {}, its send queue is full", rejected.size(), configName);
+    }
+
+    /**
+     * Puts claimed messages back into the outbox, so that they are sent again.
+     * @param expiredOnly true to recover only the messages whose lease expired, false to recover all of them - which
+     *                    is done on start, when none of them can be in flight anymore
+     */
+    void recover(final boolean expiredOnly) {
+        final AtomicInteger recovered = new AtomicInteger();
+        List<OutboxMessage> claimed;
+        do {
+            claimed = outboxMessageDataService.doInTransaction(new TransactionCallback<List<OutboxMessage>>() {
+                @Override
+                public List<OutboxMessage> doInTransaction(TransactionStatus status) {
+                    DateTime now = now();
+                    QueryParams queryParams = new QueryParams(1, batchSize);
+                    List<OutboxMessage> messages = expiredOnly
+                            ? outboxMessageDataService.findByStateAndNextAttempt(OutboxState.SENDING,
+                                    new Range<>(new DateTime(0), now), queryParams)
+                            : outboxMessageDataService.findByState(OutboxState.SENDING, queryParams);
+                    for (OutboxMessage message : messages) {
+                        DateTime leaseExpiry = leaseExpiry(message.getId(), now);
+                        if (leaseExpiry.isAfter(now)) {
+                            message.setNextAttempt(leaseExpiry);
+                        } else {
+                            forget(message.getId());
+                            message.setState(OutboxState.PENDING);
+                            message.setNextAttempt(now);
+                            recovered.incrementAndGet();
+                        }
+                        outboxMessageDataService.update(message);
+                    }
+                    return messages;
+                }
+            });
+        } while (claimed.size() == batchSize);
+
+        if (recovered.get() > 0 && expiredOnly) {
+            LOGGER.warn("Recovered {} SMS messages which were not sent within the {}ms lease timeout", recovered.get(),
+                    leaseTimeout);
+        } else if (recovered.get() > 0) {
+            LOGGER.warn("Recovered {} SMS messages which were being sent when the server went down", recovered.get());
+        }
+    }
+
+    /**
+     * Computes the lease expiry of a claimed message. The lease of a message waiting in the send queue is renewed, the
+     * lease of a message being sent runs from the start of the send. Messages the outbox does not hold anymore, for
+     * instance because the server was restarted, have no lease left.
+     */
+    private DateTime leaseExpiry(Long id, DateTime now) {
+        ClaimedSms claimed = claimedMessages.get(id);
+        if (claimed == null) {
+            return now;
+        }
+        DateTime sendStart = claimed.sendStart;
+        return (sendStart == null ? now : sendStart).plusMillis(leaseTimeout);
+    }
+
+    private void forget(Long id) {
+        // the message is claimed again, so it must not be counted twice
+        ClaimedSms claimed = claimedMessages.remove(id);
+        if (claimed != null) {
+            getInFlightCount(claimed.configName).decrementAndGet();
+        }
+    }
+
+    private DateTime nextAttempt(String configName, Integer failureCount) {
+        Config config = configService.getConfigOrDefault(configName);
+
+        boolean exponential = false;
+        try {
+            Template template = templateService.getTemplate(config.getTemplateName());
+            exponential = Boolean.TRUE.equals(template.getOutgoing().getExponentialBackOffRetries());
+        } catch (IllegalArgumentException e) {
+            // the send itself will report the broken config
+            LOGGER.warn("Unable to read the retry settings for config {}: {}", configName, e.getMessage());
+        }
+
+        RetryBackoff backoff = new RetryBackoff(
+                valueOrDefault(config.getRetryDelay(), RETRY_DELAY, DEFAULT_RETRY_DELAY),
+                valueOrDefault(config.getMaxRetryDelay(), MAX_RETRY_DELAY, DEFAULT_MAX_RETRY_DELAY),
+                exponential);
+        int failures = failureCount == null ? 1 : Math.max(1, failureCount);
+
+        return now().plus(backoff.delayMillis(failures, ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private int valueOrDefault(Integer value, String key, int defaultValue) {
+        return value == null ? SmsSettings.getInt(settingsFacade, key, defaultValue) : value;
+    }
+
+    private AtomicInteger getInFlightCount(String configName) {
+        AtomicInteger count = inFlight.get(configName);
+        if (count == null) {
+            AtomicInteger created = new AtomicInteger();
+            count = inFlight.putIfAbsent(configName, created);
+            if (count == null) {
+                count = created;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A message claimed from the outbox. Completes the message once the dispatcher is done with it.
+     */
+    private final class ClaimedSms implements SendCallback {
+
+        private final Long id;
+        private final String configName;
+        private final OutgoingSms sms;
+        private volatile DateTime sendStart;
+
+        private ClaimedSms(Long id, String configName, OutgoingSms sms) {
+            this.id = id;
+            this.configName = configName;
+            this.sms = sms;
+        }
+
+        @Override
+        public void started(OutgoingSms started) {
+            sendStart = now();
+        }
+
+        @Override
+        public void sent(OutgoingSms sent, List<OutgoingSms> retries) {
+            complete(this, retries == null ? Collections.<OutgoingSms>emptyList() : retries);
+        }
+
+        @Override
+        public void failed(OutgoingSms failed, RuntimeException e) {
+            Config config = configService.getConfigOrDefault(configName);
+            int failureCount = (failed.getFailureCount() == null ? 0 : failed.getFailureCount()) + 1;
+
+            List<OutgoingSms> retries = Collections.emptyList();
+            if (config.getMaxRetries() != null && failureCount < config.getMaxRetries()) {
+                failed.setFailureCount(failureCount);
+                retries = Collections.singletonList(failed);
+            } else {
+                LOGGER.error("Giving up on SMS {} for config {} after {} attempts", failed.getMotechId(),
+                        configName, failureCount);
+            }
+            complete(this, retries);
+        }
+    }
+
+    @Autowired
+    public void setOutboxMessageDataService(OutboxMessageDataService outboxMessageDataService) {
+        this.outboxMessageDataService = outboxMessageDataService;
+    }
+
+    @Autowired
+    public void setSmsDispatcher(SmsDispatcher smsDispatcher) {
+        this.smsDispatcher = smsDispatcher;
+    }
+
+    @Autowired
+    @Qualifier("configService")
+    public void setConfigService(ConfigService configService) {
+        this.configService = configService;
+    }
+
+    @Autowired
+    @Qualifier("templateService")
+    public void setTemplateService(TemplateService templateService) {
+        this.templateService = templateService;
+    }
+
+    @Autowired
+    @Qualifier("smsSettings")
+    public void setSettingsFacade(SettingsFacade settingsFacade) {
+        this.settingsFacade = settingsFacade;
+    }
+}
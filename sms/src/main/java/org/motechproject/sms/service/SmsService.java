@@ -1,5 +1,7 @@
 package org.motechproject.sms.service;
 
+import java.util.Iterator;
+
 /**
  * Service that allows sending SMS messages.
  */
@@ -11,4 +13,14 @@ public interface SmsService {
      * @param message the representation of the sms to send
      */
     void send(final OutgoingSms message);
+
+    /**
+     * Sends the same message to a large number of recipients. Recipients are read from the given iterator in
+     * batches, the audit records for each batch are written in a single transaction and the batch is queued for
+     * sending right after that, so the full recipient list never has to be held in memory.
+     * @param message the representation of the sms to send, its recipients are ignored
+     * @param recipients the recipients of the message
+     * @return the number of recipients for which the message was queued
+     */
+    long broadcast(final OutgoingSms message, Iterator<String> recipients);
 }
@@ -5,6 +5,7 @@ import org.motechproject.event.MotechEvent;
 import org.motechproject.event.listener.EventRelay;
 import org.motechproject.scheduler.contract.RunOnceSchedulableJob;
 import org.motechproject.scheduler.service.MotechSchedulerService;
+import org.motechproject.sms.audit.RecentSmsRecords;
 import org.motechproject.sms.audit.SmsRecord;
 import org.motechproject.sms.audit.SmsRecordsDataService;
 import org.motechproject.sms.audit.constants.DeliveryStatuses;
@@ -17,9 +18,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
@@ -37,22 +41,29 @@ public class SmsServiceImpl implements SmsService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SmsServiceImpl.class);
 
+    /**
+     * The number of recipients for which the audit records of a broadcast are written in a single transaction.
+     */
+    private static final int BROADCAST_BATCH_SIZE = 500;
+
     private EventRelay eventRelay;
     private MotechSchedulerService schedulerService;
     private TemplateService templateService;
     private ConfigService configService;
     private SmsRecordsDataService smsRecordsDataService;
+    private RecentSmsRecords recentSmsRecords;
 
     @Autowired
     public SmsServiceImpl(EventRelay eventRelay, MotechSchedulerService schedulerService,
                           @Qualifier("templateService") TemplateService templateService,
                           @Qualifier("configService") ConfigService configService,
-                          SmsRecordsDataService smsRecordsDataService) {
+                          SmsRecordsDataService smsRecordsDataService, RecentSmsRecords recentSmsRecords) {
         this.eventRelay = eventRelay;
         this.schedulerService = schedulerService;
         this.templateService = templateService;
         this.configService = configService;
         this.smsRecordsDataService = smsRecordsDataService;
+        this.recentSmsRecords = recentSmsRecords;
     }
 
     private static List<String> splitMessage(String message, int maxSize, String header, String footer,
@@ -117,16 +128,65 @@ public class SmsServiceImpl implements SmsService {
     @Override
     @Transactional
     public void send(OutgoingSms sms) {
+        Config config = getConfig(sms);
+        Template template = templateService.getTemplate(config.getTemplateName());
+        List<String> messageParts = splitMessage(sms, config, template);
+
+        for (MotechEvent event : prepareChunks(sms, config, messageParts, sms.getRecipients(),
+                template.getOutgoing().getMaxRecipient())) {
+            publish(event);
+        }
+    }
+
+    @Override
+    public long broadcast(final OutgoingSms sms, Iterator<String> recipients) {
+        final Config config = getConfig(sms);
+        Template template = templateService.getTemplate(config.getTemplateName());
+        final List<String> messageParts = splitMessage(sms, config, template);
+        final int maxRecipient = template.getOutgoing().getMaxRecipient();
+
+        // keep the batches aligned with the provider chunks, so that no chunk is split between two batches
+        int batchSize = Math.max(1, BROADCAST_BATCH_SIZE / maxRecipient) * maxRecipient;
+        long count = 0;
+
+        while (recipients.hasNext()) {
+            final List<String> batch = new ArrayList<>(batchSize);
+            while (recipients.hasNext() && batch.size() < batchSize) {
+                batch.add(recipients.next());
+            }
+
+            List<MotechEvent> events = smsRecordsDataService.doInTransaction(
+                    new TransactionCallback<List<MotechEvent>>() {
+                        @Override
+                        public List<MotechEvent> doInTransaction(TransactionStatus status) {
+                            return prepareChunks(sms, config, messageParts, batch, maxRecipient);
+                        }
+                    });
+
+            // the audit records of the batch are committed, the messages can go out now
+            for (MotechEvent event : events) {
+                publish(event);
+            }
+
+            count += batch.size();
+            LOGGER.debug("Queued {} recipients of the broadcast using config {}", count, config.getName());
+        }
+
+        LOGGER.info("Queued message [{}] for {} recipients.", sms.getMessage().replace("\n", "\\n"), count);
+        return count;
+    }
 
+    private Config getConfig(OutgoingSms sms) {
         if (!configService.hasConfigs()) {
             String message = String.format("Trying to send an SMS, but there are no SMS configs on this server. " +
                     "outgoingSms = %s", sms.toString());
             throw new IllegalStateException(message);
         }
 
-        Config config = configService.getConfigOrDefault(sms.getConfig());
-        Template template = templateService.getTemplate(config.getTemplateName());
+        return configService.getConfigOrDefault(sms.getConfig());
+    }
 
+    private List<String> splitMessage(OutgoingSms sms, Config config, Template template) {
         //todo: die if things aren't right, right?
         //todo: SMS_SCHEDULE_FUTURE_SMS research if any sms provider provides that, for now assume not.
 
@@ -144,12 +204,20 @@ public class SmsServiceImpl implements SmsService {
                     "The combined sizes of the header and footer templates are larger than the maximum SMS size!");
         }
 
-        List<String> messageParts = splitMessage(sms.getMessage(), maxSize, header, footer, excludeLastFooter);
-        List<List<String>> recipientsList = splitRecipientList(sms.getRecipients(),
-                template.getOutgoing().getMaxRecipient());
+        return splitMessage(sms.getMessage(), maxSize, header, footer, excludeLastFooter);
+    }
+
+    /**
+     * Splits the given recipients into provider sized chunks, writes the audit records for every chunk and message
+     * part and returns the events which will send them - or schedule them, if the SMS has a delivery time.
+     */
+    private List<MotechEvent> prepareChunks(OutgoingSms sms, Config config, List<String> messageParts,
+                                            List<String> recipientList, Integer maxRecipient) {
+        List<MotechEvent> events = new ArrayList<>();
+        List<SmsRecord> records = new ArrayList<>(recipientList.size() * messageParts.size());
 
         //todo: delivery_time on the sms provider's side if they support it?
-        for (List<String> recipients : recipientsList) {
+        for (List<String> recipients : splitRecipientList(recipientList, maxRecipient)) {
             if (sms.hasDeliveryTime()) {
                 DateTime dt = sms.getDeliveryTime();
                 for (String part : messageParts) {
@@ -159,29 +227,49 @@ public class SmsServiceImpl implements SmsService {
                     //MOTECH scheduler needs unique job ids, so adding motechId as job_id_key will do that
                     event.getParameters().put(MotechSchedulerService.JOB_ID_KEY, motechId);
                     event.getParameters().put(SmsEventParams.DELIVERY_TIME, dt);
-                    schedulerService.safeScheduleRunOnceJob(new RunOnceSchedulableJob(event, dt));
+                    events.add(event);
                     LOGGER.info(String.format("Scheduling message [%s] to [%s] at %s.",
                             part.replace("\n", "\\n"), recipients, sms.getDeliveryTime()));
                     //add one millisecond to the next sms part so they will be delivered in order
                     //without that it seems Quartz doesn't fire events in the order they were scheduled
                     dt = dt.plus(1);
-                    for (String recipient : recipients) {
-                        smsRecordsDataService.create(new SmsRecord(config.getName(), OUTBOUND, recipient, part, now(),
-                                DeliveryStatuses.SCHEDULED, null, motechId, null, null));
-                    }
+                    addRecords(records, config, recipients, part, motechId, DeliveryStatuses.SCHEDULED);
                 }
             } else {
                 for (String part : messageParts) {
                     String motechId = generateMotechId();
-                    eventRelay.sendEventMessage(outboundEvent(SmsEventSubjects.PENDING, config.getName(), recipients,
+                    events.add(outboundEvent(SmsEventSubjects.PENDING, config.getName(), recipients,
                             part, motechId, null, null, null, null, sms.getCustomParams()));
                     LOGGER.info("Sending message [{}] to [{}].", part.replace("\n", "\\n"), recipients);
-                    for (String recipient : recipients) {
-                        smsRecordsDataService.create(new SmsRecord(config.getName(), OUTBOUND, recipient, part, now(),
-                                DeliveryStatuses.PENDING, null, motechId, null, null));
-                    }
+                    addRecords(records, config, recipients, part, motechId, DeliveryStatuses.PENDING);
                 }
             }
         }
+
+        // the records are flushed together when the transaction of the caller commits
+        for (SmsRecord record : records) {
+            smsRecordsDataService.create(record);
+        }
+        recentSmsRecords.addAll(records);
+
+        return events;
+    }
+
+    private void addRecords(List<SmsRecord> records, Config config, List<String> recipients, String part,
+                            String motechId, String deliveryStatus) {
+        DateTime timestamp = now();
+        for (String recipient : recipients) {
+            records.add(new SmsRecord(config.getName(), OUTBOUND, recipient, part, timestamp, deliveryStatus, null,
+                    motechId, null, null));
+        }
+    }
+
+    private void publish(MotechEvent event) {
+        if (SmsEventSubjects.SCHEDULED.equals(event.getSubject())) {
+            DateTime dt = (DateTime) event.getParameters().get(SmsEventParams.DELIVERY_TIME);
+            schedulerService.safeScheduleRunOnceJob(new RunOnceSchedulableJob(event, dt));
+        } else {
+            eventRelay.sendEventMessage(event);
+        }
     }
 }
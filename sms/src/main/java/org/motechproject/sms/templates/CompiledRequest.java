@@ -0,0 +1,138 @@
+package org.motechproject.sms.templates;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.springframework.http.MediaType;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The outgoing request of a {@link Template}, compiled into segments once, so that generating the request for a
+ * message is only a matter of concatenating them. Properties which do not change between messages, like config
+ * properties, are bound at compile time. Instances are immutable and can be shared between threads.
+ */
+public final class CompiledRequest {
+
+    private static final Pattern URL_TOKEN_PATTERN = Pattern.compile("\\[([^\\]]+)\\]");
+    private static final Gson GSON = new Gson();
+
+    private final String templateName;
+    private final HttpMethodType type;
+    private final boolean json;
+    private final TokenizedString urlPath;
+    private final List<Parameter> queryParameters;
+    private final List<Parameter> bodyParameters;
+
+    /**
+     * Compiles the outgoing request of the given template.
+     * @param template the template to compile
+     * @param staticProps the properties which are the same for every message, they take precedence over the
+     *                    properties given when rendering
+     */
+    public CompiledRequest(Template template, Map<String, String> staticProps) {
+        Request request = template.getOutgoing().getRequest();
+        this.templateName = template.getName();
+        this.type = request.getType();
+        this.json = Boolean.TRUE.equals(request.getJsonContentType());
+        this.urlPath = TokenizedString.compile(request.getUrlPath(), URL_TOKEN_PATTERN, false).bind(staticProps);
+        this.queryParameters = compile(request.getQueryParameters(), staticProps);
+        this.bodyParameters = compile(request.getBodyParameters(), staticProps);
+    }
+
+    /**
+     * Generates an HTTP request for an outgoing SMS from the provided properties.
+     * @param props the per-message properties used for building the request
+     * @return the HTTP request to execute
+     */
+    public HttpMethod render(Map<String, String> props) {
+        HttpMethod httpMethod;
+        if (HttpMethodType.POST.equals(type)) {
+            PostMethod postMethod = new PostMethod(urlPath.render(props));
+            if (json) {
+                JsonObject jsonObject = new JsonObject();
+                for (Parameter parameter : bodyParameters) {
+                    jsonObject.add(parameter.name, parameter.renderJson(props));
+                }
+                try {
+                    postMethod.setRequestEntity(new StringRequestEntity(GSON.toJson(jsonObject),
+                            MediaType.APPLICATION_JSON_VALUE, "UTF-8"));
+                } catch (UnsupportedEncodingException e) {
+                    throw new IllegalStateException(String.format("Template error: %s: invalid json", templateName), e);
+                }
+            } else {
+                postMethod.setRequestHeader("Content-Type", PostMethod.FORM_URL_ENCODED_CONTENT_TYPE);
+                for (Parameter parameter : bodyParameters) {
+                    postMethod.setParameter(parameter.name, parameter.render(props));
+                }
+            }
+            httpMethod = postMethod;
+        } else {
+            httpMethod = new GetMethod(urlPath.render(props));
+        }
+
+        NameValuePair[] query = new NameValuePair[queryParameters.size()];
+        for (int i = 0; i < query.length; i++) {
+            Parameter parameter = queryParameters.get(i);
+            query[i] = new NameValuePair(parameter.name, parameter.render(props));
+        }
+        httpMethod.setQueryString(query);
+
+        return httpMethod;
+    }
+
+    private static List<Parameter> compile(Map<String, String> parameters, Map<String, String> staticProps) {
+        List<Parameter> compiled = new ArrayList<>();
+        if (parameters != null) {
+            for (Map.Entry<String, String> entry : parameters.entrySet()) {
+                compiled.add(new Parameter(entry.getKey(), TokenizedString.compile(entry.getValue(),
+                        Template.FIND_TOKEN_PATTERN, true).bind(staticProps)));
+            }
+        }
+        return compiled;
+    }
+
+    private static JsonElement toJson(String value) {
+        try {
+            return new JsonParser().parse(value);
+        } catch (JsonSyntaxException e) {
+            return new JsonPrimitive(value);
+        }
+    }
+
+    private static final class Parameter {
+
+        private final String name;
+        private final TokenizedString value;
+        private final JsonElement constantJson;
+
+        private Parameter(String name, TokenizedString value) {
+            this.name = name;
+            this.value = value;
+            // the JSON of constant values is parsed only once
+            this.constantJson = value.isConstant() ? toJson(value.render(Collections.<String, String>emptyMap())) : null;
+        }
+
+        private String render(Map<String, String> props) {
+            return value.render(props);
+        }
+
+        private JsonElement renderJson(Map<String, String> props) {
+            // the rendered JSON is serialized right away and never modified, so the constant can be shared
+            return constantJson == null ? toJson(value.render(props)) : constantJson;
+        }
+    }
+}
@@ -27,7 +27,8 @@ public class Outgoing {
     private Boolean hasAuthentication;
 
     /**
-     * Whether we should back off exponentially between retries. Not used currently.
+     * Whether we should back off exponentially between retries. If not, failed messages are retried after a
+     * constant delay.
      */
     private Boolean exponentialBackOffRetries;
 
@@ -37,6 +38,12 @@ public class Outgoing {
     */
     private Integer millisecondsBetweenMessages;
 
+    /**
+     * The maximum number of messages per second which we can send to the provider. If set, it takes precedence
+     * over millisecondsBetweenMessages.
+     */
+    private Integer maxMessagesPerSecond;
+
     /**
      * The maximum size of an SMS message.
      */
@@ -151,7 +158,36 @@ public class Outgoing {
     }
 
     /**
-     * Not used currently.
+     * @return the maximum number of messages per second which we can send to the provider, or null if not set
+     */
+    public Integer getMaxMessagesPerSecond() {
+        return maxMessagesPerSecond;
+    }
+
+    /**
+     * @param maxMessagesPerSecond the maximum number of messages per second which we can send to the provider
+     */
+    public void setMaxMessagesPerSecond(Integer maxMessagesPerSecond) {
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+    }
+
+    /**
+     * Returns the rate at which messages can be sent to the provider. If maxMessagesPerSecond is set, it is used,
+     * otherwise the rate is derived from the minimal number of milliseconds between messages.
+     * @return the number of messages per second, 0 if the rate is not limited
+     */
+    public double getPermitsPerSecond() {
+        if (maxMessagesPerSecond != null && maxMessagesPerSecond > 0) {
+            return maxMessagesPerSecond;
+        }
+        Integer milliseconds = getMillisecondsBetweenMessages();
+        if (milliseconds == null || milliseconds <= 0) {
+            return 0;
+        }
+        return 1000.0 / milliseconds;
+    }
+
+    /**
      * @return whether we should back off exponentially between retries
      */
     public Boolean getExponentialBackOffRetries() {
@@ -159,7 +195,6 @@ public class Outgoing {
     }
 
     /**
-     * Not used currently.
      * @param exponentialBackOffRetries whether we should back off exponentially between retries
      */
     public void setExponentialBackOffRetries(Boolean exponentialBackOffRetries) {
@@ -230,6 +265,7 @@ public class Outgoing {
                 ", response=" + response +
                 ", hasAuthentication=" + hasAuthentication +
                 ", millisecondsBetweenMessages=" + millisecondsBetweenMessages +
+                ", maxMessagesPerSecond=" + maxMessagesPerSecond +
                 ", exponentialBackOffRetries=" + exponentialBackOffRetries +
                 ", maxSmsSize=" + maxSmsSize +
                 ", maxRecipient=" + maxRecipient +
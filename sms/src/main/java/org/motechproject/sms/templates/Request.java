@@ -79,6 +79,14 @@ public class Request {
         return processedUrlPath;
     }
 
+    /**
+     * @return the url path for the endpoint under which the provider receives outgoing SMS messages, with the
+     *         placeholders not replaced
+     */
+    public String getUrlPath() {
+        return urlPath;
+    }
+
     /**
      * Sets the url path for the endpoint under which the provider receives outgoing SMS
      * messages. Can contain placeholders denoted by [propertyName].
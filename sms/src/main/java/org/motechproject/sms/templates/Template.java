@@ -56,7 +56,8 @@ public class Template {
     private List<String> configurables;
 
     /**
-     * Generates an HTTP request for an outgoing SMS from the provided properties.
+     * Generates an HTTP request for an outgoing SMS from the provided properties. The template is parsed on every
+     * call, use a {@link CompiledRequest} when generating requests for many messages.
      * @param props the properties used for building the request
      * @return the HTTP request to execute
      */
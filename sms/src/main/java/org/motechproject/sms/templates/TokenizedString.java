@@ -0,0 +1,116 @@
+package org.motechproject.sms.templates;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A template string containing [token] placeholders, split once into literal and token segments. Rendering is a
+ * plain concatenation of the segments, no regular expressions are involved. Values that are the same for every
+ * message, such as config properties, can be bound in advance using {@link #bind(Map)}.
+ */
+public final class TokenizedString {
+
+    private final List<String> literals;
+    private final List<String> tokens;
+    private final boolean strict;
+
+    private TokenizedString(List<String> literals, List<String> tokens, boolean strict) {
+        this.literals = literals;
+        this.tokens = tokens;
+        this.strict = strict;
+    }
+
+    /**
+     * Splits the given value into segments.
+     * @param value the value to split
+     * @param tokenPattern the pattern matching tokens, its first group must be the token name
+     * @param strict if true, rendering fails when a token has no value, otherwise the token is kept as it is
+     * @return the split value
+     */
+    public static TokenizedString compile(String value, Pattern tokenPattern, boolean strict) {
+        List<String> literals = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = tokenPattern.matcher(value);
+
+        int position = 0;
+        while (matcher.find()) {
+            literals.add(value.substring(position, matcher.start()));
+            tokens.add(matcher.group(1));
+            position = matcher.end();
+        }
+        literals.add(value.substring(position));
+
+        return new TokenizedString(literals, tokens, strict);
+    }
+
+    /**
+     * Replaces the tokens for which the given props contain a value with that value.
+     * @param props the values to bind
+     * @return a new instance with the bound tokens turned into literals
+     */
+    public TokenizedString bind(Map<String, String> props) {
+        List<String> newLiterals = new ArrayList<>();
+        List<String> newTokens = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(literals.get(0));
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String value = props.get(tokens.get(i));
+            if (value != null) {
+                literal.append(value);
+            } else {
+                newLiterals.add(literal.toString());
+                newTokens.add(tokens.get(i));
+                literal = new StringBuilder();
+            }
+            literal.append(literals.get(i + 1));
+        }
+        newLiterals.add(literal.toString());
+
+        return new TokenizedString(newLiterals, newTokens, strict);
+    }
+
+    /**
+     * @return true if this value has no tokens left
+     */
+    public boolean isConstant() {
+        return tokens.isEmpty();
+    }
+
+    /**
+     * @return the names of the tokens left in this value
+     */
+    public List<String> getTokens() {
+        return Collections.unmodifiableList(tokens);
+    }
+
+    /**
+     * Renders this value.
+     * @param props the values of the tokens
+     * @return the rendered value
+     */
+    public String render(Map<String, String> props) {
+        if (tokens.isEmpty()) {
+            return literals.get(0);
+        }
+
+        StringBuilder sb = new StringBuilder(literals.get(0));
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            String value = props.get(token);
+            if (value != null) {
+                sb.append(value);
+            } else if (strict) {
+                throw new IllegalStateException(String.format("Template error! Unable to find value for [%s]",
+                        token));
+            } else {
+                sb.append('[').append(token).append(']');
+            }
+            sb.append(literals.get(i + 1));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package org.motechproject.sms.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.motechproject.config.SettingsFacade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Helper for reading the tuning properties of the module from sms-defaults.properties. Missing or malformed values
+ * fall back to the given defaults, so that older settings files keep working.
+ */
+public final class SmsSettings {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmsSettings.class);
+
+    /**
+     * Reads an integer property.
+     * @param settingsFacade the settings facade of the module
+     * @param key the key of the property
+     * @param defaultValue the value to use if the property is not set or is not a valid integer
+     * @return the value of the property
+     */
+    public static int getInt(SettingsFacade settingsFacade, String key, int defaultValue) {
+        String value = settingsFacade.getProperty(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid value {} for {}, using {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a boolean property.
+     * @param settingsFacade the settings facade of the module
+     * @param key the key of the property
+     * @param defaultValue the value to use if the property is not set
+     * @return the value of the property
+     */
+    public static boolean getBoolean(SettingsFacade settingsFacade, String key, boolean defaultValue) {
+        String value = settingsFacade.getProperty(key);
+        return StringUtils.isBlank(value) ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    private SmsSettings() {
+    }
+}
@@ -0,0 +1,21 @@
+package org.motechproject.sms.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a provider callback cannot be accepted, because the callback queue is full. The provider receives
+ * a 503 response, so that it retries the callback later.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CallbackQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = -4183736590377466230L;
+
+    /**
+     * @param message the message of the exception
+     */
+    public CallbackQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -2,6 +2,7 @@ package org.motechproject.sms.web;
 
 import org.apache.commons.io.IOUtils;
 import org.motechproject.config.SettingsFacade;
+import org.motechproject.sms.callback.CallbackQueue;
 import org.motechproject.sms.configs.Configs;
 import org.motechproject.sms.json.TemplateJsonParser;
 import org.motechproject.sms.service.ConfigService;
@@ -45,6 +46,7 @@ public class SettingsController {
     private ConfigService configService;
     private TemplateJsonParser templateJsonParser;
     private SettingsFacade settingsFacade;
+    private CallbackQueue callbackQueue;
 
     /**
      * Returns all the templates for the UI.
@@ -94,6 +96,16 @@ public class SettingsController {
         return configService.getConfigs();
     }
 
+    /**
+     * Returns the statistics of the queue of provider status callbacks, for monitoring.
+     * @return the statistics, keys are statistic names
+     */
+    @RequestMapping(value = "/callbacks/statistics", method = RequestMethod.GET)
+    @ResponseBody
+    public Map<String, Object> getCallbackStatistics() {
+        return callbackQueue.getStatistics();
+    }
+
     /**
      * Handles exceptions, returns their message as the response body.
      * @param e the exception to handle
@@ -135,4 +147,9 @@ public class SettingsController {
     public void setSettingsFacade(SettingsFacade settingsFacade) {
         this.settingsFacade = settingsFacade;
     }
+
+    @Autowired
+    public void setCallbackQueue(CallbackQueue callbackQueue) {
+        this.callbackQueue = callbackQueue;
+    }
 }
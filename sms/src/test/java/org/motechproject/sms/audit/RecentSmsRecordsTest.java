@@ -0,0 +1,79 @@
+package org.motechproject.sms.audit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.motechproject.commons.date.util.DateUtil.now;
+import static org.motechproject.sms.audit.SmsDirection.OUTBOUND;
+
+public class RecentSmsRecordsTest {
+
+    private RecentSmsRecords recentSmsRecords;
+
+    @Before
+    public void setUp() {
+        recentSmsRecords = new RecentSmsRecords();
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldFindRecordByProviderId() {
+        SmsRecord smsRecord = record("motech-1", "provider-1");
+        recentSmsRecords.add(smsRecord);
+
+        assertEquals(smsRecord, recentSmsRecords.findByProviderId("config", "provider-1"));
+    }
+
+    @Test
+    public void shouldNotMatchOtherConfigsOrPartialIds() {
+        recentSmsRecords.add(record("motech-1", "provider-1"));
+
+        assertNull(recentSmsRecords.findByProviderId("other", "provider-1"));
+        assertNull(recentSmsRecords.findByProviderId("config", "provider"));
+        assertNull(recentSmsRecords.findByProviderId("config", "motech-1"));
+    }
+
+    @Test
+    public void shouldOnlyRememberRecordsOnceTheirTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        SmsRecord smsRecord = record("motech-1", "provider-1");
+        recentSmsRecords.add(smsRecord);
+
+        assertNull(recentSmsRecords.findByProviderId("config", "provider-1"));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+
+        assertEquals(smsRecord, recentSmsRecords.findByProviderId("config", "provider-1"));
+    }
+
+    @Test
+    public void shouldForgetRecordsOfRolledBackTransactions() {
+        TransactionSynchronizationManager.initSynchronization();
+        recentSmsRecords.add(record("motech-1", "provider-1"));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertNull(recentSmsRecords.findByProviderId("config", "provider-1"));
+    }
+
+    private SmsRecord record(String motechId, String providerId) {
+        return new SmsRecord("config", OUTBOUND, "48700123123", "hello", now(), "DISPATCHED", null, motechId,
+                providerId, null);
+    }
+}
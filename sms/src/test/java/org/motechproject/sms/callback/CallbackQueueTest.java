@@ -0,0 +1,232 @@
+package org.motechproject.sms.callback;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.motechproject.config.SettingsFacade;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.EventRelay;
+import org.motechproject.sms.audit.RecentSmsRecords;
+import org.motechproject.sms.audit.SmsRecord;
+import org.motechproject.sms.audit.SmsRecordsDataService;
+import org.springframework.transaction.support.TransactionCallback;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.motechproject.commons.date.util.DateUtil.now;
+import static org.motechproject.sms.audit.SmsDirection.INBOUND;
+
+public class CallbackQueueTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @Mock
+    private CallbackProcessor callbackProcessor;
+
+    @Mock
+    private SmsRecordsDataService smsRecordsDataService;
+
+    @Mock
+    private RecentSmsRecords recentSmsRecords;
+
+    @Mock
+    private EventRelay eventRelay;
+
+    @Mock
+    private SettingsFacade settingsFacade;
+
+    private CallbackQueue callbackQueue;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        when(settingsFacade.getProperty("sms.callbacks.async")).thenReturn("true");
+        when(settingsFacade.getProperty("sms.callbacks.batch_size")).thenReturn("10");
+        when(settingsFacade.getProperty("sms.callbacks.max_attempts")).thenReturn("3");
+        when(settingsFacade.getProperty("sms.callbacks.retry_delay_ms")).thenReturn("1");
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ProviderCallback callback = (ProviderCallback) invocation.getArguments()[0];
+                ((List<SmsRecord>) invocation.getArguments()[1]).add(new SmsRecord(callback.getConfigName(), INBOUND,
+                        "48700123123", "hello", now(), "RECEIVED", null, null, null, null));
+                ((List<MotechEvent>) invocation.getArguments()[2]).add(new MotechEvent("inbound_sms"));
+                return null;
+            }
+        }).when(callbackProcessor).process(any(ProviderCallback.class), anyList(), anyList());
+
+        callbackQueue = new CallbackQueue();
+        callbackQueue.setCallbackProcessor(callbackProcessor);
+        callbackQueue.setSmsRecordsDataService(smsRecordsDataService);
+        callbackQueue.setRecentSmsRecords(recentSmsRecords);
+        callbackQueue.setEventRelay(eventRelay);
+        callbackQueue.setSettingsFacade(settingsFacade);
+    }
+
+    @After
+    public void tearDown() {
+        callbackQueue.stop();
+    }
+
+    @Test
+    public void shouldProcessQueuedCallbacksInBatches() throws InterruptedException {
+        final CountDownLatch inTransaction = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(smsRecordsDataService.doInTransaction(any(TransactionCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws InterruptedException {
+                inTransaction.countDown();
+                release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                return runCallback(invocation);
+            }
+        });
+        callbackQueue.start();
+
+        assertTrue(callbackQueue.submit(callback()));
+        assertTrue(inTransaction.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        // the consumer is busy with the first batch, these end up in the second one
+        for (int i = 0; i < 5; i++) {
+            assertTrue(callbackQueue.submit(callback()));
+        }
+        release.countDown();
+
+        assertTrue(waitForProcessed(6));
+        verify(smsRecordsDataService, times(2)).doInTransaction(any(TransactionCallback.class));
+        verify(smsRecordsDataService, times(6)).create(any(SmsRecord.class));
+        verify(eventRelay, times(6)).sendEventMessage(any(MotechEvent.class));
+        assertEquals(6, callbackQueue.getAcceptedCount());
+        assertEquals(0, callbackQueue.getDroppedCount());
+    }
+
+    @Test
+    public void shouldRetryBatchWhichCouldNotBeSaved() throws InterruptedException {
+        final AtomicInteger attempts = new AtomicInteger();
+        when(smsRecordsDataService.doInTransaction(any(TransactionCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("Database is down");
+                }
+                return runCallback(invocation);
+            }
+        });
+        callbackQueue.start();
+
+        assertTrue(callbackQueue.submit(callback()));
+
+        assertTrue(waitForProcessed(1));
+        assertEquals(1, callbackQueue.getRetriedCount());
+        assertEquals(0, callbackQueue.getDroppedCount());
+        // the events of the failed attempt were not published
+        verify(eventRelay, times(1)).sendEventMessage(any(MotechEvent.class));
+    }
+
+    @Test
+    public void shouldCountDroppedCallbacksOnceAllAttemptsFailed() throws InterruptedException {
+        when(smsRecordsDataService.doInTransaction(any(TransactionCallback.class)))
+                .thenThrow(new IllegalStateException("Database is down"));
+        callbackQueue.start();
+
+        assertTrue(callbackQueue.submit(callback()));
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (callbackQueue.getDroppedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, callbackQueue.getDroppedCount());
+        assertEquals(2, callbackQueue.getRetriedCount());
+        assertEquals(0, callbackQueue.getProcessedCount());
+        verify(smsRecordsDataService, times(3)).doInTransaction(any(TransactionCallback.class));
+        verify(eventRelay, never()).sendEventMessage(any(MotechEvent.class));
+    }
+
+    @Test
+    public void shouldDrainQueueOnShutdown() throws InterruptedException {
+        final CountDownLatch inTransaction = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(smsRecordsDataService.doInTransaction(any(TransactionCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws InterruptedException {
+                inTransaction.countDown();
+                release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                return runCallback(invocation);
+            }
+        });
+        callbackQueue.start();
+
+        assertTrue(callbackQueue.submit(callback()));
+        assertTrue(inTransaction.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(callbackQueue.submit(callback()));
+        }
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                release.countDown();
+            }
+        }).start();
+        callbackQueue.stop();
+
+        assertEquals(4, callbackQueue.getProcessedCount());
+        assertEquals(0, callbackQueue.getQueueDepth());
+        verify(eventRelay, times(4)).sendEventMessage(any(MotechEvent.class));
+        assertFalse(callbackQueue.submit(callback()));
+        assertEquals(1, callbackQueue.getRejectedCount());
+    }
+
+    @Test
+    public void shouldProcessCallbacksRightAwayInSynchronousMode() {
+        when(settingsFacade.getProperty("sms.callbacks.async")).thenReturn("false");
+        callbackQueue.start();
+
+        assertTrue(callbackQueue.submit(callback()));
+
+        verify(smsRecordsDataService).create(any(SmsRecord.class));
+        verify(eventRelay).sendEventMessage(any(MotechEvent.class));
+        verify(smsRecordsDataService, never()).doInTransaction(any(TransactionCallback.class));
+    }
+
+    private Object runCallback(InvocationOnMock invocation) {
+        return ((TransactionCallback) invocation.getArguments()[0]).doInTransaction(null);
+    }
+
+    private boolean waitForProcessed(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (callbackQueue.getProcessedCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return callbackQueue.getProcessedCount() == expected;
+    }
+
+    private ProviderCallback callback() {
+        return new ProviderCallback(ProviderCallback.Type.INCOMING, "config",
+                Collections.singletonMap("message", "hello"), now());
+    }
+}
@@ -0,0 +1,182 @@
+package org.motechproject.sms.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.motechproject.config.SettingsFacade;
+import org.motechproject.sms.configs.Config;
+import org.motechproject.sms.service.ConfigService;
+import org.motechproject.sms.service.OutgoingSms;
+import org.motechproject.sms.service.TemplateService;
+import org.motechproject.sms.templates.Outgoing;
+import org.motechproject.sms.templates.Template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class SmsDispatcherTest {
+
+    private static final String CONFIG = "config";
+
+    @Mock
+    private SmsHttpService smsHttpService;
+
+    @Mock
+    private ConfigService configService;
+
+    @Mock
+    private TemplateService templateService;
+
+    @Mock
+    private SettingsFacade settingsFacade;
+
+    @Mock
+    private Template template;
+
+    @Mock
+    private Outgoing outgoing;
+
+    private SmsDispatcher smsDispatcher;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        Config config = new Config();
+        config.setName(CONFIG);
+        config.setTemplateName("template");
+        when(configService.getConfigOrDefault(anyString())).thenReturn(config);
+        when(templateService.getTemplate("template")).thenReturn(template);
+        when(template.getOutgoing()).thenReturn(outgoing);
+
+        smsDispatcher = new SmsDispatcher();
+        smsDispatcher.setSmsHttpService(smsHttpService);
+        smsDispatcher.setConfigService(configService);
+        smsDispatcher.setTemplateService(templateService);
+        smsDispatcher.setSettingsFacade(settingsFacade);
+    }
+
+    @After
+    public void tearDown() {
+        smsDispatcher.stop();
+    }
+
+    @Test
+    public void shouldSendMessagesInOrderAtTheRateOfTheTemplate() throws InterruptedException {
+        when(outgoing.getPermitsPerSecond()).thenReturn(20.0);
+        when(smsHttpService.send(any(OutgoingSms.class))).thenReturn(Collections.<OutgoingSms>emptyList());
+        smsDispatcher.start();
+
+        RecordingCallback callback = new RecordingCallback(5);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(smsDispatcher.dispatch(sms("message " + i), callback));
+        }
+
+        assertTrue(callback.await());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // the bucket starts with a single token, the other four messages wait 50ms each
+        assertTrue("Sent 5 messages in " + elapsed + "ms", elapsed >= 190);
+        assertEquals(asList("message 0", "message 1", "message 2", "message 3", "message 4"), callback.sent);
+    }
+
+    @Test
+    public void shouldRejectMessagesWhenTheQueueIsFull() throws InterruptedException {
+        when(settingsFacade.getProperty("sms.dispatch.queue_capacity")).thenReturn("1");
+        when(outgoing.getPermitsPerSecond()).thenReturn(0.0);
+
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(smsHttpService.send(any(OutgoingSms.class))).thenAnswer(new Answer<List<OutgoingSms>>() {
+            @Override
+            public List<OutgoingSms> answer(InvocationOnMock invocation) throws InterruptedException {
+                sending.countDown();
+                release.await();
+                return Collections.emptyList();
+            }
+        });
+        smsDispatcher.start();
+
+        RecordingCallback callback = new RecordingCallback(2);
+        assertTrue(smsDispatcher.dispatch(sms("first"), callback));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        // the worker is busy with the first message, the queue holds the second one
+        assertTrue(smsDispatcher.dispatch(sms("second"), callback));
+        assertFalse(smsDispatcher.dispatch(sms("third"), callback));
+        assertEquals(1, smsDispatcher.getQueueSize(CONFIG));
+
+        release.countDown();
+        assertTrue(callback.await());
+        assertEquals(asList("first", "second"), callback.sent);
+        assertEquals(0, smsDispatcher.getQueueSize(CONFIG));
+    }
+
+    @Test
+    public void shouldKeepSendingAfterAFailure() throws InterruptedException {
+        when(outgoing.getPermitsPerSecond()).thenReturn(0.0);
+        when(smsHttpService.send(any(OutgoingSms.class)))
+                .thenThrow(new IllegalStateException("Provider down"))
+                .thenReturn(Collections.<OutgoingSms>emptyList());
+        smsDispatcher.start();
+
+        RecordingCallback callback = new RecordingCallback(2);
+        assertTrue(smsDispatcher.dispatch(sms("first"), callback));
+        assertTrue(smsDispatcher.dispatch(sms("second"), callback));
+
+        assertTrue(callback.await());
+        assertEquals(asList("first"), callback.failed);
+        assertEquals(asList("second"), callback.sent);
+    }
+
+    private OutgoingSms sms(String message) {
+        return new OutgoingSms(CONFIG, "48700123123", message);
+    }
+
+    private static class RecordingCallback implements SendCallback {
+
+        private final List<String> sent = Collections.synchronizedList(new ArrayList<String>());
+        private final List<String> failed = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch done;
+
+        RecordingCallback(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void started(OutgoingSms sms) {
+        }
+
+        @Override
+        public void sent(OutgoingSms sms, List<OutgoingSms> retries) {
+            sent.add(sms.getMessage());
+            done.countDown();
+        }
+
+        @Override
+        public void failed(OutgoingSms sms, RuntimeException e) {
+            failed.add(sms.getMessage());
+            done.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.motechproject.sms.http;
+
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.motechproject.config.SettingsFacade;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.sms.configs.Config;
+import org.motechproject.sms.event.constants.EventSubjects;
+import org.motechproject.sms.service.ConfigService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class SmsHttpClientsTest {
+
+    @Mock
+    private SettingsFacade settingsFacade;
+
+    @Mock
+    private ConfigService configService;
+
+    private SmsHttpClients smsHttpClients;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        smsHttpClients = new SmsHttpClients();
+        smsHttpClients.setSettingsFacade(settingsFacade);
+        smsHttpClients.setConfigService(configService);
+        smsHttpClients.start();
+    }
+
+    @After
+    public void tearDown() {
+        smsHttpClients.stop();
+    }
+
+    @Test
+    public void shouldReuseClientWhileSettingsDoNotChange() {
+        Config config = config("config", 5);
+
+        assertSame(smsHttpClients.getClient(config), smsHttpClients.getClient(config));
+        assertEquals(0, smsHttpClients.getRetiredCount());
+    }
+
+    @Test
+    public void shouldShutDownReplacedClientOnceItsRequestsFinish() {
+        Config config = config("config", 5);
+        HttpClient oldClient = smsHttpClients.getClient(config);
+        HttpConnection inFlight = connectionOf(oldClient);
+
+        config.setMaxConnections(10);
+        HttpClient newClient = smsHttpClients.getClient(config);
+        assertNotSame(oldClient, newClient);
+        assertEquals(1, smsHttpClients.getRetiredCount());
+
+        // a request is still running on the old client
+        smsHttpClients.reapRetired();
+        assertEquals(1, smsHttpClients.getRetiredCount());
+
+        inFlight.releaseConnection();
+        smsHttpClients.reapRetired();
+        assertEquals(0, smsHttpClients.getRetiredCount());
+        assertShutDown(oldClient);
+
+        // the new client is unaffected
+        connectionOf(newClient).releaseConnection();
+    }
+
+    @Test
+    public void shouldRetireClientsOfDeletedConfigs() {
+        Config kept = config("kept", 5);
+        Config deleted = config("deleted", 5);
+        HttpClient keptClient = smsHttpClients.getClient(kept);
+        HttpClient deletedClient = smsHttpClients.getClient(deleted);
+        when(configService.hasConfig("kept")).thenReturn(true);
+        when(configService.hasConfig("deleted")).thenReturn(false);
+
+        smsHttpClients.configsChanged(new MotechEvent(EventSubjects.CONFIGS_CHANGED));
+        smsHttpClients.reapRetired();
+
+        assertEquals(0, smsHttpClients.getRetiredCount());
+        assertShutDown(deletedClient);
+        assertSame(keptClient, smsHttpClients.getClient(kept));
+        assertNotSame(deletedClient, smsHttpClients.getClient(deleted));
+    }
+
+    private HttpConnection connectionOf(HttpClient client) {
+        HostConfiguration hostConfiguration = new HostConfiguration();
+        hostConfiguration.setHost("localhost", 80);
+        // acquiring a connection does not open it, so no server is needed
+        return client.getHttpConnectionManager().getConnection(hostConfiguration);
+    }
+
+    private void assertShutDown(HttpClient client) {
+        HttpConnectionManager connectionManager = client.getHttpConnectionManager();
+        try {
+            connectionOf(client);
+            fail("Expected the connection manager to be shut down: " + connectionManager);
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private Config config(String name, int maxConnections) {
+        Config config = new Config();
+        config.setName(name);
+        config.setMaxConnections(maxConnections);
+        config.setConnectTimeout(1000);
+        config.setReadTimeout(1000);
+        return config;
+    }
+}
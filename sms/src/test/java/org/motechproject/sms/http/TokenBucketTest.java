@@ -0,0 +1,37 @@
+package org.motechproject.sms.http;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void shouldAllowBurstThenLimitRate() {
+        TokenBucket bucket = new TokenBucket(2, 2);
+        long now = System.nanoTime();
+
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+
+        long wait = bucket.tryAcquire(now);
+        assertTrue(wait > 0 && wait <= SECOND / 2);
+
+        assertEquals(0, bucket.tryAcquire(now + wait));
+    }
+
+    @Test
+    public void shouldNotLimitWhenRateIsNotSet() {
+        TokenBucket bucket = new TokenBucket(0, 1);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, bucket.tryAcquire(now));
+        }
+    }
+}
@@ -12,11 +12,14 @@ import org.ops4j.pax.exam.ExamFactory;
 import org.ops4j.pax.exam.junit.PaxExam;
 import org.ops4j.pax.exam.spi.reactors.ExamReactorStrategy;
 import org.ops4j.pax.exam.spi.reactors.PerSuite;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 
 import javax.inject.Inject;
 import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
 
 /**
  * Verify SmsAuditService present & functional.
@@ -57,4 +60,27 @@ public class SmsAuditServiceBundleIT extends BasePaxIT{
         assertEquals(1, smsRecords.size());
         assertEquals(smsRecords.get(0), smsRecord);
     }
+
+    @Test
+    public void verifyRecordsCreatedInTransactionHaveAuditFields() {
+        getLogger().info("verifyRecordsCreatedInTransactionHaveAuditFields");
+
+        // the way SmsService writes the audit records of a broadcast batch
+        smsRecordsDataService.doInTransaction(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                for (int i = 0; i < 3; i++) {
+                    smsRecordsDataService.create(new SmsRecord("config", SmsDirection.OUTBOUND, "recipient" + i,
+                            "message", DateTime.now(), "PENDING", null, "mid", null, null));
+                }
+            }
+        });
+
+        List<SmsRecord> smsRecords = smsAuditService.findAllSmsRecords();
+        assertEquals(3, smsRecords.size());
+        for (SmsRecord smsRecord : smsRecords) {
+            assertNotNull(smsRecordsDataService.getDetachedField(smsRecord, "creationDate"));
+            assertNotNull(smsRecordsDataService.getDetachedField(smsRecord, "modificationDate"));
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package org.motechproject.sms.outbox;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RetryBackoffTest {
+
+    private static final double ALMOST_ONE = 1 - 1e-9;
+
+    @Test
+    public void shouldDoubleDelayUpToMaximum() {
+        RetryBackoff backoff = new RetryBackoff(1000, 10000, true);
+
+        assertEquals(1000, backoff.delayMillis(1, ALMOST_ONE));
+        assertEquals(2000, backoff.delayMillis(2, ALMOST_ONE));
+        assertEquals(4000, backoff.delayMillis(3, ALMOST_ONE));
+        assertEquals(8000, backoff.delayMillis(4, ALMOST_ONE));
+        assertEquals(10000, backoff.delayMillis(5, ALMOST_ONE));
+        assertEquals(10000, backoff.delayMillis(100, ALMOST_ONE));
+    }
+
+    @Test
+    public void shouldKeepDelayConstantWithoutExponentialBackoff() {
+        RetryBackoff backoff = new RetryBackoff(1000, 10000, false);
+
+        assertEquals(1000, backoff.delayMillis(1, ALMOST_ONE));
+        assertEquals(1000, backoff.delayMillis(10, ALMOST_ONE));
+    }
+
+    @Test
+    public void shouldRandomizeHalfOfTheDelay() {
+        RetryBackoff backoff = new RetryBackoff(1000, 10000, true);
+
+        assertEquals(2000, backoff.delayMillis(3, 0));
+        assertEquals(3000, backoff.delayMillis(3, 0.5));
+    }
+}
@@ -0,0 +1,444 @@
+package org.motechproject.sms.outbox;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.motechproject.commons.api.Range;
+import org.motechproject.config.SettingsFacade;
+import org.motechproject.mds.query.QueryParams;
+import org.motechproject.sms.configs.Config;
+import org.motechproject.sms.configs.Configs;
+import org.motechproject.sms.http.SendCallback;
+import org.motechproject.sms.http.SmsDispatcher;
+import org.motechproject.sms.service.ConfigService;
+import org.motechproject.sms.service.OutgoingSms;
+import org.motechproject.sms.service.TemplateService;
+import org.motechproject.sms.templates.Outgoing;
+import org.motechproject.sms.templates.Template;
+import org.springframework.transaction.support.TransactionCallback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.motechproject.commons.date.util.DateUtil.now;
+
+public class SmsOutboxTest {
+
+    private static final String CONFIG = "config";
+    private static final int LEASE_TIMEOUT = 60000;
+
+    @Mock
+    private OutboxMessageDataService outboxMessageDataService;
+
+    @Mock
+    private SmsDispatcher smsDispatcher;
+
+    @Mock
+    private ConfigService configService;
+
+    @Mock
+    private TemplateService templateService;
+
+    @Mock
+    private SettingsFacade settingsFacade;
+
+    @Mock
+    private Configs configs;
+
+    @Mock
+    private Template template;
+
+    @Mock
+    private Outgoing outgoing;
+
+    private final List<OutboxMessage> store = new ArrayList<>();
+    private final List<Dispatched> dispatched = Collections.synchronizedList(new ArrayList<Dispatched>());
+    private boolean dispatcherFull;
+    private Config config;
+    private SmsOutbox smsOutbox;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        initMocks(this);
+
+        config = new Config();
+        config.setName(CONFIG);
+        config.setTemplateName("template");
+        config.setMaxRetries(3);
+        when(configService.getConfigs()).thenReturn(configs);
+        when(configs.getConfigs()).thenReturn(Collections.singletonList(config));
+        when(configService.getConfigOrDefault(anyString())).thenReturn(config);
+        when(templateService.getTemplate("template")).thenReturn(template);
+        when(template.getOutgoing()).thenReturn(outgoing);
+        when(outgoing.getExponentialBackOffRetries()).thenReturn(false);
+
+        // polls are triggered by the tests
+        when(settingsFacade.getProperty("sms.outbox.poll_interval_ms")).thenReturn("3600000");
+        when(settingsFacade.getProperty("sms.outbox.batch_size")).thenReturn("10");
+        when(settingsFacade.getProperty("sms.outbox.max_in_flight_per_config")).thenReturn("2");
+        when(settingsFacade.getProperty("sms.outbox.lease_timeout_ms")).thenReturn(String.valueOf(LEASE_TIMEOUT));
+
+        when(smsDispatcher.dispatch(any(OutgoingSms.class), any(SendCallback.class))).thenAnswer(
+                new Answer<Boolean>() {
+                    @Override
+                    public Boolean answer(InvocationOnMock invocation) {
+                        if (dispatcherFull) {
+                            return false;
+                        }
+                        dispatched.add(new Dispatched((OutgoingSms) invocation.getArguments()[0],
+                                (SendCallback) invocation.getArguments()[1]));
+                        return true;
+                    }
+                });
+
+        CountDownLatch recovered = stubDataService();
+
+        smsOutbox = new SmsOutbox();
+        smsOutbox.setOutboxMessageDataService(outboxMessageDataService);
+        smsOutbox.setSmsDispatcher(smsDispatcher);
+        smsOutbox.setConfigService(configService);
+        smsOutbox.setTemplateService(templateService);
+        smsOutbox.setSettingsFacade(settingsFacade);
+        smsOutbox.start();
+
+        // the outbox recovers claimed messages on start, don't let that interfere with the tests
+        assertTrue(recovered.await(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        smsOutbox.stop();
+    }
+
+    @Test
+    public void shouldClaimDueMessagesAndDeleteThemOnceSent() {
+        OutboxMessage first = save(OutboxState.PENDING, now().minusMinutes(1), "first");
+        OutboxMessage second = save(OutboxState.PENDING, now(), "second");
+        OutboxMessage later = save(OutboxState.PENDING, now().plusHours(1), "later");
+
+        smsOutbox.poll();
+
+        assertEquals(asList("first", "second"), dispatchedMessages());
+        assertEquals(2, smsOutbox.getInFlight(CONFIG));
+        assertEquals(OutboxState.SENDING, first.getState());
+        assertEquals(OutboxState.SENDING, second.getState());
+        // claimed messages are leased
+        assertTrue(first.getNextAttempt().isAfter(now().plusMillis(LEASE_TIMEOUT / 2)));
+        assertEquals(OutboxState.PENDING, later.getState());
+
+        dispatched.get(0).sent();
+        dispatched.get(1).sent();
+
+        assertEquals(0, smsOutbox.getInFlight(CONFIG));
+        assertEquals(Collections.singletonList(later), stored());
+    }
+
+    @Test
+    public void shouldPutFailedMessagesBackWithBackoff() {
+        save(OutboxState.PENDING, now(), "message");
+
+        smsOutbox.poll();
+        dispatched.get(0).failed();
+
+        List<OutboxMessage> messages = stored();
+        assertEquals(1, messages.size());
+        assertEquals(OutboxState.PENDING, messages.get(0).getState());
+        assertEquals(Integer.valueOf(1), messages.get(0).getAttempts());
+        assertTrue(messages.get(0).getNextAttempt().isAfter(now()));
+        assertEquals(0, smsOutbox.getInFlight(CONFIG));
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxRetries() {
+        config.setMaxRetries(1);
+        save(OutboxState.PENDING, now(), "message");
+
+        smsOutbox.poll();
+        dispatched.get(0).failed();
+
+        assertTrue(stored().isEmpty());
+    }
+
+    @Test
+    public void shouldRecoverMessagesWhoseLeaseExpiredOnEveryPoll() {
+        OutboxMessage expired = save(OutboxState.SENDING, now().minusSeconds(1), "expired");
+        OutboxMessage leased = save(OutboxState.SENDING, now().plusMinutes(1), "leased");
+
+        smsOutbox.poll();
+
+        assertEquals(Collections.singletonList("expired"), dispatchedMessages());
+        assertEquals(OutboxState.SENDING, expired.getState());
+        assertTrue(expired.getNextAttempt().isAfter(now()));
+        assertEquals(OutboxState.SENDING, leased.getState());
+    }
+
+    @Test
+    public void shouldRenewTheLeaseOfMessagesWaitingInTheSendQueue() {
+        OutboxMessage message = save(OutboxState.PENDING, now(), "message");
+        smsOutbox.poll();
+
+        try {
+            // a slowly paced provider keeps the message queued for longer than the lease
+            DateTimeUtils.setCurrentMillisOffset(2L * LEASE_TIMEOUT);
+            smsOutbox.poll();
+
+            assertEquals(Collections.singletonList("message"), dispatchedMessages());
+            assertEquals(OutboxState.SENDING, message.getState());
+            assertTrue(message.getNextAttempt().isAfter(now()));
+            assertEquals(1, smsOutbox.getInFlight(CONFIG));
+
+            // the renewed lease ran out as well, but the lease runs from the start of the send
+            DateTimeUtils.setCurrentMillisOffset(3L * LEASE_TIMEOUT);
+            dispatched.get(0).started();
+            DateTimeUtils.setCurrentMillisOffset(3L * LEASE_TIMEOUT + LEASE_TIMEOUT / 2);
+            smsOutbox.poll();
+
+            assertEquals(Collections.singletonList("message"), dispatchedMessages());
+            assertTrue(message.getNextAttempt().isAfter(now()));
+
+            dispatched.get(0).sent();
+            assertEquals(0, smsOutbox.getInFlight(CONFIG));
+            assertTrue(stored().isEmpty());
+        } finally {
+            DateTimeUtils.setCurrentMillisSystem();
+        }
+    }
+
+    @Test
+    public void shouldRecoverMessageWhoseSendTookLongerThanTheLease() {
+        save(OutboxState.PENDING, now(), "message");
+        smsOutbox.poll();
+        dispatched.get(0).started();
+
+        try {
+            DateTimeUtils.setCurrentMillisOffset(2L * LEASE_TIMEOUT);
+            smsOutbox.poll();
+
+            assertEquals(asList("message", "message"), dispatchedMessages());
+            assertEquals(1, smsOutbox.getInFlight(CONFIG));
+
+            // the late completion of the first send does not count the message twice
+            dispatched.get(0).sent();
+            assertEquals(1, smsOutbox.getInFlight(CONFIG));
+
+            dispatched.get(1).sent();
+            assertEquals(0, smsOutbox.getInFlight(CONFIG));
+        } finally {
+            DateTimeUtils.setCurrentMillisSystem();
+        }
+    }
+
+    @Test
+    public void shouldRecoverAllClaimedMessagesOnStart() {
+        OutboxMessage expired = save(OutboxState.SENDING, now().minusSeconds(1), "expired");
+        OutboxMessage leased = save(OutboxState.SENDING, now().plusMinutes(1), "leased");
+
+        smsOutbox.recover(false);
+
+        assertEquals(OutboxState.PENDING, expired.getState());
+        assertEquals(OutboxState.PENDING, leased.getState());
+        assertFalse(leased.getNextAttempt().isAfter(now()));
+    }
+
+    @Test
+    public void shouldNotClaimMoreThanTheInFlightLimit() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            save(OutboxState.PENDING, now().minusMinutes(1).plusSeconds(i), "message " + i);
+        }
+
+        smsOutbox.poll();
+        smsOutbox.poll();
+
+        assertEquals(asList("message 0", "message 1"), dispatchedMessages());
+        assertEquals(2, smsOutbox.getInFlight(CONFIG));
+
+        // completing a message at the limit polls for more right away
+        dispatched.get(0).sent();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatched.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(asList("message 0", "message 1", "message 2"), dispatchedMessages());
+        assertEquals(2, smsOutbox.getInFlight(CONFIG));
+    }
+
+    @Test
+    public void shouldReleaseMessagesTheDispatcherRejected() {
+        OutboxMessage message = save(OutboxState.PENDING, now(), "message");
+        dispatcherFull = true;
+
+        smsOutbox.poll();
+
+        assertEquals(OutboxState.PENDING, message.getState());
+        assertEquals(0, smsOutbox.getInFlight(CONFIG));
+    }
+
+    private OutboxMessage save(OutboxState state, DateTime nextAttempt, String text) {
+        OutboxMessage message = new OutboxMessage(CONFIG, new OutgoingSms(CONFIG, "48700123123", text), nextAttempt);
+        message.setState(state);
+        outboxMessageDataService.create(message);
+        return message;
+    }
+
+    private List<OutboxMessage> stored() {
+        synchronized (store) {
+            return new ArrayList<>(store);
+        }
+    }
+
+    private List<String> dispatchedMessages() {
+        List<String> messages = new ArrayList<>();
+        synchronized (dispatched) {
+            for (Dispatched sms : dispatched) {
+                messages.add(sms.sms.getMessage());
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Backs the data service with an in-memory list, transactions are serialized on it.
+     * @return a latch released once the outbox looked for messages to recover on start
+     */
+    private CountDownLatch stubDataService() {
+        final CountDownLatch recovered = new CountDownLatch(1);
+
+        when(outboxMessageDataService.doInTransaction(any(TransactionCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                synchronized (store) {
+                    return ((TransactionCallback) invocation.getArguments()[0]).doInTransaction(null);
+                }
+            }
+        });
+        when(outboxMessageDataService.create(any(OutboxMessage.class))).thenAnswer(new Answer<OutboxMessage>() {
+            private long nextId = 1;
+
+            @Override
+            public OutboxMessage answer(InvocationOnMock invocation) {
+                OutboxMessage message = (OutboxMessage) invocation.getArguments()[0];
+                synchronized (store) {
+                    message.setId(nextId++);
+                    store.add(message);
+                }
+                return message;
+            }
+        });
+        when(outboxMessageDataService.update(any(OutboxMessage.class))).thenAnswer(new Answer<OutboxMessage>() {
+            @Override
+            public OutboxMessage answer(InvocationOnMock invocation) {
+                return (OutboxMessage) invocation.getArguments()[0];
+            }
+        });
+        when(outboxMessageDataService.findById(anyLong())).thenAnswer(new Answer<OutboxMessage>() {
+            @Override
+            public OutboxMessage answer(InvocationOnMock invocation) {
+                synchronized (store) {
+                    for (OutboxMessage message : store) {
+                        if (message.getId().equals(invocation.getArguments()[0])) {
+                            return message;
+                        }
+                    }
+                }
+                return null;
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                synchronized (store) {
+                    store.remove(invocation.getArguments()[0]);
+                }
+                return null;
+            }
+        }).when(outboxMessageDataService).delete(any(OutboxMessage.class));
+        when(outboxMessageDataService.findByConfigStateAndNextAttempt(anyString(), any(OutboxState.class),
+                any(Range.class), any(QueryParams.class))).thenAnswer(new Answer<List<OutboxMessage>>() {
+                    @Override
+                    public List<OutboxMessage> answer(InvocationOnMock invocation) {
+                        Object[] args = invocation.getArguments();
+                        return find((String) args[0], (OutboxState) args[1], (Range<DateTime>) args[2],
+                                (QueryParams) args[3]);
+                    }
+                });
+        when(outboxMessageDataService.findByStateAndNextAttempt(any(OutboxState.class), any(Range.class),
+                any(QueryParams.class))).thenAnswer(new Answer<List<OutboxMessage>>() {
+                    @Override
+                    public List<OutboxMessage> answer(InvocationOnMock invocation) {
+                        Object[] args = invocation.getArguments();
+                        return find(null, (OutboxState) args[0], (Range<DateTime>) args[1], (QueryParams) args[2]);
+                    }
+                });
+        when(outboxMessageDataService.findByState(any(OutboxState.class), any(QueryParams.class))).thenAnswer(
+                new Answer<List<OutboxMessage>>() {
+                    @Override
+                    public List<OutboxMessage> answer(InvocationOnMock invocation) {
+                        Object[] args = invocation.getArguments();
+                        List<OutboxMessage> found = find(null, (OutboxState) args[0], null, (QueryParams) args[1]);
+                        recovered.countDown();
+                        return found;
+                    }
+                });
+
+        return recovered;
+    }
+
+    private List<OutboxMessage> find(String configName, OutboxState state, Range<DateTime> nextAttempt,
+                                     QueryParams queryParams) {
+        List<OutboxMessage> found = new ArrayList<>();
+        synchronized (store) {
+            for (OutboxMessage message : store) {
+                if (found.size() == queryParams.getPageSize()) {
+                    break;
+                }
+                if ((configName == null || configName.equals(message.getConfig())) && state == message.getState() &&
+                        (nextAttempt == null || !message.getNextAttempt().isAfter(nextAttempt.getMax()))) {
+                    found.add(message);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static final class Dispatched {
+
+        private final OutgoingSms sms;
+        private final SendCallback callback;
+
+        private Dispatched(OutgoingSms sms, SendCallback callback) {
+            this.sms = sms;
+            this.callback = callback;
+        }
+
+        private void started() {
+            callback.started(sms);
+        }
+
+        private void sent() {
+            callback.sent(sms, Collections.<OutgoingSms>emptyList());
+        }
+
+        private void failed() {
+            callback.failed(sms, new IllegalStateException("Provider down"));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package org.motechproject.sms.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.motechproject.event.MotechEvent;
+import org.motechproject.event.listener.EventRelay;
+import org.motechproject.scheduler.service.MotechSchedulerService;
+import org.motechproject.sms.audit.RecentSmsRecords;
+import org.motechproject.sms.audit.SmsRecord;
+import org.motechproject.sms.audit.SmsRecordsDataService;
+import org.motechproject.sms.configs.Config;
+import org.motechproject.sms.templates.Outgoing;
+import org.motechproject.sms.templates.Template;
+import org.motechproject.sms.util.SmsEventParams;
+import org.motechproject.sms.util.SmsEventSubjects;
+import org.springframework.transaction.support.TransactionCallback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class SmsServiceImplTest {
+
+    private static final String CONFIG = "config";
+
+    @Mock
+    private EventRelay eventRelay;
+
+    @Mock
+    private MotechSchedulerService schedulerService;
+
+    @Mock
+    private TemplateService templateService;
+
+    @Mock
+    private ConfigService configService;
+
+    @Mock
+    private SmsRecordsDataService smsRecordsDataService;
+
+    @Mock
+    private RecentSmsRecords recentSmsRecords;
+
+    @Mock
+    private Template template;
+
+    @Mock
+    private Outgoing outgoing;
+
+    private SmsServiceImpl smsService;
+    private final List<Integer> createdPerTransaction = new ArrayList<>();
+    private boolean inTransaction;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        Config config = new Config();
+        config.setName(CONFIG);
+        config.setTemplateName("template");
+        config.setSplitHeader("");
+        config.setSplitFooter("");
+        config.setExcludeLastFooter(true);
+        when(configService.hasConfigs()).thenReturn(true);
+        when(configService.getConfigOrDefault(anyString())).thenReturn(config);
+        when(templateService.getTemplate("template")).thenReturn(template);
+        when(template.getOutgoing()).thenReturn(outgoing);
+        when(outgoing.getMaxSmsSize()).thenReturn(160);
+
+        when(smsRecordsDataService.doInTransaction(any(TransactionCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                inTransaction = true;
+                createdPerTransaction.add(0);
+                try {
+                    return ((TransactionCallback) invocation.getArguments()[0]).doInTransaction(null);
+                } finally {
+                    inTransaction = false;
+                }
+            }
+        });
+        when(smsRecordsDataService.create(any(SmsRecord.class))).thenAnswer(new Answer<SmsRecord>() {
+            @Override
+            public SmsRecord answer(InvocationOnMock invocation) {
+                // the records go through the data service, which fills in their audit fields
+                assertTrue(inTransaction);
+                int last = createdPerTransaction.size() - 1;
+                createdPerTransaction.set(last, createdPerTransaction.get(last) + 1);
+                return (SmsRecord) invocation.getArguments()[0];
+            }
+        });
+
+        smsService = new SmsServiceImpl(eventRelay, schedulerService, templateService, configService,
+                smsRecordsDataService, recentSmsRecords);
+    }
+
+    @Test
+    public void shouldAlignBroadcastBatchesWithProviderChunks() {
+        when(outgoing.getMaxRecipient()).thenReturn(3);
+
+        Iterator<String> recipients = recipients(1000).iterator();
+        assertEquals(1000, smsService.broadcast(new OutgoingSms(CONFIG, "unused", "hello"), recipients));
+        assertFalse(recipients.hasNext());
+
+        // 498 is the largest multiple of 3 up to 500, so no chunk is split between two batches
+        verify(smsRecordsDataService, times(3)).doInTransaction(any(TransactionCallback.class));
+        assertEquals(asList(498, 498, 4), createdPerTransaction);
+
+        List<MotechEvent> events = sentEvents(334);
+        for (int i = 0; i < events.size() - 1; i++) {
+            assertEquals(SmsEventSubjects.PENDING, events.get(i).getSubject());
+            assertEquals(3, recipientsOf(events.get(i)).size());
+        }
+        assertEquals(1, recipientsOf(events.get(events.size() - 1)).size());
+    }
+
+    @Test
+    public void shouldSendEveryRecipientOnceWithOneEventPerChunkAndPart() {
+        when(outgoing.getMaxRecipient()).thenReturn(2);
+        when(outgoing.getMaxSmsSize()).thenReturn(10);
+
+        // 15 characters, sent in two parts of at most 10
+        long count = smsService.broadcast(new OutgoingSms(CONFIG, "unused", "123456789012345"),
+                recipients(5).iterator());
+
+        assertEquals(5, count);
+        List<MotechEvent> events = sentEvents(6);
+        Set<String> messages = new HashSet<>();
+        List<String> sentTo = new ArrayList<>();
+        for (MotechEvent event : events) {
+            messages.add((String) event.getParameters().get(SmsEventParams.MESSAGE));
+            sentTo.addAll(recipientsOf(event));
+        }
+        assertEquals(2, messages.size());
+        assertEquals(10, sentTo.size());
+        assertEquals(new HashSet<>(recipients(5)), new HashSet<>(sentTo));
+
+        assertEquals(Collections.singletonList(10), createdPerTransaction);
+    }
+
+    @Test
+    public void shouldNotOpenTransactionsForAnEmptyBroadcast() {
+        when(outgoing.getMaxRecipient()).thenReturn(1);
+
+        assertEquals(0, smsService.broadcast(new OutgoingSms(CONFIG, "unused", "hello"),
+                Collections.<String>emptyList().iterator()));
+
+        verify(smsRecordsDataService, never()).doInTransaction(any(TransactionCallback.class));
+        verify(eventRelay, never()).sendEventMessage(any(MotechEvent.class));
+    }
+
+    private List<MotechEvent> sentEvents(int expected) {
+        ArgumentCaptor<MotechEvent> captor = ArgumentCaptor.forClass(MotechEvent.class);
+        verify(eventRelay, times(expected)).sendEventMessage(captor.capture());
+        assertTrue(captor.getAllValues().size() == expected);
+        return captor.getAllValues();
+    }
+
+    private List<String> recipientsOf(MotechEvent event) {
+        return (List<String>) event.getParameters().get(SmsEventParams.RECIPIENTS);
+    }
+
+    private List<String> recipients(int count) {
+        List<String> recipients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            recipients.add(String.format("48700%06d", i));
+        }
+        return recipients;
+    }
+}
@@ -0,0 +1,66 @@
+package org.motechproject.sms.templates;
+
+import com.google.gson.Gson;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompiledRequestTest {
+
+    @Test
+    public void shouldRenderTheSameGetRequestAsTheTemplate() throws Exception {
+        Template template = template("{\"type\":\"GET\",\"urlPath\":\"https://url/[account]/send\"," +
+                "\"queryParameters\":{\"to\":\"[recipients]\",\"text\":\"[message]\",\"key\":\"[api_key]\"}}");
+
+        Map<String, String> configProps = new HashMap<>();
+        configProps.put("api_key", "key$1");
+        configProps.put("account", "acc");
+
+        Map<String, String> props = new HashMap<>();
+        props.put("recipients", "48700123123");
+        props.put("message", "hello");
+
+        Map<String, String> allProps = new HashMap<>(props);
+        allProps.putAll(configProps);
+
+        HttpMethod compiled = new CompiledRequest(template, configProps).render(props);
+
+        assertEquals("https://url/acc/send", compiled.getURI().toString());
+        assertEquals(template.generateRequestFor(allProps).getURI().toString(), compiled.getURI().toString());
+        assertEquals("to=48700123123&text=hello&key=key%241", compiled.getQueryString());
+    }
+
+    @Test
+    public void shouldRenderJsonPostRequest() throws Exception {
+        Template template = template("{\"type\":\"POST\",\"urlPath\":\"https://url\",\"jsonContentType\":\"true\"," +
+                "\"bodyParameters\":{\"callback\":\"[callback]\",\"subscribers\":\"[subscribers]\"," +
+                "\"static\":\"{\\\"a\\\":1}\"}}");
+
+        Map<String, String> props = new HashMap<>();
+        props.put("callback", "http://:someUrl");
+        props.put("subscribers", "[{\"phone\":\"48700123123\"}]");
+
+        PostMethod method = (PostMethod) new CompiledRequest(template, new HashMap<String, String>()).render(props);
+
+        assertEquals("{\"callback\":\"http://:someUrl\",\"subscribers\":[{\"phone\":\"48700123123\"}],\"static\":{\"a\":1}}",
+                ((StringRequestEntity) method.getRequestEntity()).getContent());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailForMissingParameterValue() {
+        Template template = template("{\"type\":\"POST\",\"urlPath\":\"https://url\"," +
+                "\"bodyParameters\":{\"text\":\"[message]\"}}");
+
+        new CompiledRequest(template, new HashMap<String, String>()).render(new HashMap<String, String>());
+    }
+
+    private Template template(String request) {
+        return new Gson().fromJson("{\"name\":\"test\",\"outgoing\":{\"request\":" + request + "}}", Template.class);
+    }
+}
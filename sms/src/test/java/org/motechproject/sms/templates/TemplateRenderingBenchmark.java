@@ -0,0 +1,99 @@
+package org.motechproject.sms.templates;
+
+import com.google.gson.Gson;
+import org.apache.commons.httpclient.HttpMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of generating provider requests through {@link Template#generateRequestFor(Map)}, which
+ * replaces tokens with regular expressions on every call, with the precompiled {@link CompiledRequest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderingBenchmark {
+
+    private static final String GET_REQUEST = "{\"type\":\"GET\",\"urlPath\":\"https://api.example.com/[account]/send\"," +
+            "\"queryParameters\":{\"user\":\"[username]\",\"pass\":\"[password]\",\"to\":\"[recipients]\"," +
+            "\"text\":\"[message]\",\"id\":\"[motechId]\",\"callback\":\"[callback]\"}}";
+    private static final String FORM_POST_REQUEST = "{\"type\":\"POST\",\"urlPath\":\"https://api.example.com/[account]/send\"," +
+            "\"bodyParameters\":{\"user\":\"[username]\",\"pass\":\"[password]\",\"to\":\"[recipients]\"," +
+            "\"text\":\"[message]\",\"id\":\"[motechId]\",\"callback\":\"[callback]\"}}";
+    private static final String JSON_POST_REQUEST = "{\"type\":\"POST\",\"urlPath\":\"https://api.example.com/[account]/send\"," +
+            "\"jsonContentType\":\"true\",\"bodyParameters\":{\"api_key\":\"[username]\",\"to\":\"[recipients]\"," +
+            "\"text\":\"[message]\",\"id\":\"[motechId]\",\"callback\":\"[callback]\",\"flags\":\"{\\\"priority\\\":1}\"}}";
+
+    @Param({ "GET", "FORM_POST", "JSON_POST" })
+    private String requestType;
+
+    private Template template;
+    private Map<String, String> configProps;
+    private Map<String, String> messageProps;
+    private CompiledRequest compiledRequest;
+
+    @Setup
+    public void setUp() {
+        String request;
+        if ("GET".equals(requestType)) {
+            request = GET_REQUEST;
+        } else if ("FORM_POST".equals(requestType)) {
+            request = FORM_POST_REQUEST;
+        } else {
+            request = JSON_POST_REQUEST;
+        }
+
+        template = new Gson().fromJson("{\"name\":\"benchmark\",\"outgoing\":{\"request\":" + request + "}}",
+                Template.class);
+
+        configProps = new HashMap<>();
+        configProps.put("account", "AC1234567890");
+        configProps.put("username", "motech");
+        configProps.put("password", "secret");
+
+        messageProps = new HashMap<>();
+        messageProps.put("recipients", "48700123123");
+        messageProps.put("message", "Please remember to take your medication today at 8 PM.");
+        messageProps.put("motechId", "6f1c2b0e93a84a7f9d3b4b7c1e2d0a55");
+        messageProps.put("callback", "http://localhost:8080/motech-platform-server/module/sms/status/benchmark");
+
+        compiledRequest = new CompiledRequest(template, configProps);
+    }
+
+    @Benchmark
+    public HttpMethod regexRendering() {
+        // the old path also had to merge the config props into the props of every message
+        Map<String, String> props = new HashMap<>(messageProps);
+        props.putAll(configProps);
+        // a fresh props map every time, like for every real message, so the url path cache in Request never hits
+        return template.generateRequestFor(props);
+    }
+
+    @Benchmark
+    public HttpMethod compiledRendering() {
+        return compiledRequest.render(messageProps);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TemplateRenderingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,40 @@
+package org.motechproject.sms.web;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.motechproject.sms.callback.CallbackQueue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class SettingsControllerTest {
+
+    @Mock
+    private CallbackQueue callbackQueue;
+
+    private SettingsController controller;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        controller = new SettingsController();
+        controller.setCallbackQueue(callbackQueue);
+    }
+
+    @Test
+    public void shouldReturnCallbackQueueStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("async", true);
+        statistics.put("queueDepth", 3);
+        statistics.put("processed", 42L);
+        when(callbackQueue.getStatistics()).thenReturn(statistics);
+
+        assertEquals(statistics, controller.getCallbackStatistics());
+    }
+}